@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.simulation.GreedyInputPolicy;
+
+/**
+ * Recorded input for a single player game, to be replayed by the benchmarks.
+ * 
+ * A trace is recorded once, using fixed random seeds for the tetromino generator, the gap generator and the input
+ * itself. Replaying the trace against an engine created by {@link #createEngine()} results in exactly the same sequence
+ * of game states every time.
+ * 
+ * Input states are cached per combination of pressed inputs, so that replaying a trace does not result in new
+ * objects.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class InputTrace {
+    /** Per bit mask of pressed inputs: singleton list containing the corresponding input state. */
+    private static final List<List<InputState<Input>>> INPUT_STATES = Collections.unmodifiableList(
+            IntStream.range(0, 1 << Input.values().length)
+                .mapToObj(InputTrace::createInputState)
+                .map(Collections::singletonList)
+                .collect(Collectors.toList()));
+
+    /** Behavior of the recorded game. */
+    @Getter
+    @NonNull
+    private final Behavior behavior;
+    /** Random seed for the tetromino and gap generators. */
+    @Getter
+    private final long seed;
+    /** Per frame: bit mask of the pressed inputs, where bit i corresponds to the input with ordinal i. */
+    @NonNull
+    private final int[] inputs;
+
+    /**
+     * Creates an input state.
+     * 
+     * @param mask bit mask of the pressed inputs
+     * @return input state
+     */
+    private static InputState<Input> createInputState(int mask) {
+        return input -> (mask & 1 << input.ordinal()) != 0;
+    }
+
+    /**
+     * Records a trace by playing a single player game.
+     * 
+     * Most blocks are placed by {@link GreedyInputPolicy}, so that lines are actually scored and the game does not end
+     * too quickly. Every eighth block is subject to random input instead, to make sure that the grid also contains
+     * holes and overhangs.
+     * 
+     * @param behavior behavior
+     * @param seed random seed for the tetromino and gap generators
+     * @param inputSeed random seed for the random input
+     * @param maxFrames maximum number of frames; the trace is shorter if the game ends before this number is reached
+     * @return trace
+     */
+    public static InputTrace record(@NonNull Behavior behavior, long seed, long inputSeed, int maxFrames) {
+        InputTrace trace = new InputTrace(behavior, seed, new int[0]);
+        OnePlayerEngine engine = trace.createEngine();
+        Random random = new Random(inputSeed);
+
+        int[] inputs = new int[maxFrames];
+        int length = 0;
+        int pressed = 0;
+        for (OnePlayerGameState state = engine.initGameState(); length != maxFrames && !state.isGameOver(); length++) {
+            if (state.getBlockCounter() % 8 != 0) {
+                pressed = toMask(GreedyInputPolicy.INSTANCE.getInputState(state));
+            } else if (random.nextInt(5) == 0) {
+                // change the inputs, but mostly hold them for a while
+                pressed = random.nextInt(1 << Input.values().length) & random.nextInt(1 << Input.values().length);
+            }
+            inputs[length] = pressed;
+            state = engine.computeNextState(state, INPUT_STATES.get(pressed));
+        }
+
+        int[] result = new int[length];
+        System.arraycopy(inputs, 0, result, 0, length);
+        return new InputTrace(behavior, seed, result);
+    }
+
+    /**
+     * Converts an input state to a bit mask.
+     * 
+     * @param inputState input state
+     * @return bit mask of the pressed inputs
+     */
+    private static int toMask(InputState<Input> inputState) {
+        int result = 0;
+        for (Input input : Input.values()) {
+            if (inputState.isPressed(input)) {
+                result = result | 1 << input.ordinal();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new engine, with generators in the same initial state as the ones used to record this trace.
+     * 
+     * @return engine
+     */
+    public OnePlayerEngine createEngine() {
+        return new OnePlayerEngine(new RandomTetrominoGenerator(seed), behavior, 0,
+                new GapGenerator(seed, OnePlayerGameState.DEFAULT_WIDTH));
+    }
+
+    /**
+     * Creates a new in-place engine, with generators in the same initial state as the ones used to record this trace.
+     * 
+     * @return engine
+     */
+    public InPlaceOnePlayerEngine createInPlaceEngine() {
+        return new InPlaceOnePlayerEngine(new RandomTetrominoGenerator(seed), behavior, 0,
+                new GapGenerator(seed, OnePlayerGameState.DEFAULT_WIDTH));
+    }
+
+    /** @return number of frames in this trace */
+    public int getLength() {
+        return inputs.length;
+    }
+
+    /**
+     * Returns the input state for the given frame.
+     * 
+     * @param frame frame index; must be less than the length of this trace
+     * @return input state
+     */
+    public InputState<Input> getInputState(int frame) {
+        return getInputStates(frame).get(0);
+    }
+
+    /**
+     * Returns the input states for the given frame, in the form expected by
+     * {@link OnePlayerEngine#computeNextState(OnePlayerGameState, List)}.
+     * 
+     * @param frame frame index; must be less than the length of this trace
+     * @return singleton list containing the input state
+     */
+    public List<InputState<Input>> getInputStates(int frame) {
+        return INPUT_STATES.get(inputs[frame]);
+    }
+
+    /**
+     * Replays this trace using a new engine.
+     * 
+     * @return all game states in the recorded game, starting with the initial state
+     */
+    public List<OnePlayerGameState> replay() {
+        OnePlayerEngine engine = createEngine();
+        List<OnePlayerGameState> result = new ArrayList<>(inputs.length + 1);
+        OnePlayerGameState state = engine.initGameState();
+        result.add(state);
+        for (int frame = 0; frame != inputs.length; frame++) {
+            state = engine.computeNextState(state, getInputStates(frame));
+            result.add(state);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link MultiplayerEngine#computeNextState(MultiplayerGameState, List)}.
+ * 
+ * Each player's input is replayed from a separately recorded trace, so that the players do not all make the same
+ * moves. Since the players send each other garbage, the replayed games will diverge from the recorded ones; however
+ * the resulting sequence of states is still the same every time. When the game ends, or when the end of the shortest
+ * trace is reached, the game starts over from the initial state.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplayerEngineBenchmark {
+    /** Number of frames to record. */
+    private static final int FRAMES = 10_000;
+
+    /** Behavior. */
+    @Param({ "TINUSTRIS" })
+    private Behavior behavior;
+
+    /** Number of players. */
+    @Param({ "2", "4", "8", "16", "32", "64" })
+    private int numberOfPlayers;
+
+    /** Whether the players' states are computed in parallel, on the common fork-join pool. */
+    @Param({ "false", "true" })
+    private boolean parallel;
+
+    /** Recorded input, per player. */
+    private List<InputTrace> traces;
+    /** Number of frames which can be replayed before starting over. */
+    private int length;
+    /** Engine. */
+    private MultiplayerEngine engine;
+    /** Current game state. */
+    private MultiplayerGameState state;
+    /** Input states for the current frame. This list is reused between frames. */
+    private List<InputState<Input>> inputStates;
+    /** Index of the next frame in the traces. */
+    private int frame;
+
+    /** Records the input traces and initialises the engine. */
+    @Setup
+    public void setUp() {
+        traces = new ArrayList<>(numberOfPlayers);
+        inputStates = new ArrayList<>(numberOfPlayers);
+        length = FRAMES;
+        for (int player = 0; player != numberOfPlayers; player++) {
+            InputTrace trace = InputTrace.record(behavior, 0L, player, FRAMES);
+            traces.add(trace);
+            inputStates.add(null);
+            length = Math.min(length, trace.getLength());
+        }
+        OnePlayerEngine onePlayerEngine = traces.get(0).createEngine();
+        if (parallel) {
+            engine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine, ForkJoinPool.commonPool());
+        } else {
+            engine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine);
+        }
+        restart();
+    }
+
+    /** Starts the game over from the initial state. */
+    private void restart() {
+        state = engine.initGameState();
+        frame = 0;
+    }
+
+    /**
+     * Computes the next frame.
+     * 
+     * @return new game state
+     */
+    @Benchmark
+    public MultiplayerGameState computeNextState() {
+        if (frame == length || state.isGameOver()) {
+            restart();
+        }
+        for (int player = 0; player != numberOfPlayers; player++) {
+            inputStates.set(player, traces.get(player).getInputState(frame));
+        }
+        frame++;
+        state = engine.computeNextState(state, inputStates);
+        return state;
+    }
+}
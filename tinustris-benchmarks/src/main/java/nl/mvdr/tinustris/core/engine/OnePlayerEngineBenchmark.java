@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameStateBuffer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link OnePlayerEngine#computeNextState(OnePlayerGameState, List)}, and for its in-place counterpart
+ * {@link InPlaceOnePlayerEngine#computeNextState(OnePlayerGameStateBuffer, List)}.
+ * 
+ * Each invocation computes a single frame of a recorded game. When the end of the trace is reached, the game starts
+ * over from the initial state.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnePlayerEngineBenchmark {
+    /** Number of frames to record. */
+    private static final int FRAMES = 10_000;
+
+    /** Behavior. */
+    @Param({ "TINUSTRIS", "GAME_BOY", "NES", "THE_GRANDMASTER", "THE_GRANDMASTER_2_NORMAL", "THE_GRANDMASTER_2_MASTER",
+            "ALWAYS_20_G" })
+    private Behavior behavior;
+
+    /** Recorded input. */
+    private InputTrace trace;
+    /** Engine. */
+    private OnePlayerEngine engine;
+    /** Current game state. */
+    private OnePlayerGameState state;
+    /** In-place engine. */
+    private InPlaceOnePlayerEngine inPlaceEngine;
+    /** Current game state for the in-place engine. */
+    private OnePlayerGameStateBuffer buffer;
+    /** Index of the next frame in the trace. */
+    private int frame;
+
+    /** Records the input trace and initialises the engines. */
+    @Setup
+    public void setUp() {
+        trace = InputTrace.record(behavior, 0L, 0L, FRAMES);
+        engine = trace.createEngine();
+        inPlaceEngine = trace.createInPlaceEngine();
+        restart();
+    }
+
+    /** Starts the game over from the initial state. */
+    private void restart() {
+        state = engine.initGameState();
+        buffer = inPlaceEngine.initGameState();
+        frame = 0;
+    }
+
+    /**
+     * Advances to the next frame of the trace.
+     * 
+     * @return index of the frame to be computed
+     */
+    private int nextFrame() {
+        if (frame == trace.getLength()) {
+            restart();
+        }
+        int result = frame;
+        frame++;
+        return result;
+    }
+
+    /**
+     * Computes the next frame using {@link OnePlayerEngine}.
+     * 
+     * @return new game state
+     */
+    @Benchmark
+    public OnePlayerGameState computeNextState() {
+        state = engine.computeNextState(state, trace.getInputStates(nextFrame()));
+        return state;
+    }
+
+    /**
+     * Computes the next frame using {@link InPlaceOnePlayerEngine}.
+     * 
+     * @return updated game state buffer
+     */
+    @Benchmark
+    public OnePlayerGameStateBuffer computeNextStateInPlace() {
+        return inPlaceEngine.computeNextState(buffer, trace.getInputStates(nextFrame()));
+    }
+}
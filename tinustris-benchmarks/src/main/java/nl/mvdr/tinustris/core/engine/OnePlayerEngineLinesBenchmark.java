@@ -0,0 +1,122 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for line removal and garbage line insertion in {@link OnePlayerEngine}.
+ * 
+ * Since these are private parts of the engine, they are measured by computing a single frame from a prepared game
+ * state, in which the engine is certain to remove lines or add garbage lines respectively. The prepared states are
+ * based on the stack from a recorded game. The rest of the frame (such as processing gravity and input) is included in
+ * the measurements; the results for zero lines can be used as a baseline.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnePlayerEngineLinesBenchmark {
+    /** Number of frames to record. */
+    private static final int FRAMES = 10_000;
+
+    /** Number of lines to be removed or added. */
+    @Param({ "0", "1", "2", "4", "8" })
+    private int lines;
+
+    /** Input states, in which no input is pressed. */
+    private List<InputState<Input>> inputStates;
+    /** Engine. */
+    private OnePlayerEngine engine;
+    /** Game state in which full lines are about to disappear. */
+    private OnePlayerGameState removeLinesState;
+    /** Game state in which the next block is about to spawn, with garbage lines pending. */
+    private OnePlayerGameState addGarbageLinesState;
+
+    /** Records a game and prepares the game states. */
+    @Setup
+    public void setUp() {
+        InputTrace trace = InputTrace.record(Behavior.TINUSTRIS, 0L, 0L, FRAMES);
+        engine = trace.createEngine();
+        inputStates = Collections.singletonList(input -> false);
+
+        // use the last state in between two blocks, without any full lines
+        List<OnePlayerGameState> states = trace.replay();
+        OnePlayerGameState base = IntStream.range(0, states.size())
+            .map(i -> states.size() - 1 - i)
+            .mapToObj(states::get)
+            .filter(state -> !state.getActiveTetromino().isPresent())
+            .filter(state -> state.getNumFramesUntilLinesDisappear() == 0)
+            .filter(state -> IntStream.range(0, state.getHeight()).noneMatch(state::isFullLine))
+            .findFirst()
+            .get();
+
+        // insert full lines at the bottom of the stack
+        Grid grid = base.getGrid();
+        for (int i = 0; i != lines; i++) {
+            grid = grid.withGarbageLine(-1);
+        }
+        removeLinesState = base.withGrid(grid)
+            .withNumFramesUntilLinesDisappear(1)
+            .withNumFramesSinceLastLock(0);
+
+        addGarbageLinesState = base.withNumFramesSinceLastLock(FRAMES)
+            .withGarbageLines(lines);
+    }
+
+    /**
+     * Computes a frame in which full lines are removed from the grid.
+     * 
+     * @return new game state
+     */
+    @Benchmark
+    public OnePlayerGameState removeLines() {
+        return engine.computeNextState(removeLinesState, inputStates);
+    }
+
+    /**
+     * Computes a frame in which the next block is spawned and garbage lines are added to the grid.
+     * 
+     * @return new game state
+     */
+    @Benchmark
+    public OnePlayerGameState addGarbageLines() {
+        return engine.computeNextState(addGarbageLinesState, inputStates);
+    }
+}
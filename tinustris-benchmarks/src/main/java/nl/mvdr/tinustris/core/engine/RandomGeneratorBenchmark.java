@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link RandomGenerator#get(int)}.
+ * 
+ * Values are requested either in order from a fresh generator, in which case each invocation generates a new value, or
+ * in a fixed random order from a generator which has already generated all of the requested values. The latter is
+ * done both by a single thread and by multiple threads sharing the same generator, as in a multiplayer game.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomGeneratorBenchmark {
+    /** Number of values in the pregenerated generator. */
+    private static final int SIZE = 4096;
+
+    /** Generator which has already generated {@value #SIZE} values. */
+    private RandomTetrominoGenerator pregenerated;
+    /** Indices to be requested from the pregenerated generator, in a fixed random order. */
+    private int[] indices;
+
+    /** Initialises the pregenerated generator. */
+    @Setup
+    public void setUp() {
+        pregenerated = new RandomTetrominoGenerator(0L);
+        pregenerated.get(SIZE - 1);
+
+        Random random = new Random(0L);
+        indices = new int[SIZE];
+        for (int i = 0; i != SIZE; i++) {
+            indices[i] = random.nextInt(SIZE);
+        }
+    }
+
+    /** Per-thread state, keeping track of the values to be requested. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        /** Fresh generator. */
+        private RandomTetrominoGenerator generator;
+        /** Index of the next value to be requested. */
+        private int index;
+
+        /** Creates a new generator at the start of each iteration, so that the generator's size is bounded. */
+        @Setup(Level.Iteration)
+        public void setUp() {
+            generator = new RandomTetrominoGenerator(0L);
+            index = 0;
+        }
+
+        /**
+         * Advances to the next value.
+         * 
+         * @return index of the value to be requested
+         */
+        private int next() {
+            int result = index;
+            index++;
+            return result;
+        }
+    }
+
+    /**
+     * Requests the next value from a fresh generator.
+     * 
+     * @param cursor per-thread state
+     * @return value
+     */
+    @Benchmark
+    public Tetromino getNew(Cursor cursor) {
+        return cursor.generator.get(cursor.next());
+    }
+
+    /**
+     * Requests a previously generated value.
+     * 
+     * @param cursor per-thread state
+     * @return value
+     */
+    @Benchmark
+    public Tetromino getExisting(Cursor cursor) {
+        return pregenerated.get(indices[cursor.next() % SIZE]);
+    }
+
+    /**
+     * Requests a previously generated value, while other threads do the same.
+     * 
+     * @param cursor per-thread state
+     * @return value
+     */
+    @Benchmark
+    @Threads(4)
+    public Tetromino getExistingConcurrently(Cursor cursor) {
+        return pregenerated.get(indices[cursor.next() % SIZE]);
+    }
+}
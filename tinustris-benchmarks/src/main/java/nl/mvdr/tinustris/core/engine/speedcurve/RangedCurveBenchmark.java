@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine.speedcurve;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link RangedCurve#getValue(int)}.
+ * 
+ * The curve consists of the given number of ranges, evenly spread over levels 0 through 999, the level range used by
+ * The Grand Master. The existing speed curves contain between 2 and 30 ranges.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RangedCurveBenchmark {
+    /** Number of keys to look up. */
+    private static final int KEYS = 1000;
+
+    /** Number of ranges in the curve. */
+    @Param({ "2", "8", "30" })
+    private int ranges;
+
+    /** Curve. */
+    private RangedCurve curve;
+    /** Keys to be looked up, in a fixed random order. */
+    private int[] keys;
+    /** Index of the next key. */
+    private int index;
+
+    /** Initialises the curve and the keys. */
+    @Setup
+    public void setUp() {
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i != ranges; i++) {
+            map.put(Integer.valueOf(i * KEYS / ranges), Integer.valueOf(i));
+        }
+        curve = new RangedCurve(map);
+
+        Random random = new Random(0L);
+        keys = new int[KEYS];
+        for (int i = 0; i != KEYS; i++) {
+            keys[i] = random.nextInt(KEYS);
+        }
+        index = 0;
+    }
+
+    /**
+     * Looks up the value for the next key.
+     * 
+     * @return value
+     */
+    @Benchmark
+    public int getValue() {
+        int key = keys[index];
+        index = (index + 1) % KEYS;
+        return curve.getValue(key);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.InputTrace;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark for {@link OnePlayerGameState#getGhostLocation()}.
+ * 
+ * The ghost location is computed for each state with an active block in a recorded game, in order.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnePlayerGameStateBenchmark {
+    /** Number of frames to record. */
+    private static final int FRAMES = 10_000;
+
+    /** Recorded game states which have an active block. */
+    private OnePlayerGameState[] states;
+    /** Index of the next state. */
+    private int index;
+
+    /** Records a game. */
+    @Setup
+    public void setUp() {
+        states = InputTrace.record(Behavior.TINUSTRIS, 0L, 0L, FRAMES)
+            .replay()
+            .stream()
+            .filter(state -> state.getActiveTetromino().isPresent())
+            .toArray(OnePlayerGameState[]::new);
+        index = 0;
+    }
+
+    /**
+     * Computes the ghost location for the next recorded state.
+     * 
+     * @return ghost location
+     */
+    @Benchmark
+    public Optional<Point> getGhostLocation() {
+        OnePlayerGameState state = states[index];
+        index = (index + 1) % states.length;
+        return state.getGhostLocation();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.Optional;
+
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.game.gui.GameRenderer;
+import nl.mvdr.game.input.InputController;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+import nl.mvdr.tinustris.core.replay.InputMask;
+
+/**
+ * Input controller for a computer-controlled player.
+ * 
+ * The controller needs to see the game in order to play it, so it doubles as a renderer: it should be passed every
+ * new state of its player's game. When a new tetromino appears, the controller plans where to place it, using a
+ * {@link PlacementPlanner}; if the plan is for the next tetromino, it presses hold first. Every frame it then searches
+ * the path from the tetromino's current position to the planned placement and presses the first input along it.
+ * Since the path is recomputed every frame, the controller keeps up with gravity without knowing the speed curve; if
+ * the placement becomes unreachable, it makes a new plan.
+ * 
+ * The game engine ignores an input which is held down, so the controller never presses the same input in two
+ * consecutive frames. Instances of this class are not thread-safe, except that the state may be passed in from a
+ * different thread than the one polling the inputs.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = { "planner", "placement" })
+public class BotInputController implements InputController<Input>, GameRenderer<OnePlayerGameState> {
+    /** Input state where nothing is pressed. */
+    private static final InputState<Input> NOTHING_PRESSED = InputMask.toInputState(0);
+
+    /** Planner. */
+    private final PlacementPlanner planner;
+    /** Latest state of the game, or null if the game has not started yet. */
+    private volatile OnePlayerGameState state;
+    /** Search space for the path to the planned placement; created once the grid dimensions are known. */
+    private MoveGenerator generator;
+    /** Planned placement for the active tetromino. */
+    private Optional<Placement> placement;
+    /** Block counter at the time of the latest plan. */
+    private int plannedBlockCounter;
+    /** Block counter at the time hold was last pressed. */
+    private int heldBlockCounter;
+
+    /**
+     * Constructor.
+     * 
+     * @param heuristic
+     *            heuristic used to evaluate placements
+     */
+    public BotInputController(@NonNull Heuristic heuristic) {
+        super();
+
+        this.planner = new PlacementPlanner(heuristic);
+        this.placement = Optional.empty();
+        this.plannedBlockCounter = -1;
+        this.heldBlockCounter = -1;
+    }
+
+    /**
+     * Receives the latest state of the game.
+     * 
+     * @param gameState
+     *            game state
+     */
+    @Override
+    public void render(@NonNull OnePlayerGameState gameState) {
+        this.state = gameState;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputState<Input> getInputState() {
+        OnePlayerGameState gameState = state;
+        InputState<Input> result = NOTHING_PRESSED;
+        if (gameState != null && gameState.getActiveTetromino().isPresent()) {
+            Optional<Input> input = determineInput(gameState);
+            if (input.isPresent() && gameState.getInputStateHistory().getNumberOfFrames(input.get()) == 0) {
+                if (input.get() == Input.HOLD) {
+                    heldBlockCounter = gameState.getBlockCounter();
+                }
+                result = InputMask.toInputState(input.get());
+            }
+            // otherwise the input would be ignored; release it for a frame
+        }
+        return result;
+    }
+
+    /**
+     * Determines the input which brings the active tetromino closer to the planned placement, making a new plan if
+     * necessary.
+     * 
+     * @param gameState
+     *            game state; must have an active tetromino
+     * @return input; empty if there is nothing to do
+     */
+    private Optional<Input> determineInput(OnePlayerGameState gameState) {
+        if (plannedBlockCounter != gameState.getBlockCounter()) {
+            plannedBlockCounter = gameState.getBlockCounter();
+            placement = planner.plan(gameState, true);
+        }
+
+        Tetromino active = gameState.getActiveTetromino().get();
+        Optional<Input> result;
+        if (placement.isPresent() && placement.get().getTetromino() != active
+                && heldBlockCounter != gameState.getBlockCounter()) {
+            result = Optional.of(Input.HOLD);
+        } else {
+            int index = findPlacement(gameState);
+            if (index < 0) {
+                // planned placement is no longer reachable; plan again, from the current position
+                placement = planner.plan(gameState, false);
+                index = findPlacement(gameState);
+            }
+
+            if (0 <= index) {
+                result = Optional.of(generator.getFirstInput(index));
+            } else {
+                result = Optional.empty();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Searches the paths from the active tetromino's current position and looks up the planned placement.
+     * 
+     * @param gameState
+     *            game state; must have an active tetromino
+     * @return index of the planned placement in {@link #generator}, or -1 if it cannot be reached
+     */
+    private int findPlacement(OnePlayerGameState gameState) {
+        int result;
+        Tetromino active = gameState.getActiveTetromino().get();
+        if (placement.isPresent() && placement.get().getTetromino() == active) {
+            Grid grid = gameState.getGrid();
+            if (generator == null || generator.getWidth() != grid.getWidth()
+                    || generator.getHeight() != grid.getHeight()) {
+                generator = new MoveGenerator(grid.getWidth(), grid.getHeight());
+            }
+            Point location = gameState.getCurrentBlockLocation().get();
+            generator.search(grid, active, location.getX(), location.getY(),
+                    gameState.getCurrentBlockOrientation().get());
+            Point target = placement.get().getLocation();
+            result = generator.indexOf(target.getX(), target.getY(), placement.get().getOrientation());
+        } else {
+            result = -1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import nl.mvdr.tinustris.core.model.BitGrid;
+
+/**
+ * Heuristic which scores the grid resulting from the placement of one or more tetrominoes.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@FunctionalInterface
+public interface Heuristic {
+    /**
+     * Evaluates a grid.
+     * 
+     * @param grid
+     *            grid, after the placed tetrominoes have been locked and any full lines have been removed
+     * @param lines
+     *            number of lines scored by the placed tetrominoes
+     * @return score; higher is better
+     */
+    int evaluate(BitGrid grid, int lines);
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.GeneratorSnapshot;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.simulation.InputPolicy;
+import nl.mvdr.tinustris.core.simulation.InputPolicyFactory;
+
+/**
+ * Scores every reachable placement of the active tetromino by playing out random continuations of the game.
+ * 
+ * For each placement, the tetromino is locked in place using a {@link OnePlayerEngine}, after which the game is played
+ * on by an input policy for a fixed number of tetrominoes. Each rollout uses its own random tetromino sequence; rollout
+ * k uses the same sequence for every placement, so that differences between placements are not drowned out by
+ * differences between sequences.
+ * 
+ * The placements are enumerated using a {@link PlacementCache}, which may be shared with other analyzers and bots. The
+ * generators for a rollout are restored from snapshots which start at the game state's next tetromino and gap, so that
+ * no values need to be generated for the part of the game which has already been played.
+ * 
+ * Rollouts are computed in parallel on a fork-join pool, and the analysis can be cut short by a time limit. Rollouts
+ * are started in rounds, where each round contains one rollout for every placement; only complete rounds are taken
+ * into account, and their results are added up in a fixed order. As a result, any two analyses of the same state,
+ * with the same seed, which complete the same number of rounds give the same statistics, regardless of the number of
+ * threads.
+ * 
+ * Instances of this class are thread-safe as long as the input policy factory is.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+@ToString
+@Getter
+public class MonteCarloAnalyzer {
+    /** Maximum number of frames per tetromino in a rollout, to cut off policies which do not drop tetrominoes. */
+    private static final int MAX_FRAMES_PER_TETROMINO = 600;
+    /** Input state where only hard drop is pressed. */
+    private static final InputState<Input> HARD_DROP = input -> input == Input.HARD_DROP;
+
+    /** Behavior. */
+    @NonNull
+    private final Behavior behavior;
+    /** Factory for the input policy used to play out the rollouts. */
+    @NonNull
+    private final InputPolicyFactory policyFactory;
+    /** Cache for the reachable placements of the active tetromino. */
+    @NonNull
+    private final PlacementCache cache;
+    /** Number of rollouts per placement. */
+    private final int rollouts;
+    /** Number of tetrominoes played in each rollout, after the placement itself. */
+    private final int depth;
+    /** Pool on which the rollouts are computed. */
+    @NonNull
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor.
+     * 
+     * @param behavior
+     *            behavior
+     * @param policyFactory
+     *            factory for the input policy used to play out the rollouts
+     * @param cache
+     *            cache for the reachable placements of the active tetromino; may be shared
+     * @param rollouts
+     *            number of rollouts per placement; must be at least 1
+     * @param depth
+     *            number of tetrominoes played in each rollout, after the placement itself; must not be negative
+     * @param pool
+     *            pool on which the rollouts are computed
+     */
+    public MonteCarloAnalyzer(@NonNull Behavior behavior, @NonNull InputPolicyFactory policyFactory,
+            @NonNull PlacementCache cache, int rollouts, int depth, @NonNull ForkJoinPool pool) {
+        super();
+
+        if (rollouts < 1) {
+            throw new IllegalArgumentException("At least one rollout is required, was: " + rollouts);
+        }
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative, was: " + depth);
+        }
+
+        this.behavior = behavior;
+        this.policyFactory = policyFactory;
+        this.cache = cache;
+        this.rollouts = rollouts;
+        this.depth = depth;
+        this.pool = pool;
+    }
+
+    /**
+     * Analyses all reachable placements of the active tetromino.
+     * 
+     * This method blocks until all rollouts are complete or the time limit has passed. It should not be called from
+     * the game loop thread.
+     * 
+     * @param state
+     *            game state
+     * @param seed
+     *            random seed, from which the seeds for the tetromino sequences and input policies are derived
+     * @param timeout
+     *            maximum time to spend on the analysis
+     * @param unit
+     *            unit of the timeout
+     * @return statistics for each reachable placement, in a fixed order; empty if there is no active tetromino
+     */
+    public List<PlacementStatistics> analyze(@NonNull OnePlayerGameState state, long seed, long timeout,
+            @NonNull TimeUnit unit) {
+        List<PlacementStatistics> result;
+        if (state.getActiveTetromino().isPresent()) {
+            List<Placement> placements = new PlacementEnumerator(cache).enumerate(state);
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            Rollouts work = new Rollouts(state, placements, seed, deadline);
+
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(pool.getParallelism());
+            for (int i = 0; i != pool.getParallelism(); i++) {
+                tasks.add(pool.submit(work::run));
+            }
+            tasks.forEach(ForkJoinTask::join);
+
+            result = work.merge();
+        } else {
+            result = Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * Performs a single rollout.
+     * 
+     * @param state
+     *            initial game state
+     * @param placement
+     *            placement of the active tetromino
+     * @param rolloutSeed
+     *            random seed for the tetromino sequence and the input policy
+     * @param deadline
+     *            value of {@link System#nanoTime()} after which the rollout is abandoned
+     * @return final game state of the rollout, or null if it was abandoned
+     */
+    private OnePlayerGameState rollout(OnePlayerGameState state, Placement placement, long rolloutSeed,
+            long deadline) {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(
+                GeneratorSnapshot.fromSeed(OnePlayerEngine.getNextTetrominoIndex(state), rolloutSeed));
+        GapGenerator gapGenerator = new GapGenerator(
+                GeneratorSnapshot.fromSeed(OnePlayerEngine.getNextGapIndex(state), rolloutSeed),
+                state.getGrid().getWidth());
+        OnePlayerEngine engine = new OnePlayerEngine(generator, behavior, state.getLevel(), gapGenerator);
+        InputPolicy policy = policyFactory.createPolicy(rolloutSeed);
+
+        // move the tetromino straight to its placement and lock it there
+        OnePlayerGameState result = state.withCurrentBlockLocation(Optional.of(placement.getLocation()))
+                .withCurrentBlockOrientation(Optional.of(placement.getOrientation()))
+                .withInputStateHistory(InputStateHistory.NEW);
+        result = engine.computeNextState(result, Collections.singletonList(HARD_DROP));
+
+        int lastBlock = state.getBlockCounter() + 1 + depth;
+        int maxFrames = (depth + 1) * MAX_FRAMES_PER_TETROMINO;
+        int frame = 0;
+        while (result != null && !result.isGameOver() && result.getBlockCounter() != lastBlock
+                && frame != maxFrames) {
+            if (deadline - System.nanoTime() < 0) {
+                result = null;
+            } else {
+                result = engine.computeNextState(result,
+                        Collections.singletonList(policy.getInputState(result)));
+                frame++;
+            }
+        }
+        return result;
+    }
+
+    /** Rollouts for a single analysis, shared by all worker tasks. */
+    @ToString(of = { "placements", "seed" })
+    private class Rollouts {
+        /** Initial game state. */
+        private final OnePlayerGameState state;
+        /** Placements. */
+        private final List<Placement> placements;
+        /** Random seed. */
+        private final long seed;
+        /** Value of {@link System#nanoTime()} after which no more rollouts are started. */
+        private final long deadline;
+        /** Index of the next rollout to be started. Rollout i is rollout i / n for placement i % n. */
+        private final AtomicInteger next;
+        /** Per rollout: number of lines scored. */
+        private final int[] lines;
+        /** Per rollout: whether the game was lost. */
+        private final boolean[] toppedOut;
+        /** Per rollout: whether it was completed. */
+        private final boolean[] completed;
+
+        /**
+         * Constructor.
+         * 
+         * @param state
+         *            initial game state
+         * @param placements
+         *            placements to be analysed
+         * @param seed
+         *            random seed
+         * @param deadline
+         *            value of {@link System#nanoTime()} after which no more rollouts are started
+         */
+        Rollouts(OnePlayerGameState state, List<Placement> placements, long seed, long deadline) {
+            super();
+
+            this.state = state;
+            this.placements = placements;
+            this.seed = seed;
+            this.deadline = deadline;
+            this.next = new AtomicInteger();
+            this.lines = new int[rollouts * placements.size()];
+            this.toppedOut = new boolean[lines.length];
+            this.completed = new boolean[lines.length];
+        }
+
+        /** Performs rollouts, in order, until they have all been started or the deadline has passed. */
+        void run() {
+            int index = next.getAndIncrement();
+            while (index < lines.length && 0 <= deadline - System.nanoTime()) {
+                int round = index / placements.size();
+                OnePlayerGameState result = rollout(state, placements.get(index % placements.size()),
+                        seed * rollouts + round, deadline);
+                if (result != null) {
+                    // each index is written by only one task; joining the tasks makes the writes visible
+                    lines[index] = result.getLines() - state.getLines();
+                    toppedOut[index] = result.isGameOver();
+                    completed[index] = true;
+                }
+                index = next.getAndIncrement();
+            }
+        }
+
+        /**
+         * Adds up the results of the complete rounds. Must only be called once all worker tasks have finished.
+         * 
+         * @return statistics for each placement
+         */
+        List<PlacementStatistics> merge() {
+            int rounds = 0;
+            while (rounds != rollouts && isCompleteRound(rounds)) {
+                rounds++;
+            }
+            if (rounds != rollouts) {
+                log.info("Time limit reached; {} out of {} rounds of rollouts completed.", Integer.valueOf(rounds),
+                        Integer.valueOf(rollouts));
+            }
+
+            List<PlacementStatistics> result = new ArrayList<>(placements.size());
+            for (int placement = 0; placement != placements.size(); placement++) {
+                int totalLines = 0;
+                int totalToppedOut = 0;
+                for (int round = 0; round != rounds; round++) {
+                    int index = round * placements.size() + placement;
+                    totalLines = totalLines + lines[index];
+                    if (toppedOut[index]) {
+                        totalToppedOut++;
+                    }
+                }
+                result.add(new PlacementStatistics(placements.get(placement), rounds, totalLines, totalToppedOut));
+            }
+            return result;
+        }
+
+        /**
+         * Checks whether all rollouts of the given round have been completed.
+         * 
+         * @param round
+         *            round index
+         * @return whether the round is complete
+         */
+        private boolean isCompleteRound(int round) {
+            boolean result = true;
+            for (int placement = 0; placement != placements.size(); placement++) {
+                result = result && completed[round * placements.size() + placement];
+            }
+            return result;
+        }
+    }
+}
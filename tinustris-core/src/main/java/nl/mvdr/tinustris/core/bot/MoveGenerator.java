@@ -0,0 +1,377 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.Arrays;
+
+import lombok.Getter;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.BitGrid;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Finds all placements a tetromino can reach from a given position, using a breadth-first search over its possible
+ * locations and orientations.
+ * 
+ * The moves follow the rules of the game engine: the tetromino can be moved left, right and down, and turned. If a
+ * turned tetromino does not fit, it is shifted one position to the right or, failing that, to the left. A placement is
+ * a position from which the tetromino cannot move down any further.
+ * 
+ * The search keeps track of the shortest path to each position, preferring to move sideways before moving down, so the
+ * first input on the way to a placement is available through {@link #getFirstInput(int)}. Note that the search does
+ * not take gravity into account; a controller following the path should search again every frame.
+ * 
+ * All memory is allocated up front, in the constructor, so searching does not allocate any memory. Instances of this
+ * class are not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = { "width", "height", "numberOfPlacements" })
+public class MoveGenerator {
+    /** All orientations. */
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+    /** All inputs. */
+    private static final Input[] INPUTS = Input.values();
+    /** Value for {@link #moves} indicating that a node is the starting point of the search. */
+    private static final byte START = -1;
+
+    /** Width of the grid. */
+    @Getter
+    private final int width;
+    /** Height of the grid. */
+    @Getter
+    private final int height;
+    /** Number of possible x coordinates; tetromino locations may be up to {@link CollisionMask#SIZE} out of bounds. */
+    private final int columns;
+    /** Number of possible y coordinates. */
+    private final int rows;
+    /** Collision masks of the tetromino being searched, indexed by orientation. */
+    private final CollisionMask[] masks;
+    /** Per node: value of {@link #generation} when the node was last visited. */
+    private final int[] visited;
+    /** Per node: node from which it was first reached. */
+    private final int[] parents;
+    /** Per node: ordinal of the input which was used to reach it from its parent, or {@link #START}. */
+    private final byte[] moves;
+    /** Queue of nodes to be expanded; since each node is enqueued at most once, this doubles as the list of nodes. */
+    private final int[] queue;
+    /** Placements found by the latest search. */
+    private final int[] placements;
+    /** Number of placements found by the latest search. */
+    @Getter
+    private int numberOfPlacements;
+    /** Generation counter, incremented for every search, so that the visited array never needs to be cleared. */
+    private int generation;
+
+    /**
+     * Constructor.
+     * 
+     * @param width
+     *            width of the grids to be searched
+     * @param height
+     *            height of the grids to be searched
+     */
+    public MoveGenerator(int width, int height) {
+        super();
+
+        this.width = width;
+        this.height = height;
+        this.columns = width + CollisionMask.SIZE;
+        this.rows = height + CollisionMask.SIZE;
+        int nodes = ORIENTATIONS.length * columns * rows;
+        this.masks = new CollisionMask[ORIENTATIONS.length];
+        this.visited = new int[nodes];
+        this.parents = new int[nodes];
+        this.moves = new byte[nodes];
+        this.queue = new int[nodes];
+        this.placements = new int[nodes];
+        this.numberOfPlacements = 0;
+        this.generation = 0;
+    }
+
+    /**
+     * Searches all placements which can be reached from the given position.
+     * 
+     * @param grid
+     *            grid; must have the dimensions passed into the constructor
+     * @param tetromino
+     *            tetromino
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @param orientation
+     *            the tetromino's orientation
+     * @return number of placements found; 0 if the tetromino does not fit at the given position
+     */
+    public int search(BitGrid grid, Tetromino tetromino, int x, int y, Orientation orientation) {
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a grid of " + width + " * " + height + ", was: "
+                    + grid.getWidth() + " * " + grid.getHeight());
+        }
+
+        for (int i = 0; i != ORIENTATIONS.length; i++) {
+            masks[i] = tetromino.getCollisionMask(ORIENTATIONS[i]);
+        }
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            generation = 0;
+        }
+        generation++;
+        numberOfPlacements = 0;
+
+        int head = 0;
+        int tail = 0;
+        if (masks[orientation.ordinal()].fits(grid, x, y)) {
+            int start = toNode(x, y, orientation.ordinal());
+            visited[start] = generation;
+            moves[start] = START;
+            queue[tail++] = start;
+        }
+        while (head != tail) {
+            int node = queue[head++];
+            int nodeX = decodeX(node);
+            int nodeY = decodeY(node);
+            int nodeOrientation = decodeOrientation(node);
+            CollisionMask mask = masks[nodeOrientation];
+
+            if (mask.fits(grid, nodeX - 1, nodeY)) {
+                tail = visit(node, nodeX - 1, nodeY, nodeOrientation, Input.LEFT, tail);
+            }
+            if (mask.fits(grid, nodeX + 1, nodeY)) {
+                tail = visit(node, nodeX + 1, nodeY, nodeOrientation, Input.RIGHT, tail);
+            }
+            tail = turn(grid, node, nodeX, nodeY, (nodeOrientation + 1) % ORIENTATIONS.length, Input.TURN_RIGHT,
+                    tail);
+            tail = turn(grid, node, nodeX, nodeY, (nodeOrientation + ORIENTATIONS.length - 1) % ORIENTATIONS.length,
+                    Input.TURN_LEFT, tail);
+            if (mask.fits(grid, nodeX, nodeY - 1)) {
+                tail = visit(node, nodeX, nodeY - 1, nodeOrientation, Input.SOFT_DROP, tail);
+            } else {
+                placements[numberOfPlacements++] = node;
+            }
+        }
+        return numberOfPlacements;
+    }
+
+    /**
+     * Turns the tetromino, shifting it to the right or to the left if it does not fit, the same way the game engine
+     * does.
+     * 
+     * @param grid
+     *            grid
+     * @param node
+     *            current node
+     * @param x
+     *            current x coordinate
+     * @param y
+     *            current y coordinate
+     * @param orientation
+     *            ordinal of the orientation after turning
+     * @param input
+     *            input used to turn
+     * @param tail
+     *            tail of the queue
+     * @return new tail of the queue
+     */
+    private int turn(BitGrid grid, int node, int x, int y, int orientation, Input input, int tail) {
+        CollisionMask mask = masks[orientation];
+        int result = tail;
+        if (mask.fits(grid, x, y)) {
+            result = visit(node, x, y, orientation, input, tail);
+        } else if (mask.fits(grid, x + 1, y)) {
+            result = visit(node, x + 1, y, orientation, input, tail);
+        } else if (mask.fits(grid, x - 1, y)) {
+            result = visit(node, x - 1, y, orientation, input, tail);
+        }
+        // otherwise the turn is cancelled
+        return result;
+    }
+
+    /**
+     * Visits the given position, enqueueing it if it has not been visited before.
+     * 
+     * @param parent
+     *            node from which the position is reached
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @param orientation
+     *            ordinal of the orientation
+     * @param input
+     *            input used to reach the position
+     * @param tail
+     *            tail of the queue
+     * @return new tail of the queue
+     */
+    private int visit(int parent, int x, int y, int orientation, Input input, int tail) {
+        int node = toNode(x, y, orientation);
+        int result = tail;
+        if (visited[node] != generation) {
+            visited[node] = generation;
+            parents[node] = parent;
+            moves[node] = (byte) input.ordinal();
+            queue[result++] = node;
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a position as a node index.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @param orientation
+     *            ordinal of the orientation
+     * @return node index
+     */
+    private int toNode(int x, int y, int orientation) {
+        return (orientation * columns + x + CollisionMask.SIZE) * rows + y + CollisionMask.SIZE;
+    }
+
+    /**
+     * Decodes the x coordinate of a node.
+     * 
+     * @param node
+     *            node index
+     * @return x coordinate
+     */
+    private int decodeX(int node) {
+        return node / rows % columns - CollisionMask.SIZE;
+    }
+
+    /**
+     * Decodes the y coordinate of a node.
+     * 
+     * @param node
+     *            node index
+     * @return y coordinate
+     */
+    private int decodeY(int node) {
+        return node % rows - CollisionMask.SIZE;
+    }
+
+    /**
+     * Decodes the orientation of a node.
+     * 
+     * @param node
+     *            node index
+     * @return ordinal of the orientation
+     */
+    private int decodeOrientation(int node) {
+        return node / rows / columns;
+    }
+
+    /**
+     * Returns the x coordinate of the given placement.
+     * 
+     * @param placement
+     *            placement index; must be less than {@link #getNumberOfPlacements()}
+     * @return x coordinate of the tetromino's location
+     */
+    public int getX(int placement) {
+        return decodeX(placements[checkPlacement(placement)]);
+    }
+
+    /**
+     * Returns the y coordinate of the given placement.
+     * 
+     * @param placement
+     *            placement index; must be less than {@link #getNumberOfPlacements()}
+     * @return y coordinate of the tetromino's location
+     */
+    public int getY(int placement) {
+        return decodeY(placements[checkPlacement(placement)]);
+    }
+
+    /**
+     * Returns the orientation of the given placement.
+     * 
+     * @param placement
+     *            placement index; must be less than {@link #getNumberOfPlacements()}
+     * @return the tetromino's orientation
+     */
+    public Orientation getOrientation(int placement) {
+        return ORIENTATIONS[decodeOrientation(placements[checkPlacement(placement)])];
+    }
+
+    /**
+     * Finds the given placement among the results of the latest search.
+     * 
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @param orientation
+     *            the tetromino's orientation
+     * @return placement index, or -1 if the placement was not found
+     */
+    public int indexOf(int x, int y, Orientation orientation) {
+        int node = toNode(x, y, orientation.ordinal());
+        int result = -1;
+        for (int i = 0; result == -1 && i != numberOfPlacements; i++) {
+            if (placements[i] == node) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first input on the shortest path from the starting position to the given placement.
+     * 
+     * @param placement
+     *            placement index; must be less than {@link #getNumberOfPlacements()}
+     * @return first input; {@link Input#HARD_DROP} if the tetromino only needs to move straight down to reach the
+     *         given placement
+     */
+    public Input getFirstInput(int placement) {
+        int node = placements[checkPlacement(placement)];
+        Input result = Input.HARD_DROP;
+        boolean dropOnly = true;
+        while (moves[node] != START) {
+            result = INPUTS[moves[node]];
+            dropOnly = dropOnly && result == Input.SOFT_DROP;
+            node = parents[node];
+        }
+        if (dropOnly) {
+            // the tetromino only needs to move straight down, and lock
+            result = Input.HARD_DROP;
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the given placement index is valid.
+     * 
+     * @param placement
+     *            placement index
+     * @return placement index
+     * @throws IndexOutOfBoundsException
+     *             if the index is out of bounds
+     */
+    private int checkPlacement(int placement) {
+        if (placement < 0 || numberOfPlacements <= placement) {
+            throw new IndexOutOfBoundsException("Placement: " + placement + ", number of placements: "
+                    + numberOfPlacements);
+        }
+        return placement;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Position where a tetromino is to be locked in place.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@Getter
+@ToString
+public class Placement {
+    /** Tetromino. */
+    @NonNull
+    private final Tetromino tetromino;
+    /** The tetromino's orientation. */
+    @NonNull
+    private final Orientation orientation;
+    /** The tetromino's location. */
+    @NonNull
+    private final Point location;
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Bounded cache of reachable placements, which can be shared between threads.
+ * 
+ * Entries are keyed by a 64-bit hash of the grid's occupancy and the tetromino's starting position, see
+ * {@link #key(Grid, Tetromino, int, int, Orientation)}. The cache is a fixed-size open addressing table, stored in a
+ * single primitive array: each slot holds a check word, the number of placements and the placements themselves, packed
+ * into 16 bits each. Storing a key which is already present updates its slot; otherwise a new entry takes the first
+ * free slot among its candidates, and only replaces the entry in its home slot if there is none.
+ * 
+ * The table is allocated up front, with room for {@link #MAX_PLACEMENTS} placements in every slot: 34 words, or 272
+ * bytes, per slot. The capacity is limited to {@link #MAX_CAPACITY} slots, which takes 272 MiB.
+ * 
+ * The cache does not use any locks. Instead, the check word of each slot is the key combined with a checksum of the
+ * slot's contents. A slot which has been partially overwritten by another thread, or which has not fully become
+ * visible to the reading thread, fails the check and is treated as a miss. The cache is therefore lossy: a lookup may
+ * miss even if the entry has been stored, but it never returns placements stored for a different key, barring a
+ * collision of 64-bit hashes.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = { "slots", "hits", "misses" })
+public class PlacementCache {
+    /** Maximum number of placements in an entry. Sets of placements which are larger than this are not cached. */
+    public static final int MAX_PLACEMENTS = 128;
+    /** Maximum number of slots. */
+    public static final int MAX_CAPACITY = 1 << 20;
+    /** Number of placements packed into each word. */
+    private static final int PLACEMENTS_PER_WORD = Long.SIZE / Short.SIZE;
+    /** Number of words in a slot: check word, number of placements, and the placements. */
+    private static final int SLOT_SIZE = 2 + MAX_PLACEMENTS / PLACEMENTS_PER_WORD;
+    /** Number of consecutive slots in which an entry may be stored. */
+    private static final int PROBES = 4;
+    /** Largest value of x + {@link CollisionMask#SIZE} or y + {@link CollisionMask#SIZE} which can be packed. */
+    private static final int MAX_COORDINATE = (1 << 7) - 1;
+    /** All orientations. */
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    /** Number of slots; a power of two. */
+    private final int slots;
+    /** Slots, each consisting of {@link #SLOT_SIZE} consecutive words. */
+    private final long[] table;
+    /** Number of lookups which found an entry. */
+    private final LongAdder hits;
+    /** Number of lookups which did not find an entry. */
+    private final LongAdder misses;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            maximum number of entries; rounded up to a power of two; at most {@link #MAX_CAPACITY}
+     */
+    public PlacementCache(int capacity) {
+        super();
+
+        if (capacity < 1 || MAX_CAPACITY < capacity) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY + ", was: " + capacity);
+        }
+
+        if (Integer.bitCount(capacity) == 1) {
+            this.slots = capacity;
+        } else {
+            this.slots = Integer.highestOneBit(capacity) << 1;
+        }
+        this.table = new long[slots * SLOT_SIZE];
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Computes the key for the placements of a tetromino.
+     * 
+     * @param grid
+     *            grid
+     * @param tetromino
+     *            tetromino
+     * @param x
+     *            x coordinate of the tetromino's starting location
+     * @param y
+     *            y coordinate of the tetromino's starting location
+     * @param orientation
+     *            the tetromino's starting orientation
+     * @return key
+     */
+    public static long key(@NonNull Grid grid, @NonNull Tetromino tetromino, int x, int y,
+            @NonNull Orientation orientation) {
+        long position = grid.getWidth();
+        position = position * 1024 + grid.getHeight();
+        position = position * Tetromino.values().length + tetromino.ordinal();
+        position = position * ORIENTATIONS.length + orientation.ordinal();
+        position = position * 1024 + (x & 1023);
+        position = position * 1024 + (y & 1023);
+        return grid.getOccupancyHash() ^ mix(position);
+    }
+
+    /**
+     * Scrambles the bits of the given value, using the finaliser of the SplitMix64 generator.
+     * 
+     * @param value
+     *            value
+     * @return scrambled value
+     */
+    private static long mix(long value) {
+        long result = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ result >>> 27) * 0x94D049BB133111EBL;
+        return result ^ result >>> 31;
+    }
+
+    /**
+     * Packs a placement into 16 bits.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @param orientation
+     *            orientation
+     * @return packed placement, or -1 if the coordinates are out of range
+     */
+    static int pack(int x, int y, Orientation orientation) {
+        int packedX = x + CollisionMask.SIZE;
+        int packedY = y + CollisionMask.SIZE;
+        int result;
+        if (packedX < 0 || MAX_COORDINATE < packedX || packedY < 0 || MAX_COORDINATE < packedY) {
+            result = -1;
+        } else {
+            result = orientation.ordinal() << 14 | packedX << 7 | packedY;
+        }
+        return result;
+    }
+
+    /**
+     * Unpacks the x coordinate of a placement.
+     * 
+     * @param packed
+     *            packed placement
+     * @return x coordinate
+     */
+    static int unpackX(int packed) {
+        return (packed >>> 7 & MAX_COORDINATE) - CollisionMask.SIZE;
+    }
+
+    /**
+     * Unpacks the y coordinate of a placement.
+     * 
+     * @param packed
+     *            packed placement
+     * @return y coordinate
+     */
+    static int unpackY(int packed) {
+        return (packed & MAX_COORDINATE) - CollisionMask.SIZE;
+    }
+
+    /**
+     * Unpacks the orientation of a placement.
+     * 
+     * @param packed
+     *            packed placement
+     * @return orientation
+     */
+    static Orientation unpackOrientation(int packed) {
+        return ORIENTATIONS[packed >>> 14 & 3];
+    }
+
+    /**
+     * Looks up the placements for the given key.
+     * 
+     * @param key
+     *            key
+     * @param placements
+     *            array into which the packed placements are copied; must have room for {@link #MAX_PLACEMENTS}
+     * @return number of placements, or -1 if the key was not found
+     */
+    int get(long key, int[] placements) {
+        int result = -1;
+        int home = (int) key & slots - 1;
+        for (int probe = 0; result < 0 && probe != PROBES; probe++) {
+            result = read(home + probe & slots - 1, key, placements);
+        }
+
+        if (result < 0) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the placements from a single slot.
+     * 
+     * @param slot
+     *            slot index
+     * @param key
+     *            key
+     * @param placements
+     *            array into which the packed placements are copied; must have room for {@link #MAX_PLACEMENTS}; null
+     *            to only check whether the slot contains the key
+     * @return number of placements, or -1 if the slot does not contain a valid entry for the key
+     */
+    private int read(int slot, long key, int[] placements) {
+        int result = -1;
+        int base = slot * SLOT_SIZE;
+        long check = table[base];
+        long count = table[base + 1];
+        if (0 < count && count <= MAX_PLACEMENTS) {
+            long checksum = count;
+            int words = (int) ((count + PLACEMENTS_PER_WORD - 1) / PLACEMENTS_PER_WORD);
+            for (int word = 0; word != words; word++) {
+                long value = table[base + 2 + word];
+                checksum = mix(checksum ^ value);
+                for (int i = 0; placements != null && i != PLACEMENTS_PER_WORD; i++) {
+                    int index = word * PLACEMENTS_PER_WORD + i;
+                    if (index < count) {
+                        placements[index] = (int) (value >>> i * Short.SIZE) & 0xFFFF;
+                    }
+                }
+            }
+            if ((check ^ checksum) == key) {
+                result = (int) count;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the placements for the given key. Sets of placements which are empty or which exceed
+     * {@link #MAX_PLACEMENTS} are not stored.
+     * 
+     * @param key
+     *            key
+     * @param placements
+     *            packed placements
+     * @param count
+     *            number of placements
+     */
+    void put(long key, int[] placements, int count) {
+        if (0 < count && count <= MAX_PLACEMENTS) {
+            int slot = findSlot(key);
+            int base = slot * SLOT_SIZE;
+            long checksum = count;
+            int words = (count + PLACEMENTS_PER_WORD - 1) / PLACEMENTS_PER_WORD;
+            for (int word = 0; word != words; word++) {
+                long value = 0L;
+                for (int i = 0; i != PLACEMENTS_PER_WORD; i++) {
+                    int index = word * PLACEMENTS_PER_WORD + i;
+                    if (index < count) {
+                        value = value | (long) placements[index] << i * Short.SIZE;
+                    }
+                }
+                table[base + 2 + word] = value;
+                checksum = mix(checksum ^ value);
+            }
+            table[base + 1] = count;
+            table[base] = key ^ checksum;
+        }
+    }
+
+    /**
+     * Determines the slot in which to store the placements for the given key: the slot already containing the key,
+     * otherwise the first free slot among the candidates, otherwise the home slot.
+     * 
+     * @param key
+     *            key
+     * @return slot index
+     */
+    private int findSlot(long key) {
+        int home = (int) key & slots - 1;
+        int result = -1;
+        for (int probe = 0; result < 0 && probe != PROBES; probe++) {
+            int candidate = home + probe & slots - 1;
+            if (0 <= read(candidate, key, null)) {
+                result = candidate;
+            }
+        }
+        for (int probe = 0; result < 0 && probe != PROBES; probe++) {
+            int candidate = home + probe & slots - 1;
+            if (table[candidate * SLOT_SIZE + 1] == 0L) {
+                result = candidate;
+            }
+        }
+        if (result < 0) {
+            // all candidates contain other entries; replace the entry in the home slot
+            result = home;
+        }
+        return result;
+    }
+
+    /** @return number of slots */
+    public int getCapacity() {
+        return slots;
+    }
+
+    /** @return number of lookups which found an entry */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /** @return number of lookups which did not find an entry */
+    public long getMisses() {
+        return misses.sum();
+    }
+}
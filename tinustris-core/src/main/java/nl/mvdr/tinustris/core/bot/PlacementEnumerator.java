@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Enumerates all final placements of the active tetromino which can be reached using the engine's movement and
+ * rotation rules.
+ * 
+ * The placements are found using a {@link MoveGenerator}. Optionally, the results are memoised in a
+ * {@link PlacementCache}, which may be shared with enumerators on other threads.
+ * 
+ * Instances of this class are not thread-safe, since the move generator is reused between invocations.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = "cache")
+public class PlacementEnumerator {
+    /** Cache; empty if results are not cached. */
+    private final Optional<PlacementCache> cache;
+    /** Packed placements, used to exchange entries with the cache. */
+    private final int[] packed;
+    /** Move generator; null until it is first needed, and replaced if the grid dimensions change. */
+    private MoveGenerator generator;
+
+    /** Constructor for an enumerator which does not cache its results. */
+    public PlacementEnumerator() {
+        this(Optional.empty());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param cache
+     *            cache; may be shared with other enumerators
+     */
+    public PlacementEnumerator(@NonNull PlacementCache cache) {
+        this(Optional.of(cache));
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param cache
+     *            cache, if any
+     */
+    private PlacementEnumerator(Optional<PlacementCache> cache) {
+        super();
+
+        this.cache = cache;
+        this.packed = new int[PlacementCache.MAX_PLACEMENTS];
+    }
+
+    /**
+     * Enumerates the reachable placements of the active tetromino.
+     * 
+     * @param state
+     *            game state
+     * @return placements, in the order in which they are found by {@link MoveGenerator}; empty if there is no active
+     *         tetromino
+     */
+    public List<Placement> enumerate(@NonNull OnePlayerGameState state) {
+        List<Placement> result;
+        if (state.getActiveTetromino().isPresent()) {
+            Grid grid = state.getGrid();
+            Tetromino tetromino = state.getActiveTetromino().get();
+            Point location = state.getCurrentBlockLocation().get();
+            Orientation orientation = state.getCurrentBlockOrientation().get();
+
+            long key = 0L;
+            int count = -1;
+            if (cache.isPresent()) {
+                key = PlacementCache.key(grid, tetromino, location.getX(), location.getY(), orientation);
+                count = cache.get().get(key, packed);
+            }
+
+            if (0 <= count) {
+                result = new ArrayList<>(count);
+                for (int i = 0; i != count; i++) {
+                    result.add(new Placement(tetromino, PlacementCache.unpackOrientation(packed[i]),
+                            new Point(PlacementCache.unpackX(packed[i]), PlacementCache.unpackY(packed[i]))));
+                }
+            } else {
+                result = search(grid, tetromino, location, orientation);
+                if (cache.isPresent()) {
+                    store(key, result);
+                }
+            }
+        } else {
+            result = Collections.emptyList();
+        }
+        return result;
+    }
+
+    /**
+     * Searches the placements using the move generator.
+     * 
+     * @param grid
+     *            grid
+     * @param tetromino
+     *            tetromino
+     * @param location
+     *            the tetromino's location
+     * @param orientation
+     *            the tetromino's orientation
+     * @return placements
+     */
+    private List<Placement> search(Grid grid, Tetromino tetromino, Point location, Orientation orientation) {
+        if (generator == null || generator.getWidth() != grid.getWidth()
+                || generator.getHeight() != grid.getHeight()) {
+            generator = new MoveGenerator(grid.getWidth(), grid.getHeight());
+        }
+        int placements = generator.search(grid, tetromino, location.getX(), location.getY(), orientation);
+
+        List<Placement> result = new ArrayList<>(placements);
+        for (int i = 0; i != placements; i++) {
+            result.add(new Placement(tetromino, generator.getOrientation(i),
+                    new Point(generator.getX(i), generator.getY(i))));
+        }
+        return result;
+    }
+
+    /**
+     * Stores the given placements in the cache, unless they do not fit.
+     * 
+     * @param key
+     *            key
+     * @param placements
+     *            placements
+     */
+    private void store(long key, List<Placement> placements) {
+        int count = placements.size();
+        boolean fits = count <= PlacementCache.MAX_PLACEMENTS;
+        for (int i = 0; fits && i != count; i++) {
+            Placement placement = placements.get(i);
+            packed[i] = PlacementCache.pack(placement.getLocation().getX(), placement.getLocation().getY(),
+                    placement.getOrientation());
+            fits = 0 <= packed[i];
+        }
+        if (fits) {
+            cache.get().put(key, packed, count);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.Optional;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.BitGrid;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.GridBuffer;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Determines where to place the active tetromino.
+ * 
+ * Every reachable placement of the active tetromino is combined with every reachable placement of the next tetromino,
+ * and the placement leading to the best two-piece outcome according to the heuristic is chosen. Optionally the active
+ * and next tetrominoes are also considered the other way around, as they would be after pressing hold.
+ * 
+ * Grids and search space are allocated once and reused, so instances of this class are not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+@ToString(of = "heuristic")
+public class PlacementPlanner {
+    /** Heuristic used to evaluate grids. */
+    @NonNull
+    @Getter
+    private final Heuristic heuristic;
+
+    /** Search space for the first tetromino. */
+    private MoveGenerator firstGenerator;
+    /** Search space for the second tetromino. */
+    private MoveGenerator secondGenerator;
+    /** Grid after placing the first tetromino. */
+    private GridBuffer firstGrid;
+    /** Grid after placing both tetrominoes. */
+    private GridBuffer secondGrid;
+
+    /** Whether a placement has been found by the current plan. */
+    private boolean found;
+    /** Score of the best placement found so far. */
+    private int bestScore;
+    /** Tetromino of the best placement found so far. */
+    private Tetromino bestTetromino;
+    /** Orientation of the best placement found so far. */
+    private Orientation bestOrientation;
+    /** X coordinate of the best placement found so far. */
+    private int bestX;
+    /** Y coordinate of the best placement found so far. */
+    private int bestY;
+
+    /**
+     * Determines the best placement for the active tetromino in the given state.
+     * 
+     * @param state
+     *            game state
+     * @param allowHold
+     *            whether the placement may also be for the next tetromino, which requires pressing hold first
+     * @return placement; empty if there is no active tetromino or no placement can be reached
+     */
+    public Optional<Placement> plan(@NonNull OnePlayerGameState state, boolean allowHold) {
+        Optional<Placement> result;
+        if (state.getActiveTetromino().isPresent()) {
+            prepare(state.getGrid());
+            found = false;
+            bestScore = Integer.MIN_VALUE;
+
+            Tetromino active = state.getActiveTetromino().get();
+            Tetromino next = state.getNext();
+            Point location = state.getCurrentBlockLocation().get();
+            Orientation orientation = state.getCurrentBlockOrientation().get();
+            Point spawnLocation = state.getBlockSpawnLocation();
+            search(state.getGrid(), active, next, location.getX(), location.getY(), orientation, spawnLocation);
+
+            if (allowHold && active != next) {
+                // hold swaps the tetrominoes in place, shifting the new active one if it does not fit
+                CollisionMask mask = next.getCollisionMask(orientation);
+                int x = location.getX();
+                boolean holdPossible = true;
+                if (!mask.fits(state.getGrid(), x, location.getY())) {
+                    if (mask.fits(state.getGrid(), x + 1, location.getY())) {
+                        x = x + 1;
+                    } else if (mask.fits(state.getGrid(), x - 1, location.getY())) {
+                        x = x - 1;
+                    } else {
+                        // the engine cancels the hold
+                        holdPossible = false;
+                    }
+                }
+                if (holdPossible) {
+                    search(state.getGrid(), next, active, x, location.getY(), orientation, spawnLocation);
+                }
+            }
+
+            if (found) {
+                result = Optional.of(new Placement(bestTetromino, bestOrientation, new Point(bestX, bestY)));
+            } else {
+                result = Optional.empty();
+            }
+        } else {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Makes sure the grids and search space have the dimensions of the given grid.
+     * 
+     * @param grid
+     *            grid
+     */
+    private void prepare(Grid grid) {
+        if (firstGrid == null || firstGrid.getWidth() != grid.getWidth()
+                || firstGrid.getHeight() != grid.getHeight()) {
+            firstGenerator = new MoveGenerator(grid.getWidth(), grid.getHeight());
+            secondGenerator = new MoveGenerator(grid.getWidth(), grid.getHeight());
+            firstGrid = new GridBuffer(grid);
+            secondGrid = new GridBuffer(grid);
+        }
+    }
+
+    /**
+     * Evaluates all placements of the first tetromino, starting from the given position, followed by the second
+     * tetromino, starting from its spawn position. Updates the best placement if a better one is found.
+     * 
+     * @param grid
+     *            grid
+     * @param first
+     *            first tetromino
+     * @param second
+     *            second tetromino
+     * @param x
+     *            x coordinate of the first tetromino's location
+     * @param y
+     *            y coordinate of the first tetromino's location
+     * @param orientation
+     *            the first tetromino's orientation
+     * @param spawnLocation
+     *            spawn location for the second tetromino
+     */
+    private void search(Grid grid, Tetromino first, Tetromino second, int x, int y, Orientation orientation,
+            Point spawnLocation) {
+        int placements = firstGenerator.search(grid, first, x, y, orientation);
+        for (int i = 0; i != placements; i++) {
+            Orientation firstOrientation = firstGenerator.getOrientation(i);
+            int firstX = firstGenerator.getX(i);
+            int firstY = firstGenerator.getY(i);
+            firstGrid.set(grid);
+            int firstLines = lock(firstGrid, first, firstOrientation, firstX, firstY);
+
+            int score = Integer.MIN_VALUE;
+            if (0 <= firstLines) {
+                int secondPlacements = secondGenerator.search(firstGrid, second, spawnLocation.getX(),
+                        spawnLocation.getY(), Orientation.getDefault());
+                for (int j = 0; j != secondPlacements; j++) {
+                    secondGrid.set(firstGrid);
+                    int secondLines = lock(secondGrid, second, secondGenerator.getOrientation(j),
+                            secondGenerator.getX(j), secondGenerator.getY(j));
+                    if (0 <= secondLines) {
+                        score = Math.max(score, heuristic.evaluate(secondGrid, firstLines + secondLines));
+                    }
+                }
+            }
+
+            if (!found || bestScore < score) {
+                found = true;
+                bestScore = score;
+                bestTetromino = first;
+                bestOrientation = firstOrientation;
+                bestX = firstX;
+                bestY = firstY;
+            }
+        }
+    }
+
+    /**
+     * Locks the given tetromino in place and removes any lines it completes.
+     * 
+     * @param grid
+     *            grid
+     * @param tetromino
+     *            tetromino
+     * @param orientation
+     *            the tetromino's orientation
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @return number of lines removed; -1 if the grid is topped, that is, the vanish zone contains a block
+     */
+    private static int lock(GridBuffer grid, Tetromino tetromino, Orientation orientation, int x, int y) {
+        CollisionMask mask = tetromino.getCollisionMask(orientation);
+        grid.addBlocks(mask, x, y, tetromino.getBlock());
+
+        int result;
+        if (isTopped(grid)) {
+            result = -1;
+        } else {
+            result = 0;
+            // remove lines from the top down, so that the indices of the remaining lines do not change
+            for (int line = y + mask.getMaxY(); line != y + mask.getMinY() - 1; line--) {
+                if (grid.isFullLine(line)) {
+                    grid.removeLine(line);
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Determines whether there is a block in the grid's vanish zone.
+     * 
+     * @param grid
+     *            grid
+     * @return whether the vanish zone contains a block
+     */
+    private static boolean isTopped(BitGrid grid) {
+        boolean result = false;
+        for (int line = grid.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT; line != grid.getHeight(); line++) {
+            result = result || grid.getRow(line) != 0L;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Results of the rollouts for a single placement, as computed by a {@link MonteCarloAnalyzer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+@EqualsAndHashCode
+@Getter
+@ToString
+public class PlacementStatistics {
+    /** Placement. */
+    @NonNull
+    private final Placement placement;
+    /** Number of completed rollouts. */
+    private final int rollouts;
+    /** Total number of lines scored over all rollouts, including any lines completed by the placement itself. */
+    private final int lines;
+    /** Number of rollouts in which the game was lost. */
+    private final int toppedOut;
+
+    /** @return average number of lines per rollout; 0 if there were no rollouts */
+    public double getAverageLines() {
+        double result;
+        if (rollouts == 0) {
+            result = 0;
+        } else {
+            result = (double) lines / rollouts;
+        }
+        return result;
+    }
+
+    /** @return fraction of the rollouts in which the game was lost; 0 if there were no rollouts */
+    public double getToppedOutRate() {
+        double result;
+        if (rollouts == 0) {
+            result = 0;
+        } else {
+            result = (double) toppedOut / rollouts;
+        }
+        return result;
+    }
+}
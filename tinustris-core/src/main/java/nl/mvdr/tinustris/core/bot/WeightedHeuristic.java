@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.BitGrid;
+
+/**
+ * Heuristic which computes a weighted sum of four features of the grid: the number of lines scored, the aggregate
+ * height of the columns, the number of holes and the bumpiness (the sum of the height differences between adjacent
+ * columns).
+ * 
+ * All features are computed from the grid's row masks and column heights, without allocating any memory.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+@Getter
+@ToString
+@EqualsAndHashCode
+public class WeightedHeuristic implements Heuristic {
+    /** Default weights, as used by a well-known heuristic. */
+    public static final WeightedHeuristic DEFAULT = new WeightedHeuristic(76, -51, -36, -18);
+
+    /** Weight for the number of lines scored. */
+    private final int linesWeight;
+    /** Weight for the aggregate height of the columns. */
+    private final int heightWeight;
+    /** Weight for the number of holes: empty cells with at least one block above them. */
+    private final int holesWeight;
+    /** Weight for the bumpiness. */
+    private final int bumpinessWeight;
+
+    /** {@inheritDoc} */
+    @Override
+    public int evaluate(BitGrid grid, int lines) {
+        int height = 0;
+        int bumpiness = 0;
+        for (int x = 0; x != grid.getWidth(); x++) {
+            height = height + grid.getColumnHeight(x);
+            if (x != 0) {
+                bumpiness = bumpiness + Math.abs(grid.getColumnHeight(x) - grid.getColumnHeight(x - 1));
+            }
+        }
+
+        // scan top to bottom, keeping track of the columns which contain a block above the current row
+        int holes = 0;
+        long covered = 0L;
+        for (int y = grid.getHeight() - 1; y != -1; y--) {
+            long row = grid.getRow(y);
+            holes = holes + Long.bitCount(covered & ~row);
+            covered = covered | row;
+        }
+
+        return linesWeight * lines + heightWeight * height + holesWeight * holes + bumpinessWeight * bumpiness;
+    }
+}
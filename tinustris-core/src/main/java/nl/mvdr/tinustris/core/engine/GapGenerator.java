@@ -13,6 +13,8 @@
  */
 package nl.mvdr.tinustris.core.engine;
 
+import lombok.NonNull;
+
 /**
  * Generator for determining the gap in garbage lines in a game of Tetris.
  * 
@@ -40,4 +42,16 @@ public class GapGenerator extends RandomGenerator<Integer> {
     public GapGenerator(long randomSeed, int width) {
         super(randomSeed, width, Integer::valueOf, "Gap");
     }
+
+    /**
+     * Constructor, which restores a generator from a snapshot.
+     * 
+     * @param snapshot
+     *            snapshot, as created by {@link #snapshot()}
+     * @param width
+     *            width of the playing field
+     */
+    public GapGenerator(@NonNull GeneratorSnapshot snapshot, int width) {
+        super(snapshot, width, Integer::valueOf, "Gap");
+    }
 }
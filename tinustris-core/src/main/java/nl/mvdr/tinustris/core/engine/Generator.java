@@ -32,4 +32,34 @@ public interface Generator<S> {
      * @return value
      */
     S get(int i);
+    
+    /**
+     * Returns a range of consecutive values: value first + j is stored at index j of the given array, for every index
+     * of the array.
+     * 
+     * The default implementation invokes {@link #get(int)} for each value.
+     * 
+     * @param first
+     *            index of the first value; must be at least 0
+     * @param values
+     *            array to be filled with the values
+     */
+    default void get(int first, S[] values) {
+        for (int j = 0; j != values.length; j++) {
+            values[j] = get(first + j);
+        }
+    }
+    
+    /**
+     * Indicates that values with an index less than i will no longer be requested, so that implementations may discard
+     * them.
+     * 
+     * The default implementation does nothing.
+     * 
+     * @param i
+     *            index of the first value which may still be requested
+     */
+    default void release(int i) {
+        // do nothing
+    }
 }
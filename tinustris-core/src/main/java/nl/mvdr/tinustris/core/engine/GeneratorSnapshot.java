@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Arrays;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Snapshot of the state of a {@link RandomTetrominoGenerator} or {@link GapGenerator}, from which a generator can be
+ * restored which produces the same values from that point on.
+ * 
+ * A snapshot contains the values which have been generated but not released, and the state of the random number
+ * generator. Values are stored as the random int values they are derived from.
+ * 
+ * Instances of this class are immutable.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString
+@EqualsAndHashCode
+public class GeneratorSnapshot {
+    /** Index of the first value in the snapshot; values before this index have been released. */
+    @Getter
+    private final int firstIndex;
+    /** Random int values for the values which have been generated but not released. */
+    private final int[] values;
+    /** Internal state of the random number generator. */
+    @Getter
+    private final long randomState;
+
+    /**
+     * Constructor.
+     * 
+     * @param firstIndex
+     *            index of the first value in the snapshot
+     * @param values
+     *            random int values for the values which have been generated but not released; the array is copied
+     * @param randomState
+     *            internal state of the random number generator
+     */
+    public GeneratorSnapshot(int firstIndex, @NonNull int[] values, long randomState) {
+        super();
+
+        if (firstIndex < 0) {
+            throw new IllegalArgumentException("First index may not be negative, was: " + firstIndex);
+        }
+
+        this.firstIndex = firstIndex;
+        this.values = Arrays.copyOf(values, values.length);
+        this.randomState = randomState;
+    }
+
+    /**
+     * Creates a snapshot without any values, for a generator which has not generated any values yet. A generator
+     * restored from this snapshot produces the same values from the given index on, as a generator created with the
+     * given seed produces from index 0 on. The values before the given index are considered released.
+     * 
+     * @param firstIndex
+     *            index of the first value to be generated
+     * @param seed
+     *            random seed
+     * @return snapshot
+     */
+    public static GeneratorSnapshot fromSeed(int firstIndex, long seed) {
+        return new GeneratorSnapshot(firstIndex, new int[0], RestorableRandom.initialState(seed));
+    }
+
+    /** @return number of values in the snapshot */
+    public int getNumberOfValues() {
+        return values.length;
+    }
+
+    /**
+     * Returns one of the values in the snapshot.
+     * 
+     * @param i
+     *            index within the snapshot; value i corresponds to generator index firstIndex + i
+     * @return random int value
+     * @throws IndexOutOfBoundsException
+     *             if i is out of bounds
+     */
+    public int getValue(int i) {
+        return values[i];
+    }
+}
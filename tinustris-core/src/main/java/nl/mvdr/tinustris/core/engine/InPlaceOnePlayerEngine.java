@@ -0,0 +1,529 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.game.engine.GameEngine;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.level.LevelSystem;
+import nl.mvdr.tinustris.core.engine.speedcurve.SpeedCurve;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.Action;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.GridBuffer;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameStateBuffer;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Implementation of {@link GameEngine} which updates a {@link OnePlayerGameStateBuffer} in place.
+ * 
+ * This engine implements exactly the same game rules as {@link OnePlayerEngine}, and produces identical results for
+ * the same inputs and generators. However, instead of creating a chain of new immutable game states every frame, it
+ * modifies the given state buffer. Apart from the occasional snapshot passed to the speed curve and level system
+ * (only when the level, line count or block counter changes), it does not allocate any memory while computing the next
+ * state. This makes it suitable for running large numbers of headless games.
+ * 
+ * Note that {@link #computeNextState(OnePlayerGameStateBuffer, List)} returns the same buffer it was passed. Use
+ * {@link OnePlayerGameStateBuffer#toGameState()} to obtain an immutable snapshot, for instance for rendering.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE) // default visibility for unit tests
+@ToString
+public class InPlaceOnePlayerEngine implements GameEngine<OnePlayerGameStateBuffer, Input> {
+    /** Cached result of {@link Action#values()}. */
+    private static final Action[] ACTIONS = Action.values();
+    /** Cached result of {@link Input#values()}. */
+    private static final Input[] INPUTS = Input.values();
+
+    /** Tetromino generator. */
+    @NonNull
+    private final Generator<Tetromino> generator;
+    /** Speed curve. */
+    @NonNull
+    private final SpeedCurve curve;
+    /** Leveling system. */
+    @NonNull
+    private final LevelSystem levelSystem;
+    /** Gap generator, for use in multiplayer games. */
+    @NonNull
+    private final Generator<Integer> gapGenerator;
+
+    /**
+     * Constructor.
+     * 
+     * @param tetrominoGenerator
+     *            tetromino generator
+     * @param behavior
+     *            behavior
+     * @param startLevel
+     *            start level
+     * @param gapGenerator
+     *            gap generator
+     */
+    public InPlaceOnePlayerEngine(Generator<Tetromino> tetrominoGenerator, Behavior behavior, int startLevel,
+            Generator<Integer> gapGenerator) {
+        this(tetrominoGenerator, behavior.getSpeedCurve(), behavior.createLevelSystem(startLevel), gapGenerator);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public OnePlayerGameStateBuffer initGameState() {
+        Grid grid = Grid.empty(OnePlayerGameState.DEFAULT_WIDTH, OnePlayerGameState.DEFAULT_HEIGHT);
+        OnePlayerGameState gameState = new OnePlayerGameState(grid, OnePlayerGameState.DEFAULT_WIDTH, generator.get(0),
+                generator.get(1));
+        gameState = gameState.withLevel(this.levelSystem.computeLevel(gameState, gameState));
+        return new OnePlayerGameStateBuffer(gameState);
+    }
+
+    /**
+     * Computes the next game state, by updating the given state buffer in place.
+     * 
+     * @param state
+     *            game state buffer, containing the previous game state; will be updated
+     * @param inputStates
+     *            input states; must contain exactly one element
+     * @return the given state buffer
+     */
+    @Override
+    public OnePlayerGameStateBuffer computeNextState(OnePlayerGameStateBuffer state,
+            List<InputState<Input>> inputStates) {
+        if (inputStates.size() != 1) {
+            throw new IllegalArgumentException("Expected 1 input state, got " + inputStates.size());
+        }
+
+        computeNextState(state, inputStates.get(0));
+        return state;
+    }
+
+    /**
+     * Computes the next game state based on the previous one and the state of the controls.
+     * 
+     * @param state
+     *            game state buffer, containing the previous game state; will be updated
+     * @param inputState
+     *            input state for this player
+     */
+    private void computeNextState(OnePlayerGameStateBuffer state, InputState<Input> inputState) {
+        if (!state.isGameOver()) {
+            OnePlayerGameState previousLevelState = state.getLevelSnapshot();
+            int previousNumFramesUntilLinesDisappear = state.getNumFramesUntilLinesDisappear();
+            int previousNumFramesSinceLastLock = state.getNumFramesSinceLastLock();
+            boolean previouslyActive = state.hasActiveTetromino();
+            // player input is based on the input state history of the previous frame
+            int triggeredInputs = determineTriggeredInputs(state, inputState);
+
+            updateInputStateAndCounters(state, inputState);
+
+            if (previousNumFramesUntilLinesDisappear == 1) {
+                removeLines(state);
+            }
+
+            if (!previouslyActive && previousNumFramesUntilLinesDisappear <= 1
+                    && curve.computeARE(previousLevelState) < previousNumFramesSinceLastLock) {
+                spawnNextBlock(state);
+                addGarbageLines(state);
+            }
+
+            if (state.hasActiveTetromino()) {
+                executeActions(state, triggeredInputs);
+            }
+
+            state.setLevel(this.levelSystem.computeLevel(previousLevelState, state.getLevelSnapshot()));
+        }
+        // otherwise: game over, no need to update the game state anymore
+    }
+
+    /**
+     * Determines which inputs trigger an action in the current frame.
+     * 
+     * @param state
+     *            game state, before updating the input state history
+     * @param inputState
+     *            input state
+     * @return bit mask, where the bit for each input's ordinal is set if that input triggers its action
+     */
+    private int determineTriggeredInputs(OnePlayerGameStateBuffer state, InputState<Input> inputState) {
+        int result = 0;
+        for (Input input : INPUTS) {
+            if (inputState.isPressed(input) && state.getNumberOfFrames(input) % OnePlayerEngine.INPUT_FRAMES == 0) {
+                result = result | 1 << input.ordinal();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates the input history with the given input state and updates the frame counters.
+     * 
+     * @param state
+     *            game state
+     * @param inputState
+     *            input state for the current frame
+     */
+    private void updateInputStateAndCounters(OnePlayerGameStateBuffer state, InputState<Input> inputState) {
+        state.updateInputStateHistory(inputState);
+        state.setNumFramesSinceLastDownMove(state.getNumFramesSinceLastDownMove() + 1);
+        state.setNumFramesSinceLastLock(state.getNumFramesSinceLastLock() + 1);
+        state.setNumFramesSinceLastMove(state.getNumFramesSinceLastMove() + 1);
+        state.setNumFramesUntilLinesDisappear(Math.max(0, state.getNumFramesUntilLinesDisappear() - 1));
+    }
+
+    /**
+     * Determines and executes the actions for the current frame, in the same order as {@link OnePlayerEngine}: sorted
+     * by action.
+     * 
+     * @param state
+     *            game state
+     * @param triggeredInputs
+     *            bit mask of the inputs which trigger an action
+     */
+    private void executeActions(OnePlayerGameStateBuffer state, int triggeredInputs) {
+        OnePlayerGameState levelState = state.getLevelSnapshot();
+
+        // process gravity
+        int gravityCells = 0;
+        int internalGravity = curve.computeInternalGravity(levelState);
+        if (256 / internalGravity <= state.getNumFramesSinceLastDownMove()) {
+            gravityCells = Math.round(internalGravity / 256);
+            gravityCells = Math.max(gravityCells, 1);
+        }
+
+        // process lock delay
+        boolean lock = curve.computeLockDelay(levelState) < state.getNumFramesSinceLastMove();
+
+        for (Action action : ACTIONS) {
+            int count = 0;
+            if (action == Action.GRAVITY_DROP) {
+                count = count + gravityCells;
+            }
+            if (action == Action.LOCK && lock) {
+                count++;
+            }
+            for (Input input : INPUTS) {
+                if (input.getAction() == action && (triggeredInputs & 1 << input.ordinal()) != 0) {
+                    count++;
+                }
+            }
+
+            for (int i = 0; i != count; i++) {
+                executeAction(state, action);
+            }
+        }
+    }
+
+    /**
+     * Executes the given action on the given game state.
+     * 
+     * @param state
+     *            game state
+     * @param action
+     *            action to be performed
+     */
+    private void executeAction(OnePlayerGameStateBuffer state, Action action) {
+        if (action == Action.MOVE_DOWN) {
+            executeMoveDown(state);
+        } else if (action == Action.GRAVITY_DROP) {
+            executeGravityDrop(state);
+        } else if (action == Action.LOCK) {
+            executeLock(state);
+        } else if (action == Action.MOVE_LEFT) {
+            executeMove(state, -1);
+        } else if (action == Action.MOVE_RIGHT) {
+            executeMove(state, 1);
+        } else if (action == Action.HARD_DROP) {
+            executeInstantDrop(state);
+        } else if (action == Action.TURN_LEFT) {
+            executeTurn(state, state.getCurrentBlockOrientation().getNextCounterClockwise());
+        } else if (action == Action.TURN_RIGHT) {
+            executeTurn(state, state.getCurrentBlockOrientation().getNextClockwise());
+        } else if (action == Action.HOLD) {
+            executeHold(state);
+        } else {
+            throw new IllegalArgumentException("Unexpected action: " + action);
+        }
+    }
+
+    /**
+     * Executes the down action.
+     * 
+     * @param state game state
+     */
+    private void executeMoveDown(OnePlayerGameStateBuffer state) {
+        if (state.canMove(0, -1)) {
+            moveDown(state);
+        } else {
+            lockBlock(state);
+        }
+    }
+
+    /**
+     * Executes the gravity drop action.
+     * 
+     * @param state game state
+     */
+    private void executeGravityDrop(OnePlayerGameStateBuffer state) {
+        if (state.canMove(0, -1)) {
+            moveDown(state);
+        }
+        // otherwise do nothing
+    }
+
+    /**
+     * Executes the lock block action.
+     * 
+     * @param state game state
+     */
+    private void executeLock(OnePlayerGameStateBuffer state) {
+        if (state.hasActiveTetromino() && !state.canMove(0, -1)) {
+            lockBlock(state);
+        }
+        // otherwise do nothing
+    }
+
+    /**
+     * Moves the current block down one position.
+     * 
+     * This method does not check that the block can actually be moved down.
+     * 
+     * @param state game state
+     */
+    private void moveDown(OnePlayerGameStateBuffer state) {
+        state.setCurrentBlockY(state.getCurrentBlockY() - 1);
+        state.setNumFramesSinceLastDownMove(0);
+        state.setNumFramesSinceLastMove(0);
+    }
+
+    /**
+     * Executes the left or right action.
+     * 
+     * @param state game state
+     * @param deltaX -1 to move left, 1 to move right
+     */
+    private void executeMove(OnePlayerGameStateBuffer state, int deltaX) {
+        if (state.canMove(deltaX, 0)) {
+            move(state, deltaX);
+        }
+        // otherwise do nothing
+    }
+
+    /**
+     * Moves the current block horizontally.
+     * 
+     * This method does not check that the block can actually be moved.
+     * 
+     * @param state game state
+     * @param deltaX -1 to move left, 1 to move right
+     */
+    private void move(OnePlayerGameStateBuffer state, int deltaX) {
+        state.setCurrentBlockX(state.getCurrentBlockX() + deltaX);
+        state.setNumFramesSinceLastMove(0);
+    }
+
+    /**
+     * Executes the instant drop action.
+     * 
+     * @param state game state
+     */
+    private void executeInstantDrop(OnePlayerGameStateBuffer state) {
+        // Check if there is still an active tetromino; it may have been locked in place by a Move Down or Lock.
+        if (state.hasActiveTetromino()) {
+            state.setCurrentBlockY(state.getCurrentBlockY() - state.getDropDistance());
+            lockBlock(state);
+        }
+    }
+
+    /**
+     * Executes a turn action.
+     * 
+     * @param state game state
+     * @param orientation orientation of the active block after the turn
+     */
+    private void executeTurn(OnePlayerGameStateBuffer state, Orientation orientation) {
+        Tetromino originalActiveTetromino = state.getActiveTetromino();
+        Tetromino originalNext = state.getNext();
+        Orientation originalOrientation = state.getCurrentBlockOrientation();
+        int originalNumFramesSinceLastMove = state.getNumFramesSinceLastMove();
+
+        state.setCurrentBlockOrientation(orientation);
+        state.setNumFramesSinceLastMove(0);
+
+        fixStateAfterAction(state, originalActiveTetromino, originalNext, originalOrientation,
+                originalNumFramesSinceLastMove);
+    }
+
+    /**
+     * Executes the hold action (swaps active and next tetrominoes).
+     * 
+     * @param state game state
+     */
+    private void executeHold(OnePlayerGameStateBuffer state) {
+        Tetromino originalActiveTetromino = state.getActiveTetromino();
+        Tetromino originalNext = state.getNext();
+        Orientation originalOrientation = state.getCurrentBlockOrientation();
+        int originalNumFramesSinceLastMove = state.getNumFramesSinceLastMove();
+
+        state.setActiveTetromino(originalNext);
+        state.setNext(originalActiveTetromino);
+        state.setNumFramesSinceLastMove(0);
+
+        fixStateAfterAction(state, originalActiveTetromino, originalNext, originalOrientation,
+                originalNumFramesSinceLastMove);
+    }
+
+    /**
+     * Fixes the state after an action that may have left the game in an invalid state. If the state cannot be fixed,
+     * the action is cancelled by restoring the given original values.
+     * 
+     * @param state
+     *            game state after execution of the action; this game state is allowed to be invalid (that is, a game
+     *            over state or a state where the active block is partially or completely out of bounds)
+     * @param originalActiveTetromino
+     *            active tetromino before the action
+     * @param originalNext
+     *            next tetromino before the action
+     * @param originalOrientation
+     *            orientation of the active block before the action
+     * @param originalNumFramesSinceLastMove
+     *            number of frames since the last move, before the action
+     */
+    private void fixStateAfterAction(OnePlayerGameStateBuffer state, Tetromino originalActiveTetromino,
+            Tetromino originalNext, Orientation originalOrientation, int originalNumFramesSinceLastMove) {
+        if (!state.isCurrentBlockWithinBounds() || state.isTopped()) {
+            // state is not valid
+            if (state.canMove(1, 0)) {
+                move(state, 1);
+            } else if (state.canMove(-1, 0)) {
+                move(state, -1);
+            } else {
+                // impossible to fix; cancel the action
+                state.setActiveTetromino(originalActiveTetromino);
+                state.setNext(originalNext);
+                state.setCurrentBlockOrientation(originalOrientation);
+                state.setNumFramesSinceLastMove(originalNumFramesSinceLastMove);
+            }
+        }
+        // otherwise: no problemo!
+    }
+
+    /**
+     * Locks the current block in its current position.
+     * 
+     * @param state game state
+     */
+    private void lockBlock(OnePlayerGameStateBuffer state) {
+        // Check if there is still an active tetromino; it may have been locked in place by a Move Down or Lock.
+        if (state.hasActiveTetromino()) {
+            Tetromino tetromino = state.getActiveTetromino();
+            GridBuffer grid = state.getGrid();
+
+            // Update the grid: old grid plus current location of the active block.
+            grid.addBlocks(tetromino.getCollisionMask(state.getCurrentBlockOrientation()), state.getCurrentBlockX(),
+                    state.getCurrentBlockY(), tetromino.getBlock());
+
+            // Check for newly formed lines.
+            int linesScored = 0;
+            for (int y = 0; y != grid.getHeight() - 1; y++) {
+                if (grid.isFullLine(y)) {
+                    linesScored++;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Lines scored: " + linesScored);
+            }
+
+            int numFramesUntilLinesDisappear;
+            if (0 < linesScored) {
+                numFramesUntilLinesDisappear = curve.computeLineClearDelay(state.getLevelSnapshot());
+            } else {
+                numFramesUntilLinesDisappear = 0;
+            }
+
+            state.setActiveTetromino(null);
+            state.setCurrentBlockOrientation(null);
+            state.setNumFramesSinceLastDownMove(0);
+            state.setNumFramesSinceLastLock(0);
+            state.setNumFramesSinceLastMove(0);
+            state.setLines(state.getLines() + linesScored);
+            state.setNumFramesUntilLinesDisappear(numFramesUntilLinesDisappear);
+        }
+    }
+
+    /**
+     * Removes any full lines from the grid and drops down the lines above them.
+     * 
+     * @param state game state
+     */
+    private void removeLines(OnePlayerGameStateBuffer state) {
+        state.getGrid().removeFullLines();
+    }
+
+    /**
+     * Spawns a new block.
+     * 
+     * @param state state
+     */
+    private void spawnNextBlock(OnePlayerGameStateBuffer state) {
+        state.setActiveTetromino(state.getNext());
+        state.setNext(generator.get(state.getBlockCounter() + 2));
+        state.setCurrentBlockX(state.getBlockSpawnLocation().getX());
+        state.setCurrentBlockY(state.getBlockSpawnLocation().getY());
+        state.setCurrentBlockOrientation(Orientation.getDefault());
+        state.setNumFramesSinceLastDownMove(0);
+        state.setNumFramesSinceLastMove(0);
+        state.setNumFramesUntilLinesDisappear(0);
+        state.setBlockCounter(state.getBlockCounter() + 1);
+    }
+
+    /**
+     * Processes any garbage lines.
+     * 
+     * All pending garbage lines are inserted at once, with a single copy of the grid. The gaps are fetched from the gap
+     * generator in one batch, into arrays reused from the state buffer; consecutive garbage lines share the same gap,
+     * see {@link OnePlayerEngine#NUM_ALIGNED_GARBAGE_LINES}.
+     * 
+     * @param state state
+     */
+    private void addGarbageLines(OnePlayerGameStateBuffer state) {
+        int lines = state.getGarbageLines();
+        if (0 < lines) {
+            int totalGarbage = state.getTotalGarbage();
+            int firstGapIndex = totalGarbage / OnePlayerEngine.NUM_ALIGNED_GARBAGE_LINES;
+            int lastGapIndex = (totalGarbage + lines - 1) / OnePlayerEngine.NUM_ALIGNED_GARBAGE_LINES;
+            Integer[] gapValues = state.getGapValues(lastGapIndex - firstGapIndex + 1);
+            gapGenerator.get(firstGapIndex, gapValues);
+
+            int[] gaps = state.getGarbageGaps(lines);
+            for (int i = 0; i != lines; i++) {
+                gaps[i] = gapValues[(totalGarbage + i) / OnePlayerEngine.NUM_ALIGNED_GARBAGE_LINES - firstGapIndex]
+                        .intValue();
+            }
+            // push the grid up and fill the bottom lines with garbage, except for the gap blocks
+            state.getGrid().addGarbageLines(gaps, lines);
+
+            state.setGarbageLines(0);
+            state.setTotalGarbage(totalGarbage + lines);
+        }
+    }
+}
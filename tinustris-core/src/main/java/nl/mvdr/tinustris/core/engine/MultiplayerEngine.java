@@ -16,9 +16,12 @@ package nl.mvdr.tinustris.core.engine;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import lombok.NonNull;
 import lombok.ToString;
 import nl.mvdr.game.engine.GameEngine;
 import nl.mvdr.game.input.InputState;
@@ -29,6 +32,15 @@ import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 /**
  * Implementation of {@link GameEngine} for a multiplayer game.
  * 
+ * The players' states are independent of each other, except for the garbage lines they send to each other. Optionally,
+ * this engine can compute the players' next states in parallel, on a given fork-join pool. Garbage lines are only
+ * processed once all players' states have been computed, in player order, so the results are the same as in
+ * sequential mode.
+ * 
+ * This engine never releases any generated values, so it can compute the next state for any previous state. To
+ * bound the memory used by the generators in a game which only moves forward, use a
+ * {@link ReleasingMultiplayerEngine}.
+ * 
  * @author Martijn van de Rijdt
  */
 @ToString
@@ -37,10 +49,14 @@ public class MultiplayerEngine implements GameEngine<MultiplayerGameState, Input
     private final int numberOfPlayers;
     /** One-player game engine. */
     private final GameEngine<OnePlayerGameState, Input> onePlayerEngine;
+    /** Pool on which the players' states are computed in parallel; empty if they are to be computed sequentially. */
+    private final Optional<ForkJoinPool> pool;
     
     /**
      * Constructor.
      * 
+     * Creates an engine which computes the players' states sequentially, on the calling thread.
+     * 
      * @param numberOfPlayers
      *            number of players; determines how many players will be in states created by the
      *            {@link #initGameState()} method
@@ -48,6 +64,41 @@ public class MultiplayerEngine implements GameEngine<MultiplayerGameState, Input
      *            single player game engine (to which most of the computation is offloaded)
      */
     public MultiplayerEngine(int numberOfPlayers, GameEngine<OnePlayerGameState, Input> onePlayerEngine) {
+        this(numberOfPlayers, onePlayerEngine, Optional.empty());
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * Creates an engine which computes the players' states in parallel. Note that this means that the one-player
+     * engine is called from multiple threads at the same time, so it needs to be thread-safe.
+     * 
+     * @param numberOfPlayers
+     *            number of players; determines how many players will be in states created by the
+     *            {@link #initGameState()} method
+     * @param onePlayerEngine
+     *            single player game engine (to which most of the computation is offloaded); must be thread-safe
+     * @param pool
+     *            pool on which the players' states are to be computed
+     */
+    public MultiplayerEngine(int numberOfPlayers, GameEngine<OnePlayerGameState, Input> onePlayerEngine,
+            @NonNull ForkJoinPool pool) {
+        this(numberOfPlayers, onePlayerEngine, Optional.of(pool));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param numberOfPlayers
+     *            number of players; determines how many players will be in states created by the
+     *            {@link #initGameState()} method
+     * @param onePlayerEngine
+     *            single player game engine (to which most of the computation is offloaded)
+     * @param pool
+     *            pool on which the players' states are to be computed; empty for sequential computation
+     */
+    private MultiplayerEngine(int numberOfPlayers, GameEngine<OnePlayerGameState, Input> onePlayerEngine,
+            Optional<ForkJoinPool> pool) {
         super();
         
         if (numberOfPlayers < 2) {
@@ -56,6 +107,7 @@ public class MultiplayerEngine implements GameEngine<MultiplayerGameState, Input
         
         this.numberOfPlayers = numberOfPlayers;
         this.onePlayerEngine = onePlayerEngine;
+        this.pool = pool;
     }
     
     /** {@inheritDoc} */
@@ -80,9 +132,17 @@ public class MultiplayerEngine implements GameEngine<MultiplayerGameState, Input
         }
         
         // compute next game state using the one player engine
-        List<OnePlayerGameState> states = IntStream.range(0, previousState.getNumberOfPlayers())
-                .mapToObj(i -> computeNextOnePlayerState(i, previousState, inputStates))
-                .collect(Collectors.toCollection(ArrayList<OnePlayerGameState>::new));
+        List<OnePlayerGameState> states;
+        if (pool.isPresent()) {
+            // Collecting the parallel stream preserves the player order, and only completes once all players' states
+            // have been computed. Only then are the garbage lines processed.
+            states = pool.get().submit(() -> computeNextOnePlayerStates(
+                    IntStream.range(0, previousState.getNumberOfPlayers()).parallel(), previousState, inputStates))
+                .join();
+        } else {
+            states = computeNextOnePlayerStates(IntStream.range(0, previousState.getNumberOfPlayers()), previousState,
+                    inputStates);
+        }
         List<Integer> targets = new ArrayList<>(previousState.getNextGarbageTargets());
 
         // add any garbage lines
@@ -135,6 +195,23 @@ public class MultiplayerEngine implements GameEngine<MultiplayerGameState, Input
         return result;
     }
     
+    /**
+     * Computes the next states for the given player indices.
+     * 
+     * @param playerIndices
+     *            stream of player indices, in order; may be parallel
+     * @param previousState
+     *            previous game state
+     * @param inputStates
+     *            input states for all players; the length of this list must match the number of players in the game
+     * @return modifiable list of new game states, in the same order as the player indices
+     */
+    private List<OnePlayerGameState> computeNextOnePlayerStates(IntStream playerIndices,
+            MultiplayerGameState previousState, List<InputState<Input>> inputStates) {
+        return playerIndices
+                .mapToObj(i -> computeNextOnePlayerState(i, previousState, inputStates))
+                .collect(Collectors.toCollection(ArrayList<OnePlayerGameState>::new));
+    }
     
     /**
      * Computes the next state for the given player index.
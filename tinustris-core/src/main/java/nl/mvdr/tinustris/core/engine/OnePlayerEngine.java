@@ -13,13 +13,9 @@
  */
 package nl.mvdr.tinustris.core.engine;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import lombok.AccessLevel;
 import lombok.NonNull;
@@ -32,8 +28,9 @@ import nl.mvdr.tinustris.core.configuration.Behavior;
 import nl.mvdr.tinustris.core.engine.level.LevelSystem;
 import nl.mvdr.tinustris.core.engine.speedcurve.SpeedCurve;
 import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
 import nl.mvdr.tinustris.core.model.Action;
-import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
 import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 import nl.mvdr.tinustris.core.model.Orientation;
 import nl.mvdr.tinustris.core.model.Point;
@@ -42,6 +39,8 @@ import nl.mvdr.tinustris.core.model.Tetromino;
 /**
  * Implementation of {@link GameEngine}.
  * 
+ * This class does not keep any state of its own, so it is thread-safe as long as its generators are.
+ * 
  * @author Martijn van de Rijdt
  */
 @Slf4j
@@ -55,7 +54,7 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
      * location (making for easy garbage disposal). The second 9 garbage lines may have their gap in a different
      * location.
      */
-    private static final int NUM_ALIGNED_GARBAGE_LINES = 9;
+    static final int NUM_ALIGNED_GARBAGE_LINES = 9;
 
     /**
      * Number of frames the input is ignored while the user is holding down a button.
@@ -63,7 +62,12 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
      * Say this value is 30 and the user is holding the left button. The active block will now move left once every
      * thirty frames.
      */
-    private static final int INPUT_FRAMES = 10;
+    static final int INPUT_FRAMES = 10;
+    
+    /** Cached result of {@link Action#values()}; actions are executed in this order. */
+    private static final Action[] ACTIONS = Action.values();
+    /** Cached result of {@link Input#values()}. */
+    private static final Input[] INPUTS = Input.values();
     
     /** Tetromino generator. */
     @NonNull
@@ -98,8 +102,7 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
     /** {@inheritDoc} */
     @Override
     public OnePlayerGameState initGameState() {
-        List<Optional<Block>> grid =
-            Collections.nCopies(OnePlayerGameState.DEFAULT_WIDTH * OnePlayerGameState.DEFAULT_HEIGHT, Optional.empty());
+        Grid grid = Grid.empty(OnePlayerGameState.DEFAULT_WIDTH, OnePlayerGameState.DEFAULT_HEIGHT);
         OnePlayerGameState gameState = new OnePlayerGameState(grid, OnePlayerGameState.DEFAULT_WIDTH, generator.get(0),
                 generator.get(1));
         gameState = gameState.withLevel(this.levelSystem.computeLevel(gameState, gameState));
@@ -116,6 +119,56 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
         return computeNextState(previousState, inputStates.get(0));
     }
 
+    /**
+     * Releases the generated values which can no longer be requested when computing the next states for any of the
+     * given game states.
+     * 
+     * Since this engine's generators may be shared by several players, the given states should include all states
+     * which are still in play. Game states which are game over are ignored. Note that after values have been released,
+     * {@link #initGameState()} may no longer be invoked.
+     * 
+     * @param states
+     *            game states of all players using this engine
+     */
+    public void releaseUnreachableValues(@NonNull Collection<OnePlayerGameState> states) {
+        // the next tetromino to be requested is the one after the next block
+        states.stream()
+            .filter(state -> !state.isGameOver())
+            .mapToInt(OnePlayerEngine::getNextTetrominoIndex)
+            .min()
+            .ifPresent(generator::release);
+        // the next gap to be requested is the one for the next garbage line
+        states.stream()
+            .filter(state -> !state.isGameOver())
+            .mapToInt(OnePlayerEngine::getNextGapIndex)
+            .min()
+            .ifPresent(gapGenerator::release);
+    }
+
+    /**
+     * Returns the index of the first tetromino which may still be requested from the tetromino generator, when
+     * computing the next states for the given game state.
+     * 
+     * @param state
+     *            game state
+     * @return index of the tetromino after the next block
+     */
+    public static int getNextTetrominoIndex(@NonNull OnePlayerGameState state) {
+        return state.getBlockCounter() + 2;
+    }
+
+    /**
+     * Returns the index of the first gap which may still be requested from the gap generator, when computing the next
+     * states for the given game state.
+     * 
+     * @param state
+     *            game state
+     * @return index of the gap for the next garbage line
+     */
+    public static int getNextGapIndex(@NonNull OnePlayerGameState state) {
+        return state.getTotalGarbage() / NUM_ALIGNED_GARBAGE_LINES;
+    }
+
     /**
      * Computes the next game state based on the previous one and the state of the controls.
      * 
@@ -145,10 +198,7 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
             }
 
             if (result.getActiveTetromino().isPresent()) {
-                List<Action> actions = determineActions(previousState, result, inputState);
-                for (Action action : actions) {
-                    result = executeAction(result, action);
-                }
+                result = executeActions(previousState, result, inputState);
             }
 
             result = result.withLevel(this.levelSystem.computeLevel(previousState, result));
@@ -162,44 +212,73 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
     }
 
     /**
-     * Determines which actions should be performed.
+     * Determines which actions should be performed and executes them, sorted by action.
+     * 
+     * The actions are not collected into a list. Instead, the number of times each action is to be performed is
+     * derived from the gravity, a bit mask of the triggered inputs and the lock delay, so that planning the actions
+     * does not allocate any memory.
      * 
      * @param previousState previous game state
      * @param resultState result state
      * @param inputState input state
-     * @return actions
+     * @return updated game state
      */
-    private List<Action> determineActions(OnePlayerGameState previousState, OnePlayerGameState resultState,
+    private OnePlayerGameState executeActions(OnePlayerGameState previousState, OnePlayerGameState resultState,
             InputState<Input> inputState) {
-        List<Action> actions = new ArrayList<>();
-        
         // process gravity
+        int gravityCells = 0;
         int internalGravity = curve.computeInternalGravity(resultState);
         if (256 / internalGravity <= resultState.getNumFramesSinceLastDownMove()) {
-            int cells = Math.round(internalGravity / 256);
-            cells = Math.max(cells, 1);
-            
-            actions.addAll(Collections.nCopies(cells, Action.GRAVITY_DROP));
+            gravityCells = Math.round(internalGravity / 256);
+            gravityCells = Math.max(gravityCells, 1);
         }
         
         // process player input
-        actions.addAll(
-                Stream.of(Input.values())
-                    .filter(inputState::isPressed)
-                    .filter(input -> previousState.getInputStateHistory().getNumberOfFrames(input) % INPUT_FRAMES == 0)
-                    .map(Input::getAction)
-                    .sorted()
-                    .collect(Collectors.toList()));
+        int triggeredInputs = determineTriggeredInputs(previousState, inputState);
         
         // process lock delay
         int lockDelay = curve.computeLockDelay(resultState);
-        if (lockDelay < resultState.getNumFramesSinceLastMove()) {
-            actions.add(Action.LOCK);
-        }
-        
-        actions.sort(null);
+        boolean lock = lockDelay < resultState.getNumFramesSinceLastMove();
         
-        return actions;
+        OnePlayerGameState result = resultState;
+        for (Action action : ACTIONS) {
+            int count = 0;
+            if (action == Action.GRAVITY_DROP) {
+                count = count + gravityCells;
+            }
+            if (action == Action.LOCK && lock) {
+                count++;
+            }
+            for (Input input : INPUTS) {
+                if (input.getAction() == action && (triggeredInputs & 1 << input.ordinal()) != 0) {
+                    count++;
+                }
+            }
+            
+            for (int i = 0; i != count; i++) {
+                result = executeAction(result, action);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Determines which inputs trigger their action in this frame: those which are pressed, and which have not been
+     * held for a number of frames, see {@link #INPUT_FRAMES}.
+     * 
+     * @param previousState previous game state
+     * @param inputState input state
+     * @return bit mask, where the bit for each input's ordinal is set if that input triggers its action
+     */
+    private int determineTriggeredInputs(OnePlayerGameState previousState, InputState<Input> inputState) {
+        InputStateHistory history = previousState.getInputStateHistory();
+        int result = 0;
+        for (Input input : INPUTS) {
+            if (inputState.isPressed(input) && history.getNumberOfFrames(input) % INPUT_FRAMES == 0) {
+                result = result | 1 << input.ordinal();
+            }
+        }
+        return result;
     }
     
     /**
@@ -343,15 +422,13 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
         int height = state.getHeight();
         
         // Update the grid: old grid plus current location of the active block.
-        List<Optional<Block>> grid = new ArrayList<>(state.getGrid());
-        for (Point point : state.getCurrentActiveBlockPoints()) {
-            int index = state.toGridIndex(point);
-            grid.set(index, state.getActiveTetromino().map(Tetromino::getBlock));
-        }
-        grid = Collections.unmodifiableList(grid);
+        Tetromino tetromino = state.getActiveTetromino().get();
+        Point location = state.getCurrentBlockLocation().get();
+        Grid grid = state.getGrid().withBlocks(tetromino.getCollisionMask(state.getCurrentBlockOrientation().get()),
+                location.getX(), location.getY(), tetromino.getBlock());
         
         // Check for newly formed lines.
-        int linesScored = countLines(width, height, grid);
+        int linesScored = countLines(height, grid);
         log.info("Lines scored: " + linesScored);
         
         // Create the new game state.
@@ -380,74 +457,26 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
     /**
      * Counts the number of full lines in the grid.
      * 
-     * @param width
-     *            width of the grid
      * @param height
      *            height of the grid
      * @param grid
-     *            list containing the grid
+     *            grid
      * @return number of lines; between 0 and 4
      */
-    private int countLines(int width, int height, List<Optional<Block>> grid) {
-        long count = IntStream.range(0, height - 1)
-            .filter(line -> isFullLine(line, width, grid))
-            .count();
-        // count should be at least 0 and less than 5, so we can safely cast to int
-        return (int) count;
-    }
-    
-    /**
-     * Checks whether line y is a full line in the grid.
-     *
-     * @param y
-     *            line index
-     * @param width
-     *            width of the grid
-     * @param grid
-     *            list containing the grid
-     * @return whether this is a full line
-     */
-    private boolean isFullLine(int y, int width, List<Optional<Block>> grid) {
-        return IntStream.range(0, width)
-            .mapToObj(x -> grid.get(x + y * width))
-            .allMatch(Optional<Block>::isPresent);
+    private int countLines(int height, Grid grid) {
+        return grid.countFullLines(height - 1);
     }
 
     /**
      * Removes any full lines from the grid and drops down the lines above them.
      * 
-     * @param width
-     *            width of the grid
-     * @param height
-     *            height of the grid
-     * @param grid
-     *            list containing the grid
+     * @param state
+     *            game state
      * @return updated copy of the game state
      */
     private OnePlayerGameState removeLines(OnePlayerGameState state) {
-        int width = state.getWidth();
-        int height = state.getHeight();
-        List<Optional<Block>> grid = new ArrayList<>(state.getGrid());
-
-        // Update the grid by removing all full lines.
-        for (int line = height - 1; 0 <= line; line--) {
-            if (state.isFullLine(line)) {
-                // Line found.
-                // Drop all the lines above it down.
-                for (int y = line; y != height - 1; y++) {
-                    for (int x = 0; x != width; x++) {
-                        Optional<Block> block = grid.get(x + (y + 1) * width);
-                        grid.set(x + y * width, block);
-                    }
-                }
-                
-                // Make the top line empty.
-                for (int x = 0; x != width; x++) {
-                    grid.set(x + (height - 1) * width, Optional.empty());
-                }
-            }
-        }
-        grid = Collections.unmodifiableList(grid);
+        // Update the grid by removing all full lines, in a single pass which moves each remaining line into place.
+        Grid grid = state.getGrid().withoutFullLines();
         
         return state.withGrid(grid);
     }
@@ -473,45 +502,38 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
     /**
      * Process any garbage lines.
      * 
+     * All pending garbage lines are inserted at once, with a single copy of the grid. The gaps are fetched from the gap
+     * generator in one batch; consecutive garbage lines share the same gap, see {@link #NUM_ALIGNED_GARBAGE_LINES}.
+     * 
      * @param state
      * @return new state
      */
     private OnePlayerGameState addGarbageLines(OnePlayerGameState state) {
-        OnePlayerGameState result = state;
-        
-        for (int i = 0; i != state.getGarbageLines(); i++) {
-            result = addGarbageLine(result);
+        OnePlayerGameState result;
+        int lines = state.getGarbageLines();
+        if (0 < lines) {
+            int totalGarbage = state.getTotalGarbage();
+            int firstGapIndex = totalGarbage / NUM_ALIGNED_GARBAGE_LINES;
+            int lastGapIndex = (totalGarbage + lines - 1) / NUM_ALIGNED_GARBAGE_LINES;
+            Integer[] gapValues = new Integer[lastGapIndex - firstGapIndex + 1];
+            gapGenerator.get(firstGapIndex, gapValues);
+            
+            int[] gaps = new int[lines];
+            for (int i = 0; i != lines; i++) {
+                gaps[i] = gapValues[(totalGarbage + i) / NUM_ALIGNED_GARBAGE_LINES - firstGapIndex].intValue();
+            }
+            // push the grid up and fill the bottom lines with garbage, except for the gap blocks
+            Grid grid = state.getGrid().withGarbageLines(gaps);
+            
+            result = state.withGrid(grid)
+                    .withGarbageLines(0)
+                    .withTotalGarbage(totalGarbage + lines);
+        } else {
+            result = state;
         }
-        
         return result;
     }
     
-    /**
-     * Adds a single garbage line to the given state and decreases the garbage line counter.
-     * 
-     * @param state
-     * @return new state
-     */
-    private OnePlayerGameState addGarbageLine(OnePlayerGameState state) {
-        int gapIndex = state.getTotalGarbage() / NUM_ALIGNED_GARBAGE_LINES;
-        int gap = gapGenerator.get(gapIndex).intValue();
-        // fill the bottom line with garbage, except for the gap block
-        List<Optional<Block>> grid = new ArrayList<>(state.getGrid().size());
-        for (int i = 0; i != state.getWidth(); i++) {
-            if (i == gap) {
-                grid.add(Optional.empty());
-            } else {
-                grid.add(Optional.of(Block.GARBAGE));
-            }
-        }
-        grid.addAll(state.getGrid().subList(0, state.getGrid().size() - state.getWidth()));
-        grid = Collections.unmodifiableList(grid);
-        
-        return state.withGrid(grid)
-                .withGarbageLines(state.getGarbageLines() - 1)
-                .withTotalGarbage(state.getTotalGarbage() + 1);
-    }
-
     /**
      * Executes the left action.
      * 
@@ -582,9 +604,8 @@ public class OnePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
         OnePlayerGameState result = state;
         // Check if there is still an active tetromino; it may have been locked in place by a Move Down or Lock.
         if (result.getActiveTetromino().isPresent()) {
-            while (result.canMoveDown()) {
-                result = moveDown(result);
-            }
+            // Drop the block onto the surface in one go, then lock it.
+            result = result.withCurrentBlockLocation(result.getGhostLocation());
             result = lockBlock(result);
         }
         return result;
@@ -13,39 +13,58 @@
  */
 package nl.mvdr.tinustris.core.engine;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.IntFunction;
 
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
- * Implementation of {@link Generator} that randomly determines new values, and uses a List to store past ones.
+ * Implementation of {@link Generator} that randomly determines new values, and uses a ring buffer to store past ones.
  * 
  * This implementation uses {@link Random} to randomly choose an int value, then uses the provided function to transform
  * the int value into an object of the desired type.
  * 
+ * The ring buffer only needs to contain the values which have not been released yet. It grows when needed, but values
+ * which have been released are overwritten by new ones, so as long as values are released regularly, memory usage is
+ * bounded.
+ * 
+ * Values which have already been generated are read without locking. Only generating new values and releasing old
+ * ones requires a lock.
+ * 
+ * The generator's state can be captured in a {@link GeneratorSnapshot}, from which an equivalent generator can be
+ * restored.
+ * 
  * @param <S> value type
  * 
  * @author Martijn van de Rijdt
  */
 @Slf4j
 abstract class RandomGenerator<S> implements Generator<S> {
+    /** Initial capacity of the ring buffer. */
+    private static final int INITIAL_CAPACITY = 16;
+    
     /** Random number generator. */
-    private final Random random;
-    /** List of values returned so far. */
-    // Note that this list can only grow, never shrink, which is a potential memory leak.
-    // In practice games are not expected to go on long enough for this to be a problem.
-    // If that assumption is wrong, this list will probably need to be converted to a linked list where the first part
-    // is cleared when it is no longer required.
-    private final List<S> values;
+    private final RestorableRandom random;
     /** Maximum int value used as input for {@link Random#nextInt()}. */
     private final int maxRandomValue;
     /** Function to map an integer value as determined by {@link Random#nextInt()} into an actual value. */
     private final IntFunction<S> mapping;
     /** Name for the value type. Used only for logging. */
     private final String valueName;
+    /** Lock, guarding the generation and release of values. */
+    private final Object lock;
+    /**
+     * Ring buffer containing the values which have been generated. Value i is stored at index i modulo the buffer's
+     * length. This buffer is replaced by a larger one when the values which have not been released do not fit anymore.
+     */
+    private volatile AtomicReferenceArray<Entry<S>> buffer;
+    /** Number of values generated so far. Guarded by the lock. */
+    private int generated;
+    /** Index of the first value which has not been released. Guarded by the lock. */
+    private int released;
     
     /**
      * Constructor.
@@ -58,14 +77,7 @@ abstract class RandomGenerator<S> implements Generator<S> {
      *            name for the value type; used only for logging
      */
     RandomGenerator(int maxRandomValue, IntFunction<S> mapping, String valueName) {
-        super();
-        
-        this.random = new Random();
-        this.values = new ArrayList<>();
-        
-        this.maxRandomValue = maxRandomValue;
-        this.mapping = mapping;
-        this.valueName = valueName;
+        this(new Random().nextLong(), maxRandomValue, mapping, valueName);
     }
 
     /**
@@ -81,34 +93,215 @@ abstract class RandomGenerator<S> implements Generator<S> {
      *            name for the value type; used only for logging
      */
     RandomGenerator(long randomSeed, int maxRandomValue, IntFunction<S> mapping, String valueName) {
+        this(new RestorableRandom(randomSeed), maxRandomValue, mapping, valueName);
+    }
+    
+    /**
+     * Constructor, which restores a generator from a snapshot.
+     * 
+     * @param snapshot
+     *            snapshot, as created by {@link #snapshot()} on a generator with the same maximum value and mapping
+     * @param maxRandomValue
+     *            maximum int value used as input for {@link Random#nextInt()}
+     * @param mapping
+     *            function to map an integer value as determined by {@link Random#nextInt()} into an actual value
+     * @param valueName
+     *            name for the value type; used only for logging
+     */
+    RandomGenerator(GeneratorSnapshot snapshot, int maxRandomValue, IntFunction<S> mapping, String valueName) {
+        this(new RestorableRandom(0L), maxRandomValue, mapping, valueName);
+        
+        random.setState(snapshot.getRandomState());
+        released = snapshot.getFirstIndex();
+        generated = snapshot.getFirstIndex();
+        for (int j = 0; j != snapshot.getNumberOfValues(); j++) {
+            int ord = snapshot.getValue(j);
+            if (ord < 0 || maxRandomValue <= ord) {
+                throw new IllegalArgumentException("Value out of range: " + ord);
+            }
+            store(new Entry<>(generated, ord, mapping.apply(ord)));
+            generated++;
+        }
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param random
+     *            random number generator
+     * @param maxRandomValue
+     *            maximum int value used as input for {@link Random#nextInt()}
+     * @param mapping
+     *            function to map an integer value as determined by {@link Random#nextInt()} into an actual value
+     * @param valueName
+     *            name for the value type; used only for logging
+     */
+    private RandomGenerator(RestorableRandom random, int maxRandomValue, IntFunction<S> mapping, String valueName) {
         super();
-
-        this.random = new Random(randomSeed);
-        this.values = new ArrayList<>();
         
+        this.random = random;
         this.maxRandomValue = maxRandomValue;
         this.mapping = mapping;
         this.valueName = valueName;
+        this.lock = new Object();
+        this.buffer = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        this.generated = 0;
+        this.released = 0;
     }
     
     /**
      * {@inheritDoc} 
      * 
      * This implementation is thread-safe.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             in case i is negative, or value i has been released and is no longer available
      */
     @Override
     public S get(int i) {
-        synchronized (values) {
-            while (values.size() <= i) {
+        AtomicReferenceArray<Entry<S>> entries = buffer;
+        Entry<S> entry = entries.get(i % entries.length());
+        
+        S result;
+        if (entry != null && entry.getIndex() == i) {
+            result = entry.getValue();
+        } else {
+            result = generate(i);
+        }
+        return result;
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * This implementation generates any missing values in one go, acquiring the lock at most once.
+     * 
+     * @throws IndexOutOfBoundsException
+     *             in case first is negative, or any of the values has been released and is no longer available
+     */
+    @Override
+    public void get(int first, S[] values) {
+        if (values.length != 0) {
+            // make sure the last value, and therefore every value before it, has been generated
+            get(first + values.length - 1);
+            
+            AtomicReferenceArray<Entry<S>> entries = buffer;
+            for (int j = 0; j != values.length; j++) {
+                Entry<S> entry = entries.get((first + j) % entries.length());
+                if (entry != null && entry.getIndex() == first + j) {
+                    values[j] = entry.getValue();
+                } else {
+                    // released, or the buffer has been replaced concurrently
+                    values[j] = get(first + j);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Generates values, up to and including value i.
+     * 
+     * @param i
+     *            index of the value
+     * @return value i
+     * @throws IndexOutOfBoundsException
+     *             in case value i has been released and is no longer available
+     */
+    private S generate(int i) {
+        synchronized (lock) {
+            if (i < released) {
+                throw new IndexOutOfBoundsException("Value " + i + " has been released; first available value: "
+                        + released);
+            }
+            
+            while (generated <= i) {
                 int ord = random.nextInt(maxRandomValue);
                 S value = mapping.apply(ord);
-                values.add(value);
+                if (released <= generated) {
+                    store(new Entry<>(generated, ord, value));
+                }
                 if (log.isInfoEnabled()) {
-                    log.info("{} {}: {}", valueName, Integer.valueOf(values.size() - 1), value);
+                    log.info("{} {}: {}", valueName, Integer.valueOf(generated), value);
                 }
+                generated++;
             }
+            
+            AtomicReferenceArray<Entry<S>> entries = buffer;
+            return entries.get(i % entries.length()).getValue();
         }
-        
-        return values.get(i);
+    }
+    
+    /**
+     * Stores the given entry in the buffer. If the buffer is full, it is replaced by a larger one first.
+     * 
+     * Should only be called while holding the lock.
+     * 
+     * @param entry
+     *            entry for the next value
+     */
+    private void store(Entry<S> entry) {
+        AtomicReferenceArray<Entry<S>> entries = buffer;
+        if (entries.length() <= generated - released) {
+            // all values in the buffer are still needed; copy them into a larger buffer
+            AtomicReferenceArray<Entry<S>> newEntries = new AtomicReferenceArray<>(2 * entries.length());
+            for (int j = released; j != generated; j++) {
+                newEntries.set(j % newEntries.length(), entries.get(j % entries.length()));
+            }
+            entries = newEntries;
+            buffer = newEntries;
+        }
+        entries.set(entry.getIndex() % entries.length(), entry);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * Released values are overwritten by new values. Once that has happened, they can no longer be requested.
+     */
+    @Override
+    public void release(int i) {
+        synchronized (lock) {
+            released = Math.max(released, i);
+        }
+    }
+    
+    /**
+     * Captures the current state of this generator. A generator restored from the snapshot will produce the same values
+     * as this one, for all indices which have not been released.
+     * 
+     * @return snapshot
+     */
+    public GeneratorSnapshot snapshot() {
+        synchronized (lock) {
+            AtomicReferenceArray<Entry<S>> entries = buffer;
+            // values may have been released in advance, before they were generated
+            int first = Math.min(released, generated);
+            int[] values = new int[generated - first];
+            for (int j = first; j != generated; j++) {
+                values[j - first] = entries.get(j % entries.length()).getOrd();
+            }
+            return new GeneratorSnapshot(first, values, random.getState());
+        }
+    }
+    
+    /** @return the capacity of the ring buffer */
+    int getCapacity() {
+        return buffer.length();
+    }
+    
+    /**
+     * A single value in the ring buffer, together with its index.
+     * 
+     * @param <S> value type
+     */
+    @RequiredArgsConstructor
+    @Getter
+    private static class Entry<S> {
+        /** Index of the value. */
+        private final int index;
+        /** Random int value the value was derived from. */
+        private final int ord;
+        /** The value. */
+        private final S value;
     }
 }
@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.core.engine;
 
+import lombok.NonNull;
 import nl.mvdr.tinustris.core.model.Tetromino;
 
 /**
@@ -35,4 +36,14 @@ public class RandomTetrominoGenerator extends RandomGenerator<Tetromino> {
     public RandomTetrominoGenerator(long randomSeed) {
         super(randomSeed, Tetromino.values().length, i -> Tetromino.values()[i], "Tetromino");
     }
+
+    /**
+     * Constructor, which restores a generator from a snapshot.
+     * 
+     * @param snapshot
+     *            snapshot, as created by {@link #snapshot()}
+     */
+    public RandomTetrominoGenerator(@NonNull GeneratorSnapshot snapshot) {
+        super(snapshot, Tetromino.values().length, i -> Tetromino.values()[i], "Tetromino");
+    }
 }
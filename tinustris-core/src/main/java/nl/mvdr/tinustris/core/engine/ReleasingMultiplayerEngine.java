@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.game.engine.GameEngine;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Implementation of {@link GameEngine} for a multiplayer game, which releases generated values once none of the
+ * players can request them anymore.
+ * 
+ * The computation is offloaded to a {@link MultiplayerEngine}. Since released values can no longer be requested, each
+ * state passed into {@link #computeNextState(MultiplayerGameState, List)} should be the latest state returned by this
+ * engine (or by {@link #initGameState()}, for the first frame). Use a plain {@link MultiplayerEngine} when earlier
+ * states may need to be recomputed, for instance when seeking in a replay.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString
+public class ReleasingMultiplayerEngine implements GameEngine<MultiplayerGameState, Input> {
+    /** Multiplayer game engine. */
+    private final MultiplayerEngine multiplayerEngine;
+    /** One-player game engine, whose generators are shared by all players. Should not be used by any other game. */
+    private final OnePlayerEngine onePlayerEngine;
+
+    /**
+     * Constructor.
+     * 
+     * @param numberOfPlayers
+     *            number of players; determines how many players will be in states created by the
+     *            {@link #initGameState()} method
+     * @param onePlayerEngine
+     *            single player game engine (to which most of the computation is offloaded); should not be used by any
+     *            other game
+     */
+    public ReleasingMultiplayerEngine(int numberOfPlayers, @NonNull OnePlayerEngine onePlayerEngine) {
+        super();
+
+        this.multiplayerEngine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine);
+        this.onePlayerEngine = onePlayerEngine;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MultiplayerGameState initGameState() {
+        return multiplayerEngine.initGameState();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public MultiplayerGameState computeNextState(MultiplayerGameState previousState,
+            List<InputState<Input>> inputStates) {
+        MultiplayerGameState result = multiplayerEngine.computeNextState(previousState, inputStates);
+        // all players share the same generators
+        onePlayerEngine.releaseUnreachableValues(IntStream.range(0, result.getNumberOfPlayers())
+                .mapToObj(result::getStateForPlayer)
+                .collect(Collectors.toList()));
+        return result;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Random;
+
+/**
+ * Subclass of {@link Random} whose internal state can be retrieved and restored.
+ * 
+ * This class uses exactly the same linear congruential formula as {@link Random}, so for a given seed it produces
+ * exactly the same sequence of values. Since {@link Random} does not expose its internal state, this class keeps track
+ * of the state itself. Note that, unlike {@link Random}, this class is not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@SuppressWarnings("serial") // not to be serialised
+class RestorableRandom extends Random {
+    /** Multiplier, as used by {@link Random}. */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    /** Addend, as used by {@link Random}. */
+    private static final long ADDEND = 0xBL;
+    /** Bit mask for the 48 bits of internal state. */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Internal state. Note that this field does not have an initialiser, since it is set by the superclass's
+     * constructor, through {@link #setSeed(long)}.
+     */
+    private long state;
+
+    /**
+     * Constructor.
+     * 
+     * @param seed
+     *            random seed
+     */
+    RestorableRandom(long seed) {
+        super(seed);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = initialState(seed);
+    }
+
+    /**
+     * Computes the internal state of a random number generator which has just been created with the given seed.
+     * 
+     * @param seed
+     *            random seed
+     * @return internal state
+     */
+    static long initialState(long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    /** @return internal state, which can be passed to {@link #setState(long)} to continue from the current point */
+    long getState() {
+        return state;
+    }
+
+    /**
+     * Restores the internal state.
+     * 
+     * @param state
+     *            internal state, as returned by {@link #getState()}
+     */
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import nl.mvdr.game.engine.GameEngine;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Implementation of {@link GameEngine} for a single player game.
+ * 
+ * Most of the computation is offloaded to a {@link OnePlayerEngine}. Since the player does not share that engine's
+ * generators with anyone else, generated values are released as soon as the player can no longer request them.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+@ToString
+public class SinglePlayerEngine implements GameEngine<OnePlayerGameState, Input> {
+    /** One-player game engine. Should not be used by any other players. */
+    @NonNull
+    private final OnePlayerEngine onePlayerEngine;
+
+    /** {@inheritDoc} */
+    @Override
+    public OnePlayerGameState initGameState() {
+        return onePlayerEngine.initGameState();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public OnePlayerGameState computeNextState(OnePlayerGameState previousState, List<InputState<Input>> inputStates) {
+        OnePlayerGameState result = onePlayerEngine.computeNextState(previousState, inputStates);
+        onePlayerEngine.releaseUnreachableValues(Collections.singleton(result));
+        return result;
+    }
+}
@@ -13,31 +13,65 @@
  */
 package nl.mvdr.tinustris.core.engine.speedcurve;
 
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.NoSuchElementException;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 
 /**
  * Representation of a curve of values based on ranges.
  * 
+ * The ranges are compiled into a dense lookup table on construction, so that looking up a value is a single array
+ * access. Keys past the end of the table, which only occur for curves whose ranges span more than
+ * {@value #MAX_TABLE_SIZE} keys, are looked up using a binary search over the ranges' lower bounds instead. Neither
+ * requires any allocation.
+ * 
  * @author Martijn van de Rijdt
  */
-@RequiredArgsConstructor
 class RangedCurve {
+    /** Maximum number of entries in the lookup table. */
+    static final int MAX_TABLE_SIZE = 1024;
+    
+    /** Lower bounds of the ranges, in ascending order. */
+    private final int[] keys;
+    /** Value for each range; values[i] corresponds to the range starting at keys[i]. */
+    private final int[] values;
+    /** Lookup table; table[i] contains the value for key keys[0] + i. */
+    private final int[] table;
+
     /**
-     * Map that represents the ranges. Each range (i, j) is represented by its lower bound i, where the upper bound j is
-     * the next range's lower bound, or infinity if it is the last one.
+     * Constructor.
      * 
-     * Should not be null or empty.
+     * @param map map that represents the ranges; each range (i, j) is represented by its lower bound i, where the upper
+     *            bound j is the next range's lower bound, or infinity if it is the last one; may not be null or empty
      */
-    @NonNull
-    private final Map<Integer, Integer> map;
+    RangedCurve(@NonNull Map<Integer, Integer> map) {
+        super();
+        
+        if (map.isEmpty()) {
+            throw new IllegalArgumentException("At least one range is required.");
+        }
+        
+        this.keys = map.keySet()
+            .stream()
+            .mapToInt(Integer::intValue)
+            .sorted()
+            .toArray();
+        this.values = Arrays.stream(keys)
+            .map(key -> map.get(Integer.valueOf(key)).intValue())
+            .toArray();
+        
+        long span = (long) keys[keys.length - 1] - keys[0] + 1;
+        this.table = new int[(int) Math.min(span, MAX_TABLE_SIZE)];
+        int range = 0;
+        for (int i = 0; i != table.length; i++) {
+            while (range + 1 != keys.length && keys[range + 1] <= keys[0] + i) {
+                range++;
+            }
+            table[i] = values[range];
+        }
+    }
 
     /**
      * Finds the range (i, j) where i <= key < j and returns the corresponding value.
@@ -47,27 +81,34 @@ class RangedCurve {
      * @throws NoSuchElementException if key is less than the lower bound
      */
     int getValue(int key) {
-        Integer mapKey = map.keySet()
-            .stream()
-            .filter(i -> i <= key)
-            .max(Integer::compare)
-            .get();
-
-        return map.get(mapKey).intValue();
+        if (key < keys[0]) {
+            throw new NoSuchElementException("Key " + key + " is less than the lower bound " + keys[0]);
+        }
+        
+        int result;
+        if ((long) key - keys[0] < table.length) {
+            result = table[key - keys[0]];
+        } else if (keys[keys.length - 1] <= key) {
+            result = values[values.length - 1];
+        } else {
+            int index = Arrays.binarySearch(keys, key);
+            if (index < 0) {
+                // not an exact match; the range is the one before the insertion point
+                index = -index - 2;
+            }
+            result = values[index];
+        }
+        return result;
     }
     
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        List<Entry<Integer, Integer>> entryList = map.entrySet()
-            .stream()
-            .sorted((entry0, entry1) -> entry0.getKey().compareTo(entry1.getKey()))
-            .collect(Collectors.toList());
-        
-        return IntStream.range(0, map.size() - 1)
-            .mapToObj(i -> String.format("[%s, %s): %s, ", entryList.get(i).getKey(), entryList.get(i + 1).getKey(), entryList.get(i).getValue()))
-            .collect(StringBuilder::new, (builder, string) -> builder.append(string), StringBuilder::append)
-            .append(String.format("[%s, infinity): %s", entryList.get(entryList.size() - 1).getKey(), entryList.get(entryList.size() - 1).getValue()))
-            .toString();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i != keys.length - 1; i++) {
+            builder.append(String.format("[%s, %s): %s, ", keys[i], keys[i + 1], values[i]));
+        }
+        builder.append(String.format("[%s, infinity): %s", keys[keys.length - 1], values[values.length - 1]));
+        return builder.toString();
     }
 }
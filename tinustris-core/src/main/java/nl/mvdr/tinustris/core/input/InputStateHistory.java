@@ -13,20 +13,20 @@
  */
 package nl.mvdr.tinustris.core.input;
 
-import java.util.EnumMap;
-import java.util.Map;
-
 import nl.mvdr.game.input.InputState;
 
 /**
  * Keeps administration of the number of frames each input has been pressed.
  * 
+ * The histories created by {@link #next(InputState)} are instances of {@link PackedInputStateHistory}, which can be
+ * compared using equals.
+ * 
  * @author Martijn van de Rijdt
  */
 @FunctionalInterface
 public interface InputStateHistory {
     /** Input state history where no inputs have been pressed. */
-    public static final InputStateHistory NEW = input -> 0;
+    public static final InputStateHistory NEW = new PackedInputStateHistory(new int[Input.values().length]);
 
     /**
      * Retrieves the number of frames the given input has been pressed.
@@ -45,17 +45,6 @@ public interface InputStateHistory {
      * @return new input state history
      */
     default InputStateHistory next(InputState<Input> inputState) {
-        Map<Input, Integer> frames = new EnumMap<>(Input.class);
-        for (Input input : Input.values()) {
-            int value;
-            if (inputState.isPressed(input)) {
-                value = getNumberOfFrames(input) + 1;
-            } else {
-                value = 0;
-            }
-            frames.put(input, Integer.valueOf(value));
-        }
-
-        return frames::get;
+        return PackedInputStateHistory.next(inputState, this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.input;
+
+import java.util.Arrays;
+
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import nl.mvdr.game.input.InputState;
+
+/**
+ * Implementation of {@link InputStateHistory} which keeps the number of frames for each input in a primitive array,
+ * indexed by the input's ordinal.
+ * 
+ * Unlike arbitrary implementations of {@link InputStateHistory}, instances of this class implement equals and
+ * hashCode, comparing the number of frames for each input. Instances of this class are immutable.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@EqualsAndHashCode
+public final class PackedInputStateHistory implements InputStateHistory {
+    /** All inputs. Cached, since {@link Input#values()} creates a new array on every invocation. */
+    private static final Input[] INPUTS = Input.values();
+
+    /** Number of frames each input has been pressed, indexed by the input's ordinal. */
+    private final int[] frames;
+
+    /**
+     * Constructor.
+     * 
+     * @param frames
+     *            number of frames each input has been pressed, indexed by the input's ordinal; the array is copied
+     */
+    public PackedInputStateHistory(@NonNull int[] frames) {
+        super();
+
+        // note that this constructor does not use INPUTS, since it is used to initialise InputStateHistory.NEW
+        if (frames.length != Input.values().length) {
+            throw new IllegalArgumentException("Expected " + Input.values().length + " values, got: " + frames.length);
+        }
+
+        this.frames = frames.clone();
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param frames
+     *            number of frames each input has been pressed, indexed by the input's ordinal; the array is not copied
+     *            so it should not be shared with anyone else
+     * @param dummy
+     *            not used; only present to distinguish this constructor from the public one
+     */
+    private PackedInputStateHistory(int[] frames, boolean dummy) {
+        super();
+
+        this.frames = frames;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getNumberOfFrames(Input input) {
+        return frames[input.ordinal()];
+    }
+
+    /**
+     * Creates the input state history for the next frame. Implementation of {@link InputStateHistory#next(InputState)}.
+     * 
+     * If no inputs are pressed, this method returns {@link InputStateHistory#NEW} instead of allocating a new history.
+     * 
+     * @param inputState
+     *            input state for the next frame
+     * @param previous
+     *            input state history for the current frame
+     * @return new input state history
+     */
+    static InputStateHistory next(InputState<Input> inputState, InputStateHistory previous) {
+        int[] nextFrames = null;
+        for (Input input : INPUTS) {
+            if (inputState.isPressed(input)) {
+                if (nextFrames == null) {
+                    nextFrames = new int[INPUTS.length];
+                }
+                nextFrames[input.ordinal()] = previous.getNumberOfFrames(input) + 1;
+            }
+        }
+
+        InputStateHistory result;
+        if (nextFrames == null) {
+            result = NEW;
+        } else {
+            result = new PackedInputStateHistory(nextFrames, false);
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "PackedInputStateHistory" + Arrays.toString(frames);
+    }
+}
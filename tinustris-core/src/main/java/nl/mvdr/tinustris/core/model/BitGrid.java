@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+/**
+ * Read-only bit mask view of a Tetris grid, as used for collision detection.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public interface BitGrid {
+    /** @return width of the grid */
+    int getWidth();
+
+    /** @return height of the grid */
+    int getHeight();
+
+    /**
+     * Returns the row mask for the given row: bit x is set if and only if cell (x, y) contains a block.
+     * 
+     * @param y
+     *            y coordinate
+     * @return row mask
+     */
+    long getRow(int y);
+
+    /**
+     * Returns the height of the given column: one plus the y coordinate of the highest occupied cell, or 0 if the
+     * column is empty. A block dropped straight down in this column lands on this height.
+     * 
+     * @param x
+     *            x coordinate
+     * @return column height
+     */
+    int getColumnHeight(int x);
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Bit mask representation of a tetromino in a specific orientation, within its 4 * 4 grid.
+ * 
+ * Row y of the mask has bit x set if and only if point (x, y) is occupied by the tetromino. Together with the bounding
+ * box, this allows for collision and bounds checks against a {@link Grid} without any allocation.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class CollisionMask {
+    /** Size of the grid containing the tetromino. */
+    public static final int SIZE = 4;
+
+    /** Per row: bit mask of the occupied points. */
+    private final int[] rows;
+    /** Per column: smallest y coordinate of the occupied points in that column, or {@link #SIZE} if there are none. */
+    private final int[] bottoms;
+    /** Smallest x coordinate of the occupied points. */
+    @Getter
+    private final int minX;
+    /** Largest x coordinate of the occupied points. */
+    @Getter
+    private final int maxX;
+    /** Smallest y coordinate of the occupied points. */
+    @Getter
+    private final int minY;
+    /** Largest y coordinate of the occupied points. */
+    @Getter
+    private final int maxY;
+
+    /**
+     * Constructor.
+     * 
+     * @param points
+     *            occupied points; must contain at least one point, and all coordinates must be in the range [0,
+     *            {@link #SIZE})
+     */
+    CollisionMask(@NonNull Set<Point> points) {
+        super();
+
+        if (points.isEmpty()) {
+            throw new IllegalArgumentException("At least one point is required.");
+        }
+
+        this.rows = new int[SIZE];
+        this.bottoms = new int[SIZE];
+        Arrays.fill(bottoms, SIZE);
+        for (Point point : points) {
+            if (point.getX() < 0 || SIZE <= point.getX() || point.getY() < 0 || SIZE <= point.getY()) {
+                throw new IllegalArgumentException("Point out of bounds: " + point);
+            }
+            rows[point.getY()] = rows[point.getY()] | 1 << point.getX();
+            bottoms[point.getX()] = Math.min(bottoms[point.getX()], point.getY());
+        }
+
+        this.minX = points.stream().mapToInt(Point::getX).min().getAsInt();
+        this.maxX = points.stream().mapToInt(Point::getX).max().getAsInt();
+        this.minY = points.stream().mapToInt(Point::getY).min().getAsInt();
+        this.maxY = points.stream().mapToInt(Point::getY).max().getAsInt();
+    }
+
+    /**
+     * Returns the bit mask for the given row.
+     * 
+     * @param y
+     *            row index; must be in the range [0, {@link #SIZE})
+     * @return row mask, where bit x is set if and only if point (x, y) is occupied
+     */
+    public int getRow(int y) {
+        return rows[y];
+    }
+
+    /**
+     * Indicates whether the given point is occupied.
+     * 
+     * @param x
+     *            x coordinate; must be in the range [0, {@link #SIZE})
+     * @param y
+     *            y coordinate; must be in the range [0, {@link #SIZE})
+     * @return whether the point is occupied
+     */
+    public boolean isOccupied(int x, int y) {
+        return (rows[y] >>> x & 1) != 0;
+    }
+
+    /**
+     * Returns the bottom profile for the given column.
+     * 
+     * @param x
+     *            column index; must be in the range [0, {@link #SIZE})
+     * @return smallest y coordinate of the occupied points in the given column, or {@link #SIZE} if there are none
+     */
+    public int getBottom(int x) {
+        return bottoms[x];
+    }
+
+    /**
+     * Returns the given row, translated to the given x coordinate in the grid.
+     * 
+     * @param y
+     *            row index
+     * @param x
+     *            x coordinate of the tetromino; must be greater than -{@link Grid#MAX_WIDTH} and less than
+     *            {@link Grid#MAX_WIDTH}
+     * @return row mask in grid coordinates
+     */
+    private long getTranslatedRow(int y, int x) {
+        long row = rows[y];
+        long result;
+        if (0 <= x) {
+            result = row << x;
+        } else {
+            result = row >>> -x;
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether a tetromino with this mask at the given location is completely within the bounds of the grid.
+     * 
+     * @param grid
+     *            grid
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @return whether all occupied points are within bounds
+     */
+    public boolean isWithinBounds(BitGrid grid, int x, int y) {
+        boolean result = 0 <= x + minX;
+        result = result && x + maxX < grid.getWidth();
+        result = result && 0 <= y + minY;
+        result = result && y + maxY < grid.getHeight();
+        return result;
+    }
+
+    /**
+     * Indicates whether a tetromino with this mask at the given location overlaps with any blocks in the grid. Only the
+     * points which are within the bounds of the grid are checked.
+     * 
+     * @param grid
+     *            grid
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @return whether any of the occupied points contain a block in the grid
+     */
+    public boolean overlaps(BitGrid grid, int x, int y) {
+        boolean result = false;
+        if (0 <= x + maxX && x + minX < grid.getWidth()) {
+            int from = Math.max(minY, -y);
+            int to = Math.min(maxY, grid.getHeight() - 1 - y);
+            for (int row = from; !result && row <= to; row++) {
+                result = (grid.getRow(y + row) & getTranslatedRow(row, x)) != 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether a tetromino with this mask fits in the grid at the given location; that is, whether it is
+     * within bounds and does not overlap with any blocks in the grid.
+     * 
+     * @param grid
+     *            grid
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @return whether the tetromino fits
+     */
+    public boolean fits(BitGrid grid, int x, int y) {
+        return isWithinBounds(grid, x, y) && !overlaps(grid, x, y);
+    }
+
+    /**
+     * Computes how many rows a tetromino with this mask at the given location can be dropped straight down before it
+     * hits either a block or the floor.
+     * 
+     * If the tetromino is within bounds and entirely above the grid's surface, this is computed directly from the
+     * tetromino's bottom profile and the grid's column heights. Otherwise (for example, when the tetromino has been
+     * tucked under an overhang) the distance is determined one row at a time.
+     * 
+     * @param grid
+     *            grid
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @return drop distance; 0 if the tetromino cannot be moved down
+     */
+    public int getDropDistance(BitGrid grid, int x, int y) {
+        int result = Integer.MAX_VALUE;
+        boolean aboveSurface = isWithinBounds(grid, x, y);
+        for (int column = minX; aboveSurface && column <= maxX; column++) {
+            if (bottoms[column] != SIZE) {
+                int distance = y + bottoms[column] - grid.getColumnHeight(x + column);
+                aboveSurface = 0 <= distance;
+                result = Math.min(result, distance);
+            }
+        }
+
+        if (!aboveSurface) {
+            result = 0;
+            while (fits(grid, x, y - result - 1)) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
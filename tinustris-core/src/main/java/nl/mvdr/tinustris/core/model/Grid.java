@@ -0,0 +1,547 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The basin of blocks in a Tetris game.
+ * 
+ * Each row of the grid is stored as a bit mask, where bit x is set if and only if cell (x, y) contains a block. The
+ * specific Block values are stored in a compact byte plane alongside the row masks. This makes collision and full
+ * line checks simple bitwise operations, and keeps grid copies small.
+ * 
+ * The grid also keeps track of the height of each column, that is, the surface on which a dropped block would land.
+ * This index is updated incrementally whenever a copy of the grid is made, as is a Zobrist hash of the grid's
+ * occupancy (see {@link #getOccupancyHash()}) and a bit set of the full lines. Since a row mask doubles as the row's
+ * count of filled cells, a line is full when its mask has all of its width bits set; the bit set allows the full lines
+ * to be counted and listed without scanning the rows.
+ * 
+ * Modified copies are created through a {@link GridBuffer}, the mutable counterpart of this class.
+ * 
+ * Instances of this class are immutable. They also serve as an unmodifiable list view of the grid, where element (x,
+ * y) is represented by element x + y * width.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class Grid extends AbstractList<Optional<Block>> implements BitGrid, RandomAccess {
+    /** Maximum width of a grid. Limited by the number of bits in a row mask. */
+    public static final int MAX_WIDTH = Long.SIZE;
+
+    /**
+     * Possible values for a single cell. Element 0 is the empty cell; element i + 1 contains the block with ordinal i.
+     * 
+     * These values are cached so that reading from the grid does not result in new objects.
+     */
+    private static final List<Optional<Block>> CELL_VALUES = Collections.unmodifiableList(Stream.concat(
+            Stream.of(Optional.<Block>empty()),
+            Stream.of(Block.values()).map(Optional::of))
+        .collect(Collectors.toList()));
+
+    /** Width of the grid. */
+    @Getter
+    private final int width;
+    /** Height of the grid. */
+    @Getter
+    private final int height;
+    /** Per row: bit mask of the occupied cells. */
+    private final long[] rows;
+    /** Per cell: 0 if the cell is empty, otherwise the block's ordinal + 1. Cell (x, y) has index x + y * width. */
+    private final byte[] cells;
+    /** Per column: one plus the y coordinate of the highest occupied cell, or 0 if the column is empty. */
+    private final int[] columnHeights;
+    /** Bit set of the full lines: bit y % 64 of word y / 64 is set if and only if line y is full. */
+    private final long[] fullLines;
+    /**
+     * Zobrist hash of the occupied cells of this grid. Equal grids have the same hash; note that the specific Block
+     * values do not influence the hash.
+     */
+    @Getter
+    private final long occupancyHash;
+
+    /**
+     * Constructor.
+     * 
+     * This constructor does not copy the given arrays; the caller should make sure not to modify them afterwards.
+     * 
+     * @param width
+     *            width of the grid
+     * @param rows
+     *            row masks; its length determines the height of the grid
+     * @param cells
+     *            cell values; length must be equal to width times height
+     * @param columnHeights
+     *            column heights; length must be equal to width
+     * @param fullLines
+     *            bit set of the full lines; see {@link #createFullLines(int)}
+     * @param occupancyHash
+     *            Zobrist hash of the row masks
+     */
+    Grid(int width, long[] rows, byte[] cells, int[] columnHeights, long[] fullLines, long occupancyHash) {
+        super();
+
+        this.width = width;
+        this.height = rows.length;
+        this.rows = rows;
+        this.cells = cells;
+        this.columnHeights = columnHeights;
+        this.fullLines = fullLines;
+        this.occupancyHash = occupancyHash;
+    }
+
+    /**
+     * Creates an empty grid of the given size.
+     * 
+     * @param width
+     *            width; must be positive and at most {@link #MAX_WIDTH}
+     * @param height
+     *            height; must be positive
+     * @return new grid
+     */
+    public static Grid empty(int width, int height) {
+        checkDimensions(width, height);
+        return new Grid(width, new long[height], new byte[width * height], new int[width], createFullLines(height), 0L);
+    }
+
+    /**
+     * Returns a grid with the given contents.
+     * 
+     * @param grid
+     *            list of blocks, where element (x, y) is represented by element x + y * width; if this list is
+     *            already a grid of the given width it is returned as is
+     * @param width
+     *            width of the grid; must be positive and at most {@link #MAX_WIDTH}
+     * @return grid
+     */
+    public static Grid of(@NonNull List<Optional<Block>> grid, int width) {
+        Grid result;
+        if (grid instanceof Grid && ((Grid) grid).getWidth() == width) {
+            result = (Grid) grid;
+        } else {
+            if (width <= 0 || grid.size() % width != 0) {
+                throw new IllegalArgumentException("Unexpected grid size, should be a multiple of width " + width
+                        + ", was: " + grid.size());
+            }
+            int height = grid.size() / width;
+            checkDimensions(width, height);
+
+            long[] rows = new long[height];
+            byte[] cells = new byte[grid.size()];
+            for (int y = 0; y != height; y++) {
+                for (int x = 0; x != width; x++) {
+                    Optional<Block> block = grid.get(x + y * width);
+                    if (block.isPresent()) {
+                        rows[y] = rows[y] | 1L << x;
+                        cells[x + y * width] = toCellValue(block.get());
+                    }
+                }
+            }
+            int[] columnHeights = new int[width];
+            for (int x = 0; x != width; x++) {
+                columnHeights[x] = computeColumnHeight(rows, x, height - 1);
+            }
+            long[] fullLines = createFullLines(height);
+            computeFullLines(rows, width, fullLines);
+            result = new Grid(width, rows, cells, columnHeights, fullLines, Zobrist.rows(rows, 0, height));
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the given dimensions are valid for a grid.
+     * 
+     * @param width
+     *            width
+     * @param height
+     *            height
+     * @throws IllegalArgumentException
+     *             in case the values are incorrect
+     */
+    private static void checkDimensions(int width, int height) {
+        if (width <= 0 || MAX_WIDTH < width) {
+            throw new IllegalArgumentException("width should be between 1 and " + MAX_WIDTH + ", was: " + width);
+        }
+        if (height <= 0) {
+            throw new IllegalArgumentException("height should be positive, was: " + height);
+        }
+    }
+
+    /**
+     * Converts the given block to its representation in the cell plane.
+     * 
+     * @param block block
+     * @return cell value
+     */
+    static byte toCellValue(Block block) {
+        return (byte) (block.ordinal() + 1);
+    }
+
+    /**
+     * Copies the contents of this grid into the given arrays.
+     * 
+     * @param targetRows
+     *            row masks; length must be equal to the height of this grid
+     * @param targetCells
+     *            cell values; length must be equal to the size of this grid
+     * @param targetColumnHeights
+     *            column heights; length must be equal to the width of this grid
+     * @param targetFullLines
+     *            bit set of the full lines, as created by {@link #createFullLines(int)} for the height of this grid
+     */
+    void copyInto(long[] targetRows, byte[] targetCells, int[] targetColumnHeights, long[] targetFullLines) {
+        System.arraycopy(rows, 0, targetRows, 0, height);
+        System.arraycopy(cells, 0, targetCells, 0, cells.length);
+        System.arraycopy(columnHeights, 0, targetColumnHeights, 0, width);
+        System.arraycopy(fullLines, 0, targetFullLines, 0, fullLines.length);
+    }
+
+    /**
+     * Computes the height of a column, by scanning the given row masks from the given row downwards.
+     * 
+     * @param rows
+     *            row masks
+     * @param x
+     *            x coordinate of the column
+     * @param fromY
+     *            highest row which may contain a block in this column
+     * @return one plus the y coordinate of the highest occupied cell at or below fromY, or 0 if there is none
+     */
+    static int computeColumnHeight(long[] rows, int x, int fromY) {
+        int y = fromY;
+        while (0 <= y && (rows[y] >>> x & 1L) == 0) {
+            y--;
+        }
+        return y + 1;
+    }
+
+    /**
+     * Computes the row mask for a full row.
+     * 
+     * @param width
+     *            width of the grid
+     * @return row mask with all cells in a row set
+     */
+    static long getFullRowMask(int width) {
+        return width == MAX_WIDTH ? -1L : (1L << width) - 1;
+    }
+
+    /**
+     * Creates an empty bit set of full lines.
+     * 
+     * @param height
+     *            height of the grid
+     * @return bit set, with one bit per line
+     */
+    static long[] createFullLines(int height) {
+        return new long[(height + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * Computes the bit set of full lines from scratch.
+     * 
+     * @param rows
+     *            row masks
+     * @param width
+     *            width of the grid
+     * @param fullLines
+     *            bit set to be filled, as created by {@link #createFullLines(int)}
+     */
+    static void computeFullLines(long[] rows, int width, long[] fullLines) {
+        long fullRow = getFullRowMask(width);
+        Arrays.fill(fullLines, 0L);
+        for (int y = 0; y != rows.length; y++) {
+            if (rows[y] == fullRow) {
+                fullLines[y / Long.SIZE] = fullLines[y / Long.SIZE] | 1L << y;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the given line is set in a bit set of full lines.
+     * 
+     * @param fullLines
+     *            bit set of full lines
+     * @param y
+     *            line number
+     * @return whether the line is full
+     */
+    static boolean isFullLine(long[] fullLines, int y) {
+        return (fullLines[y / Long.SIZE] >>> y & 1L) != 0;
+    }
+
+    /**
+     * Finds the first full line at or above the given line in a bit set of full lines.
+     * 
+     * @param fullLines
+     *            bit set of full lines
+     * @param height
+     *            height of the grid
+     * @param fromY
+     *            first line to be taken into account
+     * @return y coordinate of the full line, or -1 if there is none
+     */
+    static int nextFullLine(long[] fullLines, int height, int fromY) {
+        int result = -1;
+        if (fromY < height) {
+            int word = fromY / Long.SIZE;
+            long bits = fullLines[word] & -1L << fromY;
+            while (bits == 0L && word + 1 != fullLines.length) {
+                word++;
+                bits = fullLines[word];
+            }
+            if (bits != 0L) {
+                result = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts the given cell value to the corresponding block.
+     * 
+     * @param value cell value
+     * @return block, or empty if the cell value represents an empty cell
+     */
+    static Optional<Block> toBlock(byte value) {
+        return CELL_VALUES.get(value);
+    }
+
+    /**
+     * Returns the block at the given position. This method does not perform any bounds checking on x.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return block at x, y
+     */
+    public Optional<Block> getBlock(int x, int y) {
+        return toBlock(cells[x + y * width]);
+    }
+
+    /**
+     * Indicates whether the given cell contains a block. This method does not perform any bounds checking on x.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return whether the given cell contains a block
+     */
+    public boolean isOccupied(int x, int y) {
+        return (rows[y] >>> x & 1L) != 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRow(int y) {
+        return rows[y];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnHeight(int x) {
+        return columnHeights[x];
+    }
+
+    /**
+     * Computes if the line is filled with blocks.
+     * 
+     * @param y
+     *            line number
+     * @return whether the given line is filled
+     */
+    public boolean isFullLine(int y) {
+        return isFullLine(fullLines, y);
+    }
+
+    /**
+     * Finds the first full line at or above the given line. Together with {@link #countFullLines(int)}, this allows
+     * callers to visit the full lines without testing every line.
+     * 
+     * @param fromY
+     *            first line to be taken into account; must be at least 0
+     * @return y coordinate of the full line, or -1 if there is none
+     */
+    public int nextFullLine(int fromY) {
+        return nextFullLine(fullLines, height, fromY);
+    }
+
+    /**
+     * Returns a copy of this grid, where the given points contain the given block.
+     * 
+     * @param points
+     *            points; must all be within bounds
+     * @param block
+     *            block to be added
+     * @return new grid
+     */
+    public Grid withBlocks(@NonNull Collection<Point> points, @NonNull Block block) {
+        GridBuffer buffer = new GridBuffer(this);
+        for (Point point : points) {
+            buffer.addBlock(point.getX(), point.getY(), block);
+        }
+        return buffer.build();
+    }
+
+    /**
+     * Returns a copy of this grid, where the points of the given collision mask contain the given block.
+     * 
+     * @param mask
+     *            collision mask of a tetromino
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @param block
+     *            block to be added
+     * @return new grid
+     * @throws IndexOutOfBoundsException
+     *             in case the tetromino is not within the bounds of this grid
+     */
+    public Grid withBlocks(@NonNull CollisionMask mask, int x, int y, @NonNull Block block) {
+        GridBuffer buffer = new GridBuffer(this);
+        buffer.addBlocks(mask, x, y, block);
+        return buffer.build();
+    }
+
+    /**
+     * Returns a copy of this grid, where the given line has been removed. All lines above it are dropped down one
+     * position, and the top line is empty.
+     * 
+     * @param line
+     *            line index
+     * @return new grid
+     */
+    public Grid withoutLine(int line) {
+        GridBuffer buffer = new GridBuffer(this);
+        buffer.removeLine(line);
+        return buffer.build();
+    }
+
+    /**
+     * Returns a copy of this grid, where all full lines have been removed in a single pass. The lines above them are
+     * dropped down, and the top lines are empty.
+     * 
+     * @return new grid, or this grid if it does not contain any full lines
+     */
+    public Grid withoutFullLines() {
+        Grid result;
+        if (countFullLines(height) == 0) {
+            result = this;
+        } else {
+            GridBuffer buffer = new GridBuffer(this);
+            buffer.removeFullLines();
+            result = buffer.build();
+        }
+        return result;
+    }
+
+    /**
+     * Counts the full lines below the given line.
+     * 
+     * @param toY
+     *            y coordinate of the first line which is not taken into account
+     * @return number of full lines with a y coordinate less than toY
+     */
+    public int countFullLines(int toY) {
+        int result = 0;
+        int words = toY / Long.SIZE;
+        for (int word = 0; word != words; word++) {
+            result = result + Long.bitCount(fullLines[word]);
+        }
+        if (toY % Long.SIZE != 0) {
+            result = result + Long.bitCount(fullLines[words] & (1L << toY) - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a copy of this grid, where a garbage line has been inserted at the bottom. All other lines are pushed up
+     * one position; the top line is discarded.
+     * 
+     * @param gap
+     *            x coordinate of the gap in the garbage line; if this is not a valid x coordinate, the garbage line
+     *            is completely filled
+     * @return new grid
+     */
+    public Grid withGarbageLine(int gap) {
+        GridBuffer buffer = new GridBuffer(this);
+        buffer.addGarbageLine(gap);
+        return buffer.build();
+    }
+
+    /**
+     * Returns a copy of this grid, where a number of garbage lines have been inserted at the bottom. The result is the
+     * same as invoking {@link #withGarbageLine(int)} for each gap in turn, but the grid is only copied once.
+     * 
+     * @param gaps
+     *            x coordinates of the gaps in the garbage lines, in the order in which the lines are inserted
+     * @return new grid
+     */
+    public Grid withGarbageLines(@NonNull int[] gaps) {
+        GridBuffer buffer = new GridBuffer(this);
+        buffer.addGarbageLines(gaps, gaps.length);
+        return buffer.build();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Optional<Block> get(int index) {
+        if (index < 0 || cells.length <= index) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + cells.length);
+        }
+        return toBlock(cells[index]);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object o) {
+        boolean result;
+        if (o == this) {
+            result = true;
+        } else if (o instanceof Grid) {
+            Grid other = (Grid) o;
+            result = width == other.width && Arrays.equals(cells, other.cells);
+        } else {
+            // compare as any list
+            result = super.equals(o);
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        // consistent with List.hashCode(), since grids may be equal to other lists
+        return super.hashCode();
+    }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * Mutable counterpart of {@link Grid}, using the same representation: a bit mask per row, a byte plane containing the
+ * blocks, the height of each column, a bit set of the full lines and a Zobrist hash of the occupied cells.
+ * 
+ * All modifications are performed in place, without allocating any memory. Use {@link #toGrid()} to obtain an
+ * immutable copy.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GridBuffer implements BitGrid {
+    /** Width of the grid. */
+    @Getter
+    private final int width;
+    /** Height of the grid. */
+    @Getter
+    private final int height;
+    /** Per row: bit mask of the occupied cells. */
+    private final long[] rows;
+    /** Per cell: 0 if the cell is empty, otherwise the block's ordinal + 1. Cell (x, y) has index x + y * width. */
+    private final byte[] cells;
+    /** Per column: one plus the y coordinate of the highest occupied cell, or 0 if the column is empty. */
+    private final int[] columnHeights;
+    /** Bit set of the full lines; see {@link Grid#createFullLines(int)}. */
+    private final long[] fullLines;
+    /** Zobrist hash of the occupied cells; see {@link Grid#getOccupancyHash()}. */
+    @Getter
+    private long occupancyHash;
+    /** Immutable copy of the current contents of this buffer, if one has been made since the last modification. */
+    private Grid snapshot;
+
+    /**
+     * Constructor.
+     * 
+     * @param grid
+     *            initial contents of the buffer; also determines its dimensions
+     */
+    public GridBuffer(@NonNull Grid grid) {
+        super();
+
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
+        this.rows = new long[height];
+        this.cells = new byte[width * height];
+        this.columnHeights = new int[width];
+        this.fullLines = Grid.createFullLines(height);
+
+        set(grid);
+    }
+
+    /**
+     * Replaces the contents of this buffer with those of the given grid.
+     * 
+     * @param grid
+     *            grid; must have the same dimensions as this buffer
+     */
+    public void set(@NonNull Grid grid) {
+        if (grid.getWidth() != width || grid.getHeight() != height) {
+            throw new IllegalArgumentException("Expected a grid of " + width + " * " + height + ", was: "
+                    + grid.getWidth() + " * " + grid.getHeight());
+        }
+
+        grid.copyInto(rows, cells, columnHeights, fullLines);
+        occupancyHash = grid.getOccupancyHash();
+        snapshot = grid;
+    }
+
+    /**
+     * Replaces the contents of this buffer with those of the given buffer, without allocating any memory.
+     * 
+     * @param buffer
+     *            buffer; must have the same dimensions as this buffer
+     */
+    public void set(@NonNull GridBuffer buffer) {
+        if (buffer.width != width || buffer.height != height) {
+            throw new IllegalArgumentException("Expected a grid of " + width + " * " + height + ", was: "
+                    + buffer.width + " * " + buffer.height);
+        }
+
+        System.arraycopy(buffer.rows, 0, rows, 0, height);
+        System.arraycopy(buffer.cells, 0, cells, 0, cells.length);
+        System.arraycopy(buffer.columnHeights, 0, columnHeights, 0, width);
+        System.arraycopy(buffer.fullLines, 0, fullLines, 0, fullLines.length);
+        occupancyHash = buffer.occupancyHash;
+        snapshot = buffer.snapshot;
+    }
+
+    /**
+     * Returns the block at the given position. This method does not perform any bounds checking on x.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return block at x, y
+     */
+    public Optional<Block> getBlock(int x, int y) {
+        return Grid.toBlock(cells[x + y * width]);
+    }
+
+    /**
+     * Indicates whether the given cell contains a block. This method does not perform any bounds checking on x.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @return whether the given cell contains a block
+     */
+    public boolean isOccupied(int x, int y) {
+        return (rows[y] >>> x & 1L) != 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getRow(int y) {
+        return rows[y];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getColumnHeight(int x) {
+        return columnHeights[x];
+    }
+
+    /**
+     * Computes if the line is filled with blocks.
+     * 
+     * @param y
+     *            line number
+     * @return whether the given line is filled
+     */
+    public boolean isFullLine(int y) {
+        return Grid.isFullLine(fullLines, y);
+    }
+
+    /**
+     * Finds the first full line at or above the given line.
+     * 
+     * @param fromY
+     *            first line to be taken into account; must be at least 0
+     * @return y coordinate of the full line, or -1 if there is none
+     */
+    public int nextFullLine(int fromY) {
+        return Grid.nextFullLine(fullLines, height, fromY);
+    }
+
+    /**
+     * Places the given block at the given point.
+     * 
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate
+     * @param block
+     *            block
+     */
+    public void addBlock(int x, int y, @NonNull Block block) {
+        if (x < 0 || width <= x) {
+            throw new IndexOutOfBoundsException("x should be between 0 and " + width + ", was: " + x);
+        }
+
+        long row = rows[y];
+        rows[y] = row | 1L << x;
+        occupancyHash = occupancyHash ^ Zobrist.row(y, row) ^ Zobrist.row(y, rows[y]);
+        cells[x + y * width] = Grid.toCellValue(block);
+        columnHeights[x] = Math.max(columnHeights[x], y + 1);
+        updateFullLine(y);
+        snapshot = null;
+    }
+
+    /**
+     * Places the given block at each of the points of the given collision mask.
+     * 
+     * @param mask
+     *            collision mask of a tetromino
+     * @param x
+     *            x coordinate of the tetromino's location
+     * @param y
+     *            y coordinate of the tetromino's location
+     * @param block
+     *            block to be added
+     * @throws IndexOutOfBoundsException
+     *             in case the tetromino is not within the bounds of this grid
+     */
+    public void addBlocks(@NonNull CollisionMask mask, int x, int y, @NonNull Block block) {
+        if (!mask.isWithinBounds(this, x, y)) {
+            throw new IndexOutOfBoundsException("Tetromino at (" + x + ", " + y + ") is not within bounds.");
+        }
+
+        byte value = Grid.toCellValue(block);
+        for (int row = mask.getMinY(); row <= mask.getMaxY(); row++) {
+            occupancyHash = occupancyHash ^ Zobrist.row(y + row, rows[y + row]);
+            for (int column = mask.getMinX(); column <= mask.getMaxX(); column++) {
+                if (mask.isOccupied(column, row)) {
+                    rows[y + row] = rows[y + row] | 1L << x + column;
+                    cells[x + column + (y + row) * width] = value;
+                    columnHeights[x + column] = Math.max(columnHeights[x + column], y + row + 1);
+                }
+            }
+            occupancyHash = occupancyHash ^ Zobrist.row(y + row, rows[y + row]);
+            updateFullLine(y + row);
+        }
+        snapshot = null;
+    }
+
+    /**
+     * Removes the given line. All lines above it are dropped down one position, and the top line is emptied.
+     * 
+     * @param line
+     *            line index
+     */
+    public void removeLine(int line) {
+        // only the keys of the removed line and the lines above it change
+        occupancyHash = occupancyHash ^ Zobrist.rows(rows, line, height);
+        System.arraycopy(rows, line + 1, rows, line, height - line - 1);
+        rows[height - 1] = 0L;
+        occupancyHash = occupancyHash ^ Zobrist.rows(rows, line, height);
+        System.arraycopy(cells, (line + 1) * width, cells, line * width, (height - line - 1) * width);
+        for (int i = (height - 1) * width; i != cells.length; i++) {
+            cells[i] = 0;
+        }
+
+        for (int x = 0; x != width; x++) {
+            int columnHeight = columnHeights[x];
+            if (line + 1 < columnHeight) {
+                // column's top cell has dropped down one position
+                columnHeights[x] = columnHeight - 1;
+            } else if (line + 1 == columnHeight) {
+                // column's top cell was removed; find the next one below it
+                columnHeights[x] = Grid.computeColumnHeight(rows, x, line - 1);
+            }
+            // otherwise the column is entirely below the removed line
+        }
+        Grid.computeFullLines(rows, width, fullLines);
+        snapshot = null;
+    }
+
+    /**
+     * Removes all full lines in a single pass. The remaining lines are moved down directly into their final positions,
+     * keeping their order, and the lines at the top are emptied. The result is the same as invoking
+     * {@link #removeLine(int)} for each full line, from the top down.
+     * 
+     * @return number of lines removed
+     */
+    public int removeFullLines() {
+        int result = 0;
+        int firstFullLine = nextFullLine(0);
+        if (0 <= firstFullLine) {
+            // the lines below the first full line stay where they are, so only the keys of the other lines change
+            occupancyHash = occupancyHash ^ Zobrist.rows(rows, firstFullLine, height);
+            int target = firstFullLine;
+            for (int y = firstFullLine + 1; y != height; y++) {
+                if (!isFullLine(y)) {
+                    rows[target] = rows[y];
+                    System.arraycopy(cells, y * width, cells, target * width, width);
+                    target++;
+                }
+            }
+            result = height - target;
+            for (int y = target; y != height; y++) {
+                rows[y] = 0L;
+            }
+            Arrays.fill(cells, target * width, cells.length, (byte) 0);
+            occupancyHash = occupancyHash ^ Zobrist.rows(rows, firstFullLine, height);
+            for (int x = 0; x != width; x++) {
+                // columns only get lower, so scanning can start at the old top cell
+                columnHeights[x] = Grid.computeColumnHeight(rows, x, Math.min(columnHeights[x], target) - 1);
+            }
+            // none of the remaining lines is full
+            Arrays.fill(fullLines, 0L);
+            snapshot = null;
+        }
+        return result;
+    }
+
+    /**
+     * Inserts a garbage line at the bottom. All other lines are pushed up one position; the top line is discarded.
+     * 
+     * @param gap
+     *            x coordinate of the gap in the garbage line; if this is not a valid x coordinate, the garbage line
+     *            is completely filled
+     */
+    public void addGarbageLine(int gap) {
+        System.arraycopy(rows, 0, rows, 1, height - 1);
+        System.arraycopy(cells, 0, cells, width, cells.length - width);
+        fillGarbageLine(0, gap);
+        // every line has moved, so the key of every line changes
+        occupancyHash = Zobrist.rows(rows, 0, height);
+
+        for (int x = 0; x != width; x++) {
+            int columnHeight = columnHeights[x];
+            if (columnHeight == 0 || columnHeight == height) {
+                // either only the garbage line may contain a block, or the column's top cell was discarded
+                columnHeights[x] = Grid.computeColumnHeight(rows, x, Math.min(columnHeight, height - 1));
+            } else {
+                // column's top cell has been pushed up one position
+                columnHeights[x] = columnHeight + 1;
+            }
+        }
+        Grid.computeFullLines(rows, width, fullLines);
+        snapshot = null;
+    }
+
+    /**
+     * Inserts a number of garbage lines at the bottom, with the same result as invoking {@link #addGarbageLine(int)}
+     * for each of them in turn. All other lines are pushed up in a single copy; lines pushed over the top are
+     * discarded.
+     * 
+     * @param gaps
+     *            x coordinates of the gaps in the garbage lines, in the order in which the lines are inserted; the
+     *            last line ends up at the bottom
+     * @param count
+     *            number of garbage lines to insert; the first count values of gaps are used
+     */
+    public void addGarbageLines(int[] gaps, int count) {
+        if (count < 0 || gaps.length < count) {
+            throw new IllegalArgumentException("Invalid number of garbage lines: " + count);
+        }
+
+        if (count != 0) {
+            int shift = Math.min(count, height);
+            System.arraycopy(rows, 0, rows, shift, height - shift);
+            System.arraycopy(cells, 0, cells, shift * width, cells.length - shift * width);
+            // line i ends up at y = count - 1 - i; lines which would end up above the grid are discarded
+            for (int y = 0; y != shift; y++) {
+                fillGarbageLine(y, gaps[count - 1 - y]);
+            }
+            occupancyHash = Zobrist.rows(rows, 0, height);
+
+            for (int x = 0; x != width; x++) {
+                int columnHeight = columnHeights[x];
+                if (columnHeight == 0 || height < columnHeight + shift) {
+                    // either only the garbage lines may contain a block, or the column's top cell was discarded
+                    columnHeights[x] = Grid.computeColumnHeight(rows, x, Math.min(columnHeight + shift, height) - 1);
+                } else {
+                    // column's top cell has been pushed up
+                    columnHeights[x] = columnHeight + shift;
+                }
+            }
+            Grid.computeFullLines(rows, width, fullLines);
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Marks the given line as full if it has become full. Lines only become full by adding blocks to them.
+     * 
+     * @param y
+     *            line number
+     */
+    private void updateFullLine(int y) {
+        if (rows[y] == Grid.getFullRowMask(width)) {
+            fullLines[y / Long.SIZE] = fullLines[y / Long.SIZE] | 1L << y;
+        }
+    }
+
+    /**
+     * Fills the given line with garbage, except for the gap. Does not update the occupancy hash or column heights.
+     * 
+     * @param y
+     *            y coordinate of the line
+     * @param gap
+     *            x coordinate of the gap; if this is not a valid x coordinate, the line is completely filled
+     */
+    private void fillGarbageLine(int y, int gap) {
+        long row = 0L;
+        byte garbage = Grid.toCellValue(Block.GARBAGE);
+        int offset = y * width;
+        for (int x = 0; x != width; x++) {
+            if (x != gap) {
+                row = row | 1L << x;
+                cells[offset + x] = garbage;
+            } else {
+                cells[offset + x] = 0;
+            }
+        }
+        rows[y] = row;
+    }
+
+    /**
+     * Returns an immutable copy of the current contents of this buffer.
+     * 
+     * As long as the buffer is not modified, subsequent invocations return the same instance.
+     * 
+     * @return grid
+     */
+    public Grid toGrid() {
+        if (snapshot == null) {
+            snapshot = new Grid(width, rows.clone(), cells.clone(), columnHeights.clone(), fullLines.clone(),
+                    occupancyHash);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates a grid which shares this buffer's arrays, without copying them. For use by {@link Grid} only, on
+     * buffers which are discarded immediately afterwards.
+     * 
+     * @return grid
+     */
+    Grid build() {
+        return new Grid(width, rows, cells, columnHeights, fullLines, occupancyHash);
+    }
+}
@@ -123,6 +123,20 @@ public class MultiplayerGameState implements GameState {
         return this.states.size();
     }
 
+    /**
+     * Returns a 64-bit hash of the states of all players, for instance to check whether two copies of a game are still
+     * in sync. See {@link OnePlayerGameState#stateHash()}.
+     * 
+     * @return hash
+     */
+    public long stateHash() {
+        long result = 0L;
+        for (int i = 0; i != states.size(); i++) {
+            result = result ^ Zobrist.player(i, states.get(i).stateHash());
+        }
+        return result;
+    }
+
     /**
      * Returns the state for a given player.
      * 
@@ -55,12 +55,10 @@ public class OnePlayerGameState implements GameState {
      * The current tetromino (that the payer is still controlling as it falls) is not contained in the grid.
      * 
      * Note that the top two (see VANISH_ZONE_HEIGHT) rows of the grid should not be visible.
-     * 
-     * The contents of this list may not be modified; in fact it should preferably be an unmodifiable list.
      */
     @NonNull
     @Wither
-    private final List<Optional<Block>> grid;
+    private final Grid grid;
     /** Width of the grid. */
     private final int width;
     /** Active tetromino. May be empty, if the game is in the process of showing a "cutscene" (like a disappearing line). */
@@ -143,7 +141,7 @@ public class OnePlayerGameState implements GameState {
         checkHeight(height);
 
         this.width = width;
-        this.grid = Collections.nCopies(width * height, Optional.empty());
+        this.grid = Grid.empty(width, height);
         this.activeTetromino = Optional.empty();
         this.currentBlockLocation = Optional.empty();
         this.currentBlockOrientation = Optional.empty();
@@ -233,7 +231,7 @@ public class OnePlayerGameState implements GameState {
                     + ", was: " + grid.size());
         }
 
-        this.grid = grid;
+        this.grid = Grid.of(grid, width);
         this.width = width;
 
         checkHeight(getHeight());
@@ -367,7 +365,7 @@ public class OnePlayerGameState implements GameState {
      * @param height height of the grid
      * @return spawn location
      */
-    private static Point getBlockSpawnLocation(int width, int height) {
+    static Point getBlockSpawnLocation(int width, int height) {
         return new Point(width / 2 - 2, height - 4 - VANISH_ZONE_HEIGHT);
     }
     
@@ -410,7 +408,7 @@ public class OnePlayerGameState implements GameState {
 
     /** @return the grid's height */
     public int getHeight() {
-        return computeHeight(this.grid, this.width);
+        return this.grid.getHeight();
     }
     
     /**
@@ -447,19 +445,9 @@ public class OnePlayerGameState implements GameState {
                             Integer.valueOf(0), Integer.valueOf(getHeight())));
         }
         
-        return this.grid.get(toGridIndex(x, y));
+        return this.grid.getBlock(x, y);
     }
     
-    /**
-     * Returns the block in the grid at the given point. Does not take the player's currently controlled block into account.
-     * 
-     * @param point point in the grid
-     * @return block at x, y
-     */
-    private Optional<Block> getBlock(Point point) {
-        return getBlock(point.getX(), point.getY());
-    }
-
     /**
      * Translates the given coordinates to an index in the grid.
      * 
@@ -492,7 +480,7 @@ public class OnePlayerGameState implements GameState {
      * @return whether the game is topped
      */
     public boolean isTopped() {
-        return vanishZoneContainsBlock() || containsBlock(getCurrentActiveBlockPoints());
+        return vanishZoneContainsBlock() || activeBlockOverlapsGrid();
     }
     
     /** {@inheritDoc} */
@@ -508,23 +496,36 @@ public class OnePlayerGameState implements GameState {
      */
     private boolean vanishZoneContainsBlock() {
         int height = getHeight();
-        return IntStream.range(0, width)
-            .anyMatch(x -> IntStream.range(height - VANISH_ZONE_HEIGHT, height)
-                .anyMatch(y -> getBlock(x, y).isPresent()));
+        return IntStream.range(height - VANISH_ZONE_HEIGHT, height)
+            .anyMatch(y -> grid.getRow(y) != 0);
     }
     
     /**
-     * Indicates whether any of the given points in the grid contain a block.
+     * Indicates whether the currently active block overlaps with any of the blocks in the grid.
      * 
-     * Only the grid is inspected, not the current active block.
+     * @return whether the active block overlaps with the grid; false if there is no currently active block
+     */
+    private boolean activeBlockOverlapsGrid() {
+        boolean result;
+        if (activeTetromino.isPresent()) {
+            Point location = currentBlockLocation.get();
+            result = getCurrentCollisionMask().overlaps(grid, location.getX(), location.getY());
+        } else {
+            result = false;
+        }
+        return result;
+    }
+    
+    /**
+     * Retrieves the collision mask of the currently active block.
      * 
-     * @param points points to be checked
-     * @return whether any of the points contain a block
+     * @return collision mask
+     * @throws IllegalStateException
+     *             if there is no active block
      */
-    private boolean containsBlock(Set<Point> points) {
-        return points.stream()
-            .map(this::getBlock)
-            .anyMatch(Optional<Block>::isPresent);
+    private CollisionMask getCurrentCollisionMask() {
+        Tetromino tetromino = activeTetromino.orElseThrow(() -> new IllegalStateException("no active block"));
+        return tetromino.getCollisionMask(currentBlockOrientation.get());
     }
     
     /**
@@ -602,10 +603,9 @@ public class OnePlayerGameState implements GameState {
      *             if there is no active block
      */
     private boolean canMove(int deltaX, int deltaY) {
-        activeTetromino.orElseThrow(() -> new IllegalStateException("no active block"));
-        
-        Set<Point> newPosition = translate(getCurrentActiveBlockPoints(), deltaX, deltaY);
-        return isWithinBounds(newPosition) && !containsBlock(newPosition);
+        CollisionMask mask = getCurrentCollisionMask();
+        Point location = currentBlockLocation.get();
+        return mask.fits(grid, location.getX() + deltaX, location.getY() + deltaY);
     }
     
     /** 
@@ -637,27 +637,6 @@ public class OnePlayerGameState implements GameState {
         return result;
     }
     
-    /**
-     * Determines whether the given point is within the bounds of the grid.
-     * 
-     * @param x x coordinate
-     * @param y y coordinate
-     * @return whether the point is within bounds
-     */
-    private boolean isWithinBounds(Point point) {
-        return isWithinBounds(point.getX(), point.getY());
-    }
-    
-    /**
-     * Determines whether the given points are all within the bounds of the grid.
-     * 
-     * @param points points
-     * @return whether all points are within bounds
-     */
-    private boolean isWithinBounds(Set<Point> points) {
-        return points.stream().allMatch(this::isWithinBounds);
-    }
-    
     /**
      * Indicates whether the active block is currently within bounds. Note that if this method returns false, this is
      * actually not a valid game state!
@@ -665,7 +644,14 @@ public class OnePlayerGameState implements GameState {
      * @return whether the current block is within bounds.
      */
     public boolean isCurrentBlockWithinBounds() {
-        return isWithinBounds(getCurrentActiveBlockPoints());
+        boolean result;
+        if (activeTetromino.isPresent()) {
+            Point location = currentBlockLocation.get();
+            result = getCurrentCollisionMask().isWithinBounds(grid, location.getX(), location.getY());
+        } else {
+            result = true;
+        }
+        return result;
     }
     
     /**
@@ -677,15 +663,26 @@ public class OnePlayerGameState implements GameState {
      * @return ghost location
      */
     public Optional<Point> getGhostLocation() {
-        return currentBlockLocation.map(location -> {
-            int deltaY = 0;
-            while (canMove(0, deltaY - 1)) {
-                deltaY = deltaY - 1;
-            }
-            return location.translate(0, deltaY);
-        });
+        return currentBlockLocation.map(location -> location.translate(0,
+                -getCurrentCollisionMask().getDropDistance(grid, location.getX(), location.getY())));
     }
     
+    /**
+     * Returns a 64-bit Zobrist hash of the grid's occupancy, the active tetromino, its orientation and location, and
+     * the next tetromino.
+     * 
+     * This is a cheap alternative to {@link #hashCode()}, for instance for transposition tables or for checking whether
+     * two copies of a game are still in sync: the hash of the grid is maintained incrementally whenever the grid is
+     * modified, and the other features take constant time. Equal states have the same hash. Counters, the input state
+     * history and the specific block values in the grid are not taken into account.
+     * 
+     * @return hash
+     */
+    public long stateHash() {
+        return grid.getOccupancyHash() ^ Zobrist.activeTetromino(activeTetromino, currentBlockOrientation,
+                currentBlockLocation) ^ Zobrist.next(next);
+    }
+
     /**
      * Computes if the line is filled with (non-null) tetrominoes.
      * 
@@ -693,9 +690,7 @@ public class OnePlayerGameState implements GameState {
      * @return whether the given line is filled
      */
     public boolean isFullLine(int y) {
-        return IntStream.range(0, width)
-            .mapToObj(x -> getBlock(x, y))
-            .allMatch(Optional<Block>::isPresent);
+        return grid.isFullLine(y);
     }
     
     /**
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Optional;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.game.state.GameState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.input.PackedInputStateHistory;
+
+/**
+ * Mutable counterpart of {@link OnePlayerGameState}, for game engines which update the game state in place instead of
+ * creating a new state for every change.
+ * 
+ * Where the immutable game state uses optional values, this buffer uses null: the active tetromino and its orientation
+ * are null if there is no currently active block. The current block location is only meaningful if there is an active
+ * tetromino.
+ * 
+ * Use {@link #toGameState()} to obtain an immutable snapshot, for instance for rendering.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class OnePlayerGameStateBuffer implements GameState {
+    /** Cached result of {@link Input#values()}. */
+    private static final Input[] INPUTS = Input.values();
+
+    /** The basin of blocks. Does not contain the currently active block. */
+    @Getter
+    private final GridBuffer grid;
+    /** Spawn location for new blocks. */
+    @Getter
+    private final Point blockSpawnLocation;
+    /** Active tetromino; null if there is no currently active block. */
+    @Getter
+    @Setter
+    private Tetromino activeTetromino;
+    /** X coordinate of the active tetromino's location. */
+    @Getter
+    @Setter
+    private int currentBlockX;
+    /** Y coordinate of the active tetromino's location. */
+    @Getter
+    @Setter
+    private int currentBlockY;
+    /** The current block's orientation; null if there is no currently active block. */
+    @Getter
+    @Setter
+    private Orientation currentBlockOrientation;
+    /** The next tetromino. */
+    @Getter
+    @Setter
+    @NonNull
+    private Tetromino next;
+    /** The number of frames since the last time the active block was moved down. */
+    @Getter
+    @Setter
+    private int numFramesSinceLastDownMove;
+    /** The number of frames since the last time the active block was locked in place. */
+    @Getter
+    @Setter
+    private int numFramesSinceLastLock;
+    /**
+     * The number of frames since the last time the active block was moved (through gravity or player action), or
+     * rotated.
+     */
+    @Getter
+    @Setter
+    private int numFramesSinceLastMove;
+    /** Per input (indexed by ordinal): the number of frames the input has been pressed. */
+    private final int[] inputFrames;
+    /** Block counter. Equals the number of blocks that have been dropped. */
+    @Getter
+    @Setter
+    private int blockCounter;
+    /** Number of lines that have been scored in this game. */
+    @Getter
+    @Setter
+    private int lines;
+    /** The number of frames until the current lines disappear. */
+    @Getter
+    @Setter
+    private int numFramesUntilLinesDisappear;
+    /** Current level, which may determine the results of a speed curve. */
+    @Getter
+    @Setter
+    private int level;
+    /** Garbage lines to be added to this game at the first possible opportunity. */
+    @Getter
+    @Setter
+    private int garbageLines;
+    /** Total number of garbage lines received in this game so far. */
+    @Getter
+    @Setter
+    private int totalGarbage;
+    /** Snapshot for use in speed curves and level systems; see {@link #getLevelSnapshot()}. */
+    private OnePlayerGameState levelSnapshot;
+    /** Scratch space for the gap values of pending garbage lines; see {@link #getGapValues(int)}. */
+    private Integer[] gapValues = new Integer[0];
+    /** Scratch space for the gaps of pending garbage lines; see {@link #getGarbageGaps(int)}. */
+    private int[] garbageGaps = new int[0];
+
+    /**
+     * Constructor.
+     * 
+     * @param state
+     *            initial contents of the buffer; also determines the dimensions of the grid
+     */
+    public OnePlayerGameStateBuffer(@NonNull OnePlayerGameState state) {
+        super();
+
+        this.grid = new GridBuffer(state.getGrid());
+        this.blockSpawnLocation = state.getBlockSpawnLocation();
+        this.inputFrames = new int[INPUTS.length];
+
+        set(state);
+    }
+
+    /**
+     * Replaces the contents of this buffer with those of the given game state.
+     * 
+     * @param state
+     *            game state; must have the same grid dimensions as this buffer, and its current block location and
+     *            orientation must be present if and only if it has an active tetromino
+     */
+    public void set(@NonNull OnePlayerGameState state) {
+        boolean active = state.getActiveTetromino().isPresent();
+        if (state.getCurrentBlockLocation().isPresent() != active
+                || state.getCurrentBlockOrientation().isPresent() != active) {
+            throw new IllegalArgumentException("Location and orientation must be present if and only if there is an "
+                    + "active block.");
+        }
+
+        grid.set(state.getGrid());
+        activeTetromino = state.getActiveTetromino().orElse(null);
+        currentBlockX = state.getCurrentBlockLocation().map(Point::getX).orElse(Integer.valueOf(0)).intValue();
+        currentBlockY = state.getCurrentBlockLocation().map(Point::getY).orElse(Integer.valueOf(0)).intValue();
+        currentBlockOrientation = state.getCurrentBlockOrientation().orElse(null);
+        next = state.getNext();
+        numFramesSinceLastDownMove = state.getNumFramesSinceLastDownMove();
+        numFramesSinceLastLock = state.getNumFramesSinceLastLock();
+        numFramesSinceLastMove = state.getNumFramesSinceLastMove();
+        for (Input input : INPUTS) {
+            inputFrames[input.ordinal()] = state.getInputStateHistory().getNumberOfFrames(input);
+        }
+        blockCounter = state.getBlockCounter();
+        lines = state.getLines();
+        numFramesUntilLinesDisappear = state.getNumFramesUntilLinesDisappear();
+        level = state.getLevel();
+        garbageLines = state.getGarbageLines();
+        totalGarbage = state.getTotalGarbage();
+        levelSnapshot = null;
+    }
+
+    /**
+     * Creates an immutable snapshot of the current contents of this buffer.
+     * 
+     * @return game state
+     */
+    public OnePlayerGameState toGameState() {
+        Optional<Point> location;
+        if (activeTetromino != null) {
+            location = Optional.of(new Point(currentBlockX, currentBlockY));
+        } else {
+            location = Optional.empty();
+        }
+        InputStateHistory inputStateHistory = new PackedInputStateHistory(inputFrames);
+
+        return new OnePlayerGameState(grid.toGrid(), grid.getWidth(), Optional.ofNullable(activeTetromino), location,
+                Optional.ofNullable(currentBlockOrientation), next, numFramesSinceLastDownMove, numFramesSinceLastLock,
+                numFramesSinceLastMove, inputStateHistory, blockCounter, lines, numFramesUntilLinesDisappear, level,
+                garbageLines, totalGarbage);
+    }
+
+    /**
+     * Returns a snapshot of this buffer, for use as input to speed curves and level systems.
+     * 
+     * These only depend on the level, line count and block counter of a game state. To avoid creating a new snapshot
+     * every frame, the previous snapshot is reused as long as those three values are unchanged. Any other values in
+     * the returned state may be out of date.
+     * 
+     * @return game state
+     */
+    public OnePlayerGameState getLevelSnapshot() {
+        if (levelSnapshot == null || levelSnapshot.getLevel() != level || levelSnapshot.getLines() != lines
+                || levelSnapshot.getBlockCounter() != blockCounter) {
+            levelSnapshot = toGameState();
+        }
+        return levelSnapshot;
+    }
+
+    /**
+     * Returns an array for game engines to fetch the gap values of pending garbage lines into.
+     * 
+     * To avoid allocating a new array whenever garbage is received, the previous array is reused as long as the same
+     * number of values is requested. The contents of the returned array are undefined.
+     * 
+     * @param count number of values
+     * @return array of exactly the given length
+     */
+    public Integer[] getGapValues(int count) {
+        if (gapValues.length != count) {
+            gapValues = new Integer[count];
+        }
+        return gapValues;
+    }
+
+    /**
+     * Returns an array for game engines to store the gaps of pending garbage lines in.
+     * 
+     * The array is reused, and only replaced by a larger one when needed. The contents of the returned array are
+     * undefined.
+     * 
+     * @param count minimum number of gaps
+     * @return array of at least the given length
+     */
+    public int[] getGarbageGaps(int count) {
+        if (garbageGaps.length < count) {
+            garbageGaps = new int[count];
+        }
+        return garbageGaps;
+    }
+
+    /**
+     * Retrieves the number of frames the given input has been pressed.
+     * 
+     * @param input
+     *            input
+     * @return number of frames
+     */
+    public int getNumberOfFrames(@NonNull Input input) {
+        return inputFrames[input.ordinal()];
+    }
+
+    /**
+     * Updates the input state history for the next frame. Equivalent to {@link InputStateHistory#next(InputState)}.
+     * 
+     * @param inputState
+     *            input state for the next frame
+     */
+    public void updateInputStateHistory(@NonNull InputState<Input> inputState) {
+        for (Input input : INPUTS) {
+            if (inputState.isPressed(input)) {
+                inputFrames[input.ordinal()]++;
+            } else {
+                inputFrames[input.ordinal()] = 0;
+            }
+        }
+    }
+
+    /** @return whether there is a currently active block */
+    public boolean hasActiveTetromino() {
+        return activeTetromino != null;
+    }
+
+    /**
+     * Retrieves the collision mask of the currently active block.
+     * 
+     * @return collision mask
+     * @throws IllegalStateException
+     *             if there is no active block
+     */
+    private CollisionMask getCurrentCollisionMask() {
+        if (activeTetromino == null) {
+            throw new IllegalStateException("no active block");
+        }
+        return activeTetromino.getCollisionMask(currentBlockOrientation);
+    }
+
+    /**
+     * Indicates if the current active block can be moved according to the given translation.
+     * 
+     * @param deltaX
+     *            amount the x coordinate should be moved
+     * @param deltaY
+     *            amount the y coordinate should be moved
+     * @return whether the current active block can be moved along the given translation
+     * @throws IllegalStateException
+     *             if there is no active block
+     */
+    public boolean canMove(int deltaX, int deltaY) {
+        return getCurrentCollisionMask().fits(grid, currentBlockX + deltaX, currentBlockY + deltaY);
+    }
+
+    /**
+     * Computes how many rows the current active block can be dropped straight down.
+     * 
+     * @return drop distance
+     * @throws IllegalStateException
+     *             if there is no active block
+     */
+    public int getDropDistance() {
+        return getCurrentCollisionMask().getDropDistance(grid, currentBlockX, currentBlockY);
+    }
+
+    /**
+     * Indicates whether the active block is currently within bounds.
+     * 
+     * @return whether the current block is within bounds; true if there is no active block
+     */
+    public boolean isCurrentBlockWithinBounds() {
+        return activeTetromino == null
+                || getCurrentCollisionMask().isWithinBounds(grid, currentBlockX, currentBlockY);
+    }
+
+    /**
+     * Indicates whether the game is topped, that is, whether the game is over. Equivalent to
+     * {@link OnePlayerGameState#isTopped()}.
+     * 
+     * @return whether the game is topped
+     */
+    public boolean isTopped() {
+        return vanishZoneContainsBlock() || activeBlockOverlapsGrid();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isGameOver() {
+        return isTopped();
+    }
+
+    /**
+     * Determines whether there is a block in the vanish zone.
+     * 
+     * @return whether the grid's vanish zone contains at least one block
+     */
+    private boolean vanishZoneContainsBlock() {
+        boolean result = false;
+        for (int y = grid.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT; !result && y != grid.getHeight(); y++) {
+            result = grid.getRow(y) != 0;
+        }
+        return result;
+    }
+
+    /**
+     * Indicates whether the currently active block overlaps with any of the blocks in the grid.
+     * 
+     * @return whether the active block overlaps with the grid; false if there is no currently active block
+     */
+    private boolean activeBlockOverlapsGrid() {
+        return activeTetromino != null
+                && getCurrentCollisionMask().overlaps(grid, currentBlockX, currentBlockY);
+    }
+
+    /**
+     * Returns a 64-bit Zobrist hash of this buffer's current contents. Equivalent to
+     * {@link OnePlayerGameState#stateHash()}, without creating a snapshot.
+     * 
+     * @return hash
+     */
+    public long stateHash() {
+        long result = grid.getOccupancyHash() ^ Zobrist.next(next);
+        if (activeTetromino != null) {
+            result = result ^ Zobrist.activeTetromino(activeTetromino, currentBlockOrientation, currentBlockX,
+                    currentBlockY);
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "OnePlayerGameStateBuffer (" + toGameState() + ")";
+    }
+}
@@ -123,6 +123,9 @@ public enum Tetromino {
      */
     private final Map<Orientation, Set<Point>> points;
     
+    /** Per orientation (indexed by ordinal): bit mask representation of the points, for fast collision checks. */
+    private final CollisionMask[] collisionMasks;
+    
     /**
      * Constructor.
      * 
@@ -146,6 +149,9 @@ public enum Tetromino {
         this.points.put(Orientation.FLAT_LEFT,  pointsFlatLeft);
         this.points.put(Orientation.FLAT_UP,    pointsFlatUp);
         this.points.put(Orientation.FLAT_RIGHT, pointsFlatRight);
+        
+        this.collisionMasks = new CollisionMask[Orientation.values().length];
+        this.points.forEach((orientation, set) -> this.collisionMasks[orientation.ordinal()] = new CollisionMask(set));
     }
 
     /**
@@ -160,6 +166,18 @@ public enum Tetromino {
         return points.get(key);
     }
     
+    /**
+     * Retrieves the collision mask for the given orientation. This is a precomputed bit mask representation of the
+     * points returned by {@link #getPoints(Orientation)}.
+     * 
+     * @param orientation
+     *            orientation value
+     * @return collision mask
+     */
+    public CollisionMask getCollisionMask(@NonNull Orientation orientation) {
+        return collisionMasks[orientation.ordinal()];
+    }
+    
     /**
      * Constructs an unmodifiable set with the given values.
      * 
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Optional;
+
+/**
+ * Keys for Zobrist hashing of game states.
+ * 
+ * A state's hash is the exclusive or of the keys of its features: each occupied row of the grid, the active tetromino,
+ * its orientation and location, and the next tetromino. Since exclusive or is its own inverse, a hash can be updated
+ * incrementally when a single feature changes, by combining it with the feature's old and new key.
+ * 
+ * Keys for rows are derived from both the row index and the row mask, so that a row of the grid can be added or
+ * removed in constant time, regardless of the number of blocks in it. Empty rows have key 0, so the hash of an empty
+ * grid is 0 regardless of its size.
+ * 
+ * All keys are derived from fixed constants, so hashes are the same in every JVM instance.
+ * 
+ * @author Martijn van de Rijdt
+ */
+final class Zobrist {
+    /** Salt for row keys. */
+    private static final long ROW = 0x2545F4914F6CDD1DL;
+    /** Salt for x coordinates of the active tetromino. */
+    private static final long X = 0x6A09E667F3BCC909L;
+    /** Salt for y coordinates of the active tetromino. */
+    private static final long Y = 0xBB67AE8584CAA73BL;
+    /** Salt for player indices in multiplayer games. */
+    private static final long PLAYER = 0x9B05688C2B3E6C1FL;
+    /** Increment for consecutive keys; the golden ratio, as used by SplitMix64. */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** Keys for the active tetromino, indexed by ordinal. */
+    private static final long[] ACTIVE_TETROMINO_KEYS = createKeys(0x3C6EF372FE94F82BL, Tetromino.values().length);
+    /** Keys for the active tetromino's orientation, indexed by ordinal. */
+    private static final long[] ORIENTATION_KEYS = createKeys(0xA54FF53A5F1D36F1L, Orientation.values().length);
+    /** Keys for the next tetromino, indexed by ordinal. */
+    private static final long[] NEXT_KEYS = createKeys(0x510E527FADE682D1L, Tetromino.values().length);
+
+    /** Constructor. Not to be invoked, since this class only contains static methods. */
+    private Zobrist() {
+        super();
+    }
+
+    /**
+     * Creates a table of keys.
+     * 
+     * @param salt
+     *            salt, which should be different for each table
+     * @param size
+     *            number of keys
+     * @return keys
+     */
+    private static long[] createKeys(long salt, int size) {
+        long[] result = new long[size];
+        for (int i = 0; i != size; i++) {
+            result[i] = mix(salt + i * GAMMA);
+        }
+        return result;
+    }
+
+    /**
+     * Scrambles the bits of the given value. This is the finaliser of the SplitMix64 generator, which is a bijection,
+     * so different values are guaranteed to result in different outputs.
+     * 
+     * @param value
+     *            value
+     * @return scrambled value
+     */
+    private static long mix(long value) {
+        long result = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        result = (result ^ result >>> 27) * 0x94D049BB133111EBL;
+        return result ^ result >>> 31;
+    }
+
+    /**
+     * Returns the key for a row of the grid.
+     * 
+     * @param y
+     *            y coordinate of the row
+     * @param mask
+     *            row mask
+     * @return key; 0 for an empty row
+     */
+    static long row(int y, long mask) {
+        long result;
+        if (mask == 0L) {
+            result = 0L;
+        } else {
+            result = mix(mix(ROW + y * GAMMA) ^ mask);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the combined key of a range of rows.
+     * 
+     * @param rows
+     *            row masks
+     * @param from
+     *            index of the first row (inclusive)
+     * @param to
+     *            index of the last row (exclusive)
+     * @return combined key
+     */
+    static long rows(long[] rows, int from, int to) {
+        long result = 0L;
+        for (int y = from; y != to; y++) {
+            result = result ^ row(y, rows[y]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key for the active tetromino.
+     * 
+     * @param tetromino
+     *            active tetromino; may be null if there is no active tetromino
+     * @param orientation
+     *            orientation of the active tetromino; may be null if there is no active tetromino
+     * @param x
+     *            x coordinate of the active tetromino's location
+     * @param y
+     *            y coordinate of the active tetromino's location
+     * @return key; 0 if there is no active tetromino
+     */
+    static long activeTetromino(Tetromino tetromino, Orientation orientation, int x, int y) {
+        long result;
+        if (tetromino == null) {
+            result = 0L;
+        } else {
+            result = ACTIVE_TETROMINO_KEYS[tetromino.ordinal()] ^ mix(X + x * GAMMA) ^ mix(Y + y * GAMMA);
+            if (orientation != null) {
+                result = result ^ ORIENTATION_KEYS[orientation.ordinal()];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key for the active tetromino.
+     * 
+     * @param tetromino
+     *            active tetromino
+     * @param orientation
+     *            orientation of the active tetromino
+     * @param location
+     *            location of the active tetromino
+     * @return key; 0 if there is no active tetromino
+     */
+    static long activeTetromino(Optional<Tetromino> tetromino, Optional<Orientation> orientation,
+            Optional<Point> location) {
+        long result;
+        if (tetromino.isPresent() && location.isPresent()) {
+            result = activeTetromino(tetromino.get(), orientation.orElse(null), location.get().getX(), location.get()
+                    .getY());
+        } else {
+            result = activeTetromino(tetromino.orElse(null), orientation.orElse(null), 0, 0);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key for the next tetromino.
+     * 
+     * @param tetromino
+     *            next tetromino
+     * @return key
+     */
+    static long next(Tetromino tetromino) {
+        return NEXT_KEYS[tetromino.ordinal()];
+    }
+
+    /**
+     * Returns the key for a player's state in a multiplayer game. This key depends on the player index, so that
+     * swapping two players' states results in a different hash.
+     * 
+     * @param player
+     *            player index
+     * @param stateHash
+     *            hash of the player's state
+     * @return key
+     */
+    static long player(int player, long stateHash) {
+        return mix(mix(PLAYER + player * GAMMA) ^ stateHash);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+
+/**
+ * Conversion between input states and bit masks, where bit i of the mask corresponds to the input with ordinal i.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public final class InputMask {
+    /** All inputs. Cached, since {@link Input#values()} creates a new array on every invocation. */
+    private static final Input[] INPUTS = Input.values();
+
+    /** Number of different masks. */
+    public static final int NUMBER_OF_MASKS = 1 << INPUTS.length;
+
+    /** Per mask: the corresponding input state. */
+    private static final List<InputState<Input>> INPUT_STATES = Collections.unmodifiableList(
+            IntStream.range(0, NUMBER_OF_MASKS)
+                .mapToObj(InputMask::createInputState)
+                .collect(Collectors.toList()));
+
+    /** Constructor. Not to be invoked, since this class only contains static methods. */
+    private InputMask() {
+        super();
+    }
+
+    /**
+     * Creates an input state.
+     * 
+     * @param mask bit mask of the pressed inputs
+     * @return input state
+     */
+    private static InputState<Input> createInputState(int mask) {
+        return input -> (mask & 1 << input.ordinal()) != 0;
+    }
+
+    /**
+     * Converts an input state into a mask.
+     * 
+     * @param inputState input state
+     * @return bit mask of the pressed inputs
+     */
+    public static int toMask(InputState<Input> inputState) {
+        int result = 0;
+        for (Input input : INPUTS) {
+            if (inputState.isPressed(input)) {
+                result = result | 1 << input.ordinal();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts a mask into an input state. Input states are cached, so this method does not create any new objects.
+     * 
+     * @param mask bit mask of the pressed inputs; must be at least 0 and less than {@link #NUMBER_OF_MASKS}
+     * @return input state
+     * @throws IndexOutOfBoundsException if the mask is out of bounds
+     */
+    public static InputState<Input> toInputState(int mask) {
+        return INPUT_STATES.get(mask);
+    }
+
+    /**
+     * Returns the input state where only the given input is pressed. Input states are cached, so this method does not
+     * create any new objects.
+     * 
+     * @param input pressed input
+     * @return input state
+     */
+    public static InputState<Input> toInputState(Input input) {
+        return INPUT_STATES.get(1 << input.ordinal());
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import nl.mvdr.tinustris.core.engine.GeneratorSnapshot;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.PackedInputStateHistory;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+/**
+ * Binary encoding of the contents of keyframes: generator snapshots and game states.
+ * 
+ * @author Martijn van de Rijdt
+ */
+final class KeyframeCodec {
+    /** Codec for one player game states. */
+    static final StateCodec<OnePlayerGameState> ONE_PLAYER = new StateCodec<OnePlayerGameState>() {
+        /** {@inheritDoc} */
+        @Override
+        public void write(OnePlayerGameState state, DataOutput output) throws IOException {
+            writeOnePlayerState(state, output);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public OnePlayerGameState read(ByteBuffer buffer) {
+            return readOnePlayerState(buffer);
+        }
+    };
+
+    /** Codec for multiplayer game states. */
+    static final StateCodec<MultiplayerGameState> MULTIPLAYER = new StateCodec<MultiplayerGameState>() {
+        /** {@inheritDoc} */
+        @Override
+        public void write(MultiplayerGameState state, DataOutput output) throws IOException {
+            output.writeInt(state.getNumberOfPlayers());
+            for (int player = 0; player != state.getNumberOfPlayers(); player++) {
+                writeOnePlayerState(state.getStateForPlayer(player), output);
+                output.writeInt(state.getNextGarbageTargets().get(player).intValue());
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public MultiplayerGameState read(ByteBuffer buffer) {
+            int numberOfPlayers = buffer.getInt();
+            List<OnePlayerGameState> states = new ArrayList<>(numberOfPlayers);
+            List<Integer> targets = new ArrayList<>(numberOfPlayers);
+            for (int player = 0; player != numberOfPlayers; player++) {
+                states.add(readOnePlayerState(buffer));
+                targets.add(Integer.valueOf(buffer.getInt()));
+            }
+            return new MultiplayerGameState(states, targets);
+        }
+    };
+
+    /** All inputs. */
+    private static final Input[] INPUTS = Input.values();
+    /** All blocks. */
+    private static final Block[] BLOCKS = Block.values();
+    /** All tetrominoes. */
+    private static final Tetromino[] TETROMINOES = Tetromino.values();
+    /** All orientations. */
+    private static final Orientation[] ORIENTATIONS = Orientation.values();
+
+    /** Flag indicating that the state has an active tetromino. */
+    private static final int ACTIVE_TETROMINO = 1;
+    /** Flag indicating that the state has a current block location. */
+    private static final int LOCATION = 2;
+    /** Flag indicating that the state has a current block orientation. */
+    private static final int ORIENTATION = 4;
+
+    /** Constructor. Not to be invoked, since this class only contains static methods. */
+    private KeyframeCodec() {
+        super();
+    }
+
+    /**
+     * Writes a generator snapshot.
+     * 
+     * @param snapshot snapshot
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    static void writeSnapshot(GeneratorSnapshot snapshot, DataOutput output) throws IOException {
+        output.writeInt(snapshot.getFirstIndex());
+        output.writeLong(snapshot.getRandomState());
+        output.writeInt(snapshot.getNumberOfValues());
+        for (int i = 0; i != snapshot.getNumberOfValues(); i++) {
+            output.writeInt(snapshot.getValue(i));
+        }
+    }
+
+    /**
+     * Reads a generator snapshot, as written by {@link #writeSnapshot(GeneratorSnapshot, DataOutput)}.
+     * 
+     * @param buffer buffer
+     * @return snapshot
+     */
+    static GeneratorSnapshot readSnapshot(ByteBuffer buffer) {
+        int firstIndex = buffer.getInt();
+        long randomState = buffer.getLong();
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i != values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return new GeneratorSnapshot(firstIndex, values, randomState);
+    }
+
+    /**
+     * Writes a one player game state. Each cell in the grid takes up a single byte.
+     * 
+     * @param state game state
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    private static void writeOnePlayerState(OnePlayerGameState state, DataOutput output) throws IOException {
+        output.writeInt(state.getWidth());
+        output.writeInt(state.getGrid().size());
+        for (Optional<Block> cell : state.getGrid()) {
+            output.writeByte(cell.map(block -> block.ordinal() + 1).orElse(Integer.valueOf(0)).intValue());
+        }
+
+        int flags = 0;
+        if (state.getActiveTetromino().isPresent()) {
+            flags = flags | ACTIVE_TETROMINO;
+        }
+        if (state.getCurrentBlockLocation().isPresent()) {
+            flags = flags | LOCATION;
+        }
+        if (state.getCurrentBlockOrientation().isPresent()) {
+            flags = flags | ORIENTATION;
+        }
+        output.writeByte(flags);
+        if (state.getActiveTetromino().isPresent()) {
+            output.writeByte(state.getActiveTetromino().get().ordinal());
+        }
+        if (state.getCurrentBlockLocation().isPresent()) {
+            output.writeInt(state.getCurrentBlockLocation().get().getX());
+            output.writeInt(state.getCurrentBlockLocation().get().getY());
+        }
+        if (state.getCurrentBlockOrientation().isPresent()) {
+            output.writeByte(state.getCurrentBlockOrientation().get().ordinal());
+        }
+        output.writeByte(state.getNext().ordinal());
+
+        output.writeInt(state.getNumFramesSinceLastDownMove());
+        output.writeInt(state.getNumFramesSinceLastLock());
+        output.writeInt(state.getNumFramesSinceLastMove());
+        for (Input input : INPUTS) {
+            output.writeInt(state.getInputStateHistory().getNumberOfFrames(input));
+        }
+        output.writeInt(state.getBlockCounter());
+        output.writeInt(state.getLines());
+        output.writeInt(state.getNumFramesUntilLinesDisappear());
+        output.writeInt(state.getLevel());
+        output.writeInt(state.getGarbageLines());
+        output.writeInt(state.getTotalGarbage());
+    }
+
+    /**
+     * Reads a one player game state, as written by {@link #writeOnePlayerState(OnePlayerGameState, DataOutput)}.
+     * 
+     * @param buffer buffer
+     * @return game state
+     */
+    private static OnePlayerGameState readOnePlayerState(ByteBuffer buffer) {
+        int width = buffer.getInt();
+        int size = buffer.getInt();
+        List<Optional<Block>> grid = new ArrayList<>(size);
+        for (int i = 0; i != size; i++) {
+            int cell = buffer.get();
+            if (cell == 0) {
+                grid.add(Optional.empty());
+            } else {
+                grid.add(Optional.of(BLOCKS[cell - 1]));
+            }
+        }
+
+        int flags = buffer.get();
+        Optional<Tetromino> activeTetromino = Optional.empty();
+        if ((flags & ACTIVE_TETROMINO) != 0) {
+            activeTetromino = Optional.of(TETROMINOES[buffer.get()]);
+        }
+        Optional<Point> location = Optional.empty();
+        if ((flags & LOCATION) != 0) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            location = Optional.of(new Point(x, y));
+        }
+        Optional<Orientation> orientation = Optional.empty();
+        if ((flags & ORIENTATION) != 0) {
+            orientation = Optional.of(ORIENTATIONS[buffer.get()]);
+        }
+        Tetromino next = TETROMINOES[buffer.get()];
+
+        int numFramesSinceLastDownMove = buffer.getInt();
+        int numFramesSinceLastLock = buffer.getInt();
+        int numFramesSinceLastMove = buffer.getInt();
+        int[] inputFrames = new int[INPUTS.length];
+        for (int i = 0; i != inputFrames.length; i++) {
+            inputFrames[i] = buffer.getInt();
+        }
+        int blockCounter = buffer.getInt();
+        int lines = buffer.getInt();
+        int numFramesUntilLinesDisappear = buffer.getInt();
+        int level = buffer.getInt();
+        int garbageLines = buffer.getInt();
+        int totalGarbage = buffer.getInt();
+
+        return new OnePlayerGameState(grid, width, activeTetromino, location, orientation, next,
+                numFramesSinceLastDownMove, numFramesSinceLastLock, numFramesSinceLastMove,
+                new PackedInputStateHistory(inputFrames), blockCounter, lines, numFramesUntilLinesDisappear, level,
+                garbageLines, totalGarbage);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+
+/**
+ * Keyframes for a {@link Replay}: snapshots of the game state and the generators, taken at regular intervals. Using
+ * keyframes, a {@link ReplayPlayer} can seek to any frame by restoring the nearest preceding keyframe and simulating
+ * only the remaining frames.
+ * 
+ * Keyframe files are memory-mapped when opened using {@link #map(Path)}. Only the index is read up front; keyframes are
+ * decoded on demand, so opening a keyframe file for a multi-hour replay is fast regardless of its size.
+ * 
+ * The file consists of a header identifying the replay, an index containing the frame and offset of each keyframe,
+ * followed by the keyframes themselves.
+ * 
+ * Instances of this class are immutable.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+@ToString(of = { "behavior", "startLevel", "tetrominoRandomSeed", "gapRandomSeed", "numberOfPlayers", "replayLength",
+        "frames" })
+public class KeyframeFile {
+    /** Identifies the binary format: "TKEY" in ASCII. */
+    private static final int MAGIC_NUMBER = 0x544B4559;
+    /** Version of the binary format. */
+    private static final int VERSION = 2;
+    /** Size of each index entry, in bytes. */
+    private static final int INDEX_ENTRY_SIZE = 4 + 4;
+
+    /** Behavior of the replay. */
+    private final Behavior behavior;
+    /** Starting level of the replay. */
+    private final int startLevel;
+    /** Random seed for the tetromino generator of the replay. */
+    private final long tetrominoRandomSeed;
+    /** Random seed for the gap generator of the replay. */
+    private final long gapRandomSeed;
+    /** Number of players in the replay. */
+    private final int numberOfPlayers;
+    /** Length of the replay. */
+    private final int replayLength;
+    /** Frame index of each keyframe, in ascending order. */
+    private final int[] frames;
+    /** Offset of each keyframe within the buffer. */
+    private final int[] offsets;
+    /** Buffer containing the complete file. Not modified; only accessed through duplicates. */
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor.
+     * 
+     * @param buffer buffer containing the complete file
+     * @throws IOException if the buffer does not contain a valid keyframe file
+     */
+    private KeyframeFile(ByteBuffer buffer) throws IOException {
+        super();
+
+        this.buffer = buffer.duplicate();
+        ByteBuffer input = buffer.duplicate();
+        try {
+            if (input.getInt() != MAGIC_NUMBER) {
+                throw new IOException("Not a keyframe file.");
+            }
+            int version = input.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported keyframe file version: " + version);
+            }
+            this.behavior = readBehavior(input);
+            this.startLevel = input.getInt();
+            this.tetrominoRandomSeed = input.getLong();
+            this.gapRandomSeed = input.getLong();
+            this.numberOfPlayers = input.getInt();
+            this.replayLength = input.getInt();
+            int count = input.getInt();
+            if (count < 0 || (input.remaining() / INDEX_ENTRY_SIZE) < count) {
+                throw new IOException("Invalid number of keyframes: " + count);
+            }
+            this.frames = new int[count];
+            this.offsets = new int[count];
+            for (int i = 0; i != count; i++) {
+                frames[i] = input.getInt();
+                offsets[i] = input.getInt();
+                if (offsets[i] < 0 || buffer.limit() <= offsets[i] || i != 0 && frames[i] <= frames[i - 1]) {
+                    throw new IOException("Invalid index entry for keyframe " + i);
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Keyframe file is truncated.", e);
+        }
+    }
+
+    /**
+     * Reads the behavior, written as by {@link DataOutputStream#writeUTF(String)}.
+     * 
+     * @param input buffer, positioned at the behavior
+     * @return behavior
+     * @throws IOException if the buffer does not contain a valid behavior
+     */
+    private static Behavior readBehavior(ByteBuffer input) throws IOException {
+        byte[] name = new byte[input.getShort() & 0xFFFF];
+        input.get(name);
+        try {
+            // behavior names only contain ASCII characters, which are encoded the same in modified UTF-8 and UTF-8
+            return Behavior.valueOf(new String(name, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown behavior.", e);
+        }
+    }
+
+    /**
+     * Opens a keyframe file by memory-mapping it.
+     * 
+     * @param path path of the file
+     * @return keyframe file
+     * @throws IOException if the file cannot be read, or does not contain valid keyframes
+     */
+    public static KeyframeFile map(@NonNull Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel has been closed
+            return new KeyframeFile(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads keyframes from the given buffer.
+     * 
+     * @param buffer buffer containing keyframes, as written by {@link #write(ReplayPlayer, int, OutputStream)}; the
+     *            buffer is not copied, so it should not be modified afterwards
+     * @return keyframe file
+     * @throws IOException if the buffer does not contain valid keyframes
+     */
+    public static KeyframeFile read(@NonNull ByteBuffer buffer) throws IOException {
+        return new KeyframeFile(buffer);
+    }
+
+    /**
+     * Creates keyframes for the given player's replay and writes them to a file.
+     * 
+     * @param player replay player; this method plays back the complete replay, leaving the player at its end
+     * @param interval number of frames between consecutive keyframes; must be positive
+     * @param path path of the file to be written
+     * @throws IOException if writing fails
+     */
+    public static void write(@NonNull ReplayPlayer<?> player, int interval, @NonNull Path path) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            write(player, interval, outputStream);
+        }
+    }
+
+    /**
+     * Creates keyframes for the given player's replay and writes them.
+     * 
+     * A keyframe is created at every multiple of the interval, except for frame 0, since the initial state can be
+     * restored by starting over.
+     * 
+     * @param player replay player; this method plays back the complete replay, leaving the player at its end
+     * @param interval number of frames between consecutive keyframes; must be positive
+     * @param outputStream output stream; not closed by this method
+     * @throws IOException if writing fails
+     */
+    public static void write(@NonNull ReplayPlayer<?> player, int interval, @NonNull OutputStream outputStream)
+            throws IOException {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Interval must be positive, was: " + interval);
+        }
+
+        Replay replay = player.getReplay();
+        int count = replay.getLength() / interval;
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerOutput = new DataOutputStream(header);
+        headerOutput.writeInt(MAGIC_NUMBER);
+        headerOutput.writeByte(VERSION);
+        headerOutput.writeUTF(replay.getBehavior().name());
+        headerOutput.writeInt(replay.getStartLevel());
+        headerOutput.writeLong(replay.getTetrominoRandomSeed());
+        headerOutput.writeLong(replay.getGapRandomSeed());
+        headerOutput.writeInt(replay.getNumberOfPlayers());
+        headerOutput.writeInt(replay.getLength());
+        headerOutput.writeInt(count);
+        headerOutput.flush();
+
+        int[] frames = new int[count];
+        int[] offsets = new int[count];
+        ByteArrayOutputStream keyframes = new ByteArrayOutputStream();
+        DataOutputStream keyframeOutput = new DataOutputStream(keyframes);
+        int start = header.size() + count * INDEX_ENTRY_SIZE;
+        for (int i = 0; i != count; i++) {
+            player.seek((i + 1) * interval);
+            frames[i] = player.getFrame();
+            offsets[i] = start + keyframeOutput.size();
+            player.writeKeyframe(keyframeOutput);
+        }
+        keyframeOutput.flush();
+
+        DataOutputStream output = new DataOutputStream(outputStream);
+        header.writeTo(output);
+        for (int i = 0; i != count; i++) {
+            output.writeInt(frames[i]);
+            output.writeInt(offsets[i]);
+        }
+        keyframes.writeTo(output);
+        output.flush();
+        log.info("Wrote {} keyframes, {} bytes.", Integer.valueOf(count), Integer.valueOf(output.size()));
+    }
+
+    /**
+     * Checks whether these keyframes belong to the given replay.
+     * 
+     * @param replay replay
+     * @return whether the replay's behavior, starting level, seeds, number of players and length match those of these
+     *         keyframes
+     */
+    boolean matches(Replay replay) {
+        return behavior == replay.getBehavior() && startLevel == replay.getStartLevel()
+                && tetrominoRandomSeed == replay.getTetrominoRandomSeed() && gapRandomSeed == replay.getGapRandomSeed()
+                && numberOfPlayers == replay.getNumberOfPlayers() && replayLength == replay.getLength();
+    }
+
+    /** @return number of keyframes */
+    public int getNumberOfKeyframes() {
+        return frames.length;
+    }
+
+    /**
+     * Finds the last keyframe at or before the given frame.
+     * 
+     * @param frame frame index
+     * @return index of the keyframe, or -1 if there is no such keyframe
+     */
+    int findKeyframe(int frame) {
+        int index = Arrays.binarySearch(frames, frame);
+        int result;
+        if (0 <= index) {
+            result = index;
+        } else {
+            // not an exact match; the keyframe is the one before the insertion point
+            result = -index - 2;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the frame index of the given keyframe.
+     * 
+     * @param keyframe keyframe index
+     * @return frame index
+     */
+    int getFrame(int keyframe) {
+        return frames[keyframe];
+    }
+
+    /**
+     * Returns the contents of the given keyframe.
+     * 
+     * @param keyframe keyframe index
+     * @return buffer, positioned at the start of the keyframe
+     */
+    ByteBuffer getKeyframe(int keyframe) {
+        ByteBuffer result = buffer.duplicate();
+        result.position(offsets[keyframe]);
+        return result;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.util.List;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import nl.mvdr.game.engine.GameEngine;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.game.state.GameState;
+import nl.mvdr.tinustris.core.input.Input;
+
+/**
+ * Game engine which records all input in a {@link ReplayRecorder}, and then delegates to another engine.
+ * 
+ * @author Martijn van de Rijdt
+ * 
+ * @param <S> game state type
+ */
+@RequiredArgsConstructor
+@ToString
+public class RecordingGameEngine<S extends GameState> implements GameEngine<S, Input> {
+    /** Game engine which does the actual computation. */
+    @NonNull
+    private final GameEngine<S, Input> delegate;
+    /** Recorder. */
+    @NonNull
+    private final ReplayRecorder recorder;
+
+    /** {@inheritDoc} */
+    @Override
+    public S initGameState() {
+        return delegate.initGameState();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public S computeNextState(S previousState, List<InputState<Input>> inputStates) {
+        recorder.record(inputStates);
+        return delegate.computeNextState(previousState, inputStates);
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Recording of a game.
+ * 
+ * A game is fully determined by its behavior, starting level, random seeds and the input of each player in each frame.
+ * A replay stores exactly those, so that the game can be played back by simulating it again; see {@link ReplayPlayer}.
+ * Replays are created using a {@link ReplayRecorder}.
+ * 
+ * The binary format written by {@link #write(OutputStream)} consists of a header, followed by the input. Input is
+ * run-length encoded: consecutive frames in which all players press the same buttons are stored only once. Since
+ * players tend to hold buttons, or not press anything at all, for many frames in a row, this typically takes a few
+ * bytes per second of gameplay.
+ * 
+ * Instances of this class are immutable.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Getter
+@ToString(exclude = "inputs")
+@EqualsAndHashCode
+public class Replay {
+    /** Identifies the binary format: "TRPL" in ASCII. */
+    private static final int MAGIC_NUMBER = 0x5452504C;
+    /** Version of the binary format. */
+    private static final int VERSION = 1;
+
+    /** Behavior. */
+    @NonNull
+    private final Behavior behavior;
+    /** Starting level. */
+    private final int startLevel;
+    /** Random seed for the tetromino generator. */
+    private final long tetrominoRandomSeed;
+    /** Random seed for the gap generator. */
+    private final long gapRandomSeed;
+    /** Number of players. */
+    private final int numberOfPlayers;
+    /**
+     * Input mask for each frame and player, as defined by {@link InputMask}. The mask for frame f and player p is
+     * located at index f * numberOfPlayers + p.
+     */
+    @Getter(AccessLevel.NONE)
+    private final byte[] inputs;
+
+    /**
+     * Constructor.
+     * 
+     * @param behavior behavior
+     * @param startLevel starting level
+     * @param tetrominoRandomSeed random seed for the tetromino generator
+     * @param gapRandomSeed random seed for the gap generator
+     * @param numberOfPlayers number of players; must be at least 1
+     * @param inputs input masks per frame and player; this array is not copied, so it should not be modified after
+     *            passing it to this constructor
+     */
+    Replay(@NonNull Behavior behavior, int startLevel, long tetrominoRandomSeed, long gapRandomSeed,
+            int numberOfPlayers, @NonNull byte[] inputs) {
+        super();
+
+        if (numberOfPlayers < 1) {
+            throw new IllegalArgumentException("At least one player is required, was: " + numberOfPlayers);
+        }
+        if (inputs.length % numberOfPlayers != 0) {
+            throw new IllegalArgumentException("Number of input masks (" + inputs.length
+                    + ") is not a multiple of the number of players (" + numberOfPlayers + ").");
+        }
+
+        this.behavior = behavior;
+        this.startLevel = startLevel;
+        this.tetrominoRandomSeed = tetrominoRandomSeed;
+        this.gapRandomSeed = gapRandomSeed;
+        this.numberOfPlayers = numberOfPlayers;
+        this.inputs = inputs;
+    }
+
+    /** @return number of recorded frames */
+    public int getLength() {
+        return inputs.length / numberOfPlayers;
+    }
+
+    /**
+     * Returns the input mask of the given player in the given frame.
+     * 
+     * @param frame frame index; must be at least 0 and less than the length of this replay
+     * @param player player index; must be at least 0 and less than the number of players
+     * @return input mask, as defined by {@link InputMask}
+     * @throws IndexOutOfBoundsException if frame or player are out of bounds
+     */
+    public int getInputMask(int frame, int player) {
+        if (player < 0 || numberOfPlayers <= player) {
+            throw new IndexOutOfBoundsException("Player out of bounds: " + player);
+        }
+        return inputs[frame * numberOfPlayers + player];
+    }
+
+    /**
+     * Creates a new one-player engine, with generators in the same initial state as the ones in the recorded game.
+     * 
+     * @return engine
+     */
+    public OnePlayerEngine createOnePlayerEngine() {
+        return new OnePlayerEngine(new RandomTetrominoGenerator(tetrominoRandomSeed), behavior, startLevel,
+                new GapGenerator(gapRandomSeed, OnePlayerGameState.DEFAULT_WIDTH));
+    }
+
+    /**
+     * Writes this replay in binary format.
+     * 
+     * @param outputStream output stream; not closed by this method
+     * @throws IOException if writing fails
+     */
+    public void write(@NonNull OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC_NUMBER);
+        output.writeByte(VERSION);
+        output.writeUTF(behavior.name());
+        output.writeInt(startLevel);
+        output.writeLong(tetrominoRandomSeed);
+        output.writeLong(gapRandomSeed);
+        output.writeInt(numberOfPlayers);
+        output.writeInt(getLength());
+
+        int frame = 0;
+        while (frame != getLength()) {
+            int runLength = 1;
+            while (frame + runLength != getLength() && isSameInput(frame, frame + runLength)) {
+                runLength++;
+            }
+            output.write(inputs, frame * numberOfPlayers, numberOfPlayers);
+            writeVarInt(output, runLength);
+            frame = frame + runLength;
+        }
+        output.flush();
+    }
+
+    /**
+     * Checks whether all players press the same inputs in the given frames.
+     * 
+     * @param frame0 frame index
+     * @param frame1 frame index
+     * @return whether the input is the same
+     */
+    private boolean isSameInput(int frame0, int frame1) {
+        boolean result = true;
+        for (int player = 0; result && player != numberOfPlayers; player++) {
+            result = inputs[frame0 * numberOfPlayers + player] == inputs[frame1 * numberOfPlayers + player];
+        }
+        return result;
+    }
+
+    /**
+     * Writes a non-negative integer, using seven bits per byte. The most significant bit of each byte indicates
+     * whether more bytes follow.
+     * 
+     * @param output output
+     * @param value value; must not be negative
+     * @throws IOException if writing fails
+     */
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte(remaining & 0x7F | 0x80);
+            remaining = remaining >>> 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    /**
+     * Reads a replay in the binary format written by {@link #write(OutputStream)}.
+     * 
+     * @param inputStream input stream; not closed by this method
+     * @return replay
+     * @throws IOException if reading fails, or if the input is not a valid replay
+     */
+    public static Replay read(@NonNull InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC_NUMBER) {
+            throw new IOException("Not a replay.");
+        }
+        int version = input.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported replay version: " + version);
+        }
+        Behavior behavior;
+        try {
+            behavior = Behavior.valueOf(input.readUTF());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown behavior.", e);
+        }
+        int startLevel = input.readInt();
+        long tetrominoRandomSeed = input.readLong();
+        long gapRandomSeed = input.readLong();
+        int numberOfPlayers = input.readInt();
+        int length = input.readInt();
+        if (numberOfPlayers < 1 || length < 0 || Integer.MAX_VALUE / numberOfPlayers < length) {
+            throw new IOException("Invalid number of players (" + numberOfPlayers + ") or frames (" + length + ").");
+        }
+
+        byte[] inputs = new byte[length * numberOfPlayers];
+        int frame = 0;
+        while (frame != length) {
+            input.readFully(inputs, frame * numberOfPlayers, numberOfPlayers);
+            int runLength = readVarInt(input);
+            if (runLength < 1 || length - frame < runLength) {
+                throw new IOException("Invalid run length " + runLength + " at frame " + frame);
+            }
+            for (int i = 1; i != runLength; i++) {
+                System.arraycopy(inputs, frame * numberOfPlayers, inputs, (frame + i) * numberOfPlayers,
+                        numberOfPlayers);
+            }
+            frame = frame + runLength;
+        }
+        for (byte mask : inputs) {
+            if (mask < 0 || InputMask.NUMBER_OF_MASKS <= mask) {
+                throw new IOException("Invalid input mask: " + mask);
+            }
+        }
+
+        return new Replay(behavior, startLevel, tetrominoRandomSeed, gapRandomSeed, numberOfPlayers, inputs);
+    }
+
+    /**
+     * Reads a non-negative integer, as written by {@link #writeVarInt(DataOutputStream, int)}.
+     * 
+     * @param input input
+     * @return value
+     * @throws IOException if reading fails, or if the value does not fit in an int
+     */
+    private static int readVarInt(DataInputStream input) throws IOException {
+        int result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift == 35) {
+                throw new IOException("Variable length integer too long.");
+            }
+            b = input.readUnsignedByte();
+            result = result | (b & 0x7F) << shift;
+            shift = shift + 7;
+        } while ((b & 0x80) != 0);
+        return result;
+    }
+}
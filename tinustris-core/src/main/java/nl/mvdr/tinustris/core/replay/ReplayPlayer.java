@@ -0,0 +1,252 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.game.engine.GameEngine;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.game.state.GameState;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.MultiplayerEngine;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.engine.SinglePlayerEngine;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Plays back a {@link Replay}, by simulating the recorded game again at unlimited speed.
+ * 
+ * Any frame of the replay can be reached using {@link #seek(int)}. Seeking forward simulates the frames in between;
+ * seeking backward starts over from the beginning of the game. If keyframes have been provided using
+ * {@link #setKeyframes(KeyframeFile)}, seeking restores the nearest keyframe before the target frame instead, so that
+ * at most one keyframe interval needs to be simulated.
+ * 
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ * 
+ * @param <S> game state type
+ */
+@Slf4j
+@ToString(of = { "replay", "frame" })
+public class ReplayPlayer<S extends GameState> {
+    /** Replay. */
+    @Getter
+    @NonNull
+    private final Replay replay;
+    /** Function which creates a new game engine, based on a one-player engine. */
+    @NonNull
+    private final Function<OnePlayerEngine, GameEngine<S, Input>> engineFactory;
+    /** Codec for the game states in keyframes. */
+    @NonNull
+    private final StateCodec<S> codec;
+    /** Input states for the current frame. This list is reused between frames. */
+    private final List<InputState<Input>> inputStates;
+    /** Keyframes; null if not available. */
+    private KeyframeFile keyframes;
+    /** Tetromino generator used by the current engine. */
+    private RandomTetrominoGenerator tetrominoGenerator;
+    /** Gap generator used by the current engine. */
+    private GapGenerator gapGenerator;
+    /** Game engine. */
+    private GameEngine<S, Input> engine;
+    /** Current game state. */
+    @Getter
+    private S state;
+    /** Index of the current frame. The current state is the result of this many frames of input. */
+    @Getter
+    private int frame;
+
+    /**
+     * Constructor.
+     * 
+     * @param replay replay
+     * @param engineFactory function which creates a new game engine, based on the given one-player engine; needs to
+     *            be called again when seeking backward, since generators may have released their values
+     * @param codec codec for the game states in keyframes
+     */
+    private ReplayPlayer(@NonNull Replay replay,
+            @NonNull Function<OnePlayerEngine, GameEngine<S, Input>> engineFactory, @NonNull StateCodec<S> codec) {
+        super();
+
+        this.replay = replay;
+        this.engineFactory = engineFactory;
+        this.codec = codec;
+        this.inputStates = new ArrayList<>(replay.getNumberOfPlayers());
+        restart();
+    }
+
+    /**
+     * Creates a player for a single player replay.
+     * 
+     * @param replay replay; must contain a single player game
+     * @return replay player
+     * @throws IllegalArgumentException if the replay does not contain a single player game
+     */
+    public static ReplayPlayer<OnePlayerGameState> createSinglePlayer(@NonNull Replay replay) {
+        if (replay.getNumberOfPlayers() != 1) {
+            throw new IllegalArgumentException("Not a single player replay: " + replay);
+        }
+        return new ReplayPlayer<>(replay, SinglePlayerEngine::new, KeyframeCodec.ONE_PLAYER);
+    }
+
+    /**
+     * Creates a player for a multiplayer replay.
+     * 
+     * @param replay replay; must contain a multiplayer game
+     * @return replay player
+     * @throws IllegalArgumentException if the replay does not contain a multiplayer game
+     */
+    public static ReplayPlayer<MultiplayerGameState> createMultiplayer(@NonNull Replay replay) {
+        if (replay.getNumberOfPlayers() < 2) {
+            throw new IllegalArgumentException("Not a multiplayer replay: " + replay);
+        }
+        return new ReplayPlayer<>(replay, engine -> new MultiplayerEngine(replay.getNumberOfPlayers(), engine),
+                KeyframeCodec.MULTIPLAYER);
+    }
+
+    /**
+     * Sets the keyframes to be used when seeking.
+     * 
+     * @param keyframes keyframes; must have been created for this player's replay
+     * @throws IllegalArgumentException if the keyframes do not belong to this player's replay
+     */
+    public void setKeyframes(@NonNull KeyframeFile keyframes) {
+        if (!keyframes.matches(replay)) {
+            throw new IllegalArgumentException("Keyframes " + keyframes + " do not match replay " + replay);
+        }
+        this.keyframes = keyframes;
+    }
+
+    /** Starts over from the initial state. */
+    private void restart() {
+        tetrominoGenerator = new RandomTetrominoGenerator(replay.getTetrominoRandomSeed());
+        gapGenerator = new GapGenerator(replay.getGapRandomSeed(), OnePlayerGameState.DEFAULT_WIDTH);
+        createEngine();
+        state = engine.initGameState();
+        frame = 0;
+    }
+
+    /**
+     * Restores the given keyframe.
+     * 
+     * @param keyframe keyframe index
+     */
+    private void restore(int keyframe) {
+        ByteBuffer buffer = keyframes.getKeyframe(keyframe);
+        int keyframeFrame = buffer.getInt();
+        tetrominoGenerator = new RandomTetrominoGenerator(KeyframeCodec.readSnapshot(buffer));
+        gapGenerator = new GapGenerator(KeyframeCodec.readSnapshot(buffer), OnePlayerGameState.DEFAULT_WIDTH);
+        createEngine();
+        state = codec.read(buffer);
+        frame = keyframeFrame;
+    }
+
+    /** Creates a new game engine, using the current generators. */
+    private void createEngine() {
+        engine = engineFactory.apply(new OnePlayerEngine(tetrominoGenerator, replay.getBehavior(),
+                replay.getStartLevel(), gapGenerator));
+    }
+
+    /**
+     * Writes a keyframe for the current frame.
+     * 
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    void writeKeyframe(DataOutput output) throws IOException {
+        output.writeInt(frame);
+        KeyframeCodec.writeSnapshot(tetrominoGenerator.snapshot(), output);
+        KeyframeCodec.writeSnapshot(gapGenerator.snapshot(), output);
+        codec.write(state, output);
+    }
+
+    /** @return whether all frames of the replay have been played */
+    public boolean isFinished() {
+        return frame == replay.getLength();
+    }
+
+    /**
+     * Advances to the next frame.
+     * 
+     * @return new game state
+     * @throws IllegalStateException if all frames have already been played
+     */
+    public S step() {
+        if (isFinished()) {
+            throw new IllegalStateException("End of replay reached after " + frame + " frames.");
+        }
+
+        inputStates.clear();
+        for (int player = 0; player != replay.getNumberOfPlayers(); player++) {
+            inputStates.add(InputMask.toInputState(replay.getInputMask(frame, player)));
+        }
+        state = engine.computeNextState(state, inputStates);
+        frame++;
+        return state;
+    }
+
+    /**
+     * Moves to the given frame.
+     * 
+     * @param targetFrame frame index; must be at least 0 and at most the length of the replay
+     * @return game state after the given number of frames
+     * @throws IndexOutOfBoundsException if the frame is out of bounds
+     */
+    public S seek(int targetFrame) {
+        if (targetFrame < 0 || replay.getLength() < targetFrame) {
+            throw new IndexOutOfBoundsException("Frame out of bounds: " + targetFrame + ", replay length: "
+                    + replay.getLength());
+        }
+
+        if (keyframes != null) {
+            int keyframe = keyframes.findKeyframe(targetFrame);
+            if (keyframe != -1 && (targetFrame < frame || frame < keyframes.getFrame(keyframe))) {
+                log.debug("Seeking from frame {} to {}, restoring keyframe at frame {}.", Integer.valueOf(frame),
+                        Integer.valueOf(targetFrame), Integer.valueOf(keyframes.getFrame(keyframe)));
+                restore(keyframe);
+            }
+        }
+        if (targetFrame < frame) {
+            log.debug("Seeking backward from frame {} to {}, starting over.", Integer.valueOf(frame),
+                    Integer.valueOf(targetFrame));
+            restart();
+        }
+        while (frame != targetFrame) {
+            step();
+        }
+        return state;
+    }
+
+    /**
+     * Plays all remaining frames.
+     * 
+     * @return final game state
+     */
+    public S seekToEnd() {
+        return seek(replay.getLength());
+    }
+}
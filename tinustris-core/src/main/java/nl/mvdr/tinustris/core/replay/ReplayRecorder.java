@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.util.Arrays;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+
+/**
+ * Records the input of a game, in order to create a {@link Replay}.
+ * 
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = { "behavior", "startLevel", "tetrominoRandomSeed", "gapRandomSeed", "numberOfPlayers", "length" })
+public class ReplayRecorder {
+    /** Initial number of frames to reserve space for. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Behavior. */
+    @NonNull
+    private final Behavior behavior;
+    /** Starting level. */
+    private final int startLevel;
+    /** Random seed for the tetromino generator. */
+    private final long tetrominoRandomSeed;
+    /** Random seed for the gap generator. */
+    private final long gapRandomSeed;
+    /** Number of players. */
+    @Getter
+    private final int numberOfPlayers;
+    /** Input masks recorded so far; see {@link Replay}. */
+    private byte[] inputs;
+    /** Number of recorded frames. */
+    @Getter
+    private int length;
+
+    /**
+     * Constructor.
+     * 
+     * Note that the seeds must be the ones that were actually used to create the game's generators. Since
+     * {@link nl.mvdr.tinustris.core.configuration.Configuration} may return a different random seed each time, the
+     * seeds should be retrieved from the configuration only once.
+     * 
+     * @param behavior behavior
+     * @param startLevel starting level
+     * @param tetrominoRandomSeed random seed for the tetromino generator
+     * @param gapRandomSeed random seed for the gap generator
+     * @param numberOfPlayers number of players; must be at least 1
+     */
+    public ReplayRecorder(@NonNull Behavior behavior, int startLevel, long tetrominoRandomSeed, long gapRandomSeed,
+            int numberOfPlayers) {
+        super();
+
+        if (numberOfPlayers < 1) {
+            throw new IllegalArgumentException("At least one player is required, was: " + numberOfPlayers);
+        }
+
+        this.behavior = behavior;
+        this.startLevel = startLevel;
+        this.tetrominoRandomSeed = tetrominoRandomSeed;
+        this.gapRandomSeed = gapRandomSeed;
+        this.numberOfPlayers = numberOfPlayers;
+        this.inputs = new byte[INITIAL_CAPACITY * numberOfPlayers];
+        this.length = 0;
+    }
+
+    /**
+     * Records the input for the next frame.
+     * 
+     * @param inputStates input state for each player
+     * @throws IllegalArgumentException if the number of input states does not match the number of players
+     */
+    public void record(@NonNull List<InputState<Input>> inputStates) {
+        if (inputStates.size() != numberOfPlayers) {
+            throw new IllegalArgumentException("Expected " + numberOfPlayers + " input states, got: "
+                    + inputStates.size());
+        }
+
+        if ((length + 1) * numberOfPlayers > inputs.length) {
+            inputs = Arrays.copyOf(inputs, inputs.length * 2);
+        }
+        for (int player = 0; player != numberOfPlayers; player++) {
+            inputs[length * numberOfPlayers + player] = (byte) InputMask.toMask(inputStates.get(player));
+        }
+        length++;
+    }
+
+    /**
+     * Creates a replay containing the frames recorded so far. Recording may continue afterwards; this does not affect
+     * the replay.
+     * 
+     * @return replay
+     */
+    public Replay toReplay() {
+        return new Replay(behavior, startLevel, tetrominoRandomSeed, gapRandomSeed, numberOfPlayers, Arrays.copyOf(
+                inputs, length * numberOfPlayers));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import nl.mvdr.game.state.GameState;
+
+/**
+ * Binary encoding of game states, for use in keyframes.
+ * 
+ * @author Martijn van de Rijdt
+ * 
+ * @param <S> game state type
+ */
+interface StateCodec<S extends GameState> {
+    /**
+     * Writes the given state.
+     * 
+     * @param state game state
+     * @param output output
+     * @throws IOException if writing fails
+     */
+    void write(S state, DataOutput output) throws IOException;
+
+    /**
+     * Reads a state, as written by {@link #write(GameState, DataOutput)}.
+     * 
+     * @param buffer buffer, positioned at the start of the state; the position is advanced past the state
+     * @return game state
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain a complete state
+     * @throws IllegalArgumentException if the buffer does not contain a valid state
+     */
+    S read(ByteBuffer buffer);
+}
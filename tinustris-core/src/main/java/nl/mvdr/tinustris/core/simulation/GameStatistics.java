@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Statistics for a single player in a simulated game.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+@Getter
+public class GameStatistics {
+    /** Header line for CSV output, matching {@link #toCsvRecord()}. */
+    public static final String CSV_HEADER = "seed,player,frames,lines,level,garbage";
+
+    /** Random seed of the game. */
+    private final long seed;
+    /** Player index. */
+    private final int player;
+    /** Number of frames the player survived. */
+    private final int frames;
+    /** Number of lines scored. */
+    private final int lines;
+    /** Level reached. */
+    private final int level;
+    /** Total number of garbage lines received. */
+    private final int garbage;
+
+    /** @return these statistics as a line of CSV, without line terminator */
+    public String toCsvRecord() {
+        return seed + "," + player + "," + frames + "," + lines + "," + level + "," + garbage;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+import nl.mvdr.tinustris.core.replay.InputMask;
+
+/**
+ * Input policy which uses a simple greedy strategy: the active block is turned and moved towards the placement which
+ * scores the most lines while keeping the stack low, and then dropped. Buttons are tapped, that is, released every
+ * other frame.
+ * 
+ * This policy does not keep any state of its own, so a single instance can be shared between players and threads.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GreedyInputPolicy implements InputPolicy {
+    /** Singleton instance. */
+    public static final GreedyInputPolicy INSTANCE = new GreedyInputPolicy();
+
+    /** All inputs. Cached, since {@link Input#values()} creates a new array on every invocation. */
+    private static final Input[] INPUTS = Input.values();
+
+    /** Input state where nothing is pressed. */
+    private static final InputState<Input> NOTHING_PRESSED = InputMask.toInputState(0);
+
+    /** Constructor. */
+    private GreedyInputPolicy() {
+        super();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputState<Input> getInputState(OnePlayerGameState state) {
+        InputState<Input> result;
+        if (isAnyInputPressed(state) || !state.getActiveTetromino().isPresent()) {
+            result = NOTHING_PRESSED;
+        } else {
+            Tetromino tetromino = state.getActiveTetromino().get();
+            Point location = state.getCurrentBlockLocation().get();
+            Grid grid = state.getGrid();
+
+            Orientation bestOrientation = state.getCurrentBlockOrientation().get();
+            int bestX = location.getX();
+            int bestScore = Integer.MIN_VALUE;
+            for (Orientation orientation : Orientation.values()) {
+                CollisionMask mask = tetromino.getCollisionMask(orientation);
+                for (int x = -CollisionMask.SIZE; x != grid.getWidth(); x++) {
+                    if (mask.fits(grid, x, location.getY())) {
+                        int y = location.getY() - mask.getDropDistance(grid, x, location.getY());
+                        int score = evaluate(grid.withBlocks(mask, x, y, tetromino.getBlock()));
+                        if (bestScore < score) {
+                            bestScore = score;
+                            bestOrientation = orientation;
+                            bestX = x;
+                        }
+                    }
+                }
+            }
+
+            Input input;
+            if (state.getCurrentBlockOrientation().get() != bestOrientation) {
+                input = Input.TURN_RIGHT;
+            } else if (location.getX() < bestX) {
+                input = Input.RIGHT;
+            } else if (bestX < location.getX()) {
+                input = Input.LEFT;
+            } else {
+                input = Input.HARD_DROP;
+            }
+            result = InputMask.toInputState(input);
+        }
+        return result;
+    }
+
+    /**
+     * Determines whether any input was pressed in the frame which resulted in the given state.
+     * 
+     * @param state game state
+     * @return whether any input was pressed
+     */
+    private static boolean isAnyInputPressed(OnePlayerGameState state) {
+        boolean result = false;
+        for (Input input : INPUTS) {
+            result = result || state.getInputStateHistory().getNumberOfFrames(input) != 0;
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates a grid, using the weights of a well-known heuristic: lines, aggregate height, holes and bumpiness.
+     * 
+     * @param grid grid
+     * @return score; higher is better
+     */
+    static int evaluate(Grid grid) {
+        int result = 0;
+        for (int line = 0; line != grid.getHeight(); line++) {
+            if (grid.isFullLine(line)) {
+                result = result + 76;
+            }
+        }
+        for (int column = 0; column != grid.getWidth(); column++) {
+            int height = grid.getColumnHeight(column);
+            result = result - 51 * height;
+            for (int row = 0; row != height; row++) {
+                if (!grid.isOccupied(column, row)) {
+                    result = result - 36;
+                }
+            }
+            if (column != 0) {
+                result = result - 18 * Math.abs(height - grid.getColumnHeight(column - 1));
+            }
+        }
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "GreedyInputPolicy";
+    }
+}
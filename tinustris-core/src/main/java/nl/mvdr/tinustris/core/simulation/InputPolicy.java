@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Decides the input of a simulated player, based on the current game state.
+ * 
+ * Implementations may keep track of state between frames; a new instance is used for each player in each game.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@FunctionalInterface
+public interface InputPolicy {
+    /**
+     * Determines the input for the next frame.
+     * 
+     * @param state
+     *            current game state of the player
+     * @return input state for the next frame
+     */
+    InputState<Input> getInputState(OnePlayerGameState state);
+}
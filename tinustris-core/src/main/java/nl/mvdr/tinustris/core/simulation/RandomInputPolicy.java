@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import java.util.Random;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Input policy which presses random combinations of buttons. Each combination is held for a random number of frames,
+ * five on average.
+ * 
+ * Instances of this class are not thread-safe.
+ * 
+ * @author Martijn van de Rijdt
+ */
+class RandomInputPolicy implements InputPolicy {
+    /** Number of different combinations of inputs. */
+    private static final int COMBINATIONS = 1 << Input.values().length;
+
+    /** Random number generator. */
+    private final Random random;
+    /** Currently pressed inputs. */
+    private InputState<Input> inputState;
+
+    /**
+     * Constructor.
+     * 
+     * @param seed
+     *            random seed
+     */
+    RandomInputPolicy(long seed) {
+        super();
+
+        this.random = new Random(seed);
+        this.inputState = input -> false;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputState<Input> getInputState(OnePlayerGameState state) {
+        if (random.nextInt(5) == 0) {
+            // change the inputs; the bitwise and makes sure that only a few inputs are pressed at the same time
+            // bit i of the mask corresponds to the input with ordinal i
+            int mask = random.nextInt(COMBINATIONS) & random.nextInt(COMBINATIONS);
+            inputState = input -> (mask & 1 << input.ordinal()) != 0;
+        }
+        return inputState;
+    }
+}
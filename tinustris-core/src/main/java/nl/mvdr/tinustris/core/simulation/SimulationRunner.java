@@ -0,0 +1,268 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+
+/**
+ * Command-line entry point which simulates a range of games and writes the statistics for each player to CSV.
+ * 
+ * Games are simulated by a {@link Simulator}, without any GUI or input devices, using all available processors. This
+ * is meant for balancing purposes, such as comparing speed curves.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+public class SimulationRunner {
+    /** Usage message. */
+    static final String USAGE = "Usage: SimulationRunner [options]\n"
+            + "  --behavior <name>     behavior, one of " + Arrays.stream(Behavior.values())
+                .map(Behavior::name)
+                .collect(Collectors.toList()) + " (default: "
+            + Behavior.defaultBehavior().name() + ")\n"
+            + "  --level <n>           starting level (default: 0)\n"
+            + "  --seeds <first-last>  inclusive range of random seeds, one game per seed (default: 0-99)\n"
+            + "  --players <n>         number of players per game (default: 1)\n"
+            + "  --policy <name>       input policy, one of " + Arrays.toString(StandardInputPolicy.values())
+            + ", or the fully qualified name of a class implementing " + InputPolicyFactory.class.getSimpleName()
+            + " (default: GREEDY)\n"
+            + "  --max-frames <n>      maximum number of frames per game (default: 216000, one hour at 60 fps)\n"
+            + "  --output <file>       CSV file to write (default: standard output)";
+
+    /** Default values for the options. */
+    private static final Map<String, String> DEFAULTS = createDefaults();
+
+    /** Constructor. Not to be invoked, since this class only contains static methods. */
+    private SimulationRunner() {
+        super();
+    }
+
+    /**
+     * Creates the default values for all options.
+     * 
+     * @return map of option name to default value; the output option has no default value
+     */
+    private static Map<String, String> createDefaults() {
+        Map<String, String> result = new HashMap<>();
+        result.put("behavior", Behavior.defaultBehavior().name());
+        result.put("level", "0");
+        result.put("seeds", "0-99");
+        result.put("players", "1");
+        result.put("policy", StandardInputPolicy.GREEDY.name());
+        result.put("max-frames", "216000");
+        result.put("output", null);
+        return result;
+    }
+
+    /**
+     * Main method.
+     * 
+     * @param args
+     *            command-line parameters, see {@link #USAGE}
+     */
+    public static void main(String[] args) {
+        try {
+            run(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            log.error("Failed to write output.", e);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Runs the simulation.
+     * 
+     * @param args
+     *            command-line parameters, see {@link #USAGE}
+     * @throws IllegalArgumentException
+     *             if the parameters are invalid
+     * @throws IOException
+     *             if the output cannot be written
+     */
+    private static void run(String[] args) throws IOException {
+        Map<String, String> options = parseArguments(args);
+        Simulator simulator = createSimulator(options);
+        long[] seeds = parseSeeds(options.get("seeds"));
+
+        log.info("Simulating games for seeds {} through {} using {}.", Long.valueOf(seeds[0]), Long.valueOf(seeds[1]),
+                simulator);
+        long start = System.nanoTime();
+        List<GameStatistics> statistics = simulator.simulate(seeds[0], seeds[1]);
+        log.info("Simulation finished in {} ms.", Long.valueOf((System.nanoTime() - start) / 1_000_000));
+
+        String output = options.get("output");
+        if (output == null) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            writeCsv(statistics, writer);
+            writer.flush();
+        } else {
+            try (Writer writer = Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8)) {
+                writeCsv(statistics, writer);
+            }
+            log.info("Statistics written to {}.", output);
+        }
+    }
+
+    /**
+     * Parses the command-line parameters.
+     * 
+     * @param args
+     *            command-line parameters, consisting of pairs of option names (prefixed with "--") and values
+     * @return map of option name to value, including default values for missing options
+     * @throws IllegalArgumentException
+     *             if an option is unknown or lacks a value
+     */
+    static Map<String, String> parseArguments(String... args) {
+        Map<String, String> result = new HashMap<>(DEFAULTS);
+        for (int i = 0; i != args.length; i = i + 2) {
+            if (!args[i].startsWith("--") || !DEFAULTS.containsKey(args[i].substring(2))) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + args[i]);
+            }
+            result.put(args[i].substring(2), args[i + 1]);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a simulator based on the given options.
+     * 
+     * @param options
+     *            map of option name to value, as returned by {@link #parseArguments(String...)}
+     * @return simulator
+     * @throws IllegalArgumentException
+     *             if any of the values is invalid
+     */
+    static Simulator createSimulator(Map<String, String> options) {
+        Behavior behavior = Behavior.valueOf(options.get("behavior"));
+        int startLevel = parseInt(options, "level");
+        int numberOfPlayers = parseInt(options, "players");
+        InputPolicyFactory policyFactory = parsePolicy(options.get("policy"));
+        int maxFrames = parseInt(options, "max-frames");
+        return new Simulator(behavior, startLevel, numberOfPlayers, policyFactory, maxFrames);
+    }
+
+    /**
+     * Parses an integer option.
+     * 
+     * @param options
+     *            map of option name to value
+     * @param name
+     *            option name
+     * @return value
+     * @throws IllegalArgumentException
+     *             if the value is not an integer
+     */
+    private static int parseInt(Map<String, String> options, String name) {
+        try {
+            return Integer.parseInt(options.get(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for option --" + name + ": " + options.get(name), e);
+        }
+    }
+
+    /**
+     * Parses a range of seeds.
+     * 
+     * @param value
+     *            either a single seed, or two seeds separated by a dash
+     * @return array containing the first and last seed (inclusive)
+     * @throws IllegalArgumentException
+     *             if the value is not a valid range
+     */
+    static long[] parseSeeds(String value) {
+        // look for the separator after the first character, so that the first seed may be negative
+        int separator = value.indexOf('-', 1);
+        long[] result;
+        try {
+            if (separator < 0) {
+                long seed = Long.parseLong(value);
+                result = new long[] { seed, seed };
+            } else {
+                result = new long[] { Long.parseLong(value.substring(0, separator)),
+                        Long.parseLong(value.substring(separator + 1)) };
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid seed range: " + value, e);
+        }
+        if (result[1] < result[0]) {
+            throw new IllegalArgumentException("Invalid seed range, last seed is less than the first: " + value);
+        }
+        return result;
+    }
+
+    /**
+     * Parses an input policy.
+     * 
+     * @param value
+     *            name of a {@link StandardInputPolicy} value, or the fully qualified name of a class implementing
+     *            {@link InputPolicyFactory}
+     * @return input policy factory
+     * @throws IllegalArgumentException
+     *             if the value does not denote a valid policy
+     */
+    static InputPolicyFactory parsePolicy(String value) {
+        InputPolicyFactory result;
+        if (Arrays.stream(StandardInputPolicy.values()).anyMatch(policy -> policy.name().equals(value))) {
+            result = StandardInputPolicy.valueOf(value);
+        } else {
+            try {
+                result = Class.forName(value).asSubclass(InputPolicyFactory.class).getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IllegalArgumentException("Invalid input policy: " + value, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the given statistics as CSV, including a header line.
+     * 
+     * @param statistics
+     *            statistics
+     * @param writer
+     *            writer
+     * @throws IOException
+     *             if writing fails
+     */
+    static void writeCsv(List<GameStatistics> statistics, Writer writer) throws IOException {
+        writer.write(GameStatistics.CSV_HEADER);
+        writer.write(System.lineSeparator());
+        for (GameStatistics gameStatistics : statistics) {
+            writer.write(gameStatistics.toCsvRecord());
+            writer.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.engine.ReleasingMultiplayerEngine;
+import nl.mvdr.tinustris.core.engine.SinglePlayerEngine;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Plays complete games without any GUI or input devices, at maximum speed.
+ * 
+ * Each game is determined by a single random seed, which is used for the tetromino generator and the gap generator,
+ * and to derive the seeds for the players' input policies. Simulating a game again using the same seed results in the
+ * same statistics, provided that the input policy is deterministic.
+ * 
+ * Instances of this class are thread-safe as long as the input policy factory is.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+@ToString
+@Getter
+public class Simulator {
+    /** Behavior. */
+    @NonNull
+    private final Behavior behavior;
+    /** Starting level. */
+    private final int startLevel;
+    /** Number of players in each game. */
+    private final int numberOfPlayers;
+    /** Factory for the players' input policies. */
+    @NonNull
+    private final InputPolicyFactory policyFactory;
+    /** Maximum number of frames per game. Games which are still running after this many frames are cut off. */
+    private final int maxFrames;
+
+    /**
+     * Constructor.
+     * 
+     * @param behavior
+     *            behavior
+     * @param startLevel
+     *            starting level
+     * @param numberOfPlayers
+     *            number of players in each game; must be at least 1
+     * @param policyFactory
+     *            factory for the players' input policies
+     * @param maxFrames
+     *            maximum number of frames per game; must be at least 1
+     */
+    public Simulator(@NonNull Behavior behavior, int startLevel, int numberOfPlayers,
+            @NonNull InputPolicyFactory policyFactory, int maxFrames) {
+        super();
+
+        if (numberOfPlayers < 1) {
+            throw new IllegalArgumentException("At least one player is required, was: " + numberOfPlayers);
+        }
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("Maximum number of frames must be positive, was: " + maxFrames);
+        }
+
+        this.behavior = behavior;
+        this.startLevel = startLevel;
+        this.numberOfPlayers = numberOfPlayers;
+        this.policyFactory = policyFactory;
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Simulates a game for each of the given seeds. The games are simulated in parallel, using all available
+     * processors.
+     * 
+     * @param firstSeed
+     *            first random seed (inclusive)
+     * @param lastSeed
+     *            last random seed (inclusive)
+     * @return statistics for each player in each game, ordered by seed and player
+     */
+    public List<GameStatistics> simulate(long firstSeed, long lastSeed) {
+        return LongStream.rangeClosed(firstSeed, lastSeed)
+            .parallel()
+            .mapToObj(this::simulate)
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Simulates a single game.
+     * 
+     * @param seed
+     *            random seed
+     * @return statistics for each player, ordered by player
+     */
+    public List<GameStatistics> simulate(long seed) {
+        OnePlayerEngine onePlayerEngine = new OnePlayerEngine(new RandomTetrominoGenerator(seed), behavior,
+                startLevel, new GapGenerator(seed, OnePlayerGameState.DEFAULT_WIDTH));
+        // each game gets its own range of policy seeds
+        List<InputPolicy> policies = IntStream.range(0, numberOfPlayers)
+            .mapToObj(player -> policyFactory.createPolicy(seed * numberOfPlayers + player))
+            .collect(Collectors.toList());
+
+        List<GameStatistics> result;
+        if (numberOfPlayers == 1) {
+            result = Collections.singletonList(simulate(seed, new SinglePlayerEngine(onePlayerEngine),
+                    policies.get(0)));
+        } else {
+            result = simulate(seed, new ReleasingMultiplayerEngine(numberOfPlayers, onePlayerEngine), policies);
+        }
+        log.debug("Simulated game with seed {}: {}", Long.valueOf(seed), result);
+        return result;
+    }
+
+    /**
+     * Simulates a single player game.
+     * 
+     * @param seed
+     *            random seed
+     * @param engine
+     *            game engine
+     * @param policy
+     *            input policy
+     * @return statistics
+     */
+    private GameStatistics simulate(long seed, SinglePlayerEngine engine, InputPolicy policy) {
+        OnePlayerGameState state = engine.initGameState();
+        int frame = 0;
+        while (frame != maxFrames && !state.isGameOver()) {
+            state = engine.computeNextState(state, Collections.singletonList(policy.getInputState(state)));
+            frame++;
+        }
+        return createStatistics(seed, 0, frame, state);
+    }
+
+    /**
+     * Simulates a multiplayer game.
+     * 
+     * @param seed
+     *            random seed
+     * @param engine
+     *            game engine
+     * @param policies
+     *            input policy for each player
+     * @return statistics for each player
+     */
+    private List<GameStatistics> simulate(long seed, ReleasingMultiplayerEngine engine, List<InputPolicy> policies) {
+        MultiplayerGameState state = engine.initGameState();
+        // frame in which each player's game ended, or the total number of frames if it did not end
+        int[] frames = new int[numberOfPlayers];
+        Arrays.fill(frames, -1);
+        List<InputState<Input>> inputStates = new ArrayList<>(numberOfPlayers);
+        int frame = 0;
+        while (frame != maxFrames && !state.isGameOver()) {
+            inputStates.clear();
+            for (int player = 0; player != numberOfPlayers; player++) {
+                inputStates.add(policies.get(player).getInputState(state.getStateForPlayer(player)));
+            }
+            state = engine.computeNextState(state, inputStates);
+            frame++;
+            for (int player = 0; player != numberOfPlayers; player++) {
+                if (frames[player] < 0 && state.getStateForPlayer(player).isGameOver()) {
+                    frames[player] = frame;
+                }
+            }
+        }
+
+        List<GameStatistics> result = new ArrayList<>(numberOfPlayers);
+        for (int player = 0; player != numberOfPlayers; player++) {
+            int survived;
+            if (frames[player] < 0) {
+                survived = frame;
+            } else {
+                survived = frames[player];
+            }
+            result.add(createStatistics(seed, player, survived, state.getStateForPlayer(player)));
+        }
+        return result;
+    }
+
+    /**
+     * Creates the statistics for a player.
+     * 
+     * @param seed
+     *            random seed
+     * @param player
+     *            player index
+     * @param frames
+     *            number of frames survived
+     * @param state
+     *            final game state of the player
+     * @return statistics
+     */
+    private static GameStatistics createStatistics(long seed, int player, int frames, OnePlayerGameState state) {
+        return new GameStatistics(seed, player, frames, state.getLines(), state.getLevel(), state.getTotalGarbage());
+    }
+}
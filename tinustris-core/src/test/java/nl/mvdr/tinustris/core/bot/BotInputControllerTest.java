@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.Collections;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link BotInputController}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class BotInputControllerTest {
+    /** Checks that the controller does not press anything before it has seen the game. */
+    @Test
+    public void testGetInputStateBeforeRender() {
+        BotInputController controller = new BotInputController(WeightedHeuristic.DEFAULT);
+
+        Assert.assertEquals(0, countPressed(controller.getInputState()));
+    }
+
+    /** Checks that the controller does not press anything when there is no active block. */
+    @Test
+    public void testGetInputStateNoActiveBlock() {
+        BotInputController controller = new BotInputController(WeightedHeuristic.DEFAULT);
+        controller.render(new OnePlayerGameState());
+
+        Assert.assertEquals(0, countPressed(controller.getInputState()));
+    }
+
+    /**
+     * Lets the controller play a game and checks that it scores lines without topping out, and that it never presses
+     * the same input in two consecutive frames.
+     */
+    @Test
+    public void testPlay() {
+        OnePlayerEngine engine = new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        BotInputController controller = new BotInputController(WeightedHeuristic.DEFAULT);
+        OnePlayerGameState state = engine.initGameState();
+
+        for (int frame = 0; frame != 5_000 && !state.isTopped(); frame++) {
+            controller.render(state);
+            InputState<Input> inputState = controller.getInputState();
+            Assert.assertTrue(countPressed(inputState) <= 1);
+            for (Input input : Input.values()) {
+                Assert.assertFalse(inputState.isPressed(input)
+                        && state.getInputStateHistory().getNumberOfFrames(input) != 0);
+            }
+            state = engine.computeNextState(state, Collections.singletonList(inputState));
+        }
+
+        Assert.assertFalse(state.isTopped());
+        Assert.assertTrue("Lines: " + state.getLines(), 20 <= state.getLines());
+    }
+
+    /**
+     * Counts the number of pressed inputs.
+     * 
+     * @param inputState input state
+     * @return number of pressed inputs
+     */
+    private static int countPressed(InputState<Input> inputState) {
+        int result = 0;
+        for (Input input : Input.values()) {
+            if (inputState.isPressed(input)) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
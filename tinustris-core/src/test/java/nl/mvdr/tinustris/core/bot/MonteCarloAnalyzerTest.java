@@ -0,0 +1,194 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+import nl.mvdr.tinustris.core.simulation.StandardInputPolicy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link MonteCarloAnalyzer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class MonteCarloAnalyzerTest {
+    /** Checks that every reachable placement is analysed, and that the results do not depend on the pool. */
+    @Test
+    public void testAnalyze() {
+        OnePlayerGameState state = createInitialState();
+        MonteCarloAnalyzer analyzer = createAnalyzer(4, 3, new ForkJoinPool(1));
+        MonteCarloAnalyzer parallelAnalyzer = createAnalyzer(4, 3, new ForkJoinPool(3));
+
+        List<PlacementStatistics> statistics = analyzer.analyze(state, 0L, 1, TimeUnit.HOURS);
+        List<PlacementStatistics> parallelStatistics = parallelAnalyzer.analyze(state, 0L, 1, TimeUnit.HOURS);
+
+        MoveGenerator generator = new MoveGenerator(state.getGrid().getWidth(), state.getGrid().getHeight());
+        Point location = state.getCurrentBlockLocation().get();
+        Assert.assertEquals(generator.search(state.getGrid(), state.getActiveTetromino().get(), location.getX(),
+                location.getY(), state.getCurrentBlockOrientation().get()), statistics.size());
+        for (PlacementStatistics placementStatistics : statistics) {
+            Assert.assertEquals(4, placementStatistics.getRollouts());
+        }
+        Assert.assertEquals(statistics, parallelStatistics);
+    }
+
+    /** Checks that dropping an I into a well is recognised as the placement which scores the most lines. */
+    @Test
+    public void testAnalyzeWell() {
+        List<Point> points = new ArrayList<>();
+        for (int y = 0; y != 4; y++) {
+            for (int x = 0; x != 9; x++) {
+                points.add(new Point(x, y));
+            }
+        }
+        Grid grid = Grid.empty(10, 22).withBlocks(points, Block.GARBAGE);
+        OnePlayerGameState state = new OnePlayerGameState(grid, 10, Tetromino.I, new Point(3, 16),
+                Orientation.getDefault(), Tetromino.O);
+        MonteCarloAnalyzer analyzer = createAnalyzer(2, 0, new ForkJoinPool(2));
+
+        List<PlacementStatistics> statistics = analyzer.analyze(state, 0L, 1, TimeUnit.HOURS);
+
+        PlacementStatistics best = statistics.get(0);
+        for (PlacementStatistics placementStatistics : statistics) {
+            if (best.getAverageLines() < placementStatistics.getAverageLines()) {
+                best = placementStatistics;
+            }
+        }
+        Assert.assertEquals(4.0, best.getAverageLines(), 0.0);
+        Assert.assertEquals(0.0, best.getToppedOutRate(), 0.0);
+        Point location = best.getPlacement().getLocation();
+        Assert.assertEquals(9, location.getX()
+                + Tetromino.I.getCollisionMask(best.getPlacement().getOrientation()).getMinX());
+    }
+
+    /**
+     * Checks that the rollouts do not depend on the number of tetrominoes and garbage lines which have already been
+     * played, since they start at the game state's next tetromino and gap.
+     */
+    @Test
+    public void testAnalyzeLateInGame() {
+        List<Optional<Block>> grid = Collections.nCopies(220, Optional.empty());
+        OnePlayerGameState early = new OnePlayerGameState(grid, 10, Optional.of(Tetromino.T),
+                Optional.of(new Point(4, 19)), Optional.of(Orientation.getDefault()), Tetromino.S, 0, 0, 0,
+                InputStateHistory.NEW, 0, 0, 0, 0, 0, 0);
+        OnePlayerGameState late = new OnePlayerGameState(grid, 10, Optional.of(Tetromino.T),
+                Optional.of(new Point(4, 19)), Optional.of(Orientation.getDefault()), Tetromino.S, 0, 0, 0,
+                InputStateHistory.NEW, 10_000_000, 0, 0, 0, 0, 90_000_000);
+        MonteCarloAnalyzer analyzer = createAnalyzer(2, 3, new ForkJoinPool(2));
+
+        List<PlacementStatistics> earlyStatistics = analyzer.analyze(early, 0L, 1, TimeUnit.HOURS);
+        List<PlacementStatistics> lateStatistics = analyzer.analyze(late, 0L, 1, TimeUnit.HOURS);
+
+        Assert.assertEquals(earlyStatistics, lateStatistics);
+    }
+
+    /** Checks that the placements are looked up in the analyzer's cache. */
+    @Test
+    public void testAnalyzeCache() {
+        OnePlayerGameState state = createInitialState();
+        PlacementCache cache = new PlacementCache(16);
+        MonteCarloAnalyzer analyzer = new MonteCarloAnalyzer(Behavior.defaultBehavior(), StandardInputPolicy.GREEDY,
+                cache, 1, 0, new ForkJoinPool(1));
+
+        List<PlacementStatistics> statistics = analyzer.analyze(state, 0L, 1, TimeUnit.HOURS);
+        List<PlacementStatistics> cachedStatistics = analyzer.analyze(state, 0L, 1, TimeUnit.HOURS);
+
+        Assert.assertEquals(statistics, cachedStatistics);
+        Assert.assertEquals(1L, cache.getMisses());
+        Assert.assertEquals(1L, cache.getHits());
+    }
+
+    /** Checks that no rollouts are taken into account once the time limit has passed. */
+    @Test
+    public void testAnalyzeTimeout() {
+        MonteCarloAnalyzer analyzer = createAnalyzer(4, 3, new ForkJoinPool(2));
+
+        List<PlacementStatistics> statistics = analyzer.analyze(createInitialState(), 0L, 0, TimeUnit.SECONDS);
+
+        Assert.assertFalse(statistics.isEmpty());
+        for (PlacementStatistics placementStatistics : statistics) {
+            Assert.assertEquals(0, placementStatistics.getRollouts());
+            Assert.assertEquals(0.0, placementStatistics.getAverageLines(), 0.0);
+        }
+    }
+
+    /**
+     * Test case for {@link MonteCarloAnalyzer#analyze(OnePlayerGameState, long, long, TimeUnit)} without an active
+     * block.
+     */
+    @Test
+    public void testAnalyzeNoActiveBlock() {
+        MonteCarloAnalyzer analyzer = createAnalyzer(4, 3, new ForkJoinPool(2));
+
+        Assert.assertTrue(analyzer.analyze(new OnePlayerGameState(), 0L, 1, TimeUnit.HOURS).isEmpty());
+    }
+
+    /** Test case for the constructor with an invalid number of rollouts. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNoRollouts() {
+        createAnalyzer(0, 3, ForkJoinPool.commonPool());
+    }
+
+    /** Test case for the constructor with a negative depth. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNegativeDepth() {
+        createAnalyzer(4, -1, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates an analyzer which uses the greedy input policy.
+     * 
+     * @param rollouts
+     *            number of rollouts per placement
+     * @param depth
+     *            number of tetrominoes per rollout
+     * @param pool
+     *            pool
+     * @return analyzer
+     */
+    private static MonteCarloAnalyzer createAnalyzer(int rollouts, int depth, ForkJoinPool pool) {
+        return new MonteCarloAnalyzer(Behavior.defaultBehavior(), StandardInputPolicy.GREEDY, new PlacementCache(16),
+                rollouts, depth, pool);
+    }
+
+    /**
+     * Creates the initial state of a game, with an active block.
+     * 
+     * @return game state
+     */
+    private static OnePlayerGameState createInitialState() {
+        OnePlayerEngine engine = new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        return engine.initGameState();
+    }
+}
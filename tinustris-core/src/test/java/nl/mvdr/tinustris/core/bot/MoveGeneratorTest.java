@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.BitGrid;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link MoveGenerator}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class MoveGeneratorTest {
+    /**
+     * Test case for {@link MoveGenerator#search(BitGrid, Tetromino, int, int, Orientation)} on an empty grid.
+     */
+    @Test
+    public void testSearchEmptyGrid() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        Grid grid = Grid.empty(10, 22);
+
+        int placements = generator.search(grid, Tetromino.O, 3, 16, Orientation.FLAT_DOWN);
+
+        // 9 columns, 4 orientations
+        Assert.assertEquals(36, placements);
+        Assert.assertEquals(placements, generator.getNumberOfPlacements());
+        for (int i = 0; i != placements; i++) {
+            CollisionMask mask = Tetromino.O.getCollisionMask(generator.getOrientation(i));
+            Assert.assertTrue(mask.fits(grid, generator.getX(i), generator.getY(i)));
+            Assert.assertEquals(-1, generator.getY(i));
+        }
+        Assert.assertEquals(Input.HARD_DROP, generator.getFirstInput(generator.indexOf(3, -1, Orientation.FLAT_DOWN)));
+        Assert.assertEquals(Input.LEFT, generator.getFirstInput(generator.indexOf(-1, -1, Orientation.FLAT_DOWN)));
+        Assert.assertEquals(Input.RIGHT, generator.getFirstInput(generator.indexOf(7, -1, Orientation.FLAT_DOWN)));
+        Assert.assertEquals(Input.TURN_RIGHT,
+                generator.getFirstInput(generator.indexOf(3, -1, Orientation.FLAT_LEFT)));
+        Assert.assertEquals(Input.TURN_LEFT,
+                generator.getFirstInput(generator.indexOf(3, -1, Orientation.FLAT_RIGHT)));
+        Assert.assertEquals(-1, generator.indexOf(3, 0, Orientation.FLAT_DOWN));
+    }
+
+    /** Checks that the search finds placements which can only be reached by moving sideways under an overhang. */
+    @Test
+    public void testSearchTuck() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        // roof over columns 0 through 7, two rows above the floor
+        List<Point> roof = new ArrayList<>();
+        for (int x = 0; x != 8; x++) {
+            roof.add(new Point(x, 2));
+        }
+        Grid grid = Grid.empty(10, 22).withBlocks(roof, Block.GARBAGE);
+
+        generator.search(grid, Tetromino.O, 3, 16, Orientation.FLAT_DOWN);
+
+        // on top of the roof
+        Assert.assertEquals(Input.HARD_DROP, generator.getFirstInput(generator.indexOf(3, 2, Orientation.FLAT_DOWN)));
+        Assert.assertEquals(Input.LEFT, generator.getFirstInput(generator.indexOf(-1, 2, Orientation.FLAT_DOWN)));
+        // under the roof: move right past it, drop down and then move back left
+        int index = generator.indexOf(-1, -1, Orientation.FLAT_DOWN);
+        Assert.assertNotEquals(-1, index);
+        Assert.assertEquals(Input.RIGHT, generator.getFirstInput(index));
+    }
+
+    /** Checks that a turn which does not fit is shifted sideways, like the game engine does. */
+    @Test
+    public void testSearchTurnShifted() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        Grid grid = Grid.empty(10, 22);
+        // vertical I against the left wall; turning it to horizontal only fits after shifting it right
+        Assert.assertTrue(Tetromino.I.getCollisionMask(Orientation.FLAT_RIGHT).fits(grid, -1, 16));
+        Assert.assertFalse(Tetromino.I.getCollisionMask(Orientation.FLAT_UP).fits(grid, -1, 16));
+
+        int placements = generator.search(grid, Tetromino.I, -1, 16, Orientation.FLAT_RIGHT);
+
+        Assert.assertNotEquals(0, placements);
+        int index = generator.indexOf(0, -1, Orientation.FLAT_UP);
+        Assert.assertNotEquals(-1, index);
+        Assert.assertEquals(Input.TURN_LEFT, generator.getFirstInput(index));
+    }
+
+    /**
+     * Test case for {@link MoveGenerator#search(BitGrid, Tetromino, int, int, Orientation)} where the tetromino does
+     * not fit.
+     */
+    @Test
+    public void testSearchStartDoesNotFit() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+
+        int placements = generator.search(Grid.empty(10, 22), Tetromino.O, -2, 16, Orientation.FLAT_DOWN);
+
+        Assert.assertEquals(0, placements);
+    }
+
+    /** Checks that a generator can be reused for subsequent searches. */
+    @Test
+    public void testSearchReused() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        Grid grid = Grid.empty(10, 22);
+        generator.search(grid, Tetromino.O, 3, 16, Orientation.FLAT_DOWN);
+
+        int placements = generator.search(grid.withBlocks(Tetromino.O.getCollisionMask(Orientation.FLAT_DOWN), 3, -1,
+                Block.O), Tetromino.O, 3, 16, Orientation.FLAT_DOWN);
+
+        Assert.assertEquals(36, placements);
+        Assert.assertEquals(Input.HARD_DROP, generator.getFirstInput(generator.indexOf(3, 1, Orientation.FLAT_DOWN)));
+        Assert.assertEquals(-1, generator.indexOf(3, -1, Orientation.FLAT_DOWN));
+    }
+
+    /**
+     * Test case for {@link MoveGenerator#search(BitGrid, Tetromino, int, int, Orientation)} with a grid of different
+     * dimensions.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSearchIncorrectSize() {
+        new MoveGenerator(10, 22).search(Grid.empty(10, 20), Tetromino.O, 3, 14, Orientation.FLAT_DOWN);
+    }
+
+    /** Test case for {@link MoveGenerator#getFirstInput(int)} with an index out of bounds. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetFirstInputOutOfBounds() {
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        generator.search(Grid.empty(10, 22), Tetromino.O, 3, 16, Orientation.FLAT_DOWN);
+
+        generator.getFirstInput(generator.getNumberOfPlacements());
+    }
+}
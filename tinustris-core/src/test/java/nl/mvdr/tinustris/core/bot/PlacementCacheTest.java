@@ -0,0 +1,206 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link PlacementCache}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class PlacementCacheTest {
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        Assert.assertEquals(1, new PlacementCache(1).getCapacity());
+        Assert.assertEquals(64, new PlacementCache(64).getCapacity());
+        Assert.assertEquals(128, new PlacementCache(65).getCapacity());
+        Assert.assertNotNull(new PlacementCache(65).toString());
+    }
+
+    /** Tests the constructor with an invalid capacity. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorInvalidCapacity() {
+        new PlacementCache(0);
+    }
+
+    /** Tests the constructor with a capacity which would take too much memory. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorCapacityTooLarge() {
+        new PlacementCache(PlacementCache.MAX_CAPACITY + 1);
+    }
+
+    /** Tests packing and unpacking placements. */
+    @Test
+    public void testPack() {
+        int packed = PlacementCache.pack(-2, 17, Orientation.FLAT_RIGHT);
+
+        Assert.assertEquals(-2, PlacementCache.unpackX(packed));
+        Assert.assertEquals(17, PlacementCache.unpackY(packed));
+        Assert.assertEquals(Orientation.FLAT_RIGHT, PlacementCache.unpackOrientation(packed));
+        Assert.assertEquals(-1, PlacementCache.pack(200, 0, Orientation.FLAT_DOWN));
+    }
+
+    /** Tests {@link PlacementCache#key(Grid, Tetromino, int, int, Orientation)}. */
+    @Test
+    public void testKey() {
+        Grid grid = Grid.empty(10, 22);
+        Grid other = grid.withBlocks(Collections.singletonList(new Point(0, 0)), Block.GARBAGE);
+        long key = PlacementCache.key(grid, Tetromino.T, 3, 16, Orientation.FLAT_DOWN);
+
+        Assert.assertEquals(key, PlacementCache.key(Grid.empty(10, 22), Tetromino.T, 3, 16, Orientation.FLAT_DOWN));
+        Assert.assertNotEquals(key, PlacementCache.key(other, Tetromino.T, 3, 16, Orientation.FLAT_DOWN));
+        Assert.assertNotEquals(key, PlacementCache.key(grid, Tetromino.S, 3, 16, Orientation.FLAT_DOWN));
+        Assert.assertNotEquals(key, PlacementCache.key(grid, Tetromino.T, 4, 16, Orientation.FLAT_DOWN));
+        Assert.assertNotEquals(key, PlacementCache.key(grid, Tetromino.T, 3, 16, Orientation.FLAT_LEFT));
+        Assert.assertNotEquals(key, PlacementCache.key(Grid.empty(10, 24), Tetromino.T, 3, 16, Orientation.FLAT_DOWN));
+    }
+
+    /** Tests storing and retrieving an entry. */
+    @Test
+    public void testPutGet() {
+        PlacementCache cache = new PlacementCache(16);
+        int[] placements = createPlacements(7);
+        int[] result = new int[PlacementCache.MAX_PLACEMENTS];
+
+        Assert.assertEquals(-1, cache.get(42L, result));
+
+        cache.put(42L, placements, 7);
+
+        Assert.assertEquals(7, cache.get(42L, result));
+        for (int i = 0; i != 7; i++) {
+            Assert.assertEquals(placements[i], result[i]);
+        }
+        Assert.assertEquals(-1, cache.get(43L, result));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+    }
+
+    /** Checks that entries with the same home slot can be stored side by side. */
+    @Test
+    public void testPutCollision() {
+        PlacementCache cache = new PlacementCache(16);
+        int[] result = new int[PlacementCache.MAX_PLACEMENTS];
+
+        cache.put(1L, createPlacements(3), 3);
+        cache.put(17L, createPlacements(5), 5);
+
+        Assert.assertEquals(3, cache.get(1L, result));
+        Assert.assertEquals(5, cache.get(17L, result));
+    }
+
+    /**
+     * Checks that storing a key again updates its entry, rather than taking up another slot and eventually evicting
+     * other entries.
+     */
+    @Test
+    public void testPutSameKey() {
+        PlacementCache cache = new PlacementCache(16);
+        int[] result = new int[PlacementCache.MAX_PLACEMENTS];
+
+        cache.put(1L, createPlacements(3), 3);
+        for (int i = 0; i != 10; i++) {
+            cache.put(17L, createPlacements(5), 5);
+        }
+        cache.put(17L, createPlacements(6), 6);
+        cache.put(33L, createPlacements(7), 7);
+
+        Assert.assertEquals(3, cache.get(1L, result));
+        Assert.assertEquals(6, cache.get(17L, result));
+        Assert.assertEquals(7, cache.get(33L, result));
+    }
+
+    /** Checks that empty and oversized sets of placements are not stored. */
+    @Test
+    public void testPutNotCached() {
+        PlacementCache cache = new PlacementCache(16);
+        int[] result = new int[PlacementCache.MAX_PLACEMENTS];
+
+        cache.put(1L, new int[0], 0);
+        cache.put(2L, createPlacements(PlacementCache.MAX_PLACEMENTS + 1), PlacementCache.MAX_PLACEMENTS + 1);
+
+        Assert.assertEquals(-1, cache.get(1L, result));
+        Assert.assertEquals(-1, cache.get(2L, result));
+    }
+
+    /**
+     * Has several threads store and retrieve entries in a small cache at the same time, and checks that any entry
+     * which is found has the contents stored for its key.
+     * 
+     * @throws Exception
+     *             unexpected exception
+     */
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        PlacementCache cache = new PlacementCache(4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int thread = 0; thread != 4; thread++) {
+                Callable<Integer> task = () -> {
+                    int[] result = new int[PlacementCache.MAX_PLACEMENTS];
+                    int errors = 0;
+                    for (int i = 0; i != 20_000; i++) {
+                        int count = 1 + i % 32;
+                        long key = count;
+                        cache.put(key, createPlacements(count), count);
+                        int found = cache.get(key, result);
+                        if (0 <= found && !Arrays.equals(createPlacements(count), Arrays.copyOf(result, found))) {
+                            errors++;
+                        }
+                    }
+                    return Integer.valueOf(errors);
+                };
+                futures.add(executor.submit(task));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertEquals(0, future.get().intValue());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Creates an array of distinct packed placements.
+     * 
+     * @param count
+     *            number of placements
+     * @return packed placements
+     */
+    private static int[] createPlacements(int count) {
+        int[] result = new int[count];
+        for (int i = 0; i != count; i++) {
+            result[i] = PlacementCache.pack(i % 10, i / 10, Orientation.values()[i % 4]);
+        }
+        return result;
+    }
+}
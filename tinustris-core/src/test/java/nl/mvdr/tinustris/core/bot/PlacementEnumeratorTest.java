@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link PlacementEnumerator}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class PlacementEnumeratorTest {
+    /** Checks that the enumerated placements match those found by a {@link MoveGenerator}. */
+    @Test
+    public void testEnumerate() {
+        OnePlayerGameState state = createState(Tetromino.T);
+        MoveGenerator generator = new MoveGenerator(10, 22);
+        int placements = generator.search(state.getGrid(), Tetromino.T, 3, 16, Orientation.getDefault());
+
+        List<Placement> result = new PlacementEnumerator().enumerate(state);
+
+        Assert.assertEquals(placements, result.size());
+        for (int i = 0; i != placements; i++) {
+            Placement placement = result.get(i);
+            Assert.assertEquals(Tetromino.T, placement.getTetromino());
+            Assert.assertEquals(generator.getOrientation(i), placement.getOrientation());
+            Assert.assertEquals(new Point(generator.getX(i), generator.getY(i)), placement.getLocation());
+        }
+    }
+
+    /** Checks that cached results are equal to the results of a fresh search. */
+    @Test
+    public void testEnumerateCached() {
+        PlacementCache cache = new PlacementCache(64);
+        PlacementEnumerator enumerator = new PlacementEnumerator(cache);
+        PlacementEnumerator other = new PlacementEnumerator(cache);
+
+        for (Tetromino tetromino : Tetromino.values()) {
+            OnePlayerGameState state = createState(tetromino);
+            List<Placement> expected = new PlacementEnumerator().enumerate(state);
+
+            Assert.assertEquals(expected, enumerator.enumerate(state));
+            Assert.assertEquals(expected, enumerator.enumerate(state));
+            Assert.assertEquals(expected, other.enumerate(state));
+        }
+        Assert.assertEquals(2 * Tetromino.values().length, cache.getHits());
+        Assert.assertEquals(Tetromino.values().length, cache.getMisses());
+    }
+
+    /** Checks that a different grid does not hit the cache entry of another grid. */
+    @Test
+    public void testEnumerateCachedDifferentGrid() {
+        PlacementCache cache = new PlacementCache(64);
+        PlacementEnumerator enumerator = new PlacementEnumerator(cache);
+        OnePlayerGameState state = createState(Tetromino.O);
+        OnePlayerGameState empty = new OnePlayerGameState(Grid.empty(10, 22), 10, Tetromino.O, new Point(3, 16),
+                Orientation.getDefault(), Tetromino.I);
+
+        List<Placement> placements = enumerator.enumerate(state);
+        List<Placement> emptyPlacements = enumerator.enumerate(empty);
+
+        Assert.assertNotEquals(placements, emptyPlacements);
+        Assert.assertEquals(new PlacementEnumerator().enumerate(empty), emptyPlacements);
+        Assert.assertEquals(0, cache.getHits());
+    }
+
+    /** Checks that no placements are returned when there is no active tetromino. */
+    @Test
+    public void testEnumerateNoActiveTetromino() {
+        Assert.assertTrue(new PlacementEnumerator(new PlacementCache(1)).enumerate(new OnePlayerGameState())
+                .isEmpty());
+    }
+
+    /** Tests the constructor with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNull() {
+        new PlacementEnumerator(null);
+    }
+
+    /**
+     * Creates a game state on a 10 * 22 grid with a few blocks in it.
+     * 
+     * @param tetromino
+     *            active tetromino
+     * @return game state
+     */
+    private static OnePlayerGameState createState(Tetromino tetromino) {
+        List<Point> points = new ArrayList<>();
+        for (int x = 0; x != 8; x++) {
+            points.add(new Point(x, 0));
+        }
+        points.add(new Point(2, 1));
+        points.add(new Point(3, 1));
+        points.add(new Point(2, 2));
+        Grid grid = Grid.empty(10, 22).withBlocks(points, Block.GARBAGE);
+        return new OnePlayerGameState(grid, 10, tetromino, new Point(3, 16), Orientation.getDefault(), Tetromino.I);
+    }
+}
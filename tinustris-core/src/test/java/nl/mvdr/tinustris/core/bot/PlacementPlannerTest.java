@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link PlacementPlanner}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class PlacementPlannerTest {
+    /** Checks that the planner drops an I into a well, completing four lines. */
+    @Test
+    public void testPlan() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+        Grid grid = createWellGrid();
+        OnePlayerGameState state = createState(grid, Tetromino.I, Tetromino.O);
+
+        Optional<Placement> placement = planner.plan(state, false);
+
+        Assert.assertTrue(placement.isPresent());
+        Assert.assertEquals(Tetromino.I, placement.get().getTetromino());
+        Grid result = grid.withBlocks(Tetromino.I.getCollisionMask(placement.get().getOrientation()),
+                placement.get().getLocation().getX(), placement.get().getLocation().getY(), Block.I);
+        for (int line = 0; line != 4; line++) {
+            Assert.assertTrue(result.isFullLine(line));
+        }
+    }
+
+    /** Checks that the planner can be reused for subsequent plans, including for grids of different sizes. */
+    @Test
+    public void testPlanReused() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+        planner.plan(createState(Grid.empty(10, 22), Tetromino.T, Tetromino.O), true);
+        planner.plan(createState(Grid.empty(6, 12), Tetromino.T, Tetromino.O), true);
+
+        Optional<Placement> placement = planner.plan(createState(createWellGrid(), Tetromino.I, Tetromino.O), false);
+
+        Assert.assertTrue(placement.isPresent());
+        Assert.assertEquals(Orientation.FLAT_LEFT.ordinal() % 2, placement.get().getOrientation().ordinal() % 2);
+    }
+
+    /**
+     * Checks that ties are resolved in favour of not pressing hold. Whichever of the two tetrominoes is placed first,
+     * the best outcome is the same.
+     */
+    @Test
+    public void testPlanHoldTie() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+        OnePlayerGameState state = createState(createWellGrid(), Tetromino.O, Tetromino.I);
+
+        Optional<Placement> placement = planner.plan(state, true);
+
+        Assert.assertTrue(placement.isPresent());
+        Assert.assertEquals(Tetromino.O, placement.get().getTetromino());
+    }
+
+    /**
+     * Checks that the planner only considers the next tetromino when hold is allowed.
+     * 
+     * The grid is four cells wide, with the bottom line filled except for the rightmost cell. Wherever the O is placed,
+     * it blocks the spawn location, so the only way to survive is to hold and place the I first.
+     */
+    @Test
+    public void testPlanHold() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+        Grid grid = Grid.empty(4, 6).withBlocks(Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(2, 0)),
+                Block.GARBAGE);
+        OnePlayerGameState state = createState(grid, Tetromino.O, Tetromino.I);
+
+        Optional<Placement> withoutHold = planner.plan(state, false);
+        Optional<Placement> withHold = planner.plan(state, true);
+
+        Assert.assertEquals(Tetromino.O, withoutHold.get().getTetromino());
+        Assert.assertEquals(Tetromino.I, withHold.get().getTetromino());
+    }
+
+    /**
+     * Test case where holding would be cancelled by the engine, since the I does not fit in place of the O, nor one
+     * column to either side of it. The planner must not plan for the I.
+     */
+    @Test
+    public void testPlanHoldDoesNotFit() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+        // a single block in the row where the I would appear, beside the O
+        int y = 10 - 4 - OnePlayerGameState.VANISH_ZONE_HEIGHT + 2;
+        Grid grid = Grid.empty(4, 10).withBlocks(Arrays.asList(new Point(3, y)), Block.GARBAGE);
+        OnePlayerGameState state = createState(grid, Tetromino.O, Tetromino.I);
+
+        Optional<Placement> placement = planner.plan(state, true);
+
+        Assert.assertEquals(Tetromino.O, placement.get().getTetromino());
+    }
+
+    /** Test case for {@link PlacementPlanner#plan(OnePlayerGameState, boolean)} without an active tetromino. */
+    @Test
+    public void testPlanNoActiveTetromino() {
+        PlacementPlanner planner = new PlacementPlanner(WeightedHeuristic.DEFAULT);
+
+        Assert.assertFalse(planner.plan(new OnePlayerGameState(), true).isPresent());
+    }
+
+    /**
+     * Creates a 10 * 22 grid, where the bottom four lines are filled, except for the rightmost column.
+     * 
+     * @return grid
+     */
+    private static Grid createWellGrid() {
+        List<Point> points = new ArrayList<>();
+        for (int y = 0; y != 4; y++) {
+            for (int x = 0; x != 9; x++) {
+                points.add(new Point(x, y));
+            }
+        }
+        return Grid.empty(10, 22).withBlocks(points, Block.GARBAGE);
+    }
+
+    /**
+     * Creates a game state, with the active tetromino at the spawn location.
+     * 
+     * @param grid
+     *            grid
+     * @param active
+     *            active tetromino
+     * @param next
+     *            next tetromino
+     * @return game state
+     */
+    private static OnePlayerGameState createState(Grid grid, Tetromino active, Tetromino next) {
+        OnePlayerGameState result = new OnePlayerGameState(grid, grid.getWidth(), active,
+                new Point(grid.getWidth() / 2 - 2, grid.getHeight() - 4 - OnePlayerGameState.VANISH_ZONE_HEIGHT),
+                Orientation.getDefault(), next);
+        Assert.assertEquals(result.getBlockSpawnLocation(), result.getCurrentBlockLocation().get());
+        return result;
+    }
+}
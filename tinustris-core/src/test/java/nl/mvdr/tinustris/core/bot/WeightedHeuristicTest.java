@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.bot;
+
+import java.util.Arrays;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.Point;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link WeightedHeuristic}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class WeightedHeuristicTest {
+    /**
+     * Test case for {@link WeightedHeuristic#evaluate(nl.mvdr.tinustris.core.model.BitGrid, int)}.
+     * 
+     * The grid has an aggregate height of 7, 2 holes and a bumpiness of 3:
+     * 
+     * <pre>
+     * |    |
+     * |    |
+     * |    |
+     * | T  |
+     * |T   |
+     * |T TT|
+     * +----+
+     * </pre>
+     */
+    @Test
+    public void testEvaluate() {
+        Grid grid = Grid.empty(4, 6).withBlocks(
+                Arrays.asList(new Point(0, 0), new Point(0, 1), new Point(1, 2), new Point(2, 0), new Point(3, 0)),
+                Block.T);
+        WeightedHeuristic heuristic = new WeightedHeuristic(1, 10, 100, 1000);
+
+        int score = heuristic.evaluate(grid, 2);
+
+        Assert.assertEquals(2 + 7 * 10 + 2 * 100 + 3 * 1000, score);
+    }
+
+    /** Test case for {@link WeightedHeuristic#evaluate(nl.mvdr.tinustris.core.model.BitGrid, int)} on an empty grid. */
+    @Test
+    public void testEvaluateEmptyGrid() {
+        Grid grid = Grid.empty(10, 22);
+
+        Assert.assertEquals(0, WeightedHeuristic.DEFAULT.evaluate(grid, 0));
+        Assert.assertEquals(WeightedHeuristic.DEFAULT.getLinesWeight(), WeightedHeuristic.DEFAULT.evaluate(grid, 1));
+    }
+
+    /** Checks that the default weights prefer a flat grid over one with a hole. */
+    @Test
+    public void testEvaluateDefault() {
+        Grid flat = Grid.empty(4, 6).withBlocks(
+                Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(2, 0), new Point(3, 0)), Block.T);
+        Grid hole = Grid.empty(4, 6).withBlocks(
+                Arrays.asList(new Point(0, 0), new Point(1, 1), new Point(2, 0), new Point(3, 0)), Block.T);
+
+        Assert.assertTrue(WeightedHeuristic.DEFAULT.evaluate(hole, 0) < WeightedHeuristic.DEFAULT.evaluate(flat, 0));
+    }
+}
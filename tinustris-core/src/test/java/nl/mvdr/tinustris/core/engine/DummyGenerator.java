@@ -18,6 +18,7 @@ import java.util.List;
 
 import nl.mvdr.tinustris.core.engine.Generator;
 import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -31,6 +32,9 @@ import lombok.RequiredArgsConstructor;
 class DummyGenerator<S> implements Generator<S> {
     /** Tetrominoes to be returned by the get method. */
     private final List<S> values;
+    /** Index passed into the most recent invocation of the release method, or -1 if it has not been invoked. */
+    @Getter
+    private int released = -1;
 
     /** Constructor. */
     DummyGenerator() {
@@ -47,4 +51,14 @@ class DummyGenerator<S> implements Generator<S> {
     public S get(int i) {
         return values.get(i);
     }
+    
+    /**
+     * {@inheritDoc}
+     * 
+     * Dummy implementation which just keeps track of the given index.
+     */
+    @Override
+    public void release(int i) {
+        released = i;
+    }
 }
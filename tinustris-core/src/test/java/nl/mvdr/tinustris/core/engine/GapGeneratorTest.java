@@ -34,4 +34,29 @@ public class GapGeneratorTest {
         Assert.assertTrue(0 <= value.intValue());
         Assert.assertTrue(value.intValue() < 10);
     }
+    
+    /** Test case for {@link GapGenerator#get(int, Object[])}. */
+    @Test
+    public void testGetRange() {
+        GapGenerator generator = new GapGenerator(0L, 10);
+        GapGenerator expected = new GapGenerator(0L, 10);
+        Integer[] values = new Integer[5];
+        
+        generator.get(2, values);
+        
+        for (int j = 0; j != values.length; j++) {
+            Assert.assertEquals(expected.get(2 + j), values[j]);
+        }
+        // values before the range must still be available
+        Assert.assertEquals(expected.get(0), generator.get(0));
+    }
+    
+    /** Test case for {@link GapGenerator#get(int, Object[])} with a range which includes a released value. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetRangeReleased() {
+        GapGenerator generator = new GapGenerator(0L, 10);
+        generator.release(5);
+        
+        generator.get(1, new Integer[3]);
+    }
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.level.DummyLevelSystem;
+import nl.mvdr.tinustris.core.engine.speedcurve.ConstantSpeedCurve;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.CollisionMask;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameStateBuffer;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link InPlaceOnePlayerEngine}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class InPlaceOnePlayerEngineTest {
+    /** Maximum number of frames to simulate per game. */
+    private static final int MAX_FRAMES = 3000;
+    
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        new InPlaceOnePlayerEngine(new DummyGenerator<>(), new ConstantSpeedCurve(), new DummyLevelSystem(),
+                new DummyGenerator<>());
+    }
+    
+    /** Tests the constructor. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullGenerator() {
+        new InPlaceOnePlayerEngine(null, new ConstantSpeedCurve(), new DummyLevelSystem(), new DummyGenerator<>());
+    }
+    
+    /** Tests the constructor. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullCurve() {
+        new InPlaceOnePlayerEngine(new DummyGenerator<>(), null, new DummyLevelSystem(), new DummyGenerator<>());
+    }
+    
+    /** Tests the {@link InPlaceOnePlayerEngine#initGameState()} method. */
+    @Test
+    public void testInitGameState() {
+        Generator<Tetromino> generator = new DummyGenerator<>(Arrays.asList(Tetromino.I, Tetromino.T));
+        InPlaceOnePlayerEngine engine = new InPlaceOnePlayerEngine(generator, new ConstantSpeedCurve(),
+                new DummyLevelSystem(), new DummyGenerator<>());
+        OnePlayerEngine referenceEngine = new OnePlayerEngine(generator, new ConstantSpeedCurve(),
+                new DummyLevelSystem(), new DummyGenerator<>());
+        
+        OnePlayerGameStateBuffer state = engine.initGameState();
+        
+        assertSameState(referenceEngine.initGameState(), state);
+    }
+    
+    /** Tests that {@link InPlaceOnePlayerEngine#computeNextState(OnePlayerGameStateBuffer, List)} updates the buffer. */
+    @Test
+    public void testNextStateInPlace() {
+        InPlaceOnePlayerEngine engine = new InPlaceOnePlayerEngine(new RandomTetrominoGenerator(0L),
+                new ConstantSpeedCurve(), new DummyLevelSystem(), new GapGenerator(0L, 10));
+        OnePlayerGameStateBuffer state = engine.initGameState();
+        InputState<Input> inputState = input -> input == Input.HARD_DROP;
+        
+        OnePlayerGameStateBuffer result = engine.computeNextState(state, Collections.singletonList(inputState));
+        
+        Assert.assertSame(state, result);
+        Assert.assertFalse(result.hasActiveTetromino());
+        Assert.assertEquals(1, result.getNumberOfFrames(Input.HARD_DROP));
+    }
+    
+    /** Tests {@link InPlaceOnePlayerEngine#computeNextState(OnePlayerGameStateBuffer, List)} without an input state. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNextStateNoInputState() {
+        InPlaceOnePlayerEngine engine = new InPlaceOnePlayerEngine(new DummyGenerator<>(), new ConstantSpeedCurve(),
+                new DummyLevelSystem(), new DummyGenerator<>());
+        OnePlayerGameStateBuffer state = new OnePlayerGameStateBuffer(new OnePlayerGameState());
+        
+        engine.computeNextState(state, Collections.emptyList());
+    }
+    
+    /**
+     * Plays a number of games with random input for every behavior, and checks that each frame is identical to the
+     * result of {@link OnePlayerEngine}.
+     */
+    @Test
+    public void testSameResultAsOnePlayerEngine() {
+        for (Behavior behavior : Behavior.values()) {
+            for (long seed = 0L; seed != 5L; seed++) {
+                checkSameResultAsOnePlayerEngine(behavior, seed);
+            }
+        }
+    }
+    
+    /**
+     * Plays a game using both {@link InPlaceOnePlayerEngine} and {@link OnePlayerEngine}, and checks that the results
+     * are identical. Garbage lines are added periodically.
+     * 
+     * Most blocks are placed by a simple greedy strategy, so that lines are actually scored; the others are subject to
+     * random input.
+     * 
+     * @param behavior behavior
+     * @param seed random seed, for the generators as well as the input
+     */
+    private void checkSameResultAsOnePlayerEngine(Behavior behavior, long seed) {
+        Generator<Tetromino> generator = new RandomTetrominoGenerator(seed);
+        Generator<Integer> gapGenerator = new GapGenerator(seed, OnePlayerGameState.DEFAULT_WIDTH);
+        OnePlayerEngine referenceEngine = new OnePlayerEngine(generator, behavior, 0, gapGenerator);
+        InPlaceOnePlayerEngine engine = new InPlaceOnePlayerEngine(generator, behavior, 0, gapGenerator);
+        Random random = new Random(seed);
+        
+        OnePlayerGameState expected = referenceEngine.initGameState();
+        OnePlayerGameStateBuffer actual = engine.initGameState();
+        assertSameState(expected, actual);
+        
+        int pressed = 0;
+        for (int frame = 0; frame != MAX_FRAMES && !expected.isGameOver(); frame++) {
+            if (expected.getBlockCounter() % 8 != 0) {
+                pressed = determineGreedyInput(expected, pressed);
+            } else if (random.nextInt(5) == 0) {
+                // change the inputs, but mostly hold them for a while
+                pressed = random.nextInt(1 << Input.values().length) & random.nextInt(1 << Input.values().length);
+            }
+            if (frame % 300 == 299) {
+                expected = expected.withGarbageLines(expected.getGarbageLines() + 2);
+                actual.setGarbageLines(actual.getGarbageLines() + 2);
+            }
+            int mask = pressed;
+            List<InputState<Input>> inputStates = Collections.singletonList(
+                    input -> (mask & 1 << input.ordinal()) != 0);
+            
+            expected = referenceEngine.computeNextState(expected, inputStates);
+            actual = engine.computeNextState(actual, inputStates);
+            
+            assertSameState(expected, actual);
+        }
+    }
+    
+    /**
+     * Determines the input for a simple greedy strategy: the active block is turned and moved towards the placement
+     * which scores the most lines while keeping the stack low, and then dropped. Buttons are tapped, that is, released
+     * every other frame.
+     * 
+     * @param state game state
+     * @param previouslyPressed bit mask of the inputs pressed in the previous frame
+     * @return bit mask of the inputs to be pressed
+     */
+    private int determineGreedyInput(OnePlayerGameState state, int previouslyPressed) {
+        int result;
+        if (previouslyPressed != 0 || !state.getActiveTetromino().isPresent()) {
+            result = 0;
+        } else {
+            Tetromino tetromino = state.getActiveTetromino().get();
+            Point location = state.getCurrentBlockLocation().get();
+            Grid grid = state.getGrid();
+            
+            Orientation bestOrientation = state.getCurrentBlockOrientation().get();
+            int bestX = location.getX();
+            int bestScore = Integer.MIN_VALUE;
+            for (Orientation orientation : Orientation.values()) {
+                CollisionMask mask = tetromino.getCollisionMask(orientation);
+                for (int x = -CollisionMask.SIZE; x != grid.getWidth(); x++) {
+                    if (mask.fits(grid, x, location.getY())) {
+                        int y = location.getY() - mask.getDropDistance(grid, x, location.getY());
+                        Grid landed = grid.withBlocks(mask, x, y, tetromino.getBlock());
+                        // weights of a well-known heuristic: lines, aggregate height, holes and bumpiness
+                        int score = 0;
+                        for (int line = 0; line != grid.getHeight(); line++) {
+                            if (landed.isFullLine(line)) {
+                                score = score + 76;
+                            }
+                        }
+                        for (int column = 0; column != grid.getWidth(); column++) {
+                            int height = landed.getColumnHeight(column);
+                            score = score - 51 * height;
+                            for (int row = 0; row != height; row++) {
+                                if (!landed.isOccupied(column, row)) {
+                                    score = score - 36;
+                                }
+                            }
+                            if (column != 0) {
+                                score = score - 18 * Math.abs(height - landed.getColumnHeight(column - 1));
+                            }
+                        }
+                        if (bestScore < score) {
+                            bestScore = score;
+                            bestOrientation = orientation;
+                            bestX = x;
+                        }
+                    }
+                }
+            }
+            
+            Input input;
+            if (state.getCurrentBlockOrientation().get() != bestOrientation) {
+                input = Input.TURN_RIGHT;
+            } else if (location.getX() < bestX) {
+                input = Input.RIGHT;
+            } else if (bestX < location.getX()) {
+                input = Input.LEFT;
+            } else {
+                input = Input.HARD_DROP;
+            }
+            result = 1 << input.ordinal();
+        }
+        return result;
+    }
+    
+    /**
+     * Checks that the given state buffer contains the expected game state.
+     * 
+     * @param expected expected game state
+     * @param actual state buffer
+     */
+    private void assertSameState(OnePlayerGameState expected, OnePlayerGameStateBuffer actual) {
+        OnePlayerGameState snapshot = actual.toGameState();
+        for (Input input : Input.values()) {
+            Assert.assertEquals(expected.getInputStateHistory().getNumberOfFrames(input),
+                    snapshot.getInputStateHistory().getNumberOfFrames(input));
+        }
+        // input state histories cannot be compared using equals; they have been checked above
+        Assert.assertEquals(expected.withInputStateHistory(InputStateHistory.NEW),
+                snapshot.withInputStateHistory(InputStateHistory.NEW));
+        Assert.assertEquals(expected.isGameOver(), actual.isGameOver());
+    }
+}
@@ -13,14 +13,19 @@
  */
 package nl.mvdr.tinustris.core.engine;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
 import nl.mvdr.tinustris.core.engine.MultiplayerEngine;
 import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
 import nl.mvdr.tinustris.core.model.MultiplayerGameState;
 import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 
@@ -70,6 +75,24 @@ public class MultiplayerEngineTest {
         new MultiplayerEngine(1, new DummyOnePlayerGameEngine());
     }
     
+    /** Tests the constructor. */
+    @Test
+    public void testConstructorParallel() {
+        new MultiplayerEngine(4, new DummyOnePlayerGameEngine(), ForkJoinPool.commonPool());
+    }
+    
+    /** Tests the constructor. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullPool() {
+        new MultiplayerEngine(4, new DummyOnePlayerGameEngine(), null);
+    }
+    
+    /** Tests the constructor. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorParallelOnePlayer() {
+        new MultiplayerEngine(1, new DummyOnePlayerGameEngine(), ForkJoinPool.commonPool());
+    }
+    
     /** Test the {@link MultiplayerEngine#toString()} method. */
     @Test
     public void testToString() {
@@ -388,4 +411,137 @@ public class MultiplayerEngineTest {
         Assert.assertEquals(2, newState.getStateForPlayer(1).getGarbageLines());
         Assert.assertEquals(2, newState.getStateForPlayer(2).getGarbageLines());
     }
+    
+    /**
+     * Test case for {@link MultiplayerEngine#computeNextState(MultiplayerGameState, List)} in parallel mode, with three
+     * players, where all players score a Tetris in the same frame. Garbage lines should be routed in player order.
+     */
+    @Test
+    public void testAddGarbageLineThreePlayersTetrisParallel() {
+        MultiplayerGameState previousState = new MultiplayerGameState(Collections.nCopies(3, new OnePlayerGameState()),
+                Arrays.asList(1, 2, 0));
+        DummyOnePlayerGameEngine onePlayerEngine = new DummyOnePlayerGameEngine() {
+            /** {@inheritDoc} */
+            @Override
+            public OnePlayerGameState computeNextState(OnePlayerGameState prevState, List<InputState<Input>> inputStates) {
+                return prevState.withLines(4);
+            }
+        };
+        MultiplayerEngine engine = new MultiplayerEngine(3, onePlayerEngine, new ForkJoinPool(3));
+        
+        MultiplayerGameState newState = engine.computeNextState(previousState, Collections.nCopies(3, input -> false));
+        
+        Assert.assertEquals(Arrays.asList(1, 2, 0), newState.getNextGarbageTargets());
+        Assert.assertEquals(4, newState.getStateForPlayer(0).getGarbageLines());
+        Assert.assertEquals(4, newState.getStateForPlayer(1).getGarbageLines());
+        Assert.assertEquals(4, newState.getStateForPlayer(2).getGarbageLines());
+    }
+    
+    /**
+     * Plays a game with 16 players and random input, both sequentially and in parallel, and checks that each frame is
+     * identical.
+     */
+    @Test
+    public void testComputeNextStateParallelSameResult() {
+        int numberOfPlayers = 16;
+        OnePlayerEngine onePlayerEngine = new OnePlayerEngine(new RandomTetrominoGenerator(0L),
+                Behavior.defaultBehavior(), 0, new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        MultiplayerEngine sequentialEngine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine);
+        MultiplayerEngine parallelEngine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine, new ForkJoinPool(4));
+        Random random = new Random(0L);
+        
+        MultiplayerGameState expected = sequentialEngine.initGameState();
+        MultiplayerGameState actual = parallelEngine.initGameState();
+        
+        for (int frame = 0; frame != 1000 && !expected.isGameOver(); frame++) {
+            List<InputState<Input>> inputStates = new ArrayList<>();
+            for (int player = 0; player != numberOfPlayers; player++) {
+                int mask = random.nextInt(1 << Input.values().length) & random.nextInt(1 << Input.values().length);
+                inputStates.add(input -> (mask & 1 << input.ordinal()) != 0);
+            }
+            
+            expected = sequentialEngine.computeNextState(expected, inputStates);
+            actual = parallelEngine.computeNextState(actual, inputStates);
+            
+            Assert.assertEquals(expected.getNextGarbageTargets(), actual.getNextGarbageTargets());
+            for (int player = 0; player != numberOfPlayers; player++) {
+                // input state histories cannot be compared using equals
+                Assert.assertEquals(expected.getStateForPlayer(player).withInputStateHistory(InputStateHistory.NEW),
+                        actual.getStateForPlayer(player).withInputStateHistory(InputStateHistory.NEW));
+            }
+        }
+    }
+    
+    /**
+     * Computes a number of frames with 16 players, both sequentially and in parallel, and checks that each frame is
+     * identical. Players score lines every frame, depending on their state, so that plenty of garbage is sent. The
+     * players' states are computed in varying amounts of time, so that they are completed in a different order every
+     * frame.
+     */
+    @Test
+    public void testComputeNextStateParallelGarbageSameResult() {
+        int numberOfPlayers = 16;
+        DummyOnePlayerGameEngine onePlayerEngine = new DummyOnePlayerGameEngine() {
+            /** {@inheritDoc} */
+            @Override
+            public OnePlayerGameState computeNextState(OnePlayerGameState prevState, List<InputState<Input>> inputStates) {
+                int value = prevState.getGarbageLines() * 7 + prevState.getLines();
+                try {
+                    Thread.sleep(value % 3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return prevState.withLines(prevState.getLines() + value % 5);
+            }
+        };
+        MultiplayerEngine sequentialEngine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine);
+        MultiplayerEngine parallelEngine = new MultiplayerEngine(numberOfPlayers, onePlayerEngine, new ForkJoinPool(4));
+        List<OnePlayerGameState> states = new ArrayList<>();
+        for (int player = 0; player != numberOfPlayers; player++) {
+            states.add(new OnePlayerGameState().withLines(player));
+        }
+        MultiplayerGameState expected = new MultiplayerGameState(states,
+                MultiplayerGameState.defaultTargets(numberOfPlayers));
+        MultiplayerGameState actual = expected;
+        List<InputState<Input>> inputStates = Collections.nCopies(numberOfPlayers, input -> false);
+        
+        for (int frame = 0; frame != 20; frame++) {
+            expected = sequentialEngine.computeNextState(expected, inputStates);
+            actual = parallelEngine.computeNextState(actual, inputStates);
+            
+            Assert.assertEquals(expected.getNextGarbageTargets(), actual.getNextGarbageTargets());
+            for (int player = 0; player != numberOfPlayers; player++) {
+                Assert.assertEquals(expected.getStateForPlayer(player), actual.getStateForPlayer(player));
+            }
+        }
+        Assert.assertNotEquals(0, actual.getStateForPlayer(0).getGarbageLines());
+    }
+    
+    /**
+     * Test case for {@link MultiplayerEngine#computeNextState(MultiplayerGameState, List)}, checking that generated
+     * values are not released, so that the game can be replayed from an earlier state.
+     */
+    @Test
+    public void testComputeNextStateFromEarlierState() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(0L);
+        OnePlayerEngine onePlayerEngine = new OnePlayerEngine(generator, Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        MultiplayerEngine engine = new MultiplayerEngine(2, onePlayerEngine);
+        MultiplayerGameState initialState = engine.initGameState();
+        List<InputState<Input>> inputStates = Collections.nCopies(2, input -> input == Input.HARD_DROP);
+        
+        MultiplayerGameState state = initialState;
+        for (int frame = 0; frame != 200; frame++) {
+            state = engine.computeNextState(state, inputStates);
+        }
+        MultiplayerGameState replayedState = initialState;
+        for (int frame = 0; frame != 200; frame++) {
+            replayedState = engine.computeNextState(replayedState, inputStates);
+        }
+        
+        Assert.assertNotEquals(0, state.getStateForPlayer(0).getBlockCounter());
+        Assert.assertEquals(state.getStateForPlayer(0).withInputStateHistory(InputStateHistory.NEW),
+                replayedState.getStateForPlayer(0).withInputStateHistory(InputStateHistory.NEW));
+        Assert.assertEquals(new RandomTetrominoGenerator(0L).get(0), generator.get(0));
+    }
 }
@@ -21,6 +21,7 @@ import java.util.Optional;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
 import nl.mvdr.tinustris.core.engine.Generator;
 import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
 import nl.mvdr.tinustris.core.engine.level.DummyLevelSystem;
@@ -28,11 +29,14 @@ import nl.mvdr.tinustris.core.engine.speedcurve.ConstantSpeedCurve;
 import nl.mvdr.tinustris.core.engine.speedcurve.GameBoySpeedCurve;
 import nl.mvdr.tinustris.core.input.Input;
 import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.Action;
 import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
 import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 import nl.mvdr.tinustris.core.model.Orientation;
 import nl.mvdr.tinustris.core.model.Point;
 import nl.mvdr.tinustris.core.model.Tetromino;
+import nl.mvdr.tinustris.core.simulation.GreedyInputPolicy;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -188,6 +192,30 @@ public class OnePlayerEngineTest {
         Assert.assertNotNull(state);
     }
     
+    /**
+     * Tests the {@link OnePlayerEngine#computeNextState(OnePlayerGameState, InputState)} method where the player inputs
+     * both a move left and a hard drop. Actions are executed in the order of {@link Action}, so the tetromino is moved
+     * before it is dropped.
+     */
+    @Test
+    public void testNextStateMoveLeftAndHardDrop() {
+        OnePlayerEngine engine = new OnePlayerEngine(new DummyGenerator<>(), new ConstantSpeedCurve(),
+                new DummyLevelSystem(), new DummyGenerator<>());
+        OnePlayerGameState state = createGameStateForHardDropTest();
+        Point location = state.getCurrentBlockLocation().get();
+        OnePlayerGameState movedState = state.withCurrentBlockLocation(Optional.of(new Point(location.getX() - 1,
+                location.getY())));
+        InputState<Input> inputState = input -> input == Input.HARD_DROP || input == Input.LEFT;
+        
+        OnePlayerGameState result = engine.computeNextState(state, Collections.singletonList(inputState));
+        
+        OnePlayerGameState expected = engine.computeNextState(movedState,
+                Collections.singletonList(input -> input == Input.HARD_DROP));
+        Assert.assertEquals(expected.getGrid(), result.getGrid());
+        Assert.assertNotEquals(engine.computeNextState(state,
+                Collections.singletonList(input -> input == Input.HARD_DROP)).getGrid(), result.getGrid());
+    }
+    
     /**
      * Tests the {@link OnePlayerEngine#computeNextState(OnePlayerGameState, InputState)} method with a hard drop input
      * and a Game Boy speed curve.
@@ -345,4 +373,58 @@ public class OnePlayerEngineTest {
         state.getGrid().subList(101, 220).forEach(block -> Assert.assertFalse(block.isPresent()));
     }
     
+    /** Test case for {@link OnePlayerEngine#releaseUnreachableValues(java.util.Collection)}. */
+    @Test
+    public void testReleaseUnreachableValues() {
+        DummyGenerator<Tetromino> generator = new DummyGenerator<>();
+        DummyGenerator<Integer> gapGenerator = new DummyGenerator<>();
+        OnePlayerEngine engine = new OnePlayerEngine(generator, new ConstantSpeedCurve(), new DummyLevelSystem(),
+                gapGenerator);
+        List<Optional<Block>> grid = Collections.nCopies(220, Optional.empty());
+        OnePlayerGameState state0 = new OnePlayerGameState(grid, 10, Optional.empty(), Optional.empty(),
+                Optional.empty(), Tetromino.T, 0, 0, 0, InputStateHistory.NEW, 5, 0, 0, 0, 0, 20);
+        OnePlayerGameState state1 = new OnePlayerGameState(grid, 10, Optional.empty(), Optional.empty(),
+                Optional.empty(), Tetromino.T, 0, 0, 0, InputStateHistory.NEW, 3, 0, 0, 0, 0, 40);
+        
+        engine.releaseUnreachableValues(Arrays.asList(state0, state1));
+        
+        Assert.assertEquals(5, generator.getReleased());
+        Assert.assertEquals(20 / OnePlayerEngine.NUM_ALIGNED_GARBAGE_LINES, gapGenerator.getReleased());
+    }
+    
+    /** Test case for {@link OnePlayerEngine#releaseUnreachableValues(java.util.Collection)} without any states. */
+    @Test
+    public void testReleaseUnreachableValuesNoStates() {
+        DummyGenerator<Tetromino> generator = new DummyGenerator<>();
+        DummyGenerator<Integer> gapGenerator = new DummyGenerator<>();
+        OnePlayerEngine engine = new OnePlayerEngine(generator, new ConstantSpeedCurve(), new DummyLevelSystem(),
+                gapGenerator);
+        
+        engine.releaseUnreachableValues(Collections.emptyList());
+        
+        Assert.assertEquals(-1, generator.getReleased());
+        Assert.assertEquals(-1, gapGenerator.getReleased());
+    }
+    
+    /**
+     * Plays a game with garbage lines, and checks that the incrementally maintained hash of the grid
+     * matches the hash computed from scratch in every frame.
+     */
+    @Test
+    public void testStateHash() {
+        OnePlayerEngine engine = new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        OnePlayerGameState state = engine.initGameState().withGarbageLines(6);
+        int lines = 0;
+        
+        for (int frame = 0; frame != 5_000 && !state.isGameOver(); frame++) {
+            state = engine.computeNextState(state, Collections.singletonList(GreedyInputPolicy.INSTANCE
+                    .getInputState(state)));
+            OnePlayerGameState copy = state.withGrid(Grid.of(new ArrayList<>(state.getGrid()), state.getWidth()));
+            
+            Assert.assertEquals(copy.stateHash(), state.stateHash());
+            lines = state.getLines();
+        }
+        Assert.assertNotEquals(0, lines);
+    }
 }
@@ -20,6 +20,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -140,6 +141,122 @@ public class RandomTetrominoGeneratorTest {
         Assert.assertEquals(tetromino0, tetromino1);
     }
 
+    /** Tests that the generator's capacity does not grow when values are released regularly. */
+    @Test
+    public void testReleaseBoundedCapacity() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        int capacity = generator.getCapacity();
+        
+        for (int i = 0; i != 10_000; i++) {
+            generator.get(i);
+            generator.release(i - 2);
+        }
+        
+        Assert.assertEquals(capacity, generator.getCapacity());
+    }
+    
+    /** Tests that the generator's capacity grows when values are not released. */
+    @Test
+    public void testNoReleaseCapacity() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        Tetromino first = generator.get(0);
+        
+        generator.get(1_000);
+        
+        Assert.assertTrue(1_000 < generator.getCapacity());
+        Assert.assertEquals(first, generator.get(0));
+    }
+    
+    /** Tests that releasing values does not influence the values which are generated. */
+    @Test
+    public void testReleaseRepeatable() {
+        RandomTetrominoGenerator generator0 = new RandomTetrominoGenerator(SEED);
+        RandomTetrominoGenerator generator1 = new RandomTetrominoGenerator(SEED);
+        
+        for (int i = 0; i != 1_000; i++) {
+            Assert.assertEquals(generator0.get(i), generator1.get(i));
+            generator1.release(i);
+        }
+    }
+    
+    /** Tests that values which have been released in advance can be skipped. */
+    @Test
+    public void testReleaseInAdvance() {
+        RandomTetrominoGenerator generator0 = new RandomTetrominoGenerator(SEED);
+        RandomTetrominoGenerator generator1 = new RandomTetrominoGenerator(SEED);
+        
+        generator1.release(100);
+        
+        Assert.assertEquals(generator0.get(100), generator1.get(100));
+        Assert.assertEquals(generator0.get(101), generator1.get(101));
+    }
+    
+    /** Tests that a value is still available immediately after releasing it. */
+    @Test
+    public void testGetReleasedValue() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        Tetromino first = generator.get(0);
+        
+        generator.release(1);
+        
+        Assert.assertEquals(first, generator.get(0));
+    }
+    
+    /** Tests that a value which has been released in advance is no longer available. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetReleasedValueInAdvance() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        generator.release(10);
+        
+        generator.get(5);
+    }
+    
+    /** Tests that a value which has been released and subsequently overwritten is no longer available. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOverwrittenValue() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        generator.get(0);
+        generator.release(1);
+        generator.get(generator.getCapacity());
+        
+        generator.get(0);
+    }
+    
+    /**
+     * Test case where values are requested from several different threads, each of which requests the values in order.
+     * Values are released once all threads have passed them. We expect each thread to see the same values as a single
+     * threaded generator.
+     * 
+     * @throws Exception unexpected exception
+     */
+    @Test
+    public void testReleaseMultithreaded() throws Exception {
+        RandomTetrominoGenerator expectedGenerator = new RandomTetrominoGenerator(SEED);
+        List<Tetromino> expected = IntStream.range(0, 10_000)
+            .mapToObj(expectedGenerator::get)
+            .collect(Collectors.toList());
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        AtomicIntegerArray progress = new AtomicIntegerArray(NUM_THREADS);
+        ExecutorService service = Executors.newFixedThreadPool(NUM_THREADS);
+        
+        List<Future<List<Tetromino>>> futures = IntStream.range(0, NUM_THREADS)
+            .mapToObj(thread -> (Callable<List<Tetromino>>) () -> IntStream.range(0, 10_000)
+                .mapToObj(i -> {
+                    Tetromino result = generator.get(i);
+                    progress.set(thread, i);
+                    generator.release(IntStream.range(0, NUM_THREADS).map(progress::get).min().getAsInt());
+                    return result;
+                })
+                .collect(Collectors.toList()))
+            .map(service::submit)
+            .collect(Collectors.toList());
+        
+        for (Future<List<Tetromino>> future : futures) {
+            Assert.assertEquals(expected, future.get());
+        }
+        service.shutdown();
+    }
+    
     /**
      * Test case where {@link RandomTetrominoGenerator#get(int)} is called from several different threads. We expect
      * each call to return the same tetromino.
@@ -202,4 +319,68 @@ public class RandomTetrominoGeneratorTest {
         // return the tetromino
         return results.iterator().next();
     }
+    
+    /** Tests that a generator restored from a snapshot produces the same values as the original generator. */
+    @Test
+    public void testSnapshot() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        generator.get(10);
+        
+        RandomTetrominoGenerator restored = new RandomTetrominoGenerator(generator.snapshot());
+        
+        for (int i = 0; i != 1_000; i++) {
+            Assert.assertEquals(generator.get(i), restored.get(i));
+        }
+    }
+    
+    /** Tests that a snapshot only contains the values which have not been released. */
+    @Test
+    public void testSnapshotAfterRelease() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        for (int i = 0; i != 100; i++) {
+            generator.get(i);
+            generator.release(i - 2);
+        }
+        
+        GeneratorSnapshot snapshot = generator.snapshot();
+        RandomTetrominoGenerator restored = new RandomTetrominoGenerator(snapshot);
+        
+        Assert.assertEquals(97, snapshot.getFirstIndex());
+        Assert.assertEquals(3, snapshot.getNumberOfValues());
+        for (int i = 97; i != 1_000; i++) {
+            Assert.assertEquals(generator.get(i), restored.get(i));
+        }
+    }
+    
+    /** Tests taking a snapshot after values have been released in advance. */
+    @Test
+    public void testSnapshotAfterReleaseInAdvance() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        generator.get(10);
+        generator.release(100);
+        
+        GeneratorSnapshot snapshot = generator.snapshot();
+        RandomTetrominoGenerator restored = new RandomTetrominoGenerator(snapshot);
+        
+        Assert.assertEquals(11, snapshot.getFirstIndex());
+        Assert.assertEquals(0, snapshot.getNumberOfValues());
+        for (int i = 100; i != 1_000; i++) {
+            Assert.assertEquals(generator.get(i), restored.get(i));
+        }
+    }
+    
+    /** Tests that a generator restored from a seeded snapshot continues the sequence for that seed. */
+    @Test
+    public void testSnapshotFromSeed() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(SEED);
+        
+        GeneratorSnapshot snapshot = GeneratorSnapshot.fromSeed(1_000_000, SEED);
+        RandomTetrominoGenerator restored = new RandomTetrominoGenerator(snapshot);
+        
+        Assert.assertEquals(1_000_000, snapshot.getFirstIndex());
+        Assert.assertEquals(0, snapshot.getNumberOfValues());
+        for (int i = 0; i != 1_000; i++) {
+            Assert.assertEquals(generator.get(i), restored.get(1_000_000 + i));
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ReleasingMultiplayerEngine}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class ReleasingMultiplayerEngineTest {
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        ReleasingMultiplayerEngine engine = new ReleasingMultiplayerEngine(2, createOnePlayerEngine());
+
+        Assert.assertNotNull(engine.toString());
+    }
+
+    /** Tests the constructor with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNull() {
+        new ReleasingMultiplayerEngine(2, null);
+    }
+
+    /**
+     * Plays a game where every block is hard dropped and checks that the resulting states match those computed by a
+     * plain {@link MultiplayerEngine}.
+     */
+    @Test
+    public void testComputeNextState() {
+        ReleasingMultiplayerEngine engine = new ReleasingMultiplayerEngine(2, createOnePlayerEngine());
+        MultiplayerEngine expectedEngine = new MultiplayerEngine(2, createOnePlayerEngine());
+        MultiplayerGameState state = engine.initGameState();
+        MultiplayerGameState expectedState = expectedEngine.initGameState();
+        List<InputState<Input>> inputStates = Collections.nCopies(2, input -> input == Input.HARD_DROP);
+
+        for (int frame = 0; frame != 100 && !expectedState.isGameOver(); frame++) {
+            state = engine.computeNextState(state, inputStates);
+            expectedState = expectedEngine.computeNextState(expectedState, inputStates);
+
+            for (int player = 0; player != 2; player++) {
+                OnePlayerGameState expectedPlayerState = expectedState.getStateForPlayer(player);
+                Assert.assertEquals(expectedPlayerState.withInputStateHistory(InputStateHistory.NEW),
+                        state.getStateForPlayer(player).withInputStateHistory(InputStateHistory.NEW));
+            }
+        }
+    }
+
+    /** Checks that generated values are only released once none of the players can request them. */
+    @Test
+    public void testComputeNextStateReleasesValues() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(0L);
+        ReleasingMultiplayerEngine engine = new ReleasingMultiplayerEngine(2, new OnePlayerEngine(generator,
+                Behavior.defaultBehavior(), 0, new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH)));
+        MultiplayerGameState state = engine.initGameState();
+        List<InputState<Input>> inputStates = Arrays.asList(input -> input == Input.HARD_DROP, input -> false);
+
+        // player one drops a block every couple of frames, player two does nothing
+        for (int frame = 0; frame != 200; frame++) {
+            state = engine.computeNextState(state, inputStates);
+        }
+
+        Assert.assertNotEquals(0, state.getStateForPlayer(0).getBlockCounter());
+        Assert.assertEquals(0, state.getStateForPlayer(1).getBlockCounter());
+        // player two's next block can still be requested
+        Assert.assertEquals(new RandomTetrominoGenerator(0L).get(2), generator.get(2));
+    }
+
+    /** Checks that values which none of the players can request anymore are released. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testComputeNextStateReleasesPlayedValues() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(0L);
+        ReleasingMultiplayerEngine engine = new ReleasingMultiplayerEngine(2, new OnePlayerEngine(generator,
+                Behavior.defaultBehavior(), 0, new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH)));
+        MultiplayerGameState state = engine.initGameState();
+        List<InputState<Input>> inputStates = Collections.nCopies(2, input -> input == Input.HARD_DROP);
+
+        for (int frame = 0; frame != 200; frame++) {
+            state = engine.computeNextState(state, inputStates);
+        }
+        // make sure the released values have been overwritten
+        generator.get(state.getStateForPlayer(0).getBlockCounter() + generator.getCapacity());
+
+        generator.get(0);
+    }
+
+    /**
+     * Creates a one-player engine with a fixed seed.
+     * 
+     * @return engine
+     */
+    private OnePlayerEngine createOnePlayerEngine() {
+        return new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link RestorableRandom}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class RestorableRandomTest {
+    /** Checks that the random produces the same values as {@link Random} with the same seed. */
+    @Test
+    public void testSameAsRandom() {
+        Random expected = new Random(693741264L);
+        RestorableRandom random = new RestorableRandom(693741264L);
+
+        for (int i = 0; i != 1_000; i++) {
+            Assert.assertEquals(expected.nextInt(7), random.nextInt(7));
+            Assert.assertEquals(expected.nextLong(), random.nextLong());
+        }
+    }
+
+    /** Checks that the random produces the same values as {@link Random} after setting a new seed. */
+    @Test
+    public void testSetSeed() {
+        Random expected = new Random(0L);
+        RestorableRandom random = new RestorableRandom(1L);
+
+        random.setSeed(0L);
+
+        for (int i = 0; i != 100; i++) {
+            Assert.assertEquals(expected.nextInt(), random.nextInt());
+        }
+    }
+
+    /** Checks that restoring the state continues the sequence from the point where the state was retrieved. */
+    @Test
+    public void testSetState() {
+        RestorableRandom random = new RestorableRandom(0L);
+        for (int i = 0; i != 10; i++) {
+            random.nextInt();
+        }
+        long state = random.getState();
+        int[] expected = new int[100];
+        for (int i = 0; i != expected.length; i++) {
+            expected[i] = random.nextInt(10);
+        }
+        RestorableRandom restored = new RestorableRandom(1L);
+
+        restored.setState(state);
+
+        for (int i = 0; i != expected.length; i++) {
+            Assert.assertEquals(expected[i], restored.nextInt(10));
+        }
+    }
+}
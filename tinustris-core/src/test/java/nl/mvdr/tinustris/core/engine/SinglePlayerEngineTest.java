@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link SinglePlayerEngine}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class SinglePlayerEngineTest {
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        SinglePlayerEngine engine = new SinglePlayerEngine(createOnePlayerEngine());
+
+        Assert.assertNotNull(engine.toString());
+    }
+
+    /** Tests the constructor with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNull() {
+        new SinglePlayerEngine(null);
+    }
+
+    /** Tests {@link SinglePlayerEngine#initGameState()}. */
+    @Test
+    public void testInitGameState() {
+        SinglePlayerEngine engine = new SinglePlayerEngine(createOnePlayerEngine());
+
+        OnePlayerGameState state = engine.initGameState();
+
+        Assert.assertEquals(createOnePlayerEngine().initGameState().withInputStateHistory(InputStateHistory.NEW),
+                state.withInputStateHistory(InputStateHistory.NEW));
+    }
+
+    /**
+     * Plays a game where every block is hard dropped and checks that the resulting states match those computed by a
+     * plain {@link OnePlayerEngine}.
+     */
+    @Test
+    public void testComputeNextState() {
+        SinglePlayerEngine engine = new SinglePlayerEngine(createOnePlayerEngine());
+        OnePlayerEngine expectedEngine = createOnePlayerEngine();
+        OnePlayerGameState state = engine.initGameState();
+        OnePlayerGameState expectedState = expectedEngine.initGameState();
+        List<InputState<Input>> inputStates = Collections.singletonList(input -> input == Input.HARD_DROP);
+
+        for (int frame = 0; frame != 100 && !expectedState.isTopped(); frame++) {
+            state = engine.computeNextState(state, inputStates);
+            expectedState = expectedEngine.computeNextState(expectedState, inputStates);
+
+            Assert.assertEquals(expectedState.withInputStateHistory(InputStateHistory.NEW),
+                    state.withInputStateHistory(InputStateHistory.NEW));
+        }
+    }
+
+    /** Checks that the engine releases the values generated for blocks which have already been played. */
+    @Test
+    public void testComputeNextStateReleasesValues() {
+        RandomTetrominoGenerator generator = new RandomTetrominoGenerator(0L);
+        SinglePlayerEngine engine = new SinglePlayerEngine(new OnePlayerEngine(generator, Behavior.defaultBehavior(),
+                0, new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH)));
+        OnePlayerGameState state = engine.initGameState();
+        List<InputState<Input>> inputStates = Collections.singletonList(input -> input == Input.HARD_DROP);
+
+        for (int frame = 0; frame != 100; frame++) {
+            state = engine.computeNextState(state, inputStates);
+        }
+
+        Assert.assertNotEquals(0, state.getBlockCounter());
+        Assert.assertEquals(generator.get(state.getBlockCounter() + 1), state.getNext());
+    }
+
+    /**
+     * Creates a one-player engine with a fixed seed.
+     * 
+     * @return engine
+     */
+    private OnePlayerEngine createOnePlayerEngine() {
+        return new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+    }
+}
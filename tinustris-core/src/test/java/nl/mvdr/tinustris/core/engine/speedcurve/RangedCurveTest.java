@@ -13,7 +13,10 @@
  */
 package nl.mvdr.tinustris.core.engine.speedcurve;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.tinustris.core.engine.speedcurve.RangedCurve;
@@ -44,4 +47,79 @@ public class RangedCurveTest {
         Assert.assertNotNull(string);
         log.info(string);
     }
+    
+    /** Tests {@link RangedCurve#getValue(int)}. */
+    @Test
+    public void testGetValue() {
+        @SuppressWarnings("serial") // not to be serialised
+        RangedCurve curve = new RangedCurve(new HashMap<Integer, Integer>(){{
+            put(0, 5);
+            put(4, 7);
+            put(7, 23);
+            put(8, 24);
+        }});
+        
+        Assert.assertEquals(5, curve.getValue(0));
+        Assert.assertEquals(5, curve.getValue(3));
+        Assert.assertEquals(7, curve.getValue(4));
+        Assert.assertEquals(7, curve.getValue(6));
+        Assert.assertEquals(23, curve.getValue(7));
+        Assert.assertEquals(24, curve.getValue(8));
+        Assert.assertEquals(24, curve.getValue(9));
+        Assert.assertEquals(24, curve.getValue(Integer.MAX_VALUE));
+    }
+    
+    /** Tests {@link RangedCurve#getValue(int)} for a curve whose first range does not start at zero. */
+    @Test
+    public void testGetValueOffset() {
+        @SuppressWarnings("serial") // not to be serialised
+        RangedCurve curve = new RangedCurve(new HashMap<Integer, Integer>(){{
+            put(10, 1);
+            put(20, 2);
+        }});
+        
+        Assert.assertEquals(1, curve.getValue(10));
+        Assert.assertEquals(1, curve.getValue(19));
+        Assert.assertEquals(2, curve.getValue(20));
+        Assert.assertEquals(2, curve.getValue(1000));
+    }
+    
+    /** Tests {@link RangedCurve#getValue(int)} for keys which do not fit in the lookup table. */
+    @Test
+    public void testGetValuePastTable() {
+        int max = 3 * RangedCurve.MAX_TABLE_SIZE;
+        Map<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < max; i = i + 7) {
+            map.put(Integer.valueOf(i), Integer.valueOf(i * 2));
+        }
+        RangedCurve curve = new RangedCurve(map);
+        
+        for (int key = 0; key != max + 10; key++) {
+            int expected = (key / 7 * 7) * 2;
+            if (max <= key) {
+                expected = ((max - 1) / 7 * 7) * 2;
+            }
+            Assert.assertEquals("Unexpected value for key " + key, expected, curve.getValue(key));
+        }
+    }
+    
+    /** Tests {@link RangedCurve#getValue(int)} with a key below the lower bound of the first range. */
+    @Test(expected = NoSuchElementException.class)
+    public void testGetValueBelowLowerBound() {
+        RangedCurve curve = new RangedCurve(Collections.singletonMap(Integer.valueOf(5), Integer.valueOf(1)));
+        
+        curve.getValue(4);
+    }
+    
+    /** Tests the constructor with an empty map. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyMap() {
+        new RangedCurve(Collections.emptyMap());
+    }
+    
+    /** Tests the constructor with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testNullMap() {
+        new RangedCurve(null);
+    }
 }
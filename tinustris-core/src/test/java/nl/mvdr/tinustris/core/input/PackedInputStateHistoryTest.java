@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.input;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link PackedInputStateHistory}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@Slf4j
+public class PackedInputStateHistoryTest {
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        int[] frames = { 1, 2, 3, 4, 5, 6, 7 };
+
+        InputStateHistory history = new PackedInputStateHistory(frames);
+
+        for (Input input : Input.values()) {
+            Assert.assertEquals(input.toString(), input.ordinal() + 1, history.getNumberOfFrames(input));
+        }
+    }
+
+    /** Tests that the constructor copies the given array. */
+    @Test
+    public void testConstructorCopy() {
+        int[] frames = { 1, 2, 3, 4, 5, 6, 7 };
+
+        InputStateHistory history = new PackedInputStateHistory(frames);
+        frames[0] = 100;
+
+        Assert.assertEquals(1, history.getNumberOfFrames(Input.values()[0]));
+    }
+
+    /** Tests the constructor with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNull() {
+        new PackedInputStateHistory(null);
+    }
+
+    /** Tests the constructor with an array of the wrong length. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorWrongLength() {
+        new PackedInputStateHistory(new int[] { 1, 2, 3 });
+    }
+
+    /** Tests {@link PackedInputStateHistory#equals(Object)} and {@link PackedInputStateHistory#hashCode()}. */
+    @Test
+    public void testEquals() {
+        InputStateHistory history0 = InputStateHistory.NEW.next(input -> input == Input.LEFT).next(
+                input -> input == Input.LEFT || input == Input.HOLD);
+        InputStateHistory history1 = new PackedInputStateHistory(new int[] { 2, 0, 0, 0, 0, 0, 1 });
+
+        Assert.assertEquals(history0, history1);
+        Assert.assertEquals(history0.hashCode(), history1.hashCode());
+    }
+
+    /** Tests {@link PackedInputStateHistory#equals(Object)} for different histories. */
+    @Test
+    public void testNotEquals() {
+        InputStateHistory history0 = InputStateHistory.NEW.next(input -> input == Input.LEFT);
+        InputStateHistory history1 = InputStateHistory.NEW.next(input -> input == Input.RIGHT);
+
+        Assert.assertNotEquals(history0, history1);
+        Assert.assertNotEquals(InputStateHistory.NEW, history0);
+    }
+
+    /** Tests that no new history is created if nothing is pressed. */
+    @Test
+    public void testNextNothingPressed() {
+        InputStateHistory history = new PackedInputStateHistory(new int[] { 1, 2, 3, 4, 5, 6, 7 });
+
+        Assert.assertSame(InputStateHistory.NEW, history.next(input -> false));
+    }
+
+    /** Tests {@link PackedInputStateHistory#next(nl.mvdr.game.input.InputState)} on a lambda based history. */
+    @Test
+    public void testNextFromLambda() {
+        InputStateHistory history = input -> input == Input.SOFT_DROP ? 5 : 0;
+
+        InputStateHistory next = history.next(input -> input == Input.SOFT_DROP);
+
+        Assert.assertEquals(new PackedInputStateHistory(new int[] { 0, 0, 6, 0, 0, 0, 0 }), next);
+    }
+
+    /** Tests {@link PackedInputStateHistory#toString()}. */
+    @Test
+    public void testToString() {
+        String string = new PackedInputStateHistory(new int[] { 1, 2, 3, 4, 5, 6, 7 }).toString();
+
+        Assert.assertNotNull(string);
+        log.info(string);
+    }
+}
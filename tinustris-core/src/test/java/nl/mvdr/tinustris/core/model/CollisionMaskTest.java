@@ -0,0 +1,159 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CollisionMask}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class CollisionMaskTest {
+    /** Test case for the constructor and the getters. */
+    @Test
+    public void testConstructor() {
+        CollisionMask mask = Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertEquals(0, mask.getMinX());
+        Assert.assertEquals(2, mask.getMaxX());
+        Assert.assertEquals(2, mask.getMinY());
+        Assert.assertEquals(3, mask.getMaxY());
+        Assert.assertEquals(0b000, mask.getRow(0));
+        Assert.assertEquals(0b000, mask.getRow(1));
+        Assert.assertEquals(0b111, mask.getRow(2));
+        Assert.assertEquals(0b010, mask.getRow(3));
+        Assert.assertTrue(mask.isOccupied(1, 3));
+        Assert.assertFalse(mask.isOccupied(0, 3));
+    }
+    
+    /** Test case for the constructor with an empty set of points. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorEmpty() {
+        new CollisionMask(Collections.emptySet());
+    }
+    
+    /** Test case for the constructor with a point that does not fit in the tetromino's grid. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorOutOfBounds() {
+        new CollisionMask(new HashSet<>(Arrays.asList(new Point(0, 0), new Point(4, 0))));
+    }
+    
+    /** Test case for {@link CollisionMask#isWithinBounds(Grid, int, int)}. */
+    @Test
+    public void testIsWithinBounds() {
+        Grid grid = Grid.empty(10, 22);
+        // occupies x = 1 and y in [0, 3]
+        CollisionMask mask = Tetromino.I.getCollisionMask(Orientation.FLAT_RIGHT);
+        
+        Assert.assertTrue(mask.isWithinBounds(grid, -1, 0));
+        Assert.assertTrue(mask.isWithinBounds(grid, 8, 18));
+        Assert.assertFalse(mask.isWithinBounds(grid, -2, 0));
+        Assert.assertFalse(mask.isWithinBounds(grid, 0, -1));
+        Assert.assertFalse(mask.isWithinBounds(grid, 9, 0));
+        Assert.assertFalse(mask.isWithinBounds(grid, 0, 19));
+    }
+    
+    /** Test case for {@link CollisionMask#overlaps(Grid, int, int)}. */
+    @Test
+    public void testOverlaps() {
+        Grid grid = Grid.empty(10, 22).withBlocks(Collections.singleton(new Point(0, 0)), Block.GARBAGE);
+        // occupies x = 1 and y in [0, 3]
+        CollisionMask mask = Tetromino.I.getCollisionMask(Orientation.FLAT_RIGHT);
+        
+        Assert.assertTrue(mask.overlaps(grid, -1, 0));
+        Assert.assertTrue(mask.overlaps(grid, -1, -3));
+        Assert.assertFalse(mask.overlaps(grid, 0, 0));
+        Assert.assertFalse(mask.overlaps(grid, -1, 1));
+        Assert.assertFalse(mask.overlaps(grid, 5, 5));
+    }
+    
+    /** Test case for {@link CollisionMask#overlaps(Grid, int, int)} where the tetromino is partially out of bounds. */
+    @Test
+    public void testOverlapsPartiallyOutOfBounds() {
+        Grid grid = Grid.empty(10, 22).withBlocks(Collections.singleton(new Point(9, 21)), Block.GARBAGE);
+        // occupies x in [0, 3] and y = 2
+        CollisionMask mask = Tetromino.I.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertTrue(mask.overlaps(grid, 7, 19));
+        Assert.assertFalse(mask.overlaps(grid, 7, 18));
+        Assert.assertFalse(mask.overlaps(grid, -3, 19));
+        Assert.assertFalse(mask.overlaps(grid, 10, 19));
+        Assert.assertFalse(mask.overlaps(grid, 7, 20));
+    }
+    
+    /** Test case for {@link CollisionMask#fits(Grid, int, int)}. */
+    @Test
+    public void testFits() {
+        Grid grid = Grid.empty(10, 22).withBlocks(Collections.singleton(new Point(0, 0)), Block.GARBAGE);
+        CollisionMask mask = Tetromino.O.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertTrue(mask.fits(grid, 0, 0));
+        Assert.assertTrue(mask.fits(grid, -1, 0));
+        Assert.assertFalse(mask.fits(grid, -1, -1));
+        Assert.assertFalse(mask.fits(grid, -2, 0));
+        Assert.assertFalse(mask.fits(grid, 0, -2));
+    }
+    
+    /** Test case for {@link CollisionMask#getBottom(int)}. */
+    @Test
+    public void testGetBottom() {
+        CollisionMask mask = Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertEquals(2, mask.getBottom(0));
+        Assert.assertEquals(2, mask.getBottom(1));
+        Assert.assertEquals(2, mask.getBottom(2));
+        Assert.assertEquals(CollisionMask.SIZE, mask.getBottom(3));
+    }
+    
+    /** Test case for {@link CollisionMask#getDropDistance(Grid, int, int)} on an empty grid. */
+    @Test
+    public void testGetDropDistanceEmptyGrid() {
+        Grid grid = Grid.empty(10, 22);
+        // occupies x in [0, 2] and y in [2, 3]
+        CollisionMask mask = Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertEquals(15, mask.getDropDistance(grid, 3, 13));
+        Assert.assertEquals(0, mask.getDropDistance(grid, 3, -2));
+    }
+    
+    /** Test case for {@link CollisionMask#getDropDistance(Grid, int, int)} with blocks below the tetromino. */
+    @Test
+    public void testGetDropDistanceAboveSurface() {
+        Grid grid = Grid.empty(10, 22).withBlocks(Arrays.asList(new Point(3, 0), new Point(4, 0), new Point(4, 1),
+                new Point(4, 2), new Point(5, 0)), Block.GARBAGE);
+        // occupies x in [0, 2] and y = 2; column 1 also contains y = 3
+        CollisionMask mask = Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertEquals(10, mask.getDropDistance(grid, 3, 11));
+        Assert.assertEquals(0, mask.getDropDistance(grid, 3, 1));
+    }
+    
+    /** Test case for {@link CollisionMask#getDropDistance(Grid, int, int)} with the tetromino under an overhang. */
+    @Test
+    public void testGetDropDistanceUnderOverhang() {
+        Grid grid = Grid.empty(10, 22).withBlocks(Arrays.asList(new Point(0, 5), new Point(1, 5), new Point(2, 5),
+                new Point(4, 1)), Block.GARBAGE);
+        // occupies x in [0, 3] and y = 2
+        CollisionMask mask = Tetromino.I.getCollisionMask(Orientation.FLAT_DOWN);
+        
+        Assert.assertEquals(1, mask.getDropDistance(grid, 1, 1));
+        Assert.assertEquals(2, mask.getDropDistance(grid, 2, 6));
+    }
+}
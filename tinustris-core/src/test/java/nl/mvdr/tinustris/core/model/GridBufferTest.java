@@ -0,0 +1,339 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link GridBuffer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GridBufferTest {
+    /** Test case for the constructor. */
+    @Test
+    public void testConstructor() {
+        Grid grid = createGrid();
+        
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        Assert.assertEquals(4, buffer.getWidth());
+        Assert.assertEquals(6, buffer.getHeight());
+        Assert.assertEquals(Optional.of(Block.J), buffer.getBlock(3, 2));
+        Assert.assertTrue(buffer.isOccupied(3, 2));
+        Assert.assertEquals(0b1110L, buffer.getRow(0));
+        Assert.assertTrue(buffer.isFullLine(1));
+        Assert.assertEquals(3, buffer.getColumnHeight(3));
+        Assert.assertSame(grid, buffer.toGrid());
+    }
+    
+    /** Test case for {@link GridBuffer#set(Grid)} with a grid of different dimensions. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetIncorrectSize() {
+        GridBuffer buffer = new GridBuffer(createGrid());
+        
+        buffer.set(Grid.empty(4, 7));
+    }
+    
+    /** Test case for {@link GridBuffer#set(GridBuffer)}. */
+    @Test
+    public void testSetBuffer() {
+        GridBuffer source = new GridBuffer(createGrid());
+        source.addBlock(0, 4, Block.S);
+        GridBuffer buffer = new GridBuffer(Grid.empty(4, 6));
+        
+        buffer.set(source);
+        
+        Assert.assertEquals(source.toGrid(), buffer.toGrid());
+        Assert.assertEquals(source.getOccupancyHash(), buffer.getOccupancyHash());
+        Assert.assertEquals(5, buffer.getColumnHeight(0));
+        
+        // the buffers must not share any state
+        buffer.removeLine(0);
+        Assert.assertEquals(Optional.of(Block.S), source.getBlock(0, 4));
+        Assert.assertEquals(0b1110L, source.getRow(0));
+    }
+    
+    /** Test case for {@link GridBuffer#set(GridBuffer)} with a buffer of different dimensions. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetBufferIncorrectSize() {
+        GridBuffer buffer = new GridBuffer(createGrid());
+        
+        buffer.set(new GridBuffer(Grid.empty(5, 6)));
+    }
+    
+    /** Test case for {@link GridBuffer#addBlock(int, int, Block)}. */
+    @Test
+    public void testAddBlock() {
+        Grid grid = createGrid();
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.addBlock(0, 4, Block.S);
+        
+        Assert.assertEquals(grid.withBlocks(Arrays.asList(new Point(0, 4)), Block.S), buffer.toGrid());
+        Assert.assertEquals(5, buffer.getColumnHeight(0));
+        // original grid must be unchanged
+        Assert.assertEquals(createGrid(), grid);
+    }
+    
+    /** Test case for {@link GridBuffer#addBlock(int, int, Block)} with an x coordinate out of bounds. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testAddBlockOutOfBounds() {
+        new GridBuffer(createGrid()).addBlock(4, 0, Block.S);
+    }
+    
+    /** Test case for {@link GridBuffer#addBlocks(CollisionMask, int, int, Block)}. */
+    @Test
+    public void testAddBlocks() {
+        Grid grid = createGrid();
+        CollisionMask mask = Tetromino.O.getCollisionMask(Orientation.FLAT_DOWN);
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.addBlocks(mask, -1, 2, Block.O);
+        
+        Assert.assertEquals(grid.withBlocks(mask, -1, 2, Block.O), buffer.toGrid());
+        Assert.assertEquals(5, buffer.getColumnHeight(0));
+    }
+    
+    /** Test case for {@link GridBuffer#removeLine(int)}. */
+    @Test
+    public void testRemoveLine() {
+        Grid grid = createGrid();
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.removeLine(1);
+        
+        Assert.assertEquals(grid.withoutLine(1), buffer.toGrid());
+        Assert.assertEquals(0L, buffer.getRow(5));
+        Assert.assertEquals(2, buffer.getColumnHeight(3));
+    }
+    
+    /** Test case for {@link GridBuffer#removeLine(int)} on the top line. */
+    @Test
+    public void testRemoveTopLine() {
+        Grid grid = Grid.empty(4, 6).withBlocks(Arrays.asList(new Point(0, 5), new Point(1, 4)), Block.T);
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.removeLine(5);
+        
+        Assert.assertEquals(grid.withoutLine(5), buffer.toGrid());
+        Assert.assertEquals(0, buffer.getColumnHeight(0));
+        Assert.assertEquals(5, buffer.getColumnHeight(1));
+    }
+    
+    /** Test case for {@link GridBuffer#removeFullLines()}. */
+    @Test
+    public void testRemoveFullLines() {
+        Grid grid = createGrid().withGarbageLine(-1).withBlocks(Arrays.asList(new Point(0, 4), new Point(1, 4),
+                new Point(2, 4), new Point(3, 4), new Point(2, 5)), Block.I);
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        int lines = buffer.removeFullLines();
+        
+        Assert.assertEquals(3, lines);
+        Assert.assertEquals(grid.withoutLine(4).withoutLine(2).withoutLine(0), buffer.toGrid());
+        Assert.assertEquals(0b1110L, buffer.getRow(0));
+        Assert.assertEquals(0b0100L, buffer.getRow(2));
+        Assert.assertEquals(0L, buffer.getRow(3));
+        Assert.assertEquals(0, buffer.getColumnHeight(0));
+        Assert.assertEquals(3, buffer.getColumnHeight(2));
+        Assert.assertEquals(2, buffer.getColumnHeight(3));
+        assertOccupancyHash(buffer);
+    }
+    
+    /** Test case for {@link GridBuffer#removeFullLines()} on a grid without full lines. */
+    @Test
+    public void testRemoveFullLinesNone() {
+        Grid grid = Grid.empty(4, 6).withBlocks(Arrays.asList(new Point(0, 5), new Point(1, 4)), Block.T);
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        Assert.assertEquals(0, buffer.removeFullLines());
+        Assert.assertSame(grid, buffer.toGrid());
+    }
+    
+    /** Test case for {@link GridBuffer#addGarbageLine(int)}. */
+    @Test
+    public void testAddGarbageLine() {
+        Grid grid = createGrid();
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.addGarbageLine(0);
+        buffer.addGarbageLine(2);
+        
+        Assert.assertEquals(grid.withGarbageLine(0).withGarbageLine(2), buffer.toGrid());
+        Assert.assertEquals(0b1011L, buffer.getRow(0));
+        Assert.assertEquals(4, buffer.getColumnHeight(0));
+    }
+    
+    /** Test case for {@link GridBuffer#addGarbageLines(int[], int)}. */
+    @Test
+    public void testAddGarbageLines() {
+        Grid grid = createGrid();
+        GridBuffer buffer = new GridBuffer(grid);
+        
+        buffer.addGarbageLines(new int[] { 1, 3, 0, 2 }, 3);
+        
+        Assert.assertEquals(grid.withGarbageLine(1).withGarbageLine(3).withGarbageLine(0), buffer.toGrid());
+        Assert.assertEquals(0b1110L, buffer.getRow(0));
+        Assert.assertEquals(0b1101L, buffer.getRow(2));
+        Assert.assertEquals(6, buffer.getColumnHeight(3));
+        assertOccupancyHash(buffer);
+    }
+    
+    /** Test case for {@link GridBuffer#addGarbageLines(int[], int)} with an invalid number of lines. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddGarbageLinesInvalidCount() {
+        new GridBuffer(createGrid()).addGarbageLines(new int[2], 3);
+    }
+    
+    /** Checks that the full lines are kept track of by each of the modifications. */
+    @Test
+    public void testFullLines() {
+        GridBuffer buffer = new GridBuffer(createGrid());
+        
+        Assert.assertEquals(1, buffer.nextFullLine(0));
+        buffer.addBlocks(Tetromino.I.getCollisionMask(Orientation.FLAT_DOWN), 0, 1, Block.I);
+        assertFullLines(buffer);
+        buffer.addBlock(0, 0, Block.S);
+        assertFullLines(buffer);
+        buffer.addGarbageLine(-1);
+        assertFullLines(buffer);
+        buffer.addGarbageLines(new int[] { -1, 2 }, 2);
+        assertFullLines(buffer);
+        buffer.removeLine(3);
+        assertFullLines(buffer);
+        buffer.removeFullLines();
+        assertFullLines(buffer);
+        Assert.assertEquals(-1, buffer.nextFullLine(0));
+        buffer.set(createGrid());
+        assertFullLines(buffer);
+    }
+    
+    /**
+     * Checks that the buffer's full lines match the lines whose row masks are full.
+     * 
+     * @param buffer grid buffer
+     */
+    private void assertFullLines(GridBuffer buffer) {
+        Grid grid = Grid.of(new ArrayList<>(buffer.toGrid()), buffer.getWidth());
+        int fullLine = -1;
+        for (int y = 0; y != buffer.getHeight(); y++) {
+            boolean full = buffer.getRow(y) == 0b1111L;
+            Assert.assertEquals(full, buffer.isFullLine(y));
+            Assert.assertEquals(full, grid.isFullLine(y));
+            Assert.assertEquals(full, buffer.toGrid().isFullLine(y));
+            if (fullLine < 0 && full) {
+                fullLine = y;
+            }
+        }
+        Assert.assertEquals(fullLine, buffer.nextFullLine(0));
+    }
+    
+    /** Test case for {@link GridBuffer#toGrid()}. */
+    @Test
+    public void testToGrid() {
+        GridBuffer buffer = new GridBuffer(createGrid());
+        buffer.addBlock(0, 4, Block.S);
+        
+        Grid grid = buffer.toGrid();
+        
+        Assert.assertSame(grid, buffer.toGrid());
+        
+        buffer.addBlock(0, 5, Block.S);
+        
+        Assert.assertNotSame(grid, buffer.toGrid());
+        // snapshot must be unchanged
+        Assert.assertFalse(grid.isOccupied(0, 5));
+    }
+    
+    /**
+     * Creates a 4 * 6 grid for use in the test cases.
+     * 
+     * <pre>
+     * |    |
+     * |    |
+     * |    |
+     * |   J|
+     * |IOST|
+     * | TZL|
+     * +----+
+     * </pre>
+     * 
+     * @return grid
+     */
+    private Grid createGrid() {
+        return Grid.empty(4, 6)
+                .withBlocks(Arrays.asList(new Point(1, 0), new Point(3, 1)), Block.T)
+                .withBlocks(Arrays.asList(new Point(2, 0)), Block.Z)
+                .withBlocks(Arrays.asList(new Point(3, 0)), Block.L)
+                .withBlocks(Arrays.asList(new Point(0, 1)), Block.I)
+                .withBlocks(Arrays.asList(new Point(1, 1)), Block.O)
+                .withBlocks(Arrays.asList(new Point(2, 1)), Block.S)
+                .withBlocks(Arrays.asList(new Point(3, 2)), Block.J);
+    }
+
+    
+    /** Checks that the occupancy hash is maintained correctly by each of the modifications. */
+    @Test
+    public void testOccupancyHash() {
+        GridBuffer buffer = new GridBuffer(createGrid());
+        
+        buffer.addBlock(0, 4, Block.S);
+        assertOccupancyHash(buffer);
+        buffer.addBlocks(Tetromino.O.getCollisionMask(Orientation.FLAT_DOWN), -1, 2, Block.O);
+        assertOccupancyHash(buffer);
+        buffer.removeLine(1);
+        assertOccupancyHash(buffer);
+        buffer.addGarbageLine(2);
+        assertOccupancyHash(buffer);
+        buffer.removeLine(0);
+        assertOccupancyHash(buffer);
+        buffer.set(Grid.empty(4, 6));
+        Assert.assertEquals(0L, buffer.getOccupancyHash());
+    }
+    
+    /** Checks that the occupancy hash does not depend on the specific block values. */
+    @Test
+    public void testOccupancyHashBlockValues() {
+        GridBuffer buffer0 = new GridBuffer(Grid.empty(4, 6));
+        GridBuffer buffer1 = new GridBuffer(Grid.empty(4, 6));
+        
+        buffer0.addBlock(1, 2, Block.S);
+        buffer1.addBlock(1, 2, Block.T);
+        
+        Assert.assertEquals(buffer0.getOccupancyHash(), buffer1.getOccupancyHash());
+        Assert.assertNotEquals(0L, buffer0.getOccupancyHash());
+        
+        buffer1.addBlock(2, 1, Block.T);
+        
+        Assert.assertNotEquals(buffer0.getOccupancyHash(), buffer1.getOccupancyHash());
+    }
+    
+    /**
+     * Checks that the buffer's occupancy hash matches the hash computed from scratch.
+     * 
+     * @param buffer grid buffer
+     */
+    private void assertOccupancyHash(GridBuffer buffer) {
+        Grid grid = Grid.of(new ArrayList<>(buffer.toGrid()), buffer.getWidth());
+        
+        Assert.assertEquals(grid.getOccupancyHash(), buffer.getOccupancyHash());
+        Assert.assertEquals(grid.getOccupancyHash(), buffer.toGrid().getOccupancyHash());
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link Grid}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GridTest {
+    /** Test case for {@link Grid#empty(int, int)}. */
+    @Test
+    public void testEmpty() {
+        Grid grid = Grid.empty(10, 22);
+
+        Assert.assertEquals(10, grid.getWidth());
+        Assert.assertEquals(22, grid.getHeight());
+        Assert.assertEquals(220, grid.size());
+        grid.forEach(block -> Assert.assertFalse(block.isPresent()));
+        for (int y = 0; y != 22; y++) {
+            Assert.assertEquals(0L, grid.getRow(y));
+            Assert.assertFalse(grid.isFullLine(y));
+        }
+    }
+
+    /** Test case for {@link Grid#empty(int, int)} with the maximum width. */
+    @Test
+    public void testEmptyMaximumWidth() {
+        Grid grid = Grid.empty(Grid.MAX_WIDTH, 6);
+
+        Assert.assertEquals(Grid.MAX_WIDTH, grid.getWidth());
+    }
+
+    /** Test case for {@link Grid#empty(int, int)} with a width that does not fit in a row mask. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyTooWide() {
+        Grid.empty(Grid.MAX_WIDTH + 1, 6);
+    }
+
+    /** Test case for {@link Grid#empty(int, int)} with a height of zero. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyZeroHeight() {
+        Grid.empty(10, 0);
+    }
+
+    /** Test case for {@link Grid#of(List, int)}. */
+    @Test
+    public void testOf() {
+        List<Optional<Block>> list = createList();
+
+        Grid grid = Grid.of(list, 4);
+
+        Assert.assertEquals(4, grid.getWidth());
+        Assert.assertEquals(6, grid.getHeight());
+        Assert.assertEquals(list, grid);
+        Assert.assertEquals(grid, list);
+        Assert.assertEquals(list.hashCode(), grid.hashCode());
+        Assert.assertEquals(Optional.of(Block.T), grid.getBlock(1, 0));
+        Assert.assertEquals(Optional.of(Block.J), grid.getBlock(3, 2));
+        Assert.assertEquals(Optional.empty(), grid.getBlock(0, 2));
+        Assert.assertTrue(grid.isOccupied(3, 2));
+        Assert.assertFalse(grid.isOccupied(0, 2));
+        Assert.assertEquals(0b1110L, grid.getRow(0));
+        Assert.assertEquals(0b1111L, grid.getRow(1));
+        Assert.assertEquals(0b1000L, grid.getRow(2));
+    }
+
+    /** Test case for {@link Grid#of(List, int)}, where the list is already a grid. */
+    @Test
+    public void testOfGrid() {
+        Grid grid = Grid.of(createList(), 4);
+
+        Assert.assertSame(grid, Grid.of(grid, 4));
+    }
+
+    /** Test case for {@link Grid#of(List, int)}, where the list size is not a multiple of the width. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfIncorrectSize() {
+        Grid.of(Collections.nCopies(23, Optional.empty()), 4);
+    }
+
+    /** Test case for {@link Grid#of(List, int)} with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testOfNull() {
+        Grid.of(null, 4);
+    }
+
+    /** Test case for {@link Grid#isFullLine(int)}. */
+    @Test
+    public void testIsFullLine() {
+        Grid grid = Grid.of(createList(), 4);
+
+        Assert.assertFalse(grid.isFullLine(0));
+        Assert.assertTrue(grid.isFullLine(1));
+        Assert.assertFalse(grid.isFullLine(2));
+    }
+
+    /** Test case for {@link Grid#isFullLine(int)} on a grid of the maximum width. */
+    @Test
+    public void testIsFullLineMaximumWidth() {
+        List<Optional<Block>> list = new ArrayList<>(Collections.nCopies(Grid.MAX_WIDTH * 6, Optional.empty()));
+        for (int x = 0; x != Grid.MAX_WIDTH; x++) {
+            list.set(x, Optional.of(Block.GARBAGE));
+        }
+
+        Grid grid = Grid.of(list, Grid.MAX_WIDTH);
+
+        Assert.assertTrue(grid.isFullLine(0));
+        Assert.assertFalse(grid.isFullLine(1));
+    }
+
+    /** Test case for {@link Grid#getColumnHeight(int)}. */
+    @Test
+    public void testGetColumnHeight() {
+        Grid grid = Grid.of(createList(), 4);
+
+        Assert.assertEquals(2, grid.getColumnHeight(0));
+        Assert.assertEquals(2, grid.getColumnHeight(1));
+        Assert.assertEquals(2, grid.getColumnHeight(2));
+        Assert.assertEquals(3, grid.getColumnHeight(3));
+        Assert.assertEquals(0, Grid.empty(4, 6).getColumnHeight(3));
+    }
+
+    /** Test case for {@link Grid#get(int)} with an index that is out of bounds. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() {
+        Grid.empty(4, 6).get(24);
+    }
+
+    /** Test case for {@link Grid#withBlocks(java.util.Collection, Block)}. */
+    @Test
+    public void testWithBlocks() {
+        Grid grid = Grid.empty(4, 6);
+
+        Grid result = grid.withBlocks(Arrays.asList(new Point(0, 0), new Point(3, 5)), Block.S);
+
+        Assert.assertEquals(Optional.of(Block.S), result.getBlock(0, 0));
+        Assert.assertEquals(Optional.of(Block.S), result.getBlock(3, 5));
+        Assert.assertEquals(0b0001L, result.getRow(0));
+        Assert.assertEquals(0b1000L, result.getRow(5));
+        Assert.assertEquals(1, result.getColumnHeight(0));
+        Assert.assertEquals(0, result.getColumnHeight(1));
+        Assert.assertEquals(6, result.getColumnHeight(3));
+        // original grid must be unchanged
+        Assert.assertEquals(Grid.empty(4, 6), grid);
+        Assert.assertEquals(0, grid.getColumnHeight(0));
+    }
+
+    /** Test case for {@link Grid#withBlocks(CollisionMask, int, int, Block)}. */
+    @Test
+    public void testWithBlocksCollisionMask() {
+        Grid grid = Grid.empty(4, 6);
+
+        Grid result = grid.withBlocks(Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN), 1, -2, Block.T);
+
+        Assert.assertEquals(grid.withBlocks(Arrays.asList(new Point(1, 0), new Point(2, 0), new Point(3, 0),
+                new Point(2, 1)), Block.T), result);
+        Assert.assertEquals(0b1110L, result.getRow(0));
+        Assert.assertEquals(0b0100L, result.getRow(1));
+        Assert.assertEquals(0, result.getColumnHeight(0));
+        Assert.assertEquals(1, result.getColumnHeight(1));
+        Assert.assertEquals(2, result.getColumnHeight(2));
+    }
+
+    /** Test case for {@link Grid#withBlocks(CollisionMask, int, int, Block)} with a tetromino out of bounds. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWithBlocksCollisionMaskOutOfBounds() {
+        Grid.empty(4, 6).withBlocks(Tetromino.T.getCollisionMask(Orientation.FLAT_DOWN), 2, -2, Block.T);
+    }
+
+    /** Test case for {@link Grid#withoutLine(int)}. */
+    @Test
+    public void testWithoutLine() {
+        List<Optional<Block>> list = createList();
+        Grid grid = Grid.of(list, 4);
+
+        Grid result = grid.withoutLine(1);
+
+        List<Optional<Block>> expected = new ArrayList<>(list.subList(0, 4));
+        expected.addAll(list.subList(8, 24));
+        expected.addAll(Collections.nCopies(4, Optional.empty()));
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(0b1000L, result.getRow(1));
+        Assert.assertEquals(0L, result.getRow(5));
+        Assert.assertEquals(0, result.getColumnHeight(0));
+        Assert.assertEquals(1, result.getColumnHeight(2));
+        Assert.assertEquals(2, result.getColumnHeight(3));
+        // original grid must be unchanged
+        Assert.assertEquals(list, grid);
+    }
+
+    /** Test case for {@link Grid#withGarbageLine(int)}. */
+    @Test
+    public void testWithGarbageLine() {
+        List<Optional<Block>> list = createList();
+        Grid grid = Grid.of(list, 4);
+
+        Grid result = grid.withGarbageLine(2);
+
+        List<Optional<Block>> expected = new ArrayList<>(Arrays.asList(Optional.of(Block.GARBAGE),
+                Optional.of(Block.GARBAGE), Optional.empty(), Optional.of(Block.GARBAGE)));
+        expected.addAll(list.subList(0, 20));
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(0b1011L, result.getRow(0));
+        Assert.assertEquals(0b1110L, result.getRow(1));
+        Assert.assertEquals(3, result.getColumnHeight(0));
+        Assert.assertEquals(3, result.getColumnHeight(2));
+        Assert.assertEquals(4, result.getColumnHeight(3));
+        // original grid must be unchanged
+        Assert.assertEquals(list, grid);
+    }
+
+    /** Test case for {@link Grid#withGarbageLines(int[])}. */
+    @Test
+    public void testWithGarbageLines() {
+        Grid grid = Grid.of(createList(), 4);
+
+        Grid result = grid.withGarbageLines(new int[] { 2, 0, 3 });
+
+        Assert.assertEquals(grid.withGarbageLine(2).withGarbageLine(0).withGarbageLine(3), result);
+        Assert.assertEquals(0b0111L, result.getRow(0));
+        Assert.assertEquals(0b1011L, result.getRow(2));
+        for (int x = 0; x != 4; x++) {
+            Assert.assertEquals(grid.withGarbageLine(2).withGarbageLine(0).withGarbageLine(3).getColumnHeight(x),
+                    result.getColumnHeight(x));
+        }
+        // original grid must be unchanged
+        Assert.assertEquals(createList(), grid);
+    }
+
+    /** Test case for {@link Grid#withGarbageLines(int[])} with more garbage lines than fit in the grid. */
+    @Test
+    public void testWithGarbageLinesOverflow() {
+        Grid grid = Grid.empty(4, 3).withBlocks(Arrays.asList(new Point(1, 2)), Block.T);
+        int[] gaps = { 0, 1, 2, 3, 0 };
+        Grid expected = grid;
+        for (int gap : gaps) {
+            expected = expected.withGarbageLine(gap);
+        }
+
+        Grid result = grid.withGarbageLines(gaps);
+
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(expected.getOccupancyHash(), result.getOccupancyHash());
+        for (int x = 0; x != 4; x++) {
+            Assert.assertEquals(expected.getColumnHeight(x), result.getColumnHeight(x));
+        }
+    }
+
+    /** Test case for {@link Grid#withGarbageLines(int[])} without any garbage lines. */
+    @Test
+    public void testWithGarbageLinesNone() {
+        Grid grid = Grid.of(createList(), 4);
+
+        Assert.assertEquals(grid, grid.withGarbageLines(new int[0]));
+    }
+
+    /** Test case for {@link Grid#withoutFullLines()} and {@link Grid#countFullLines(int)}. */
+    @Test
+    public void testWithoutFullLines() {
+        Grid grid = Grid.empty(4, 6)
+                .withGarbageLine(-1)
+                .withBlocks(Arrays.asList(new Point(0, 1), new Point(3, 2)), Block.O)
+                .withGarbageLine(-1)
+                .withGarbageLine(-1)
+                .withBlocks(Arrays.asList(new Point(0, 5), new Point(1, 5), new Point(2, 5), new Point(3, 5)),
+                        Block.I);
+
+        Assert.assertEquals(4, grid.countFullLines(6));
+        Assert.assertEquals(3, grid.countFullLines(5));
+        Assert.assertEquals(2, grid.countFullLines(2));
+
+        Grid result = grid.withoutFullLines();
+
+        Assert.assertEquals(grid.withoutLine(5).withoutLine(2).withoutLine(1).withoutLine(0), result);
+        Assert.assertEquals(0, result.countFullLines(6));
+        Assert.assertEquals(2, result.getColumnHeight(3));
+        Assert.assertSame(result, result.withoutFullLines());
+    }
+
+    /** Test case for {@link Grid#nextFullLine(int)}, on a grid which is taller than the bits in a word. */
+    @Test
+    public void testNextFullLine() {
+        Grid grid = Grid.empty(2, 150);
+        for (int y : new int[] { 3, 63, 64, 149 }) {
+            grid = grid.withBlocks(Arrays.asList(new Point(0, y), new Point(1, y)), Block.GARBAGE);
+        }
+        grid = grid.withBlocks(Arrays.asList(new Point(0, 100)), Block.GARBAGE);
+
+        Assert.assertEquals(3, grid.nextFullLine(0));
+        Assert.assertEquals(3, grid.nextFullLine(3));
+        Assert.assertEquals(63, grid.nextFullLine(4));
+        Assert.assertEquals(64, grid.nextFullLine(64));
+        Assert.assertEquals(149, grid.nextFullLine(65));
+        Assert.assertEquals(-1, grid.nextFullLine(150));
+        Assert.assertEquals(2, grid.countFullLines(64));
+        Assert.assertEquals(3, grid.countFullLines(149));
+        Assert.assertEquals(4, grid.countFullLines(150));
+        Assert.assertFalse(grid.isFullLine(100));
+        Assert.assertEquals(-1, grid.withoutFullLines().nextFullLine(0));
+        Assert.assertEquals(-1, Grid.empty(4, 6).nextFullLine(0));
+    }
+
+    /** Test case for {@link Grid#withoutLine(int)}, where a column's top cell is removed. */
+    @Test
+    public void testWithoutLineColumnHeight() {
+        Grid grid = Grid.empty(4, 6)
+                .withBlocks(Arrays.asList(new Point(0, 0), new Point(0, 3), new Point(1, 1)), Block.GARBAGE);
+
+        Assert.assertEquals(1, grid.withoutLine(3).getColumnHeight(0));
+        Assert.assertEquals(0, grid.withoutLine(1).getColumnHeight(1));
+        Assert.assertEquals(1, grid.withoutLine(0).getColumnHeight(1));
+    }
+
+    /** Test case for {@link Grid#withGarbageLine(int)}, where a column's top cell is pushed out of the grid. */
+    @Test
+    public void testWithGarbageLineColumnHeight() {
+        Grid grid = Grid.empty(4, 6)
+                .withBlocks(Arrays.asList(new Point(0, 5), new Point(0, 2), new Point(1, 5)), Block.GARBAGE);
+
+        Grid result = grid.withGarbageLine(1);
+
+        Assert.assertEquals(4, result.getColumnHeight(0));
+        Assert.assertEquals(0, result.getColumnHeight(1));
+        Assert.assertEquals(1, result.getColumnHeight(2));
+    }
+
+    /** Test case for {@link Grid#equals(Object)} and {@link Grid#hashCode()}. */
+    @Test
+    public void testEquals() {
+        Grid grid0 = Grid.of(createList(), 4);
+        Grid grid1 = Grid.of(createList(), 4);
+
+        Assert.assertEquals(grid0, grid1);
+        Assert.assertEquals(grid0.hashCode(), grid1.hashCode());
+        Assert.assertNotEquals(grid0, Grid.empty(4, 6));
+        Assert.assertNotEquals(grid0, grid0.withGarbageLine(0));
+    }
+
+    /**
+     * Creates a 4 * 6 grid list for use in the test cases.
+     * 
+     * <pre>
+     * |    |
+     * |    |
+     * |    |
+     * |   J|
+     * |IOST|
+     * | TZL|
+     * +----+
+     * </pre>
+     * 
+     * @return list
+     */
+    private List<Optional<Block>> createList() {
+        List<Optional<Block>> result = new ArrayList<>(Collections.nCopies(24, Optional.empty()));
+        result.set(1, Optional.of(Block.T));
+        result.set(2, Optional.of(Block.Z));
+        result.set(3, Optional.of(Block.L));
+        result.set(4, Optional.of(Block.I));
+        result.set(5, Optional.of(Block.O));
+        result.set(6, Optional.of(Block.S));
+        result.set(7, Optional.of(Block.T));
+        result.set(11, Optional.of(Block.J));
+        return result;
+    }
+}
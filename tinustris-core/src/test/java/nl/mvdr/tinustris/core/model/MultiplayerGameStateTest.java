@@ -335,4 +335,20 @@ public class MultiplayerGameStateTest {
 
         multiplayerState.getStateForPlayer(3);
     }
+
+    /** Checks that the state hash depends on the order of the players. */
+    @Test
+    public void testStateHash() {
+        OnePlayerGameState state0 = new OnePlayerGameState();
+        OnePlayerGameState state1 = new OnePlayerGameState().withNext(Tetromino.T);
+
+        MultiplayerGameState multiplayerState = new MultiplayerGameState(Arrays.asList(state0, state1));
+
+        Assert.assertEquals(new MultiplayerGameState(Arrays.asList(state0, state1)).stateHash(),
+                multiplayerState.stateHash());
+        Assert.assertNotEquals(new MultiplayerGameState(Arrays.asList(state1, state0)).stateHash(),
+                multiplayerState.stateHash());
+        Assert.assertNotEquals(new MultiplayerGameState(Arrays.asList(state0, state0)).stateHash(),
+                multiplayerState.stateHash());
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link OnePlayerGameStateBuffer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class OnePlayerGameStateBufferTest {
+    /** Test case for the constructor and {@link OnePlayerGameStateBuffer#toGameState()}. */
+    @Test
+    public void testToGameState() {
+        OnePlayerGameState state = createState();
+        
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(state);
+        OnePlayerGameState result = buffer.toGameState();
+        
+        Assert.assertEquals(state.withInputStateHistory(InputStateHistory.NEW),
+                result.withInputStateHistory(InputStateHistory.NEW));
+        Assert.assertEquals(3, result.getInputStateHistory().getNumberOfFrames(Input.LEFT));
+        Assert.assertEquals(0, result.getInputStateHistory().getNumberOfFrames(Input.RIGHT));
+        Assert.assertSame(state.getGrid(), result.getGrid());
+    }
+    
+    /** Test case for the constructor and {@link OnePlayerGameStateBuffer#toGameState()} without an active block. */
+    @Test
+    public void testToGameStateNoActiveBlock() {
+        OnePlayerGameState state = new OnePlayerGameState();
+        
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(state);
+        
+        Assert.assertFalse(buffer.hasActiveTetromino());
+        Assert.assertNull(buffer.getActiveTetromino());
+        Assert.assertEquals(state.withInputStateHistory(InputStateHistory.NEW),
+                buffer.toGameState().withInputStateHistory(InputStateHistory.NEW));
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#set(OnePlayerGameState)} with a location but no active block. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetLocationWithoutActiveBlock() {
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(new OnePlayerGameState());
+        
+        buffer.set(new OnePlayerGameState().withCurrentBlockLocation(Optional.of(new Point(0, 0))));
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#getLevelSnapshot()}. */
+    @Test
+    public void testGetLevelSnapshot() {
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(createState());
+        
+        OnePlayerGameState snapshot = buffer.getLevelSnapshot();
+        buffer.setNumFramesSinceLastMove(100);
+        
+        Assert.assertSame(snapshot, buffer.getLevelSnapshot());
+        
+        buffer.setLevel(8);
+        
+        Assert.assertNotSame(snapshot, buffer.getLevelSnapshot());
+        Assert.assertEquals(8, buffer.getLevelSnapshot().getLevel());
+        Assert.assertEquals(100, buffer.getLevelSnapshot().getNumFramesSinceLastMove());
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#getGapValues(int)}. */
+    @Test
+    public void testGetGapValues() {
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(new OnePlayerGameState());
+        
+        Integer[] values = buffer.getGapValues(2);
+        
+        Assert.assertEquals(2, values.length);
+        Assert.assertSame(values, buffer.getGapValues(2));
+        Assert.assertEquals(1, buffer.getGapValues(1).length);
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#getGarbageGaps(int)}. */
+    @Test
+    public void testGetGarbageGaps() {
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(new OnePlayerGameState());
+        
+        int[] gaps = buffer.getGarbageGaps(4);
+        
+        Assert.assertEquals(4, gaps.length);
+        Assert.assertSame(gaps, buffer.getGarbageGaps(2));
+        Assert.assertTrue(10 <= buffer.getGarbageGaps(10).length);
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#updateInputStateHistory(nl.mvdr.game.input.InputState)}. */
+    @Test
+    public void testUpdateInputStateHistory() {
+        OnePlayerGameState state = createState();
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(state);
+        
+        buffer.updateInputStateHistory(input -> input == Input.LEFT || input == Input.HOLD);
+        
+        InputStateHistory expected = state.getInputStateHistory()
+                .next(input -> input == Input.LEFT || input == Input.HOLD);
+        for (Input input : Input.values()) {
+            Assert.assertEquals(expected.getNumberOfFrames(input), buffer.getNumberOfFrames(input));
+        }
+    }
+    
+    /** Test case for the collision checks. */
+    @Test
+    public void testCollisions() {
+        OnePlayerGameState state = createState();
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(state);
+        
+        Assert.assertEquals(state.canMoveLeft(), buffer.canMove(-1, 0));
+        Assert.assertEquals(state.canMoveRight(), buffer.canMove(1, 0));
+        Assert.assertEquals(state.canMoveDown(), buffer.canMove(0, -1));
+        Assert.assertEquals(state.getCurrentBlockLocation().get().getY() - state.getGhostLocation().get().getY(),
+                buffer.getDropDistance());
+        Assert.assertTrue(buffer.isCurrentBlockWithinBounds());
+        Assert.assertFalse(buffer.isTopped());
+        
+        buffer.setCurrentBlockX(-3);
+        
+        Assert.assertFalse(buffer.isCurrentBlockWithinBounds());
+        
+        buffer.setCurrentBlockX(0);
+        buffer.setCurrentBlockY(-2);
+        
+        Assert.assertTrue(buffer.isTopped());
+        Assert.assertTrue(buffer.isGameOver());
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#canMove(int, int)} without an active block. */
+    @Test(expected = IllegalStateException.class)
+    public void testCanMoveNoActiveBlock() {
+        new OnePlayerGameStateBuffer(new OnePlayerGameState()).canMove(0, -1);
+    }
+    
+    /** Test case for {@link OnePlayerGameStateBuffer#stateHash()}. */
+    @Test
+    public void testStateHash() {
+        OnePlayerGameStateBuffer buffer = new OnePlayerGameStateBuffer(createState());
+        
+        Assert.assertEquals(createState().stateHash(), buffer.stateHash());
+        
+        buffer.setCurrentBlockX(4);
+        buffer.getGrid().addBlock(5, 0, Block.I);
+        
+        Assert.assertEquals(buffer.toGameState().stateHash(), buffer.stateHash());
+        Assert.assertNotEquals(createState().stateHash(), buffer.stateHash());
+        
+        buffer.setActiveTetromino(null);
+        buffer.setCurrentBlockOrientation(null);
+        
+        Assert.assertEquals(buffer.toGameState().stateHash(), buffer.stateHash());
+    }
+    
+    /**
+     * Creates a game state for use in the test cases, with an O block in the bottom left corner and an active T block
+     * at the spawn location.
+     * 
+     * @return game state
+     */
+    private OnePlayerGameState createState() {
+        Grid grid = Grid.empty(OnePlayerGameState.DEFAULT_WIDTH, OnePlayerGameState.DEFAULT_HEIGHT)
+                .withBlocks(Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(0, 1), new Point(1, 1)), Block.O);
+        InputStateHistory inputStateHistory = input -> input == Input.LEFT ? 3 : 0;
+        return new OnePlayerGameState(grid, OnePlayerGameState.DEFAULT_WIDTH, Tetromino.T, new Point(3, 16),
+                Orientation.FLAT_DOWN, Tetromino.S, 1, 2, 3, inputStateHistory, 4, 5, 0, 6, 7, 8);
+    }
+}
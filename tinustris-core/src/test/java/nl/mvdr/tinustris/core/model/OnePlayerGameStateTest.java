@@ -14,6 +14,7 @@
 package nl.mvdr.tinustris.core.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -789,6 +790,47 @@ public class OnePlayerGameStateTest {
         return result;
     }
 
+    /** Checks that equal states have the same state hash. */
+    @Test
+    public void testStateHashEqualStates() {
+        OnePlayerGameState state0 = new OnePlayerGameState(createEmptyGrid(220), 10, Tetromino.T, new Point(3, 5),
+                Orientation.FLAT_UP, Tetromino.S);
+        OnePlayerGameState state1 = new OnePlayerGameState(createEmptyGrid(220), 10, Tetromino.T, new Point(3, 5),
+                Orientation.FLAT_UP, Tetromino.S);
+
+        Assert.assertEquals(state0, state1);
+        Assert.assertEquals(state0.stateHash(), state1.stateHash());
+    }
+
+    /** Checks that the state hash changes when the active block, the next block or the grid changes. */
+    @Test
+    public void testStateHashDifferentStates() {
+        OnePlayerGameState state = new OnePlayerGameState(createEmptyGrid(220), 10, Tetromino.T, new Point(3, 5),
+                Orientation.FLAT_UP, Tetromino.S);
+        List<OnePlayerGameState> states = Arrays.asList(state,
+                state.withCurrentBlockLocation(Optional.of(new Point(4, 5))),
+                state.withCurrentBlockLocation(Optional.of(new Point(3, 4))),
+                state.withCurrentBlockOrientation(Optional.of(Orientation.FLAT_DOWN)),
+                state.withActiveTetromino(Optional.of(Tetromino.L)),
+                state.withActiveTetromino(Optional.empty()),
+                state.withNext(Tetromino.Z),
+                state.withGrid(state.getGrid().withBlocks(Collections.singleton(new Point(0, 0)), Block.GARBAGE)));
+
+        Assert.assertEquals(states.size(), states.stream().mapToLong(OnePlayerGameState::stateHash).distinct().count());
+    }
+
+    /** Checks that the state hash ignores counters and the input state history. */
+    @Test
+    public void testStateHashIgnoresCounters() {
+        OnePlayerGameState state = new OnePlayerGameState(createEmptyGrid(220), 10, Tetromino.T, new Point(3, 5),
+                Orientation.FLAT_UP, Tetromino.S);
+
+        OnePlayerGameState other = state.withLines(8).withLevel(3).withNumFramesSinceLastMove(5)
+                .withInputStateHistory(input -> 1);
+
+        Assert.assertEquals(state.stateHash(), other.stateHash());
+    }
+
     /**
      * Creates an list with the given size, containing all null values.
      * 
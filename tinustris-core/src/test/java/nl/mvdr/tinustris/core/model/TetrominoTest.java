@@ -58,6 +58,33 @@ public class TetrominoTest {
         }
     }
     
+    /** Tests that each tetromino's collision masks match its points. */
+    @Test
+    public void testCollisionMasks() {
+        for (Tetromino tetromino : Tetromino.values()) {
+            for (Orientation orientation : Orientation.values()) {
+                Set<Point> points = tetromino.getPoints(orientation);
+                CollisionMask mask = tetromino.getCollisionMask(orientation);
+                
+                for (int x = 0; x != CollisionMask.SIZE; x++) {
+                    for (int y = 0; y != CollisionMask.SIZE; y++) {
+                        Assert.assertEquals(points.contains(new Point(x, y)), mask.isOccupied(x, y));
+                    }
+                }
+                Assert.assertEquals(points.stream().mapToInt(Point::getX).min().getAsInt(), mask.getMinX());
+                Assert.assertEquals(points.stream().mapToInt(Point::getX).max().getAsInt(), mask.getMaxX());
+                Assert.assertEquals(points.stream().mapToInt(Point::getY).min().getAsInt(), mask.getMinY());
+                Assert.assertEquals(points.stream().mapToInt(Point::getY).max().getAsInt(), mask.getMaxY());
+            }
+        }
+    }
+    
+    /** Tests what happens when {@link Tetromino#getCollisionMask(Orientation)} is invoked with a null value. */
+    @Test(expected = NullPointerException.class)
+    public void testGetCollisionMaskNull() {
+        Tetromino.I.getCollisionMask(null);
+    }
+    
     /** Tests what happens when {@link Tetromino#getPoints(Orientation)} is invoked with a null value. */
     @Test(expected = NullPointerException.class)
     public void testGetPointsNull() {
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.input.Input;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link InputMask}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class InputMaskTest {
+    /** Checks that converting every mask to an input state and back results in the same mask. */
+    @Test
+    public void testRoundTrip() {
+        for (int mask = 0; mask != InputMask.NUMBER_OF_MASKS; mask++) {
+            Assert.assertEquals(mask, InputMask.toMask(InputMask.toInputState(mask)));
+        }
+    }
+
+    /** Test case for {@link InputMask#toMask(InputState)}. */
+    @Test
+    public void testToMask() {
+        InputState<Input> inputState = input -> input == Input.LEFT || input == Input.HOLD;
+
+        int mask = InputMask.toMask(inputState);
+
+        Assert.assertEquals(1 << Input.LEFT.ordinal() | 1 << Input.HOLD.ordinal(), mask);
+    }
+
+    /** Test case for {@link InputMask#toInputState(int)}. */
+    @Test
+    public void testToInputState() {
+        InputState<Input> inputState = InputMask.toInputState(1 << Input.HARD_DROP.ordinal());
+
+        for (Input input : Input.values()) {
+            Assert.assertEquals(input == Input.HARD_DROP, inputState.isPressed(input));
+        }
+    }
+
+    /** Test case for {@link InputMask#toInputState(Input)}. */
+    @Test
+    public void testToInputStateSingleInput() {
+        InputState<Input> inputState = InputMask.toInputState(Input.LEFT);
+
+        for (Input input : Input.values()) {
+            Assert.assertEquals(input == Input.LEFT, inputState.isPressed(input));
+        }
+    }
+
+    /** Test case for {@link InputMask#toInputState(int)} with an invalid mask. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testToInputStateOutOfBounds() {
+        InputMask.toInputState(InputMask.NUMBER_OF_MASKS);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.MultiplayerEngine;
+import nl.mvdr.tinustris.core.engine.SinglePlayerEngine;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.simulation.InputPolicy;
+import nl.mvdr.tinustris.core.simulation.StandardInputPolicy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link KeyframeFile}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class KeyframeFileTest {
+    /** Checks that seeking using keyframes produces the same states as seeking without them. */
+    @Test
+    public void testSeekSinglePlayer() throws IOException {
+        Replay replay = recordSinglePlayer(2000);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(replay);
+        KeyframeFile keyframes = KeyframeFile.read(write(player, 300));
+        ReplayPlayer<OnePlayerGameState> expectedPlayer = ReplayPlayer.createSinglePlayer(replay);
+        player = ReplayPlayer.createSinglePlayer(replay);
+
+        player.setKeyframes(keyframes);
+
+        Assert.assertEquals(replay.getLength() / 300, keyframes.getNumberOfKeyframes());
+        for (int frame : new int[] { 1500, 1500, 299, 300, 301, 1799, 0, replay.getLength(), 600 }) {
+            Assert.assertEquals(expectedPlayer.seek(frame), player.seek(frame));
+            Assert.assertEquals(frame, player.getFrame());
+        }
+    }
+
+    /** Checks that seeking using keyframes produces the same states as seeking without them, in a multiplayer game. */
+    @Test
+    public void testSeekMultiplayer() throws IOException {
+        Replay replay = recordMultiplayer(3, 1000);
+        ReplayPlayer<MultiplayerGameState> player = ReplayPlayer.createMultiplayer(replay);
+        KeyframeFile keyframes = KeyframeFile.read(write(player, 50));
+        ReplayPlayer<MultiplayerGameState> expectedPlayer = ReplayPlayer.createMultiplayer(replay);
+        player = ReplayPlayer.createMultiplayer(replay);
+
+        player.setKeyframes(keyframes);
+
+        Assert.assertTrue(200 < replay.getLength());
+        for (int frame : new int[] { 175, 25, 199, 50, 0, replay.getLength() }) {
+            MultiplayerGameState expected = expectedPlayer.seek(frame);
+            MultiplayerGameState actual = player.seek(frame);
+            for (int i = 0; i != expected.getNumberOfPlayers(); i++) {
+                Assert.assertEquals(expected.getStateForPlayer(i), actual.getStateForPlayer(i));
+            }
+            Assert.assertEquals(expected.getNextGarbageTargets(), actual.getNextGarbageTargets());
+        }
+    }
+
+    /** Checks that the game continues correctly after restoring a keyframe. */
+    @Test
+    public void testStepAfterRestore() throws IOException {
+        Replay replay = recordSinglePlayer(1000);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(replay);
+        KeyframeFile keyframes = KeyframeFile.read(write(player, 200));
+        ReplayPlayer<OnePlayerGameState> expectedPlayer = ReplayPlayer.createSinglePlayer(replay);
+        expectedPlayer.seek(400);
+        player = ReplayPlayer.createSinglePlayer(replay);
+        player.setKeyframes(keyframes);
+        player.seek(400);
+
+        while (!expectedPlayer.isFinished()) {
+            Assert.assertEquals(expectedPlayer.step(), player.step());
+        }
+        Assert.assertTrue(player.isFinished());
+    }
+
+    /** Tests writing keyframes to a file and memory-mapping it. */
+    @Test
+    public void testMap() throws IOException {
+        Replay replay = recordSinglePlayer(1000);
+        Path path = Files.createTempFile("tinustris", ".tkey");
+        try {
+            KeyframeFile.write(ReplayPlayer.createSinglePlayer(replay), 250, path);
+            KeyframeFile keyframes = KeyframeFile.map(path);
+            ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(replay);
+            player.setKeyframes(keyframes);
+
+            Assert.assertEquals(ReplayPlayer.createSinglePlayer(replay).seek(900), player.seek(900));
+            Assert.assertNotNull(keyframes.toString());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /** Tests {@link KeyframeFile#findKeyframe(int)}. */
+    @Test
+    public void testFindKeyframe() throws IOException {
+        Replay replay = recordSinglePlayer(1000);
+        KeyframeFile keyframes = KeyframeFile.read(write(ReplayPlayer.createSinglePlayer(replay), 100));
+
+        Assert.assertEquals(-1, keyframes.findKeyframe(0));
+        Assert.assertEquals(-1, keyframes.findKeyframe(99));
+        Assert.assertEquals(0, keyframes.findKeyframe(100));
+        Assert.assertEquals(0, keyframes.findKeyframe(199));
+        Assert.assertEquals(1, keyframes.findKeyframe(200));
+        Assert.assertEquals(200, keyframes.getFrame(1));
+    }
+
+    /** Checks that keyframes cannot be used for a different replay. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetKeyframesOtherReplay() throws IOException {
+        KeyframeFile keyframes = KeyframeFile.read(write(ReplayPlayer.createSinglePlayer(recordSinglePlayer(500)),
+                100));
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(recordSinglePlayer(400));
+
+        player.setKeyframes(keyframes);
+    }
+
+    /** Checks that keyframes cannot be used for a replay with the same seeds, but a different behavior. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetKeyframesOtherBehavior() throws IOException {
+        Replay replay = recordSinglePlayer(500);
+        KeyframeFile keyframes = KeyframeFile.read(write(ReplayPlayer.createSinglePlayer(replay), 100));
+        Replay otherReplay = new Replay(Behavior.NES, replay.getStartLevel(), replay.getTetrominoRandomSeed(),
+                replay.getGapRandomSeed(), 1, new byte[replay.getLength()]);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(otherReplay);
+
+        player.setKeyframes(keyframes);
+    }
+
+    /** Checks that keyframes cannot be used for a replay with the same seeds, but a different starting level. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetKeyframesOtherStartLevel() throws IOException {
+        Replay replay = recordSinglePlayer(500);
+        KeyframeFile keyframes = KeyframeFile.read(write(ReplayPlayer.createSinglePlayer(replay), 100));
+        Replay otherReplay = new Replay(replay.getBehavior(), replay.getStartLevel() + 1,
+                replay.getTetrominoRandomSeed(), replay.getGapRandomSeed(), 1, new byte[replay.getLength()]);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(otherReplay);
+
+        player.setKeyframes(keyframes);
+    }
+
+    /** Tests writing keyframes with an invalid interval. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteInvalidInterval() throws IOException {
+        write(ReplayPlayer.createSinglePlayer(recordSinglePlayer(100)), 0);
+    }
+
+    /** Tests reading a buffer which does not contain keyframes. */
+    @Test(expected = IOException.class)
+    public void testReadInvalid() throws IOException {
+        KeyframeFile.read(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+
+    /** Tests reading a truncated keyframe file. */
+    @Test(expected = IOException.class)
+    public void testReadTruncated() throws IOException {
+        ByteBuffer buffer = write(ReplayPlayer.createSinglePlayer(recordSinglePlayer(500)), 100);
+
+        KeyframeFile.read(ByteBuffer.wrap(buffer.array(), 0, 20));
+    }
+
+    /**
+     * Writes keyframes for the given player's replay.
+     * 
+     * @param player replay player
+     * @param interval keyframe interval
+     * @return buffer containing the keyframes
+     * @throws IOException unexpected exception
+     */
+    private static ByteBuffer write(ReplayPlayer<?> player, int interval) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KeyframeFile.write(player, interval, outputStream);
+        return ByteBuffer.wrap(outputStream.toByteArray());
+    }
+
+    /**
+     * Records a single player game using the greedy input policy.
+     * 
+     * @param maxFrames maximum number of frames
+     * @return replay
+     */
+    private static Replay recordSinglePlayer(int maxFrames) {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.TINUSTRIS, 0, 7L, 8L, 1);
+        RecordingGameEngine<OnePlayerGameState> engine = new RecordingGameEngine<>(new SinglePlayerEngine(recorder
+                .toReplay().createOnePlayerEngine()), recorder);
+        InputPolicy policy = StandardInputPolicy.GREEDY.createPolicy(0L);
+        OnePlayerGameState state = engine.initGameState();
+        for (int frame = 0; frame != maxFrames && !state.isGameOver(); frame++) {
+            state = engine.computeNextState(state, Collections.singletonList(policy.getInputState(state)));
+        }
+        return recorder.toReplay();
+    }
+
+    /**
+     * Records a multiplayer game using random input policies.
+     * 
+     * @param numberOfPlayers number of players
+     * @param maxFrames maximum number of frames
+     * @return replay
+     */
+    private static Replay recordMultiplayer(int numberOfPlayers, int maxFrames) {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.TINUSTRIS, 0, 7L, 8L, numberOfPlayers);
+        RecordingGameEngine<MultiplayerGameState> engine = new RecordingGameEngine<>(new MultiplayerEngine(
+                numberOfPlayers, recorder.toReplay().createOnePlayerEngine()), recorder);
+        List<InputPolicy> policies = new ArrayList<>();
+        for (int i = 0; i != numberOfPlayers; i++) {
+            policies.add(StandardInputPolicy.RANDOM.createPolicy(i));
+        }
+        MultiplayerGameState state = engine.initGameState();
+        for (int frame = 0; frame != maxFrames && !state.isGameOver(); frame++) {
+            List<InputState<Input>> inputStates = new ArrayList<>();
+            for (int i = 0; i != numberOfPlayers; i++) {
+                inputStates.add(policies.get(i).getInputState(state.getStateForPlayer(i)));
+            }
+            state = engine.computeNextState(state, inputStates);
+        }
+        return recorder.toReplay();
+    }
+}
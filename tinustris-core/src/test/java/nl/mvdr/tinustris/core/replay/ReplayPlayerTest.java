@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.MultiplayerEngine;
+import nl.mvdr.tinustris.core.engine.SinglePlayerEngine;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.input.InputStateHistory;
+import nl.mvdr.tinustris.core.model.MultiplayerGameState;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.simulation.InputPolicy;
+import nl.mvdr.tinustris.core.simulation.InputPolicyFactory;
+import nl.mvdr.tinustris.core.simulation.StandardInputPolicy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ReplayPlayer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class ReplayPlayerTest {
+    /** Checks that playing back a single player game results in the same states as the original game. */
+    @Test
+    public void testSinglePlayer() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.TINUSTRIS, 0, 3L, 4L, 1);
+        List<OnePlayerGameState> states = recordSinglePlayer(recorder, StandardInputPolicy.RANDOM, 2000);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(recorder.toReplay());
+
+        assertEquals(states.get(0), player.getState());
+        for (int frame = 1; frame != states.size(); frame++) {
+            assertEquals(states.get(frame), player.step());
+            Assert.assertEquals(frame, player.getFrame());
+        }
+        Assert.assertTrue(player.isFinished());
+    }
+
+    /** Checks that playing back a multiplayer game results in the same final state as the original game. */
+    @Test
+    public void testMultiplayer() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.TINUSTRIS, 0, 3L, 4L, 3);
+        MultiplayerEngine engine = new MultiplayerEngine(3, recorder.toReplay().createOnePlayerEngine());
+        RecordingGameEngine<MultiplayerGameState> recordingEngine = new RecordingGameEngine<>(engine, recorder);
+        List<InputPolicy> policies = new ArrayList<>();
+        for (int i = 0; i != 3; i++) {
+            policies.add(StandardInputPolicy.RANDOM.createPolicy(i));
+        }
+        MultiplayerGameState state = recordingEngine.initGameState();
+        for (int frame = 0; frame != 1000 && !state.isGameOver(); frame++) {
+            List<InputState<Input>> inputStates = new ArrayList<>();
+            for (int i = 0; i != 3; i++) {
+                inputStates.add(policies.get(i).getInputState(state.getStateForPlayer(i)));
+            }
+            state = recordingEngine.computeNextState(state, inputStates);
+        }
+        ReplayPlayer<MultiplayerGameState> player = ReplayPlayer.createMultiplayer(recorder.toReplay());
+
+        MultiplayerGameState result = player.seekToEnd();
+
+        for (int i = 0; i != 3; i++) {
+            assertEquals(state.getStateForPlayer(i), result.getStateForPlayer(i));
+        }
+    }
+
+    /** Tests seeking forward and backward. */
+    @Test
+    public void testSeek() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.GAME_BOY, 0, 5L, 6L, 1);
+        List<OnePlayerGameState> states = recordSinglePlayer(recorder, StandardInputPolicy.GREEDY, 3000);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(recorder.toReplay());
+
+        Assert.assertEquals(3001, states.size());
+        assertEquals(states.get(2000), player.seek(2000));
+        assertEquals(states.get(500), player.seek(500));
+        assertEquals(states.get(500), player.seek(500));
+        assertEquals(states.get(2999), player.seek(2999));
+        assertEquals(states.get(0), player.seek(0));
+        Assert.assertEquals(0, player.getFrame());
+        assertEquals(states.get(states.size() - 1), player.seekToEnd());
+    }
+
+    /** Tests seeking past the end of the replay. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSeekOutOfBounds() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.GAME_BOY, 0, 5L, 6L, 1);
+        recordSinglePlayer(recorder, StandardInputPolicy.RANDOM, 10);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(recorder.toReplay());
+
+        player.seek(11);
+    }
+
+    /** Tests stepping past the end of the replay. */
+    @Test(expected = IllegalStateException.class)
+    public void testStepPastEnd() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.GAME_BOY, 0, 5L, 6L, 1);
+        recordSinglePlayer(recorder, StandardInputPolicy.RANDOM, 10);
+        ReplayPlayer<OnePlayerGameState> player = ReplayPlayer.createSinglePlayer(recorder.toReplay());
+        player.seekToEnd();
+
+        player.step();
+    }
+
+    /** Tests creating a single player replay player for a multiplayer replay. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateSinglePlayerForMultiplayerReplay() {
+        ReplayPlayer.createSinglePlayer(new ReplayRecorder(Behavior.GAME_BOY, 0, 5L, 6L, 2).toReplay());
+    }
+
+    /** Tests creating a multiplayer replay player for a single player replay. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateMultiplayerForSinglePlayerReplay() {
+        ReplayPlayer.createMultiplayer(new ReplayRecorder(Behavior.GAME_BOY, 0, 5L, 6L, 1).toReplay());
+    }
+
+    /**
+     * Plays and records a single player game.
+     * 
+     * @param recorder recorder
+     * @param policyFactory factory for the input policy
+     * @param maxFrames maximum number of frames to play
+     * @return all game states, starting with the initial state
+     */
+    private static List<OnePlayerGameState> recordSinglePlayer(ReplayRecorder recorder,
+            InputPolicyFactory policyFactory, int maxFrames) {
+        RecordingGameEngine<OnePlayerGameState> engine = new RecordingGameEngine<>(new SinglePlayerEngine(recorder
+                .toReplay().createOnePlayerEngine()), recorder);
+        InputPolicy policy = policyFactory.createPolicy(0L);
+        List<OnePlayerGameState> result = new ArrayList<>();
+        OnePlayerGameState state = engine.initGameState();
+        result.add(state);
+        for (int frame = 0; frame != maxFrames && !state.isGameOver(); frame++) {
+            state = engine.computeNextState(state, Collections.singletonList(policy.getInputState(state)));
+            result.add(state);
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the given game states are equal.
+     * 
+     * @param expected expected state
+     * @param actual actual state
+     */
+    private static void assertEquals(OnePlayerGameState expected, OnePlayerGameState actual) {
+        Assert.assertEquals(expected.withInputStateHistory(InputStateHistory.NEW),
+                actual.withInputStateHistory(InputStateHistory.NEW));
+        for (Input input : Input.values()) {
+            Assert.assertEquals(expected.getInputStateHistory().getNumberOfFrames(input), actual
+                    .getInputStateHistory().getNumberOfFrames(input));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link ReplayRecorder}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class ReplayRecorderTest {
+    /** Tests {@link ReplayRecorder#toReplay()} without any recorded frames. */
+    @Test
+    public void testEmpty() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 3, 5L, 7L, 2);
+
+        Replay replay = recorder.toReplay();
+
+        Assert.assertEquals(Behavior.NES, replay.getBehavior());
+        Assert.assertEquals(3, replay.getStartLevel());
+        Assert.assertEquals(5L, replay.getTetrominoRandomSeed());
+        Assert.assertEquals(7L, replay.getGapRandomSeed());
+        Assert.assertEquals(2, replay.getNumberOfPlayers());
+        Assert.assertEquals(0, replay.getLength());
+        Assert.assertNotNull(recorder.toString());
+    }
+
+    /** Tests recording a number of frames, more than fit in the initial buffer. */
+    @Test
+    public void testRecord() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 0L, 0L, 2);
+
+        for (int frame = 0; frame != 5000; frame++) {
+            recorder.record(Arrays.asList(InputMask.toInputState(frame % InputMask.NUMBER_OF_MASKS),
+                    input -> input == Input.LEFT));
+        }
+        Replay replay = recorder.toReplay();
+
+        Assert.assertEquals(5000, recorder.getLength());
+        Assert.assertEquals(5000, replay.getLength());
+        for (int frame = 0; frame != 5000; frame++) {
+            Assert.assertEquals(frame % InputMask.NUMBER_OF_MASKS, replay.getInputMask(frame, 0));
+            Assert.assertEquals(1 << Input.LEFT.ordinal(), replay.getInputMask(frame, 1));
+        }
+    }
+
+    /** Checks that recording more frames does not affect a previously created replay. */
+    @Test
+    public void testRecordAfterToReplay() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 0L, 0L, 1);
+        recorder.record(Collections.singletonList(input -> true));
+        Replay replay = recorder.toReplay();
+
+        recorder.record(Collections.singletonList(input -> true));
+
+        Assert.assertEquals(1, replay.getLength());
+        Assert.assertEquals(2, recorder.toReplay().getLength());
+    }
+
+    /** Tests recording the wrong number of input states. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordWrongNumberOfInputStates() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 0L, 0L, 2);
+
+        recorder.record(Collections.singletonList(input -> true));
+    }
+
+    /** Tests the constructor with zero players. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNoPlayers() {
+        new ReplayRecorder(Behavior.NES, 0, 0L, 0L, 0);
+    }
+
+    /** Tests the constructor with a null behavior. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullBehavior() {
+        new ReplayRecorder(null, 0, 0L, 0L, 1);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.replay;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.input.Input;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link Replay}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class ReplayTest {
+    /**
+     * Checks that a replay can be read back after writing it.
+     * 
+     * @throws IOException unexpected exception
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.THE_GRANDMASTER, 2, -5L, 123_456_789_012L, 3);
+        for (int frame = 0; frame != 1000; frame++) {
+            recorder.record(Arrays.asList(InputMask.toInputState(frame / 10 % InputMask.NUMBER_OF_MASKS),
+                    InputMask.toInputState(frame % InputMask.NUMBER_OF_MASKS), input -> false));
+        }
+        Replay replay = recorder.toReplay();
+
+        Replay result = Replay.read(new ByteArrayInputStream(write(replay)));
+
+        Assert.assertEquals(replay, result);
+        Assert.assertEquals(replay.hashCode(), result.hashCode());
+    }
+
+    /**
+     * Checks that a replay without any frames can be read back after writing it.
+     * 
+     * @throws IOException unexpected exception
+     */
+    @Test
+    public void testWriteReadEmpty() throws IOException {
+        Replay replay = new ReplayRecorder(Behavior.NES, 0, 1L, 2L, 1).toReplay();
+
+        Replay result = Replay.read(new ByteArrayInputStream(write(replay)));
+
+        Assert.assertEquals(replay, result);
+    }
+
+    /**
+     * Checks that long runs of identical input are stored compactly.
+     * 
+     * @throws IOException unexpected exception
+     */
+    @Test
+    public void testRunLengthEncoding() throws IOException {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 1L, 2L, 1);
+        // one hour of holding left, followed by one hour of not pressing anything
+        for (int frame = 0; frame != 60 * 60 * 60; frame++) {
+            recorder.record(Collections.singletonList(input -> input == Input.LEFT));
+        }
+        for (int frame = 0; frame != 60 * 60 * 60; frame++) {
+            recorder.record(Collections.singletonList(input -> false));
+        }
+        Replay replay = recorder.toReplay();
+
+        byte[] bytes = write(replay);
+
+        Assert.assertTrue("Unexpected size: " + bytes.length, bytes.length < 100);
+        Assert.assertEquals(replay, Replay.read(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Tests reading something that is not a replay.
+     * 
+     * @throws IOException expected exception
+     */
+    @Test(expected = IOException.class)
+    public void testReadInvalid() throws IOException {
+        Replay.read(new ByteArrayInputStream("This is not a replay.".getBytes("UTF-8")));
+    }
+
+    /**
+     * Tests reading a truncated replay.
+     * 
+     * @throws IOException expected exception
+     */
+    @Test(expected = IOException.class)
+    public void testReadTruncated() throws IOException {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 1L, 2L, 1);
+        for (int frame = 0; frame != 100; frame++) {
+            recorder.record(Collections.singletonList(InputMask.toInputState(frame % 2)));
+        }
+        byte[] bytes = write(recorder.toReplay());
+
+        Replay.read(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    /** Tests {@link Replay#getInputMask(int, int)} with a player index which is out of bounds. */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetInputMaskPlayerOutOfBounds() {
+        ReplayRecorder recorder = new ReplayRecorder(Behavior.NES, 0, 1L, 2L, 2);
+        recorder.record(Arrays.asList(input -> false, input -> false));
+        recorder.record(Arrays.asList(input -> false, input -> false));
+
+        recorder.toReplay().getInputMask(0, 2);
+    }
+
+    /**
+     * Writes the given replay to a byte array.
+     * 
+     * @param replay replay
+     * @return bytes
+     * @throws IOException unexpected exception
+     */
+    private static byte[] write(Replay replay) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        replay.write(outputStream);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import nl.mvdr.game.input.InputState;
+import nl.mvdr.tinustris.core.configuration.Behavior;
+import nl.mvdr.tinustris.core.engine.GapGenerator;
+import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
+import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.input.Input;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link GreedyInputPolicy}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GreedyInputPolicyTest {
+    /** Checks that the policy presses a single input when a block is active. */
+    @Test
+    public void testGetInputState() {
+        OnePlayerGameState state = createInitialState();
+
+        InputState<Input> inputState = GreedyInputPolicy.INSTANCE.getInputState(state);
+
+        Assert.assertEquals(1, countPressed(inputState));
+    }
+
+    /** Checks that the policy releases all inputs after pressing one. */
+    @Test
+    public void testGetInputStateTapped() {
+        OnePlayerGameState state = createInitialState();
+        state = state.withInputStateHistory(state.getInputStateHistory().next(
+                GreedyInputPolicy.INSTANCE.getInputState(state)));
+
+        InputState<Input> inputState = GreedyInputPolicy.INSTANCE.getInputState(state);
+
+        Assert.assertEquals(0, countPressed(inputState));
+    }
+
+    /** Checks that the policy does not press anything when there is no active block. */
+    @Test
+    public void testGetInputStateNoActiveBlock() {
+        InputState<Input> inputState = GreedyInputPolicy.INSTANCE.getInputState(new OnePlayerGameState());
+
+        Assert.assertEquals(0, countPressed(inputState));
+    }
+
+    /**
+     * Creates the initial state of a game, with an active block.
+     * 
+     * @return game state
+     */
+    private static OnePlayerGameState createInitialState() {
+        OnePlayerEngine engine = new OnePlayerEngine(new RandomTetrominoGenerator(0L), Behavior.defaultBehavior(), 0,
+                new GapGenerator(0L, OnePlayerGameState.DEFAULT_WIDTH));
+        OnePlayerGameState result = engine.initGameState();
+        Assert.assertTrue(result.getActiveTetromino().isPresent());
+        return result;
+    }
+
+    /**
+     * Counts the number of pressed inputs.
+     * 
+     * @param inputState input state
+     * @return number of pressed inputs
+     */
+    private static int countPressed(InputState<Input> inputState) {
+        int result = 0;
+        for (Input input : Input.values()) {
+            if (inputState.isPressed(input)) {
+                result++;
+            }
+        }
+        return result;
+    }
+}
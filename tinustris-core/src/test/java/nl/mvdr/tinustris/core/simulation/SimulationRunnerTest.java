@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Map;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link SimulationRunner}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class SimulationRunnerTest {
+    /** Tests {@link SimulationRunner#parseArguments(String...)} without any arguments. */
+    @Test
+    public void testParseArgumentsDefaults() {
+        Map<String, String> options = SimulationRunner.parseArguments();
+
+        Simulator simulator = SimulationRunner.createSimulator(options);
+
+        Assert.assertEquals(Behavior.defaultBehavior(), simulator.getBehavior());
+        Assert.assertEquals(0, simulator.getStartLevel());
+        Assert.assertEquals(1, simulator.getNumberOfPlayers());
+        Assert.assertEquals(StandardInputPolicy.GREEDY, simulator.getPolicyFactory());
+        Assert.assertArrayEquals(new long[] { 0L, 99L }, SimulationRunner.parseSeeds(options.get("seeds")));
+        Assert.assertNull(options.get("output"));
+    }
+
+    /** Tests {@link SimulationRunner#parseArguments(String...)}. */
+    @Test
+    public void testParseArguments() {
+        Map<String, String> options = SimulationRunner.parseArguments("--behavior", "NES", "--level", "9",
+                "--players", "4", "--policy", "RANDOM", "--max-frames", "500", "--output", "out.csv");
+
+        Simulator simulator = SimulationRunner.createSimulator(options);
+
+        Assert.assertEquals(Behavior.NES, simulator.getBehavior());
+        Assert.assertEquals(9, simulator.getStartLevel());
+        Assert.assertEquals(4, simulator.getNumberOfPlayers());
+        Assert.assertEquals(StandardInputPolicy.RANDOM, simulator.getPolicyFactory());
+        Assert.assertEquals(500, simulator.getMaxFrames());
+        Assert.assertEquals("out.csv", options.get("output"));
+    }
+
+    /** Tests {@link SimulationRunner#parseArguments(String...)} with an unknown option. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseArgumentsUnknownOption() {
+        SimulationRunner.parseArguments("--speed", "9");
+    }
+
+    /** Tests {@link SimulationRunner#parseArguments(String...)} with a missing value. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseArgumentsMissingValue() {
+        SimulationRunner.parseArguments("--level");
+    }
+
+    /** Tests {@link SimulationRunner#createSimulator(Map)} with an invalid number. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateSimulatorInvalidNumber() {
+        SimulationRunner.createSimulator(SimulationRunner.parseArguments("--level", "one"));
+    }
+
+    /** Tests {@link SimulationRunner#createSimulator(Map)} with an unknown behavior. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateSimulatorUnknownBehavior() {
+        SimulationRunner.createSimulator(SimulationRunner.parseArguments("--behavior", "SNES"));
+    }
+
+    /** Tests {@link SimulationRunner#parseSeeds(String)}. */
+    @Test
+    public void testParseSeeds() {
+        Assert.assertArrayEquals(new long[] { 5L, 5L }, SimulationRunner.parseSeeds("5"));
+        Assert.assertArrayEquals(new long[] { 5L, 10L }, SimulationRunner.parseSeeds("5-10"));
+        Assert.assertArrayEquals(new long[] { -5L, -3L }, SimulationRunner.parseSeeds("-5--3"));
+        Assert.assertArrayEquals(new long[] { -5L, 3L }, SimulationRunner.parseSeeds("-5-3"));
+    }
+
+    /** Tests {@link SimulationRunner#parseSeeds(String)} with an invalid value. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSeedsInvalid() {
+        SimulationRunner.parseSeeds("five");
+    }
+
+    /** Tests {@link SimulationRunner#parseSeeds(String)} with an empty range. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseSeedsEmptyRange() {
+        SimulationRunner.parseSeeds("10-5");
+    }
+
+    /** Tests {@link SimulationRunner#parsePolicy(String)} with a custom implementation. */
+    @Test
+    public void testParsePolicyClassName() {
+        InputPolicyFactory factory = SimulationRunner.parsePolicy(DummyInputPolicyFactory.class.getName());
+
+        Assert.assertTrue(factory instanceof DummyInputPolicyFactory);
+    }
+
+    /** Tests {@link SimulationRunner#parsePolicy(String)} with a class that does not implement the right interface. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParsePolicyWrongClass() {
+        SimulationRunner.parsePolicy(String.class.getName());
+    }
+
+    /** Tests {@link SimulationRunner#parsePolicy(String)} with a class that cannot be instantiated. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParsePolicyNoDefaultConstructor() {
+        SimulationRunner.parsePolicy(StandardInputPolicy.class.getName());
+    }
+
+    /** Tests {@link SimulationRunner#parsePolicy(String)} with an unknown value. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParsePolicyUnknown() {
+        SimulationRunner.parsePolicy("SMART");
+    }
+
+    /**
+     * Tests {@link SimulationRunner#writeCsv(java.util.List, java.io.Writer)}.
+     * 
+     * @throws IOException unexpected exception
+     */
+    @Test
+    public void testWriteCsv() throws IOException {
+        StringWriter writer = new StringWriter();
+
+        SimulationRunner.writeCsv(Arrays.asList(new GameStatistics(1L, 0, 1000, 12, 1, 0), new GameStatistics(1L,
+                1, 900, 4, 0, 8)), writer);
+
+        String separator = System.lineSeparator();
+        Assert.assertEquals("seed,player,frames,lines,level,garbage" + separator + "1,0,1000,12,1,0" + separator
+                + "1,1,900,4,0,8" + separator, writer.toString());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.core.simulation;
+
+import java.util.List;
+
+import nl.mvdr.tinustris.core.configuration.Behavior;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link Simulator}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class SimulatorTest {
+    /** Tests the constructor. */
+    @Test
+    public void testConstructor() {
+        Simulator simulator = new Simulator(Behavior.NES, 5, 2, StandardInputPolicy.RANDOM, 100);
+
+        Assert.assertEquals(Behavior.NES, simulator.getBehavior());
+        Assert.assertEquals(5, simulator.getStartLevel());
+        Assert.assertEquals(2, simulator.getNumberOfPlayers());
+        Assert.assertEquals(StandardInputPolicy.RANDOM, simulator.getPolicyFactory());
+        Assert.assertEquals(100, simulator.getMaxFrames());
+        Assert.assertNotNull(simulator.toString());
+    }
+
+    /** Tests the constructor with zero players. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNoPlayers() {
+        new Simulator(Behavior.NES, 0, 0, StandardInputPolicy.RANDOM, 100);
+    }
+
+    /** Tests the constructor with a non-positive maximum number of frames. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructorNoFrames() {
+        new Simulator(Behavior.NES, 0, 1, StandardInputPolicy.RANDOM, 0);
+    }
+
+    /** Tests the constructor with a null behavior. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullBehavior() {
+        new Simulator(null, 0, 1, StandardInputPolicy.RANDOM, 100);
+    }
+
+    /** Tests the constructor with a null policy factory. */
+    @Test(expected = NullPointerException.class)
+    public void testConstructorNullPolicy() {
+        new Simulator(Behavior.NES, 0, 1, null, 100);
+    }
+
+    /** Simulates a single player game where nothing is pressed. */
+    @Test
+    public void testSimulateIdle() {
+        Simulator simulator = new Simulator(Behavior.TINUSTRIS, 0, 1, StandardInputPolicy.IDLE, 100_000);
+
+        List<GameStatistics> statistics = simulator.simulate(3L);
+
+        Assert.assertEquals(1, statistics.size());
+        GameStatistics gameStatistics = statistics.get(0);
+        Assert.assertEquals(3L, gameStatistics.getSeed());
+        Assert.assertEquals(0, gameStatistics.getPlayer());
+        Assert.assertTrue(0 < gameStatistics.getFrames());
+        Assert.assertTrue(gameStatistics.getFrames() < 100_000);
+        Assert.assertEquals(0, gameStatistics.getLines());
+        Assert.assertEquals(0, gameStatistics.getGarbage());
+    }
+
+    /** Simulates a single player game which is cut off after the maximum number of frames. */
+    @Test
+    public void testSimulateMaxFrames() {
+        Simulator simulator = new Simulator(Behavior.TINUSTRIS, 0, 1, StandardInputPolicy.GREEDY, 1000);
+
+        List<GameStatistics> statistics = simulator.simulate(0L);
+
+        Assert.assertEquals(1000, statistics.get(0).getFrames());
+        Assert.assertTrue(0 < statistics.get(0).getLines());
+    }
+
+    /** Checks that simulating the same seed twice results in the same statistics. */
+    @Test
+    public void testSimulateDeterministic() {
+        Simulator simulator = new Simulator(Behavior.GAME_BOY, 0, 1, StandardInputPolicy.RANDOM, 10_000);
+
+        List<GameStatistics> statistics0 = simulator.simulate(7L);
+        List<GameStatistics> statistics1 = simulator.simulate(7L);
+
+        Assert.assertEquals(statistics0, statistics1);
+    }
+
+    /** Simulates a multiplayer game. */
+    @Test
+    public void testSimulateMultiplayer() {
+        Simulator simulator = new Simulator(Behavior.TINUSTRIS, 0, 3, StandardInputPolicy.RANDOM, 100_000);
+
+        List<GameStatistics> statistics = simulator.simulate(0L);
+
+        Assert.assertEquals(3, statistics.size());
+        for (int player = 0; player != 3; player++) {
+            Assert.assertEquals(0L, statistics.get(player).getSeed());
+            Assert.assertEquals(player, statistics.get(player).getPlayer());
+        }
+        // the game ends as soon as the second to last player tops out; the last player survived just as long
+        int maxFrames = statistics.stream().mapToInt(GameStatistics::getFrames).max().getAsInt();
+        Assert.assertTrue(1 < statistics.stream().filter(s -> s.getFrames() == maxFrames).count());
+    }
+
+    /** Simulates a range of games, checking that the results match those of the individual games. */
+    @Test
+    public void testSimulateRange() {
+        Simulator simulator = new Simulator(Behavior.TINUSTRIS, 0, 2, StandardInputPolicy.RANDOM, 10_000);
+
+        List<GameStatistics> statistics = simulator.simulate(10L, 13L);
+
+        Assert.assertEquals(8, statistics.size());
+        for (long seed = 10L; seed != 14L; seed++) {
+            int index = (int) (seed - 10L) * 2;
+            Assert.assertEquals(simulator.simulate(seed), statistics.subList(index, index + 2));
+        }
+    }
+}
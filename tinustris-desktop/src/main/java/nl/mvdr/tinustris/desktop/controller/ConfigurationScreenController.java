@@ -62,6 +62,9 @@ public class ConfigurationScreenController {
     /** Radio button for 3D graphics. */
     @FXML
     private RadioButton graphics3DRadioButton;
+    /** Radio button for 2D graphics drawn on a canvas. */
+    @FXML
+    private RadioButton graphicsCanvasRadioButton;
     /** Combo box for Behavior value. */
     @FXML
     private ComboBox<Behavior> behaviorComboBox;
@@ -113,10 +116,35 @@ public class ConfigurationScreenController {
      *            tab pane for player configuration
      */
     ConfigurationScreenController(RadioButton graphics2DRadioButton, RadioButton graphics3DRadioButton, ComboBox<Behavior> behaviorComboBox, TextField startLevelTextField, TabPane playerTabPane) {
+        this(graphics2DRadioButton, graphics3DRadioButton, new RadioButton(), behaviorComboBox, startLevelTextField,
+                playerTabPane);
+    }
+
+    /**
+     * Constructor which initialises all fields. Intended for unit tests, since at runtime the user interface components
+     * will be injected after initialisation.
+     * 
+     * @param graphics2DRadioButton
+     *            radio button for 2D graphics
+     * @param graphics3DRadioButton
+     *            radio button for 3D graphics
+     * @param graphicsCanvasRadioButton
+     *            radio button for 2D graphics drawn on a canvas
+     * @param behaviorComboBox
+     *            combo box for choosing game behavior
+     * @param startLevelTextField
+     *            text field for entering the game's starting level
+     * @param playerTabPane
+     *            tab pane for player configuration
+     */
+    ConfigurationScreenController(RadioButton graphics2DRadioButton, RadioButton graphics3DRadioButton,
+            RadioButton graphicsCanvasRadioButton, ComboBox<Behavior> behaviorComboBox, TextField startLevelTextField,
+            TabPane playerTabPane) {
         this();
         
         this.graphics2DRadioButton = graphics2DRadioButton;
         this.graphics3DRadioButton = graphics3DRadioButton;
+        this.graphicsCanvasRadioButton = graphicsCanvasRadioButton;
         this.behaviorComboBox = behaviorComboBox;
         this.startLevelTextField = startLevelTextField;
         this.playerTabPane = playerTabPane;
@@ -145,9 +173,9 @@ public class ConfigurationScreenController {
 
     /** Initialises the radio buttons used to select a graphical style. */
     private void initGraphicsRadioButtons() {
-        Stream.of(graphics2DRadioButton, graphics3DRadioButton).forEach(
+        Stream.of(graphics2DRadioButton, graphics3DRadioButton, graphicsCanvasRadioButton).forEach(
                 radioButton -> radioButton.setOnAction(event -> log.info("Activated " + radioButton.getText())));
-        Stream.of(graphics2DRadioButton, graphics3DRadioButton).forEach(
+        Stream.of(graphics2DRadioButton, graphics3DRadioButton, graphicsCanvasRadioButton).forEach(
                 radioButton -> radioButton.setDisable(!toGraphicsStyle(radioButton).isAvailable()));
     }
 
@@ -231,6 +259,8 @@ public class ConfigurationScreenController {
             result = GraphicsStyle.TWO_DIMENSIONAL;
         } else if (toggle == graphics3DRadioButton) {
             result = GraphicsStyle.THREE_DIMENSIONAL;
+        } else if (toggle == graphicsCanvasRadioButton) {
+            result = GraphicsStyle.CANVAS;
         } else {
             throw new IllegalArgumentException("Unexpected parameter: " + toggle);
         }
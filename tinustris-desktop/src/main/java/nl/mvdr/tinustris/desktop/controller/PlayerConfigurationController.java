@@ -28,6 +28,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.Region;
@@ -36,6 +37,7 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.game.jinput.InputMapping;
 import nl.mvdr.game.jinput.JInputControllerConfiguration;
+import nl.mvdr.tinustris.core.bot.BotPlayerConfiguration;
 import nl.mvdr.tinustris.core.configuration.PlayerConfiguration;
 import nl.mvdr.tinustris.core.input.Input;
 import nl.mvdr.tinustris.desktop.configuration.LocalPlayerConfiguration;
@@ -54,6 +56,9 @@ public class PlayerConfigurationController {
     /** Table view showing off all of the inputs. */
     @FXML
     private TableView<InputAndMapping> inputTable;
+    /** Check box indicating whether this player is controlled by the computer. */
+    @FXML
+    private CheckBox botCheckBox;
     
     /** Configuration for the input controller. */
     private JInputControllerConfiguration<Input> inputConfiguration;
@@ -77,10 +82,27 @@ public class PlayerConfigurationController {
      *            table displaying all inputs
      */
     PlayerConfigurationController(TextField nameTextField, TableView<InputAndMapping> inputTable) {
+        this(nameTextField, inputTable, new CheckBox());
+    }
+    
+    /**
+     * Constructor which initialises all fields. Intended for unit tests, since at runtime the user interface components
+     * will be injected after initialisation.
+     * 
+     * @param nameTextField
+     *            text field for player name
+     * @param inputTable
+     *            table displaying all inputs
+     * @param botCheckBox
+     *            check box indicating whether the player is controlled by the computer
+     */
+    PlayerConfigurationController(TextField nameTextField, TableView<InputAndMapping> inputTable,
+            CheckBox botCheckBox) {
         this();
         
         this.nameTextField = nameTextField;
         this.inputTable = inputTable;
+        this.botCheckBox = botCheckBox;
     }
     
     /** Performs controller initialisation. */
@@ -132,7 +154,13 @@ public class PlayerConfigurationController {
      * @return configuration for this player
      */
     PlayerConfiguration buildConfiguration() {
-        return new LocalPlayerConfiguration(nameProperty().getValue(), inputConfiguration);
+        PlayerConfiguration result;
+        if (botCheckBox.isSelected()) {
+            result = new BotPlayerConfiguration(nameProperty().getValue());
+        } else {
+            result = new LocalPlayerConfiguration(nameProperty().getValue(), inputConfiguration);
+        }
+        return result;
     }
     
     /**
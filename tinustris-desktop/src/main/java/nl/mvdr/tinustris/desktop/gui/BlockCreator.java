@@ -46,4 +46,36 @@ interface BlockCreator {
      */
     Node createBlock(double xCoordinate, double yCoordinate, double size, Block block, BlockStyle style,
             int numFramesUntilLinesDisappear, int numFramesSinceLastLock);
+
+    /**
+     * Updates a node created by this block creator, so that it represents the given block. This allows renderers to
+     * reuse their nodes instead of replacing them. Nodes which have been given an animated style (see
+     * {@link BlockStyle#isAnimated()}) should not be passed into this method, since their animation may still be
+     * running.
+     * 
+     * The default implementation does not reuse the node, but simply creates a new one.
+     * 
+     * @param node
+     *            node previously created by this block creator
+     * @param xCoordinate
+     *            x coordinate on screen
+     * @param yCoordinate
+     *            y coordinate on screen
+     * @param size
+     *            size of the block
+     * @param block
+     *            block to be drawn
+     * @param style
+     *            style in which to render the block
+     * @param numFramesUntilLinesDisappear
+     *            the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock
+     *            the numFramesSinceLastLock property from the game state
+     * @return node representing the block; either the given node or a new one
+     */
+    default Node updateBlock(Node node, double xCoordinate, double yCoordinate, double size, Block block,
+            BlockStyle style, int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        return createBlock(xCoordinate, yCoordinate, size, block, style, numFramesUntilLinesDisappear,
+                numFramesSinceLastLock);
+    }
 }
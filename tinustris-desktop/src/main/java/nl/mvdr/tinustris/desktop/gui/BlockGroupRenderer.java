@@ -17,7 +17,6 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
 
-import javafx.application.Platform;
 import javafx.scene.Group;
 import javafx.scene.Node;
 import lombok.NonNull;
@@ -42,18 +41,16 @@ abstract class BlockGroupRenderer extends Group implements GameRenderer<OnePlaye
     /** {@inheritDoc} */
     @Override
     public void render(@NonNull OnePlayerGameState gameState) {
-        final List<Optional<Group>> groups = createGroups(gameState);
-        
-        if (groups.stream().anyMatch(value -> value != null)) {
-            // (re-)render
-            runOnJavaFXThread(() -> update(groups));
-        }
+        runOnJavaFXThread(() -> update(createGroups(gameState)));
     }
     
     /**
      * Creates all groups of blocks based on the given game state. In case a group would be equal to the group already
      * rendered, an empty value may be inserted into the list. In this case the old group is not rerendered.
      * 
+     * This method is called from the JavaFX thread, so that the game state is compared to the one actually being
+     * displayed.
+     * 
      * @param gameState new game state
      * @return list of groups; may contain null values
      */
@@ -67,7 +64,7 @@ abstract class BlockGroupRenderer extends Group implements GameRenderer<OnePlaye
      */
     // Default visibility as an extension point for unit tests.
     void runOnJavaFXThread(Runnable runnable) {
-        Platform.runLater(runnable);
+        RenderBatcher.runOnJavaFXThread(this, runnable);
     }
     
     /**
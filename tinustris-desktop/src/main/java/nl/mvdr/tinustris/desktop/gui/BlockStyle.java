@@ -21,6 +21,7 @@ import java.util.function.Function;
 import javafx.animation.FadeTransition;
 import javafx.animation.ScaleTransition;
 import javafx.scene.Node;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.CycleMethod;
 import javafx.scene.paint.Paint;
@@ -72,6 +73,12 @@ enum BlockStyle {
         put(Block.L, Color.ORANGE);
         put(Block.GARBAGE, Color.GRAY);
     }};
+    /**
+     * Fill for each combination of style and block, indexed by style and block ordinal. Since these paints are
+     * proportional to the bounds of the shape they are applied to, they can be shared by all blocks. Must not be
+     * modified.
+     */
+    private static final Paint[][] FILLS = createFills();
     
     /** Opacity. */
     private final double opacity;
@@ -83,6 +90,16 @@ enum BlockStyle {
     /** Indicates whether the block should fade out. */
     private final boolean disappearingAnimation;
 
+    /**
+     * Indicates whether this style starts an animation on the blocks it is applied to. Such blocks should not be
+     * restyled afterwards, since the running animation would interfere.
+     * 
+     * @return whether this style is animated
+     */
+    boolean isAnimated() {
+        return disappearingAnimation;
+    }
+
     /**
      * Applies this style to the given block. This method sets the fill, the opacity and stroke properties of the given
      * block.
@@ -133,6 +150,64 @@ enum BlockStyle {
         applySquashAnimation(shape, numFramesUntilLinesDisappear, numFramesSinceLastLock);
     }
 
+    /**
+     * Draws a block in this style, with its top left corner at (0, 0). The result looks the same as a
+     * {@link Rectangle} of the given size styled using {@link #apply(Rectangle, Block, int, int)}, except for the
+     * opacity, which is left to the caller; see {@link #getOpacity(int, int)}.
+     * 
+     * @param graphicsContext
+     *            graphics context to draw on
+     * @param block
+     *            block
+     * @param size
+     *            width and height of the block
+     */
+    void draw(@NonNull GraphicsContext graphicsContext, @NonNull Block block, double size) {
+        graphicsContext.setFill(FILLS[ordinal()][block.ordinal()]);
+        graphicsContext.fillRect(0, 0, size, size);
+        // stroke of width 2, inside the block
+        graphicsContext.setStroke(stroke.orElse(COLORS.get(block)));
+        graphicsContext.setLineWidth(2);
+        graphicsContext.strokeRect(1, 1, size - 2, size - 2);
+    }
+
+    /**
+     * Computes the opacity of a block in this style at the current frame, including the progress of the
+     * disappearing animation.
+     * 
+     * @param numFramesUntilLinesDisappear
+     *            the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock
+     *            the numFramesSinceLastLock property from the game state
+     * @return opacity
+     */
+    double getOpacity(int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        double result = opacity;
+        if (disappearingAnimation) {
+            result = result * getDisappearingFactor(numFramesUntilLinesDisappear, numFramesSinceLastLock);
+        }
+        return result;
+    }
+
+    /**
+     * Computes the part of the disappearing animation which still remains at the current frame: 1 when the lines have
+     * just been completed, down to 0 when they disappear. Disappearing blocks are faded out to this fraction of their
+     * opacity in 2D, and squashed to this fraction of their height in 3D.
+     * 
+     * @param numFramesUntilLinesDisappear
+     *            the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock
+     *            the numFramesSinceLastLock property from the game state
+     * @return remaining fraction of the disappearing animation, between 0 and 1
+     */
+    static double getDisappearingFactor(int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        double result = 1;
+        if (0 < numFramesUntilLinesDisappear + numFramesSinceLastLock) {
+            result = (double) numFramesUntilLinesDisappear / (numFramesUntilLinesDisappear + numFramesSinceLastLock);
+        }
+        return result;
+    }
+
     /**
      * Sets the block's stroke property.
      * 
@@ -156,17 +231,45 @@ enum BlockStyle {
      *            block
      */
     private void applyFill(Rectangle rectangle, Block block) {
+        rectangle.setFill(FILLS[ordinal()][block.ordinal()]);
+    }
+
+    /**
+     * Creates the fills for all combinations of style and block.
+     * 
+     * @return fills, indexed by style and block ordinal
+     */
+    private static Paint[][] createFills() {
+        BlockStyle[] styles = values();
+        Block[] blocks = Block.values();
+        Paint[][] result = new Paint[styles.length][blocks.length];
+        for (BlockStyle style : styles) {
+            for (Block block : blocks) {
+                result[style.ordinal()][block.ordinal()] = style.createFill(block);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the fill for a block.
+     * 
+     * @param block
+     *            block
+     * @return fill
+     */
+    private Paint createFill(Block block) {
         Color color = getColor(block);
-        Paint fill = new RadialGradient(0,
+        // proportional to the block's bounds; for a block of BLOCK_SIZE, the radius is 20 pixels
+        return new RadialGradient(0,
                 1,
-                rectangle.getX() + rectangle.getWidth() / 4,
-                rectangle.getY() + rectangle.getHeight() / 4,
-                20,
-                false,
+                .25,
+                .25,
+                20. / BlockGroupRenderer.BLOCK_SIZE,
+                true,
                 CycleMethod.NO_CYCLE,
                 new Stop(0, color.brighter()),
                 new Stop(1, color.darker()));
-        rectangle.setFill(fill);
     }
 
     /**
@@ -178,10 +281,19 @@ enum BlockStyle {
      *            block
      */
     private void applyColor(Shape3D shape, Block block) {
-        Color color = getColor(block).brighter();
-        shape.setMaterial(new PhongMaterial(color));
+        shape.setMaterial(Materials.MATERIALS[ordinal()][block.ordinal()]);
     }
     
+    /**
+     * Retrieves the diffuse color for the given block in 3D graphics.
+     * 
+     * @param block block
+     * @return color
+     */
+    Color getDiffuseColor(@NonNull Block block) {
+        return getColor(block).brighter();
+    }
+
     /**
      * Retrieves the correct color for the given block.
      * 
@@ -208,8 +320,7 @@ enum BlockStyle {
         if (disappearingAnimation) {
             int duration = framesToMilliseconds(numFramesUntilLinesDisappear);
             FadeTransition fadeTransition = new FadeTransition(Duration.millis(duration), node);
-            fadeTransition.setFromValue((double) numFramesUntilLinesDisappear
-                    / (double) (numFramesUntilLinesDisappear + numFramesSinceLastLock));
+            fadeTransition.setFromValue(getDisappearingFactor(numFramesUntilLinesDisappear, numFramesSinceLastLock));
             fadeTransition.setToValue(0);
             fadeTransition.play();
         }
@@ -229,8 +340,8 @@ enum BlockStyle {
         if (disappearingAnimation) {
             int duration = framesToMilliseconds(numFramesUntilLinesDisappear);
             ScaleTransition transition = new ScaleTransition(Duration.millis(duration), node);
-            transition.setFromY(node.getScaleY() * ((double) numFramesUntilLinesDisappear
-                    / (double) (numFramesUntilLinesDisappear + numFramesSinceLastLock)));
+            transition.setFromY(node.getScaleY()
+                    * getDisappearingFactor(numFramesUntilLinesDisappear, numFramesSinceLastLock));
             transition.setToY(0);
             transition.play();
         }
@@ -245,4 +356,33 @@ enum BlockStyle {
     private int framesToMilliseconds(int frames) {
         return (int)(frames * GameLoop.TIME_BETWEEN_UPDATES / NANOSECONDS_PER_MILLISECOND);
     }
+
+    /**
+     * Holder for the materials for 3D blocks. These are kept separately from the fills, so that they are only created
+     * when 3D graphics are actually used.
+     */
+    private static class Materials {
+        /**
+         * Material for each combination of style and block, indexed by style and block ordinal. Shared by all blocks;
+         * must not be modified.
+         */
+        private static final PhongMaterial[][] MATERIALS = createMaterials();
+
+        /**
+         * Creates the materials for all combinations of style and block.
+         * 
+         * @return materials, indexed by style and block ordinal
+         */
+        private static PhongMaterial[][] createMaterials() {
+            BlockStyle[] styles = values();
+            Block[] blocks = Block.values();
+            PhongMaterial[][] result = new PhongMaterial[styles.length][blocks.length];
+            for (BlockStyle style : styles) {
+                for (Block block : blocks) {
+                    result[style.ordinal()][block.ordinal()] = new PhongMaterial(style.getDiffuseColor(block));
+                }
+            }
+            return result;
+        }
+    }
 }
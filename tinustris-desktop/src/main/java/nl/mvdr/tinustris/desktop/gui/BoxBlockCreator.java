@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
+import javafx.scene.Node;
 import javafx.scene.shape.Box;
 import nl.mvdr.tinustris.core.model.Block;
 
@@ -34,4 +35,30 @@ class BoxBlockCreator implements BlockCreator {
 
         return result;
     }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * This implementation moves and restyles the given box, unless the style is animated.
+     */
+    @Override
+    public Node updateBlock(Node node, double xCoordinate, double yCoordinate, double size, Block block,
+            BlockStyle style, int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        Node result;
+        if (style.isAnimated()) {
+            result = createBlock(xCoordinate, yCoordinate, size, block, style, numFramesUntilLinesDisappear,
+                    numFramesSinceLastLock);
+        } else {
+            Box box = (Box) node;
+            box.setTranslateX(xCoordinate + size / 2);
+            box.setTranslateY(yCoordinate + size / 2);
+            // the style may hide the box
+            box.setVisible(true);
+
+            style.apply(box, block, numFramesUntilLinesDisappear, numFramesSinceLastLock);
+
+            result = box;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import lombok.NonNull;
+import nl.mvdr.game.gui.GameRenderer;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Renders the grid onto a single {@link Canvas}, as an alternative to {@link GridRenderer}, which uses a node per
+ * block.
+ * 
+ * Blocks are drawn using pre-rendered sprites, one for each combination of {@link Block} and {@link BlockStyle}.
+ * Sprites are shared between all instances of this class. Each frame, the contents of every cell are compared to the
+ * ones previously drawn, using {@link GridCells}, and only the rows which have changed are redrawn.
+ * 
+ * Both the comparison and the drawing are done on the JavaFX thread, so that the cells are always compared to what
+ * is actually on the canvas, even when updates for intermediate game states have been dropped.
+ * 
+ * @author Martijn van de Rijdt
+ */
+class CanvasGridRenderer extends Canvas implements GameRenderer<OnePlayerGameState> {
+    /**
+     * Sprite for each combination of block and style, indexed by cell value (see
+     * {@link GridCells#toCellValue(Block, BlockStyle)}). Sprites are created lazily. Only used on the JavaFX thread.
+     */
+    private static final Image[] SPRITES = new Image[GridCells.NUM_CELL_VALUES];
+
+    /** Cells currently being drawn. Only used on the JavaFX thread. */
+    private final GridCells cells;
+
+    /**
+     * Constructor.
+     * 
+     * @param widthInBlocks
+     *            width of the grid in blocks
+     * @param heightInBlocks
+     *            height of the part of the grid to be displayed (not including the vanish zone!), in blocks
+     */
+    CanvasGridRenderer(int widthInBlocks, int heightInBlocks) {
+        super(widthInBlocks * BlockGroupRenderer.BLOCK_SIZE, heightInBlocks * BlockGroupRenderer.BLOCK_SIZE);
+
+        this.cells = new GridCells(true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void render(@NonNull OnePlayerGameState gameState) {
+        runOnJavaFXThread(() -> draw(gameState));
+    }
+
+    /**
+     * Redraws the rows which differ from the given game state. This method must be called from the JavaFX thread.
+     * 
+     * @param gameState game state
+     */
+    private void draw(OnePlayerGameState gameState) {
+        boolean[] dirtyRows = cells.update(gameState);
+        if (dirtyRows != null) {
+            drawRows(dirtyRows);
+        }
+    }
+
+    /**
+     * Redraws the given rows, using the cells of the frame currently being drawn. This method must be called from the
+     * JavaFX thread.
+     * 
+     * @param dirtyRows rows to be drawn
+     */
+    // Default visibility for unit tests.
+    void drawRows(boolean[] dirtyRows) {
+        GraphicsContext graphicsContext = getGraphicsContext2D();
+        int width = cells.getWidth();
+        int height = dirtyRows.length;
+        for (int y = 0; y != height; y++) {
+            if (dirtyRows[y]) {
+                double canvasY = (height - y - 1) * BlockGroupRenderer.BLOCK_SIZE;
+                graphicsContext.clearRect(0, canvasY, width * BlockGroupRenderer.BLOCK_SIZE,
+                        BlockGroupRenderer.BLOCK_SIZE);
+                for (int x = 0; x != width; x++) {
+                    int cell = cells.getCell(x, y);
+                    if (cell != GridCells.EMPTY) {
+                        BlockStyle style = GridCells.getStyle(cell);
+                        double opacity = style.getOpacity(0, 0);
+                        if (style == BlockStyle.DISAPPEARING) {
+                            opacity = opacity * cells.getDisappearingFactor();
+                        }
+                        graphicsContext.setGlobalAlpha(opacity);
+                        graphicsContext.drawImage(getSprite(cell), x * BlockGroupRenderer.BLOCK_SIZE, canvasY);
+                    }
+                }
+            }
+        }
+        graphicsContext.setGlobalAlpha(1);
+    }
+
+    /**
+     * Returns the sprite for the given cell value, creating it if necessary. This method must be called from the
+     * JavaFX thread.
+     * 
+     * @param cell cell value; must not be {@link GridCells#EMPTY}
+     * @return sprite
+     */
+    private static Image getSprite(int cell) {
+        Image result = SPRITES[cell];
+        if (result == null) {
+            Canvas canvas = new Canvas(BlockGroupRenderer.BLOCK_SIZE, BlockGroupRenderer.BLOCK_SIZE);
+            GridCells.getStyle(cell).draw(canvas.getGraphicsContext2D(), GridCells.getBlock(cell),
+                    BlockGroupRenderer.BLOCK_SIZE);
+            SnapshotParameters parameters = new SnapshotParameters();
+            parameters.setFill(Color.TRANSPARENT);
+            result = canvas.snapshot(parameters, null);
+            SPRITES[cell] = result;
+        }
+        return result;
+    }
+
+    /**
+     * Runs the given runnable on the JavaFX thread.
+     * 
+     * @param runnable
+     *            runnable
+     */
+    // Default visibility as an extension point for unit tests.
+    void runOnJavaFXThread(Runnable runnable) {
+        RenderBatcher.runOnJavaFXThread(this, runnable);
+    }
+}
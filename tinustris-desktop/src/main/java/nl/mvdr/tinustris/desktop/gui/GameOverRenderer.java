@@ -13,7 +13,6 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
-import javafx.application.Platform;
 import nl.mvdr.game.gui.GameRenderer;
 import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 
@@ -37,12 +36,13 @@ class GameOverRenderer extends GreenTextLabel implements GameRenderer<OnePlayerG
     }
     
     /**
-     * Runs the given runnable on the JavaFX thread.
+     * Runs the given runnable on the JavaFX thread. Since the runnable sets the entire state of this component, it
+     * replaces any runnable from a previous frame which has not been executed yet.
      * 
      * @param runnable runnable
      */
     // default visibility as an extension point for unit tests
     void runOnJavaFXThread(Runnable runnable) {
-        Platform.runLater(runnable);
+        RenderBatcher.runOnJavaFXThread(this, runnable);
     }
 }
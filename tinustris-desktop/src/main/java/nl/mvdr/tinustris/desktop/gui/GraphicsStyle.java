@@ -32,7 +32,12 @@ public enum GraphicsStyle implements GraphicsConfiguration {
     /** 2D graphics. */
     TWO_DIMENSIONAL("2D", () -> new RectangleBlockCreator(), true),
     /** Real-time 3D graphics. May not be supported in all runtimes. */
-    THREE_DIMENSIONAL("3D", () -> new BoxBlockCreator(), Platform.isSupported(ConditionalFeature.SCENE3D));
+    THREE_DIMENSIONAL("3D", () -> new BoxBlockCreator(), Platform.isSupported(ConditionalFeature.SCENE3D)),
+    /**
+     * 2D graphics, with the grid drawn onto a single canvas instead of using a node for each block. Looks like
+     * {@link #TWO_DIMENSIONAL}, but scales better to many players on a single screen.
+     */
+    CANVAS("2D (canvas)", () -> new RectangleBlockCreator(), true);
     
     /** Name of this enum value. */
     @Getter
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Point;
+
+/**
+ * Contents of the visible part of the grid, as displayed by a renderer which only redraws the rows which have changed,
+ * such as {@link CanvasGridRenderer} and {@link MeshGridRenderer}.
+ * 
+ * The contents of each cell are encoded as a single int value: the combination of its {@link Block} and
+ * {@link BlockStyle}, or {@link #EMPTY}. Each frame, the values of all cells are computed and compared to the ones of
+ * the frame currently being displayed. Two arrays of cell values are kept and swapped every frame, so that no new
+ * arrays need to be allocated.
+ * 
+ * Instances of this class are not thread-safe; renderers only use them on the JavaFX thread.
+ * 
+ * @author Martijn van de Rijdt
+ */
+@ToString(of = { "ghost", "width", "height", "disappearingFactor" })
+class GridCells {
+    /** Value of an empty cell. */
+    static final int EMPTY = -1;
+    /** All blocks. Cached, since {@link Block#values()} creates a new array on every invocation. */
+    private static final Block[] BLOCKS = Block.values();
+    /** All block styles. */
+    private static final BlockStyle[] STYLES = BlockStyle.values();
+    /** Number of different values of a non-empty cell. Cell values range from 0 to this value, exclusive. */
+    static final int NUM_CELL_VALUES = BLOCKS.length * STYLES.length;
+
+    /** Whether the ghost of the active block is included. */
+    private final boolean ghost;
+
+    /** Width of the grid in the frame currently being displayed. */
+    @Getter(AccessLevel.PACKAGE)
+    private int width;
+    /** Height of the visible part of the grid in the frame currently being displayed. */
+    @Getter(AccessLevel.PACKAGE)
+    private int height;
+    /**
+     * Disappearing factor in the frame currently being displayed; see
+     * {@link BlockStyle#getDisappearingFactor(int, int)}.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private double disappearingFactor;
+    /**
+     * Per cell: value of the cell in the frame currently being displayed. Cell (x, y) has index x + y * width. Null
+     * until the first frame.
+     */
+    private int[] renderedCells;
+    /** Per cell: value of the cell in the next frame. Null until the first frame. */
+    private int[] cells;
+
+    /**
+     * Constructor.
+     * 
+     * @param ghost
+     *            whether the ghost of the active block should be included
+     */
+    GridCells(boolean ghost) {
+        super();
+
+        this.ghost = ghost;
+    }
+
+    /**
+     * Computes the cells for the given game state, and compares them to the cells currently being displayed.
+     * Afterwards, the given game state is considered to be displayed.
+     * 
+     * @param gameState
+     *            game state
+     * @return per row: whether it has changed and needs to be redrawn; null if no row has changed
+     */
+    boolean[] update(@NonNull OnePlayerGameState gameState) {
+        int newWidth = gameState.getWidth();
+        int newHeight = gameState.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT;
+        double newDisappearingFactor = BlockStyle.getDisappearingFactor(gameState.getNumFramesUntilLinesDisappear(),
+                gameState.getNumFramesSinceLastLock());
+
+        if (cells == null || newWidth != width || newHeight != height) {
+            // first frame, or a grid of different dimensions: nothing is being displayed yet
+            cells = new int[newWidth * newHeight];
+            renderedCells = null;
+        }
+        computeCells(gameState, newWidth, newHeight);
+
+        boolean disappearingFactorChanged = newDisappearingFactor != disappearingFactor;
+        boolean[] result = null;
+        for (int y = 0; y != newHeight; y++) {
+            if (isDirtyRow(y, newWidth, disappearingFactorChanged)) {
+                if (result == null) {
+                    result = new boolean[newHeight];
+                }
+                result[y] = true;
+            }
+        }
+
+        // swap the arrays, so that the next frame is compared to this one
+        int[] previousCells = renderedCells;
+        renderedCells = cells;
+        if (previousCells == null) {
+            cells = new int[newWidth * newHeight];
+        } else {
+            cells = previousCells;
+        }
+        width = newWidth;
+        height = newHeight;
+        disappearingFactor = newDisappearingFactor;
+
+        return result;
+    }
+
+    /**
+     * Computes the value of each cell in the given game state, and stores them in {@link #cells}.
+     * 
+     * @param gameState game state
+     * @param newWidth width of the grid
+     * @param newHeight height of the visible part of the grid
+     */
+    private void computeCells(OnePlayerGameState gameState, int newWidth, int newHeight) {
+        Grid grid = gameState.getGrid();
+        // the grid keeps track of its full lines, so there is no need to test every line
+        int fullLine = grid.nextFullLine(0);
+        for (int y = 0; y != newHeight; y++) {
+            BlockStyle style;
+            if (y == fullLine) {
+                style = BlockStyle.DISAPPEARING;
+                fullLine = grid.nextFullLine(y + 1);
+            } else {
+                style = BlockStyle.GRID;
+            }
+            for (int x = 0; x != newWidth; x++) {
+                cells[x + y * newWidth] = grid.getBlock(x, y)
+                        .map(block -> toCellValue(block, style))
+                        .orElse(EMPTY);
+            }
+        }
+
+        gameState.getActiveTetromino().ifPresent(tetromino -> {
+            if (ghost) {
+                // the active block is drawn on top of the ghost
+                setCells(gameState.getGhostPoints(), newWidth, newHeight,
+                        toCellValue(tetromino.getBlock(), BlockStyle.GHOST));
+            }
+            setCells(gameState.getCurrentActiveBlockPoints(), newWidth, newHeight,
+                    toCellValue(tetromino.getBlock(), BlockStyle.ACTIVE));
+        });
+    }
+
+    /**
+     * Sets the given cells in {@link #cells} to the given value. Points above the visible part of the grid are ignored.
+     * 
+     * @param points points
+     * @param newWidth width of the grid
+     * @param newHeight height of the visible part of the grid
+     * @param value cell value
+     */
+    private void setCells(Iterable<Point> points, int newWidth, int newHeight, int value) {
+        for (Point point : points) {
+            if (point.getY() < newHeight) {
+                cells[point.getX() + point.getY() * newWidth] = value;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the given row needs to be redrawn.
+     * 
+     * @param y row
+     * @param newWidth width of the grid
+     * @param disappearingFactorChanged whether the disappearing factor has changed since the previous frame
+     * @return whether the row is dirty
+     */
+    private boolean isDirtyRow(int y, int newWidth, boolean disappearingFactorChanged) {
+        boolean result = renderedCells == null;
+        for (int x = 0; !result && x != newWidth; x++) {
+            int cell = cells[x + y * newWidth];
+            result = cell != renderedCells[x + y * newWidth]
+                    || disappearingFactorChanged && cell != EMPTY && getStyle(cell) == BlockStyle.DISAPPEARING;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of a cell in the frame currently being displayed.
+     * 
+     * @param x x coordinate
+     * @param y y coordinate
+     * @return cell value, or {@link #EMPTY}
+     */
+    int getCell(int x, int y) {
+        return renderedCells[x + y * width];
+    }
+
+    /**
+     * Encodes a block and its style as a cell value.
+     * 
+     * @param block block
+     * @param style style
+     * @return cell value
+     */
+    static int toCellValue(@NonNull Block block, @NonNull BlockStyle style) {
+        return style.ordinal() * BLOCKS.length + block.ordinal();
+    }
+
+    /**
+     * Decodes the block from a cell value.
+     * 
+     * @param cell cell value; must not be {@link #EMPTY}
+     * @return block
+     */
+    static Block getBlock(int cell) {
+        return BLOCKS[cell % BLOCKS.length];
+    }
+
+    /**
+     * Decodes the block style from a cell value.
+     * 
+     * @param cell cell value; must not be {@link #EMPTY}
+     * @return block style
+     */
+    static BlockStyle getStyle(int cell) {
+        return STYLES[cell / BLOCKS.length];
+    }
+}
@@ -13,25 +13,61 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
 
 import javafx.scene.Group;
 import javafx.scene.Node;
+import lombok.NonNull;
+import nl.mvdr.game.gui.GameRenderer;
 import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.Grid;
 import nl.mvdr.tinustris.core.model.OnePlayerGameState;
 import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
 
 /**
  * JavaFX node that contains the graphical representation of the grid.
  * 
+ * Rather than building new nodes for every change, this renderer keeps a node for each cell of the grid and for each
+ * square of the ghost and the active block. Each frame, the new game state is compared to the one previously
+ * rendered, and only the nodes for the cells which have changed are updated, using
+ * {@link BlockCreator#updateBlock(Node, double, double, double, Block, BlockStyle, int, int)}. Cells which become
+ * empty are hidden. Nodes with an animated style are replaced rather than updated.
+ * 
+ * Both the comparison and the updates are done on the JavaFX thread, so that the nodes are always compared to the
+ * game state they are actually displaying, even when updates for intermediate game states have been dropped.
+ * 
  * @author Martijn van de Rijdt
  */
-class GridRenderer extends BlockGroupRenderer {
-    /** Previous game state, currently being displayed. Initially empty. */
-    private Optional<OnePlayerGameState> previousState;
+class GridRenderer extends Group implements GameRenderer<OnePlayerGameState> {
+    /** Block creator. */
+    private final BlockCreator blockCreator;
+    /** Group containing the nodes for the cells of the grid. */
+    private final Group gridGroup;
+    /** Group containing the nodes for the ghost. */
+    private final Group ghostGroup;
+    /** Group containing the nodes for the active block. */
+    private final Group activeBlockGroup;
+
+    /** Grid currently being displayed; null until the first frame. Only used on the JavaFX thread. */
+    private Grid previousGrid;
+    /**
+     * Per cell: block currently being displayed, or null if the cell is empty. Cell (x, y) has index x + y * width.
+     * Only used on the JavaFX thread.
+     */
+    private Block[] cellBlocks;
+    /** Per cell: node, or null if none has been created yet. Only used on the JavaFX thread. */
+    private Node[] cellNodes;
+    /** Per cell: style of the node. Only used on the JavaFX thread. */
+    private BlockStyle[] cellNodeStyles;
+    /** Ghost points currently being displayed. Only used on the JavaFX thread. */
+    private Set<Point> previousGhostPoints;
+    /** Active block points currently being displayed. Only used on the JavaFX thread. */
+    private Set<Point> previousActiveBlockPoints;
+    /** Block of the active tetromino currently being displayed, or null. Only used on the JavaFX thread. */
+    private Block previousActiveBlock;
 
     /**
      * Constructor.
@@ -39,118 +75,223 @@ class GridRenderer extends BlockGroupRenderer {
      * @param blockCreator creator
      */
     GridRenderer(BlockCreator blockCreator) {
-        super(blockCreator);
-        previousState = Optional.empty();
+        super();
+
+        this.blockCreator = blockCreator;
+        this.gridGroup = new Group();
+        this.ghostGroup = new Group();
+        this.activeBlockGroup = new Group();
+        this.previousGhostPoints = Collections.emptySet();
+        this.previousActiveBlockPoints = Collections.emptySet();
+
+        getChildren().addAll(gridGroup, ghostGroup, activeBlockGroup);
     }
-    
+
     /** {@inheritDoc} */
     @Override
-    public void render(OnePlayerGameState gameState) {
-        super.render(gameState);
-        previousState = Optional.of(gameState);
+    public void render(@NonNull OnePlayerGameState gameState) {
+        runOnJavaFXThread(() -> update(gameState));
     }
-    
-    /** {@inheritDoc} */
-    @Override
-    List<Optional<Group>> createGroups(OnePlayerGameState gameState) {
-        // create groups if state has changed; otherwise these groups may remain null
-        Optional<Group> grid = createGridGroup(gameState);
-        Optional<Group> ghost = createGhostGroup(gameState);
-        Optional<Group> activeBlock = createActiveBlockGroup(gameState);
-        
-        return Arrays.asList(grid, ghost, activeBlock);
+
+    /**
+     * Updates the nodes to display the given game state. This method must be called from the JavaFX thread.
+     * 
+     * @param gameState game state
+     */
+    private void update(OnePlayerGameState gameState) {
+        int height = gameState.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT;
+        int width = gameState.getWidth();
+        int numFramesUntilLinesDisappear = gameState.getNumFramesUntilLinesDisappear();
+        int numFramesSinceLastLock = gameState.getNumFramesSinceLastLock();
+
+        updateCells(gameState.getGrid(), width, height, numFramesUntilLinesDisappear, numFramesSinceLastLock);
+
+        Block activeBlock = gameState.getActiveTetromino().map(Tetromino::getBlock).orElse(null);
+        Set<Point> ghostPoints = gameState.getGhostPoints();
+        Set<Point> activeBlockPoints = gameState.getCurrentActiveBlockPoints();
+        if (activeBlock != previousActiveBlock || !ghostPoints.equals(previousGhostPoints)) {
+            updateTetromino(ghostGroup, ghostPoints, activeBlock, BlockStyle.GHOST, height,
+                    numFramesUntilLinesDisappear, numFramesSinceLastLock);
+        }
+        if (activeBlock != previousActiveBlock || !activeBlockPoints.equals(previousActiveBlockPoints)) {
+            updateTetromino(activeBlockGroup, activeBlockPoints, activeBlock, BlockStyle.ACTIVE, height,
+                    numFramesUntilLinesDisappear, numFramesSinceLastLock);
+        }
+        previousActiveBlock = activeBlock;
+        previousGhostPoints = ghostPoints;
+        previousActiveBlockPoints = activeBlockPoints;
     }
 
     /**
-     * Creates the group representing the static grid (blocks that have already been locked in place.
+     * Compares the given grid to the one currently being displayed, and updates the nodes for the cells which have
+     * changed. This method must be called from the JavaFX thread.
      * 
-     * @param gameState new game state
-     * @return null if the group does not need to be updated; otherwise, the newly created group
+     * @param grid new grid
+     * @param width width of the grid
+     * @param height height of the visible part of the grid
+     * @param numFramesUntilLinesDisappear the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock the numFramesSinceLastLock property from the game state
      */
-    private Optional<Group> createGridGroup(final OnePlayerGameState gameState) {
-        Optional<Group> result;
+    private void updateCells(Grid grid, int width, int height, int numFramesUntilLinesDisappear,
+            int numFramesSinceLastLock) {
         // Use == instead of equals since it's much more efficient and there is a low chance of collisions.
-        if (previousState.filter(s -> s.getGrid() == gameState.getGrid()).isPresent()) {
-            // Grid is unchanged; no need to update.
-            result = Optional.empty();
-        } else {
-            // This is the first frame, or the grids aren't the same object.
-            // In the latter case they might still be equal, but that is not very likely.
-            // Render the group.
-            result = Optional.of(new Group());
-            int height = gameState.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT;
+        if (grid != previousGrid) {
+            if (cellNodes == null || cellNodes.length != width * height) {
+                // first frame, or a grid of different dimensions: nothing is being displayed yet
+                cellBlocks = new Block[width * height];
+                cellNodes = new Node[width * height];
+                cellNodeStyles = new BlockStyle[width * height];
+                gridGroup.getChildren().clear();
+            }
+
+            // the grid keeps track of its full lines, so there is no need to test every line
+            int fullLine = grid.nextFullLine(0);
             for (int y = 0; y != height; y++) {
                 BlockStyle style;
-                if (gameState.isFullLine(y)) {
+                if (y == fullLine) {
                     style = BlockStyle.DISAPPEARING;
+                    fullLine = grid.nextFullLine(y + 1);
                 } else {
                     style = BlockStyle.GRID;
                 }
-                
-                for (int x = 0; x != gameState.getWidth(); x++) {
-                    Optional<Block> block = gameState.getBlock(x, y);
-                    if (block.isPresent()) {
-                        Node node = createBlock(x, y, height, block.get(), style,
-                                gameState.getNumFramesUntilLinesDisappear(), gameState.getNumFramesSinceLastLock());
-                        result.get().getChildren().add(node);
+
+                for (int x = 0; x != width; x++) {
+                    int index = x + y * width;
+                    Block block = grid.getBlock(x, y).orElse(null);
+                    if (block != cellBlocks[index] || block != null && style != cellNodeStyles[index]) {
+                        updateCell(index, x, y, height, block, style, numFramesUntilLinesDisappear,
+                                numFramesSinceLastLock);
+                        cellBlocks[index] = block;
                     }
                 }
             }
+            previousGrid = grid;
         }
-        return result;
+        // else: grid is unchanged; no need to update
     }
 
     /**
-     * Creates the group representing the ghost.
+     * Updates the node for a single cell. This method must be called from the JavaFX thread.
      * 
-     * @param gameState new game state
-     * @return null if the group does not need to be updated; otherwise, the newly created group
+     * @param index index of the cell
+     * @param x x coordinate in the grid
+     * @param y y coordinate in the grid
+     * @param height height of the visible part of the grid
+     * @param block new block, or null if the cell has become empty
+     * @param style style
+     * @param numFramesUntilLinesDisappear the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock the numFramesSinceLastLock property from the game state
      */
-    private Optional<Group> createGhostGroup(final OnePlayerGameState gameState) {
-        Optional<Group> result;
-        Set<Point> ghostPoints = gameState.getGhostPoints();
-        if (previousState.filter(p -> p.getGhostPoints().equals(ghostPoints)).isPresent()) {
-            // Ghost location is unchanged; no need to update.
-            result = Optional.empty();
+    private void updateCell(int index, int x, int y, int height, Block block, BlockStyle style,
+            int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        Node node = cellNodes[index];
+        if (block == null) {
+            if (node != null) {
+                node.setVisible(false);
+            }
         } else {
-            // This is the first frame, or the ghost has changed.
-            // Render the group.
-            result = Optional.of(new Group());
-            int height = gameState.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT;
-            for (Point point : ghostPoints) {
-                Node node = createBlock(point.getX(), point.getY(), height,
-                        gameState.getActiveTetromino().get().getBlock(), BlockStyle.GHOST,
-                        gameState.getNumFramesUntilLinesDisappear(), gameState.getNumFramesSinceLastLock());
-                result.get().getChildren().add(node);
+            Node newNode;
+            if (node == null || cellNodeStyles[index].isAnimated()) {
+                // the node's animation may still be running, so it cannot be reused
+                newNode = createBlock(x, y, height, block, style, numFramesUntilLinesDisappear,
+                        numFramesSinceLastLock);
+            } else {
+                newNode = updateBlock(node, x, y, height, block, style, numFramesUntilLinesDisappear,
+                        numFramesSinceLastLock);
+            }
+
+            if (node == null) {
+                gridGroup.getChildren().add(newNode);
+            } else if (newNode != node) {
+                gridGroup.getChildren().set(gridGroup.getChildren().indexOf(node), newNode);
             }
+            cellNodes[index] = newNode;
+            cellNodeStyles[index] = style;
         }
-        return result;
     }
 
     /**
-     * Creates the group representing the currently active block.
+     * Updates the nodes in the given group to show a tetromino at the given points. Nodes which are not needed are
+     * hidden. This method must be called from the JavaFX thread.
      * 
-     * @param gameState new game state
-     * @return null if the group does not need to be updated; otherwise, the newly created group
+     * @param group group containing one node per square of the tetromino
+     * @param points points to be displayed
+     * @param block block; may be null if there are no points
+     * @param style style
+     * @param height height of the visible part of the grid
+     * @param numFramesUntilLinesDisappear the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock the numFramesSinceLastLock property from the game state
      */
-    private Optional<Group> createActiveBlockGroup(final OnePlayerGameState gameState) {
-        Optional<Group> result;
-        Set<Point> currentActiveBlockPoints = gameState.getCurrentActiveBlockPoints();
-        if (previousState.filter(s -> s.getCurrentActiveBlockPoints().equals(currentActiveBlockPoints)).isPresent()) {
-            // Active block location is unchanged; no need to update.
-            result = Optional.empty();
-        } else {
-            // This is the first frame, or the active block's location has changed.
-            // Render the group.
-            result = Optional.of(new Group());
-            int height = gameState.getHeight() - OnePlayerGameState.VANISH_ZONE_HEIGHT;
-            for (Point point : currentActiveBlockPoints) {
-                Node node = createBlock(point.getX(), point.getY(), height,
-                        gameState.getActiveTetromino().get().getBlock(), BlockStyle.ACTIVE,
-                        gameState.getNumFramesUntilLinesDisappear(), gameState.getNumFramesSinceLastLock());
-                result.get().getChildren().add(node);
+    private void updateTetromino(Group group, Set<Point> points, Block block, BlockStyle style, int height,
+            int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        List<Node> nodes = group.getChildren();
+        int i = 0;
+        for (Point point : points) {
+            if (i < nodes.size()) {
+                Node node = nodes.get(i);
+                Node newNode = updateBlock(node, point.getX(), point.getY(), height, block, style,
+                        numFramesUntilLinesDisappear, numFramesSinceLastLock);
+                if (newNode != node) {
+                    nodes.set(i, newNode);
+                }
+            } else {
+                nodes.add(createBlock(point.getX(), point.getY(), height, block, style, numFramesUntilLinesDisappear,
+                        numFramesSinceLastLock));
             }
+            i++;
         }
-        return result;
+        for (; i != nodes.size(); i++) {
+            nodes.get(i).setVisible(false);
+        }
+    }
+
+    /**
+     * Creates a block.
+     * 
+     * @param x x coordinate in the grid
+     * @param y y coordinate in the grid
+     * @param height height of the (visible part of the) grid
+     * @param block block to be drawn
+     * @param style style in which to render the block
+     * @param numFramesUntilLinesDisappear the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock the numFramesSinceLastLock property from the game state
+     * @return new block
+     */
+    private Node createBlock(int x, int y, int height, Block block, BlockStyle style,
+            int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        return blockCreator.createBlock(x * BlockGroupRenderer.BLOCK_SIZE,
+                (height - y - 1) * BlockGroupRenderer.BLOCK_SIZE, BlockGroupRenderer.BLOCK_SIZE, block, style,
+                numFramesUntilLinesDisappear, numFramesSinceLastLock);
+    }
+
+    /**
+     * Updates a block.
+     * 
+     * @param node node to be updated
+     * @param x x coordinate in the grid
+     * @param y y coordinate in the grid
+     * @param height height of the (visible part of the) grid
+     * @param block block to be drawn
+     * @param style style in which to render the block
+     * @param numFramesUntilLinesDisappear the numFramesUntilLinesDisappear property from the game state
+     * @param numFramesSinceLastLock the numFramesSinceLastLock property from the game state
+     * @return updated block; either the given node or a new one
+     */
+    private Node updateBlock(Node node, int x, int y, int height, Block block, BlockStyle style,
+            int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        return blockCreator.updateBlock(node, x * BlockGroupRenderer.BLOCK_SIZE,
+                (height - y - 1) * BlockGroupRenderer.BLOCK_SIZE, BlockGroupRenderer.BLOCK_SIZE, block, style,
+                numFramesUntilLinesDisappear, numFramesSinceLastLock);
+    }
+
+    /**
+     * Runs the given runnable on the JavaFX thread.
+     * 
+     * @param runnable
+     *            runnable
+     */
+    // Default visibility as an extension point for unit tests.
+    void runOnJavaFXThread(Runnable runnable) {
+        RenderBatcher.runOnJavaFXThread(this, runnable);
     }
 }
@@ -13,7 +13,6 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
-import javafx.application.Platform;
 import lombok.NonNull;
 import nl.mvdr.game.gui.GameRenderer;
 import nl.mvdr.game.state.GameState;
@@ -36,13 +35,14 @@ abstract class LabelRenderer<S extends GameState> extends GreenTextLabel impleme
     }
     
     /**
-     * Runs the given runnable on the JavaFX thread.
+     * Runs the given runnable on the JavaFX thread. Since the runnable sets the entire state of this component, it
+     * replaces any runnable from a previous frame which has not been executed yet.
      * 
      * @param runnable runnable
      */
     // default visibility as an extension point for unit tests
     void runOnJavaFXThread(Runnable runnable) {
-        Platform.runLater(runnable);
+        RenderBatcher.runOnJavaFXThread(this, runnable);
     }
     
     /**
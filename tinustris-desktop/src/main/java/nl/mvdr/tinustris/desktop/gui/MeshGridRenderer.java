@@ -0,0 +1,265 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.scene.Group;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import nl.mvdr.game.gui.GameRenderer;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+
+/**
+ * Renders the grid in 3D as a single {@link TriangleMesh}, as an alternative to {@link GridRenderer} with a
+ * {@link BoxBlockCreator}, which uses a separate node for each block.
+ * 
+ * Each cell of the grid has a fixed slot in the mesh: eight points and twelve triangles forming a cube, plus a single
+ * texture coordinate shared by all of the cube's points. The texture coordinate points into a texture atlas containing
+ * the color for each combination of {@link Block} and {@link BlockStyle}. The points of an empty cell are all placed
+ * at the origin, so its triangles are degenerate and invisible. Since the triangles themselves never change, only
+ * the points and texture coordinates of the rows which have changed need to be updated each frame. The comparison is
+ * done on the JavaFX thread by {@link GridCells}, against what the mesh is actually displaying.
+ * 
+ * Ghost blocks are not shown, since opacity is not supported in JavaFX 3D graphics. For the same reason, disappearing
+ * blocks are squashed rather than faded out.
+ * 
+ * @author Martijn van de Rijdt
+ */
+class MeshGridRenderer extends Group implements GameRenderer<OnePlayerGameState> {
+    /** Number of blocks, which is the number of columns in the texture atlas. */
+    private static final int NUM_BLOCKS = Block.values().length;
+    /** Number of block styles, which is the number of rows in the texture atlas. */
+    private static final int NUM_STYLES = BlockStyle.values().length;
+    /** Number of point coordinates in the slot for a single cell: eight points of three coordinates each. */
+    private static final int POINTS_PER_CELL = 8 * 3;
+    /** Number of texture coordinates in the slot for a single cell. */
+    private static final int TEX_COORDS_PER_CELL = 2;
+    /** Number of triangles in the slot for a single cell: two for each side of a cube. */
+    private static final int TRIANGLES_PER_CELL = 12;
+    /** Number of face values in the slot for a single cell: twelve triangles of three point and texture indices. */
+    private static final int FACES_PER_CELL = TRIANGLES_PER_CELL * 6;
+    /**
+     * The six sides of a cube, as quadrilaterals wound so that they face outward. Corner i of the cube has x offset
+     * i &amp; 1, y offset (i &gt;&gt; 1) &amp; 1 and z offset i &gt;&gt; 2.
+     */
+    private static final int[] CUBE_QUADS = {
+        0, 2, 3, 1,
+        4, 5, 7, 6,
+        0, 4, 6, 2,
+        1, 3, 7, 5,
+        0, 1, 5, 4,
+        2, 6, 7, 3 };
+    /** Corners of the two triangles making up a quadrilateral, as indices into the quadrilateral. */
+    private static final int[] QUAD_TRIANGLES = { 0, 1, 2, 0, 2, 3 };
+    /** Size in pixels of the square for each block and style in the texture atlas. */
+    private static final int ATLAS_SQUARE_SIZE = 4;
+
+    /**
+     * Material containing the texture atlas. Shared by all instances; created lazily. Only used on the JavaFX
+     * thread.
+     */
+    private static PhongMaterial material;
+
+    /** Mesh. */
+    @Getter(AccessLevel.PACKAGE)
+    private final TriangleMesh mesh;
+
+    /** Cells currently being displayed. Only used on the JavaFX thread. */
+    private final GridCells cells;
+
+    /** Constructor. */
+    MeshGridRenderer() {
+        super();
+
+        this.mesh = new TriangleMesh();
+        this.cells = new GridCells(false);
+        getChildren().add(new MeshView(mesh));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void render(@NonNull OnePlayerGameState gameState) {
+        runOnJavaFXThread(() -> update(gameState));
+    }
+
+    /**
+     * Updates the rows of the mesh which differ from the given game state. This method must be called from the JavaFX
+     * thread.
+     * 
+     * @param gameState game state
+     */
+    private void update(OnePlayerGameState gameState) {
+        boolean[] dirtyRows = cells.update(gameState);
+        if (dirtyRows != null) {
+            List<RowUpdate> rowUpdates = new ArrayList<>();
+            for (int y = 0; y != dirtyRows.length; y++) {
+                if (dirtyRows[y]) {
+                    rowUpdates.add(createRowUpdate(y));
+                }
+            }
+            updateMesh(rowUpdates, cells.getWidth(), cells.getHeight());
+        }
+    }
+
+    /**
+     * Computes the points and texture coordinates for a single row, using the cells of the frame currently being
+     * displayed.
+     * 
+     * @param y row
+     * @return row update
+     */
+    private RowUpdate createRowUpdate(int y) {
+        int width = cells.getWidth();
+        int height = cells.getHeight();
+        float[] points = new float[width * POINTS_PER_CELL];
+        float[] texCoords = new float[width * TEX_COORDS_PER_CELL];
+        for (int x = 0; x != width; x++) {
+            int cell = cells.getCell(x, y);
+            if (cell != GridCells.EMPTY) {
+                // cube with the same dimensions as a box created by BoxBlockCreator
+                float size = BlockGroupRenderer.BLOCK_SIZE - 2;
+                float cubeHeight = size;
+                if (GridCells.getStyle(cell) == BlockStyle.DISAPPEARING) {
+                    cubeHeight = (float) (size * cells.getDisappearingFactor());
+                }
+                float minX = x * BlockGroupRenderer.BLOCK_SIZE + 1;
+                float minY = (height - y - 1) * BlockGroupRenderer.BLOCK_SIZE + 1 + (size - cubeHeight) / 2;
+                float minZ = -size / 2;
+                for (int corner = 0; corner != 8; corner++) {
+                    int index = x * POINTS_PER_CELL + corner * 3;
+                    points[index] = minX + (corner & 1) * size;
+                    points[index + 1] = minY + (corner >> 1 & 1) * cubeHeight;
+                    points[index + 2] = minZ + (corner >> 2) * size;
+                }
+
+                // center of the square for this block and style in the texture atlas
+                texCoords[x * TEX_COORDS_PER_CELL] = (GridCells.getBlock(cell).ordinal() + .5f) / NUM_BLOCKS;
+                texCoords[x * TEX_COORDS_PER_CELL + 1] = (GridCells.getStyle(cell).ordinal() + .5f) / NUM_STYLES;
+            }
+        }
+        return new RowUpdate(y, points, texCoords);
+    }
+
+    /**
+     * Updates the given rows in the mesh. This method must be called from the JavaFX thread.
+     * 
+     * @param rowUpdates row updates
+     * @param width width of the grid
+     * @param height height of the visible part of the grid
+     */
+    // Default visibility for unit tests.
+    void updateMesh(List<RowUpdate> rowUpdates, int width, int height) {
+        if (mesh.getFaces().size() != width * height * FACES_PER_CELL) {
+            initMesh(width, height);
+        }
+        for (RowUpdate update : rowUpdates) {
+            mesh.getPoints().set(update.y * width * POINTS_PER_CELL, update.points, 0, update.points.length);
+            mesh.getTexCoords().set(update.y * width * TEX_COORDS_PER_CELL, update.texCoords, 0,
+                    update.texCoords.length);
+        }
+    }
+
+    /**
+     * Initialises the mesh with a slot for each cell. This method must be called from the JavaFX thread.
+     * 
+     * @param width width of the grid
+     * @param height height of the visible part of the grid
+     */
+    private void initMesh(int width, int height) {
+        int numCells = width * height;
+        int[] faces = new int[numCells * FACES_PER_CELL];
+        int[] smoothingGroups = new int[numCells * TRIANGLES_PER_CELL];
+        int index = 0;
+        int triangle = 0;
+        for (int cell = 0; cell != numCells; cell++) {
+            int firstPoint = cell * 8;
+            for (int quad = 0; quad != CUBE_QUADS.length; quad += 4) {
+                // two triangles per quadrilateral; all points of the cell share the cell's texture coordinate
+                for (int corner : QUAD_TRIANGLES) {
+                    faces[index] = firstPoint + CUBE_QUADS[quad + corner];
+                    faces[index + 1] = cell;
+                    index = index + 2;
+                }
+                // each side of the cube gets its own smoothing group, so the cube is shaded flat like a Box
+                smoothingGroups[triangle] = 1 << quad / 4;
+                smoothingGroups[triangle + 1] = 1 << quad / 4;
+                triangle = triangle + 2;
+            }
+        }
+
+        mesh.getPoints().setAll(new float[numCells * POINTS_PER_CELL]);
+        mesh.getTexCoords().setAll(new float[numCells * TEX_COORDS_PER_CELL]);
+        mesh.getFaces().setAll(faces);
+        mesh.getFaceSmoothingGroups().setAll(smoothingGroups);
+        ((MeshView) getChildren().get(0)).setMaterial(getMaterial());
+    }
+
+    /**
+     * Returns the material containing the texture atlas, creating it if necessary. This method must be called from
+     * the JavaFX thread.
+     * 
+     * @return material
+     */
+    private static PhongMaterial getMaterial() {
+        if (material == null) {
+            WritableImage atlas = new WritableImage(NUM_BLOCKS * ATLAS_SQUARE_SIZE, NUM_STYLES * ATLAS_SQUARE_SIZE);
+            PixelWriter writer = atlas.getPixelWriter();
+            for (BlockStyle style : BlockStyle.values()) {
+                for (Block block : Block.values()) {
+                    for (int i = 0; i != ATLAS_SQUARE_SIZE * ATLAS_SQUARE_SIZE; i++) {
+                        writer.setColor(block.ordinal() * ATLAS_SQUARE_SIZE + i % ATLAS_SQUARE_SIZE,
+                                style.ordinal() * ATLAS_SQUARE_SIZE + i / ATLAS_SQUARE_SIZE,
+                                style.getDiffuseColor(block));
+                    }
+                }
+            }
+            material = new PhongMaterial();
+            material.setDiffuseMap(atlas);
+        }
+        return material;
+    }
+
+    /**
+     * Runs the given runnable on the JavaFX thread.
+     * 
+     * @param runnable
+     *            runnable
+     */
+    // Default visibility as an extension point for unit tests.
+    void runOnJavaFXThread(Runnable runnable) {
+        RenderBatcher.runOnJavaFXThread(this, runnable);
+    }
+
+    /** New points and texture coordinates for a single row of the grid. */
+    @RequiredArgsConstructor
+    @Getter(AccessLevel.PACKAGE)
+    static class RowUpdate {
+        /** Y coordinate of the row. */
+        private final int y;
+        /** Points for the cells in the row. */
+        private final float[] points;
+        /** Texture coordinates for the cells in the row. */
+        private final float[] texCoords;
+    }
+}
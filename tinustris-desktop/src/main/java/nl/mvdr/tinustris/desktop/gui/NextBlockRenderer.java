@@ -30,7 +30,10 @@ import nl.mvdr.tinustris.core.model.Tetromino;
  * @author Martijn van de Rijdt
  */
 class NextBlockRenderer extends BlockGroupRenderer {
-    /** Previous value for the next tetromino field, currently being displayed. Initially empty. */
+    /**
+     * Previous value for the next tetromino field, currently being displayed. Initially empty. Only used on the JavaFX
+     * thread.
+     */
     private Optional<Tetromino> previousValue;
     
     /**
@@ -43,13 +46,6 @@ class NextBlockRenderer extends BlockGroupRenderer {
         previousValue = Optional.empty();
     }
     
-    /** {@inheritDoc} */
-    @Override
-    public void render(OnePlayerGameState gameState) {
-        super.render(gameState);
-        previousValue = Optional.of(gameState.getNext());
-    }
-    
     /** {@inheritDoc} */
     @Override
     List<Optional<Group>> createGroups(OnePlayerGameState gameState) {
@@ -73,6 +69,7 @@ class NextBlockRenderer extends BlockGroupRenderer {
                 group.get().getChildren().add(node);
             }
         }
+        previousValue = Optional.of(nextBlock);
         
         return Collections.singletonList(group);
     }
@@ -68,9 +68,27 @@ class OnePlayerGameRenderer extends Group implements GameRenderer<OnePlayerGameS
      *            block creator
      */
     OnePlayerGameRenderer(@NonNull String playerName, int widthInBlocks, int heightInBlocks, @NonNull BlockCreator blockCreator) {
+        this(playerName, widthInBlocks, heightInBlocks, blockCreator, new GridRenderer(blockCreator));
+    }
+    
+    /**
+     * Constructor.
+     * 
+     * @param playerName
+     *            player's name
+     * @param widthInBlocks
+     *            width of the grid in blocks
+     * @param heightInBlocks
+     *            height of the part of the grid to be displayed (not including the vanish zone!), in blocks
+     * @param blockCreator
+     *            block creator, used for the next block
+     * @param gridGroup
+     *            renderer for the grid
+     */
+    <G extends Node & GameRenderer<OnePlayerGameState>> OnePlayerGameRenderer(@NonNull String playerName,
+            int widthInBlocks, int heightInBlocks, @NonNull BlockCreator blockCreator, @NonNull G gridGroup) {
         super();
         
-        GridRenderer gridGroup = new GridRenderer(blockCreator);
         NextBlockRenderer nextBlockRenderer = new NextBlockRenderer(blockCreator);
         LinesRenderer linesRenderer = new LinesRenderer();
         LevelRenderer levelRenderer = new LevelRenderer();
@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
+import javafx.scene.Node;
 import javafx.scene.shape.Rectangle;
 import nl.mvdr.tinustris.core.model.Block;
 
@@ -39,4 +40,30 @@ class RectangleBlockCreator implements BlockCreator {
         return result;
     }
 
+    /**
+     * {@inheritDoc}
+     * 
+     * This implementation moves and restyles the given rectangle, unless the style is animated.
+     */
+    @Override
+    public Node updateBlock(Node node, double xCoordinate, double yCoordinate, double size, Block block,
+            BlockStyle style, int numFramesUntilLinesDisappear, int numFramesSinceLastLock) {
+        Node result;
+        if (style.isAnimated()) {
+            result = createBlock(xCoordinate, yCoordinate, size, block, style, numFramesUntilLinesDisappear,
+                    numFramesSinceLastLock);
+        } else {
+            Rectangle rectangle = (Rectangle) node;
+            rectangle.setX(xCoordinate);
+            rectangle.setY(yCoordinate);
+            rectangle.setWidth(size);
+            rectangle.setHeight(size);
+            rectangle.setVisible(true);
+
+            style.apply(rectangle, block, numFramesUntilLinesDisappear, numFramesSinceLastLock);
+
+            result = rectangle;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javafx.application.Platform;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import nl.mvdr.game.gui.GameRenderer;
+import nl.mvdr.game.state.GameState;
+
+/**
+ * Renderer which coalesces all updates to the scene graph made during a single frame into a single runnable on the
+ * JavaFX thread.
+ * 
+ * While the wrapped renderer is rendering a frame, renderers should submit their updates through
+ * {@link #runOnJavaFXThread(Object, Runnable)} instead of calling {@link Platform#runLater(Runnable)} themselves. At
+ * the end of the frame, the collected updates are posted to the JavaFX thread, unless the updates from a previous frame
+ * are still waiting to be executed. In that case the new updates are added to the waiting ones, so there is never more
+ * than one runnable in the JavaFX thread's queue.
+ * 
+ * Every update is submitted with a key, typically the renderer itself, and replaces any waiting update with the same
+ * key. This way updates which have become stale while the JavaFX thread was falling behind are dropped, and the number
+ * of waiting updates is bounded by the number of keys. For this to work, an update must bring its component up to
+ * date by itself, regardless of which earlier updates were dropped; renderers which only redraw what has changed
+ * should compare to the state last displayed on the JavaFX thread, not to the state last submitted.
+ * 
+ * @param <S> game state type
+ * 
+ * @author Martijn van de Rijdt
+ */
+@RequiredArgsConstructor
+class RenderBatcher<S extends GameState> implements GameRenderer<S> {
+    /** Batcher for the frame currently being rendered on this thread, if any. */
+    private static final ThreadLocal<RenderBatcher<?>> CURRENT = new ThreadLocal<>();
+
+    /** Wrapped renderer. */
+    @NonNull
+    private final GameRenderer<S> renderer;
+
+    /** Updates waiting to be executed on the JavaFX thread, in order of submission. Guarded by this. */
+    private List<Runnable> updates = new ArrayList<>();
+    /** Index in {@link #updates} of the waiting update for each key. Guarded by this. */
+    private final Map<Object, Integer> keyedUpdates = new HashMap<>();
+    /** Whether a runnable executing the waiting updates has been posted to the JavaFX thread. Guarded by this. */
+    private boolean posted;
+
+    /** {@inheritDoc} */
+    @Override
+    public void render(S gameState) {
+        RenderBatcher<?> previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            renderer.render(gameState);
+        } finally {
+            CURRENT.set(previous);
+        }
+        post();
+    }
+
+    /**
+     * Runs the given update on the JavaFX thread. When called while a {@link RenderBatcher} is rendering a frame on
+     * the current thread, the update is added to that frame's batch, replacing any update with the same key which
+     * has not been executed yet; otherwise it is posted to the JavaFX thread immediately.
+     * 
+     * An update must completely supersede any previous update with the same key.
+     * 
+     * @param key key, typically the component being updated
+     * @param update update
+     */
+    static void runOnJavaFXThread(@NonNull Object key, @NonNull Runnable update) {
+        RenderBatcher<?> batcher = CURRENT.get();
+        if (batcher == null) {
+            Platform.runLater(update);
+        } else {
+            batcher.add(key, update);
+        }
+    }
+
+    /**
+     * Adds an update to the batch.
+     * 
+     * @param key key
+     * @param update update
+     */
+    private synchronized void add(Object key, Runnable update) {
+        Integer index = keyedUpdates.get(key);
+        if (index == null) {
+            keyedUpdates.put(key, Integer.valueOf(updates.size()));
+            updates.add(update);
+        } else {
+            // the previous update has not been executed yet, and is now stale
+            updates.set(index.intValue(), update);
+        }
+    }
+
+    /**
+     * Returns the number of updates waiting to be executed.
+     * 
+     * @return number of updates
+     */
+    // Default visibility for unit tests.
+    synchronized int getNumWaitingUpdates() {
+        return updates.size();
+    }
+
+    /** Posts the batch to the JavaFX thread, unless it is empty or has already been posted. */
+    private synchronized void post() {
+        if (!posted && !updates.isEmpty()) {
+            posted = true;
+            runLater(this::runUpdates);
+        }
+    }
+
+    /** Executes all waiting updates. This method must be called from the JavaFX thread. */
+    private void runUpdates() {
+        List<Runnable> batch;
+        synchronized (this) {
+            batch = updates;
+            updates = new ArrayList<>();
+            keyedUpdates.clear();
+            posted = false;
+        }
+        batch.forEach(Runnable::run);
+    }
+
+    /**
+     * Runs the given runnable on the JavaFX thread.
+     * 
+     * @param runnable
+     *            runnable
+     */
+    // Default visibility as an extension point for unit tests.
+    void runLater(Runnable runnable) {
+        Platform.runLater(runnable);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -34,13 +35,15 @@ import nl.mvdr.game.engine.GameLoop;
 import nl.mvdr.game.gui.CompositeRenderer;
 import nl.mvdr.game.gui.GameRenderer;
 import nl.mvdr.game.input.InputController;
+import nl.mvdr.tinustris.core.bot.BotInputController;
 import nl.mvdr.tinustris.core.configuration.Configuration;
 import nl.mvdr.tinustris.core.configuration.PlayerConfiguration;
 import nl.mvdr.tinustris.core.engine.GapGenerator;
 import nl.mvdr.tinustris.core.engine.Generator;
-import nl.mvdr.tinustris.core.engine.MultiplayerEngine;
 import nl.mvdr.tinustris.core.engine.OnePlayerEngine;
 import nl.mvdr.tinustris.core.engine.RandomTetrominoGenerator;
+import nl.mvdr.tinustris.core.engine.ReleasingMultiplayerEngine;
+import nl.mvdr.tinustris.core.engine.SinglePlayerEngine;
 import nl.mvdr.tinustris.core.gui.MultiplayerGameRenderer;
 import nl.mvdr.tinustris.core.input.Input;
 import nl.mvdr.tinustris.core.model.MultiplayerGameState;
@@ -77,7 +80,8 @@ public class Tinustris {
         
         List<OnePlayerGameRenderer> onePlayerRenderers = configuration.getPlayerConfigurations().stream()
             .map(PlayerConfiguration::getName)
-            .map(name -> new OnePlayerGameRenderer(name, widthInBlocks, heightInBlocks, blockCreator))
+            .map(name -> createOnePlayerRenderer(name, widthInBlocks, heightInBlocks, blockCreator,
+                    configuration.getGraphicsStyle()))
             .collect(Collectors.toList());
         
         FlowPane parent = new FlowPane(MARGIN, MARGIN);
@@ -99,6 +103,32 @@ public class Tinustris {
         initAndStartGameLoop(onePlayerRenderers, configuration);
     }
 
+    /**
+     * Creates the renderer for a single player's game.
+     * 
+     * @param name player name
+     * @param widthInBlocks width of the grid in blocks
+     * @param heightInBlocks height of the visible part of the grid in blocks
+     * @param blockCreator block creator
+     * @param graphicsStyle graphics style
+     * @return renderer
+     */
+    private OnePlayerGameRenderer createOnePlayerRenderer(String name, int widthInBlocks, int heightInBlocks,
+            BlockCreator blockCreator, GraphicsStyle graphicsStyle) {
+        OnePlayerGameRenderer result;
+        if (graphicsStyle == GraphicsStyle.CANVAS) {
+            result = new OnePlayerGameRenderer(name, widthInBlocks, heightInBlocks, blockCreator,
+                    new CanvasGridRenderer(widthInBlocks, heightInBlocks));
+        } else if (graphicsStyle == GraphicsStyle.THREE_DIMENSIONAL) {
+            // a single mesh for the entire grid, rather than a box per block
+            result = new OnePlayerGameRenderer(name, widthInBlocks, heightInBlocks, blockCreator,
+                    new MeshGridRenderer());
+        } else {
+            result = new OnePlayerGameRenderer(name, widthInBlocks, heightInBlocks, blockCreator);
+        }
+        return result;
+    }
+
     /**
      * Initialises and starts the main game loop.
      * 
@@ -116,21 +146,28 @@ public class Tinustris {
         
         Generator<Tetromino> tetrominoGenerator = new RandomTetrominoGenerator(configuration.getTetrominoRandomSeed());
         Generator<Integer> gapGenerator = new GapGenerator(configuration.getGapRandomSeed(), OnePlayerGameState.DEFAULT_WIDTH);
-        GameEngine<OnePlayerGameState, Input> onePlayerEngine = new OnePlayerEngine(tetrominoGenerator,
+        OnePlayerEngine onePlayerEngine = new OnePlayerEngine(tetrominoGenerator,
                 configuration.getBehavior(), configuration.getStartLevel(), gapGenerator);
         
+        // computer-controlled players need to see their own games, so their input controllers are rendered to as well
+        List<GameRenderer<OnePlayerGameState>> playerRenderers = IntStream.range(0, numPlayers)
+                .mapToObj(i -> createPlayerRenderer(onePlayerRenderers.get(i), inputControllers.get(i)))
+                .collect(Collectors.toList());
+        
         if (numPlayers == 1) {
             // single player game
-            gameLoop = new GameLoop<>(inputControllers, onePlayerEngine, onePlayerRenderers.get(0));
+            gameLoop = new GameLoop<>(inputControllers, new SinglePlayerEngine(onePlayerEngine),
+                    new RenderBatcher<>(playerRenderers.get(0)));
         } else {
             // multiplayer game
-            GameEngine<MultiplayerGameState, Input> gameEngine = new MultiplayerEngine(numPlayers, onePlayerEngine);
+            GameEngine<MultiplayerGameState, Input> gameEngine = new ReleasingMultiplayerEngine(numPlayers,
+                    onePlayerEngine);
             List<GameRenderer<MultiplayerGameState>> multiplayerRenderers = IntStream.range(0, numPlayers)
-                    .mapToObj(i -> new MultiplayerGameRenderer(onePlayerRenderers.get(i), i))
+                    .mapToObj(i -> new MultiplayerGameRenderer(playerRenderers.get(i), i))
                     .collect(Collectors.toList());
             GameRenderer<MultiplayerGameState> gameRenderer = new CompositeRenderer<>(multiplayerRenderers);
             
-            gameLoop = new GameLoop<>(inputControllers, gameEngine, gameRenderer);
+            gameLoop = new GameLoop<>(inputControllers, gameEngine, new RenderBatcher<>(gameRenderer));
         }
 
         log.info("Ready to start game loop: " + gameLoop);
@@ -138,6 +175,27 @@ public class Tinustris {
         log.info("Game loop started in separate thread.");
     }
 
+    /**
+     * Creates the renderer for a single player.
+     * 
+     * @param onePlayerRenderer
+     *            renderer for the player's game
+     * @param inputController
+     *            the player's input controller
+     * @return renderer which renders to the given renderer, and to the input controller if it is a
+     *         {@link BotInputController}
+     */
+    private GameRenderer<OnePlayerGameState> createPlayerRenderer(OnePlayerGameRenderer onePlayerRenderer,
+            InputController<Input> inputController) {
+        GameRenderer<OnePlayerGameState> result;
+        if (inputController instanceof BotInputController) {
+            result = new CompositeRenderer<>(Arrays.asList(onePlayerRenderer, (BotInputController) inputController));
+        } else {
+            result = onePlayerRenderer;
+        }
+        return result;
+    }
+
     /**
      * Creates a light at (around) the given location.
      * 
@@ -14,10 +14,15 @@
 package nl.mvdr.tinustris.desktop.controller;
 
 import javafx.embed.swing.JFXPanel;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
+import nl.mvdr.tinustris.core.bot.BotPlayerConfiguration;
+import nl.mvdr.tinustris.core.configuration.PlayerConfiguration;
+import nl.mvdr.tinustris.desktop.configuration.LocalPlayerConfiguration;
 import nl.mvdr.tinustris.desktop.controller.PlayerConfigurationController;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -42,4 +47,31 @@ public class PlayerConfigurationControllerTest {
         
         controller.initialize();
     }
+    
+    /** Test method for {@link PlayerConfigurationController#buildConfiguration()} for a local player. */
+    @Test
+    public void testBuildConfiguration() {
+        PlayerConfigurationController controller = new PlayerConfigurationController(new TextField("Tinus"),
+                new TableView<>());
+        controller.initialize();
+        
+        PlayerConfiguration configuration = controller.buildConfiguration();
+        
+        Assert.assertTrue(configuration instanceof LocalPlayerConfiguration);
+        Assert.assertEquals("Tinus", configuration.getName());
+    }
+    
+    /** Test method for {@link PlayerConfigurationController#buildConfiguration()} for a computer player. */
+    @Test
+    public void testBuildConfigurationBot() {
+        CheckBox botCheckBox = new CheckBox();
+        botCheckBox.setSelected(true);
+        PlayerConfigurationController controller = new PlayerConfigurationController(new TextField("Tinus"),
+                new TableView<>(), botCheckBox);
+        controller.initialize();
+        
+        PlayerConfiguration configuration = controller.buildConfiguration();
+        
+        Assert.assertEquals(new BotPlayerConfiguration("Tinus"), configuration);
+    }
 }
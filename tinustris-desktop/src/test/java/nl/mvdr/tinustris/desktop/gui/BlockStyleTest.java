@@ -19,6 +19,7 @@ import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.tinustris.core.model.Block;
 import nl.mvdr.tinustris.desktop.gui.BlockStyle;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -79,4 +80,51 @@ public class BlockStyleTest {
     public void testApplyNullRectangleBox() {
         BlockStyle.ACTIVE.apply((Box)null, Block.I, 25, 0);
     }
+    
+    /** Checks that rectangles with the same block and style share the same fill, regardless of their location. */
+    @Test
+    public void testApplyRectangleSharesFill() {
+        Rectangle rectangle = new Rectangle(0, 0, 30, 30);
+        Rectangle other = new Rectangle(60, 90, 30, 30);
+        
+        BlockStyle.GRID.apply(rectangle, Block.T, 25, 0);
+        BlockStyle.GRID.apply(other, Block.T, 25, 0);
+        
+        Assert.assertSame(rectangle.getFill(), other.getFill());
+        BlockStyle.GRID.apply(other, Block.S, 25, 0);
+        Assert.assertNotSame(rectangle.getFill(), other.getFill());
+    }
+    
+    /** Checks that boxes with the same block and style share the same material. */
+    @Test
+    public void testApplyBoxSharesMaterial() {
+        Box box = new Box();
+        Box other = new Box();
+        
+        BlockStyle.ACTIVE.apply(box, Block.T, 25, 0);
+        BlockStyle.ACTIVE.apply(other, Block.T, 25, 0);
+        
+        Assert.assertSame(box.getMaterial(), other.getMaterial());
+        BlockStyle.GRID.apply(other, Block.T, 25, 0);
+        Assert.assertNotSame(box.getMaterial(), other.getMaterial());
+    }
+    
+    /** Tests {@link BlockStyle#getOpacity(int, int)}. */
+    @Test
+    public void testGetOpacity() {
+        Assert.assertEquals(1, BlockStyle.ACTIVE.getOpacity(25, 5), 0);
+        Assert.assertEquals(.1, BlockStyle.GHOST.getOpacity(25, 5), 0);
+        Assert.assertEquals(1, BlockStyle.DISAPPEARING.getOpacity(30, 0), 0);
+        Assert.assertEquals(.75, BlockStyle.DISAPPEARING.getOpacity(15, 5), 0);
+        Assert.assertEquals(0, BlockStyle.DISAPPEARING.getOpacity(0, 20), 0);
+    }
+    
+    /** Tests {@link BlockStyle#getDisappearingFactor(int, int)}. */
+    @Test
+    public void testGetDisappearingFactor() {
+        Assert.assertEquals(1, BlockStyle.getDisappearingFactor(30, 0), 0);
+        Assert.assertEquals(.75, BlockStyle.getDisappearingFactor(15, 5), 0);
+        Assert.assertEquals(0, BlockStyle.getDisappearingFactor(0, 20), 0);
+        Assert.assertEquals(1, BlockStyle.getDisappearingFactor(0, 0), 0);
+    }
 }
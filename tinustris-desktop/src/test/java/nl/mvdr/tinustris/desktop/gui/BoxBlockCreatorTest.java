@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
+import javafx.scene.Node;
 import javafx.scene.shape.Box;
 import nl.mvdr.tinustris.core.model.Block;
 import nl.mvdr.tinustris.desktop.gui.BlockStyle;
@@ -39,4 +40,22 @@ public class BoxBlockCreatorTest {
         
         Assert.assertNotNull(box);
     }
+    
+    /**
+     * Test method for
+     * {@link BoxBlockCreator#updateBlock(Node, double, double, double, Block, BlockStyle, int, int)}.
+     */
+    @Test
+    public void testUpdate() {
+        BoxBlockCreator creator = new BoxBlockCreator();
+        Box box = creator.createBlock(1, 2, 3, Block.L, BlockStyle.GHOST, 3, 2);
+        
+        Node result = creator.updateBlock(box, 4, 5, 3, Block.T, BlockStyle.ACTIVE, 3, 2);
+        
+        Assert.assertSame(box, result);
+        Assert.assertEquals(5.5, box.getTranslateX(), 0);
+        Assert.assertEquals(6.5, box.getTranslateY(), 0);
+        // ghost blocks are hidden in 3D, active ones are not
+        Assert.assertTrue(box.isVisible());
+    }
 }
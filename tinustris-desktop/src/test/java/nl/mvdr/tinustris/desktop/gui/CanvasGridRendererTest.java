@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link CanvasGridRenderer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class CanvasGridRendererTest {
+    /** Tests {@link CanvasGridRenderer#render(OnePlayerGameState)} for the first frame. */
+    @Test
+    public void testRenderFirstFrame() {
+        List<boolean[]> drawnRows = new ArrayList<>();
+        CanvasGridRenderer renderer = createRenderer(drawnRows);
+        
+        renderer.render(createGameState(false));
+        
+        Assert.assertEquals(1, drawnRows.size());
+        Assert.assertEquals(20, drawnRows.get(0).length);
+        for (boolean dirty : drawnRows.get(0)) {
+            Assert.assertTrue(dirty);
+        }
+    }
+    
+    /** Tests {@link CanvasGridRenderer#render(OnePlayerGameState)} with the same game state twice. */
+    @Test
+    public void testRenderSameStateTwice() {
+        List<boolean[]> drawnRows = new ArrayList<>();
+        CanvasGridRenderer renderer = createRenderer(drawnRows);
+        OnePlayerGameState state = createGameState(false);
+        
+        renderer.render(state);
+        renderer.render(state);
+        
+        Assert.assertEquals(1, drawnRows.size());
+    }
+    
+    /** Checks that only the rows which have changed are redrawn when the active block moves down. */
+    @Test
+    public void testRenderMovedBlock() {
+        List<boolean[]> drawnRows = new ArrayList<>();
+        CanvasGridRenderer renderer = createRenderer(drawnRows);
+        OnePlayerGameState state = createGameState(false);
+        renderer.render(state);
+        
+        renderer.render(state.withCurrentBlockLocation(Optional.of(new Point(5, 9))));
+        
+        Assert.assertEquals(2, drawnRows.size());
+        // the O block occupied rows 11 and 12, and now occupies rows 10 and 11
+        for (int y = 0; y != 20; y++) {
+            Assert.assertEquals("row " + y, y == 10 || y == 12, drawnRows.get(1)[y]);
+        }
+    }
+    
+    /** Checks that disappearing lines are redrawn every frame, since their opacity changes. */
+    @Test
+    public void testRenderDisappearingLine() {
+        List<boolean[]> drawnRows = new ArrayList<>();
+        CanvasGridRenderer renderer = createRenderer(drawnRows);
+        OnePlayerGameState state = createGameState(true).withNumFramesUntilLinesDisappear(10);
+        renderer.render(state);
+        
+        renderer.render(state.withNumFramesUntilLinesDisappear(9).withNumFramesSinceLastLock(1));
+        
+        Assert.assertEquals(2, drawnRows.size());
+        for (int y = 0; y != 20; y++) {
+            Assert.assertEquals("row " + y, y == 0, drawnRows.get(1)[y]);
+        }
+    }
+    
+    /**
+     * Creates a renderer which records the rows it draws instead of actually drawing them.
+     * 
+     * @param drawnRows list to which the dirty rows of each drawing pass are added
+     * @return renderer
+     */
+    private CanvasGridRenderer createRenderer(List<boolean[]> drawnRows) {
+        return new CanvasGridRenderer(10, 20) {
+            /** 
+             * Mock implementation which simply executes the runnable on the current thread.
+             * 
+             * @param runnable runnable
+             */
+            @Override
+            protected void runOnJavaFXThread(Runnable runnable) {
+                runnable.run();
+            }
+            
+            /** {@inheritDoc} */
+            @Override
+            void drawRows(boolean[] dirtyRows) {
+                drawnRows.add(dirtyRows);
+            }
+        };
+    }
+    
+    /**
+     * Creates a game state, with an O block at (5, 10), occupying rows 11 and 12.
+     * 
+     * @param fullLine whether the bottom line of the grid should be full
+     * @return game state
+     */
+    private OnePlayerGameState createGameState(boolean fullLine) {
+        List<Optional<Block>> grid = new ArrayList<>(220);
+        if (fullLine) {
+            grid.addAll(Collections.nCopies(10, Optional.of(Block.S)));
+        } else {
+            grid.addAll(Collections.nCopies(10, Optional.empty()));
+        }
+        grid.addAll(Collections.nCopies(210, Optional.empty()));
+        return new OnePlayerGameState(grid, 10, Tetromino.O, new Point(5, 10), Orientation.getDefault(), Tetromino.I);
+    }
+}
@@ -43,6 +43,14 @@ public class GraphicsStyleTest {
         Assert.assertNotNull(creator);
     }
     
+    /** Test method for {@link GraphicsStyle#makeBlockCreator()}. */
+    @Test
+    public void testCanvasBlockCreator() {
+        BlockCreator creator = GraphicsStyle.CANVAS.makeBlockCreator();
+        
+        Assert.assertNotNull(creator);
+    }
+    
     /** Test method for {@link GraphicsStyle#isAvailable()}. */
     @Test
     public void test2DIsAvailable() {
@@ -59,6 +67,14 @@ public class GraphicsStyleTest {
         log.info("3D available: " + available);
     }
     
+    /** Test method for {@link GraphicsStyle#isAvailable()}. */
+    @Test
+    public void testCanvasIsAvailable() {
+        boolean available = GraphicsStyle.CANVAS.isAvailable();
+        
+        Assert.assertTrue(available);
+    }
+    
     /** Tests the toString method. */
     @Test
     public void testToString() {
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link GridCells}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class GridCellsTest {
+    /** Checks that every combination of block and style is encoded as a different cell value, and decoded again. */
+    @Test
+    public void testToCellValue() {
+        boolean[] used = new boolean[GridCells.NUM_CELL_VALUES];
+        for (BlockStyle style : BlockStyle.values()) {
+            for (Block block : Block.values()) {
+                int cell = GridCells.toCellValue(block, style);
+                
+                Assert.assertFalse(used[cell]);
+                used[cell] = true;
+                Assert.assertEquals(block, GridCells.getBlock(cell));
+                Assert.assertEquals(style, GridCells.getStyle(cell));
+            }
+        }
+    }
+    
+    /** Tests {@link GridCells#update(OnePlayerGameState)} for the first frame. */
+    @Test
+    public void testUpdateFirstFrame() {
+        GridCells cells = new GridCells(true);
+        OnePlayerGameState state = createGameState(false);
+        Point active = state.getCurrentActiveBlockPoints().iterator().next();
+        Point ghost = state.getGhostPoints().iterator().next();
+        
+        boolean[] dirtyRows = cells.update(state);
+        
+        Assert.assertEquals(20, dirtyRows.length);
+        for (boolean dirty : dirtyRows) {
+            Assert.assertTrue(dirty);
+        }
+        Assert.assertEquals(10, cells.getWidth());
+        Assert.assertEquals(20, cells.getHeight());
+        Assert.assertEquals(GridCells.toCellValue(Block.O, BlockStyle.ACTIVE),
+                cells.getCell(active.getX(), active.getY()));
+        Assert.assertEquals(GridCells.toCellValue(Block.O, BlockStyle.GHOST),
+                cells.getCell(ghost.getX(), ghost.getY()));
+        Assert.assertEquals(GridCells.EMPTY, cells.getCell(0, 5));
+    }
+    
+    /** Checks that the ghost is left out if so configured. */
+    @Test
+    public void testUpdateWithoutGhost() {
+        GridCells cells = new GridCells(false);
+        OnePlayerGameState state = createGameState(false);
+        Point active = state.getCurrentActiveBlockPoints().iterator().next();
+        Point ghost = state.getGhostPoints().iterator().next();
+        
+        cells.update(state);
+        
+        Assert.assertEquals(GridCells.toCellValue(Block.O, BlockStyle.ACTIVE),
+                cells.getCell(active.getX(), active.getY()));
+        Assert.assertEquals(GridCells.EMPTY, cells.getCell(ghost.getX(), ghost.getY()));
+    }
+    
+    /** Tests {@link GridCells#update(OnePlayerGameState)} with the same game state twice. */
+    @Test
+    public void testUpdateSameStateTwice() {
+        GridCells cells = new GridCells(true);
+        OnePlayerGameState state = createGameState(false);
+        cells.update(state);
+        
+        Assert.assertNull(cells.update(state));
+    }
+    
+    /** Checks that only the rows which have changed are dirty when the active block moves down. */
+    @Test
+    public void testUpdateMovedBlock() {
+        GridCells cells = new GridCells(true);
+        OnePlayerGameState state = createGameState(false);
+        cells.update(state);
+        
+        boolean[] dirtyRows = cells.update(state.withCurrentBlockLocation(Optional.of(new Point(5, 9))));
+        
+        // the O block occupied rows 11 and 12, and now occupies rows 10 and 11
+        for (int y = 0; y != 20; y++) {
+            Assert.assertEquals("row " + y, y == 10 || y == 12, dirtyRows[y]);
+        }
+    }
+    
+    /** Checks that disappearing lines are dirty every frame, since the disappearing factor changes. */
+    @Test
+    public void testUpdateDisappearingLine() {
+        GridCells cells = new GridCells(true);
+        OnePlayerGameState state = createGameState(true).withNumFramesUntilLinesDisappear(10);
+        cells.update(state);
+        
+        boolean[] dirtyRows = cells.update(state.withNumFramesUntilLinesDisappear(9).withNumFramesSinceLastLock(1));
+        
+        for (int y = 0; y != 20; y++) {
+            Assert.assertEquals("row " + y, y == 0, dirtyRows[y]);
+        }
+        Assert.assertEquals(.9, cells.getDisappearingFactor(), 0);
+        Assert.assertEquals(GridCells.toCellValue(Block.S, BlockStyle.DISAPPEARING), cells.getCell(0, 0));
+    }
+    
+    /** Checks that all rows are dirty when the dimensions of the grid change. */
+    @Test
+    public void testUpdateOtherDimensions() {
+        GridCells cells = new GridCells(true);
+        cells.update(createGameState(false));
+        
+        boolean[] dirtyRows = cells.update(new OnePlayerGameState(Collections.nCopies(8 * 22, Optional.empty()), 8,
+                Optional.empty(), Tetromino.I));
+        
+        Assert.assertEquals(20, dirtyRows.length);
+        for (boolean dirty : dirtyRows) {
+            Assert.assertTrue(dirty);
+        }
+        Assert.assertEquals(8, cells.getWidth());
+        Assert.assertEquals(GridCells.EMPTY, cells.getCell(7, 19));
+    }
+    
+    /**
+     * Creates a game state, with an O block at (5, 10), occupying rows 11 and 12.
+     * 
+     * @param fullLine whether the bottom line of the grid should be full
+     * @return game state
+     */
+    private OnePlayerGameState createGameState(boolean fullLine) {
+        List<Optional<Block>> grid = new ArrayList<>(220);
+        if (fullLine) {
+            grid.addAll(Collections.nCopies(10, Optional.of(Block.S)));
+        } else {
+            grid.addAll(Collections.nCopies(10, Optional.empty()));
+        }
+        grid.addAll(Collections.nCopies(210, Optional.empty()));
+        return new OnePlayerGameState(grid, 10, Tetromino.O, new Point(5, 10), Orientation.getDefault(), Tetromino.I);
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import javafx.scene.Group;
+import javafx.scene.Node;
 import javafx.scene.shape.Rectangle;
 import lombok.extern.slf4j.Slf4j;
 import nl.mvdr.tinustris.core.model.Block;
@@ -106,6 +108,45 @@ public class GridRendererTest {
         Assert.assertFalse(renderer.getChildren().isEmpty());
     }
     
+    /** Checks that nodes are reused when the grid and the active block change. */
+    @Test
+    public void testRenderReusesNodes() {
+        GridRenderer renderer = createGridGroup(new RectangleBlockCreator());
+        OnePlayerGameState state = createNontrivialGameState();
+        renderer.render(state);
+        List<Node> gridNodes = new ArrayList<>(getNodes(renderer, 0));
+        List<Node> activeBlockNodes = new ArrayList<>(getNodes(renderer, 2));
+        
+        OnePlayerGameState nextState = state
+                .withGrid(state.getGrid().withBlocks(Collections.singletonList(new Point(3, 0)), Block.T))
+                .withCurrentBlockLocation(Optional.of(new Point(4, 10)));
+        renderer.render(nextState);
+        
+        Assert.assertEquals(1, gridNodes.size());
+        Assert.assertEquals(2, getNodes(renderer, 0).size());
+        Assert.assertSame(gridNodes.get(0), getNodes(renderer, 0).get(0));
+        Assert.assertEquals(4, activeBlockNodes.size());
+        Assert.assertEquals(activeBlockNodes, getNodes(renderer, 2));
+    }
+    
+    /** Checks that the nodes for cells which become empty are hidden. */
+    @Test
+    public void testRenderHidesEmptyCells() {
+        GridRenderer renderer = createGridGroup(new RectangleBlockCreator());
+        renderer.render(createNontrivialGameState());
+        Node node = getNodes(renderer, 0).get(0);
+        
+        renderer.render(new OnePlayerGameState());
+        
+        Assert.assertEquals(Collections.singletonList(node), getNodes(renderer, 0));
+        Assert.assertFalse(node.isVisible());
+        
+        renderer.render(createNontrivialGameState());
+        
+        Assert.assertEquals(Collections.singletonList(node), getNodes(renderer, 0));
+        Assert.assertTrue(node.isVisible());
+    }
+    
     /** Tests {@link GridRenderer#render(OnePlayerGameState)} when a null value of GameState is passed in. */
     @Test(expected = NullPointerException.class)
     public void testNullState() {
@@ -120,7 +161,17 @@ public class GridRendererTest {
      * @return renderer
      */
     private GridRenderer createGridGroup() {
-        return new GridRenderer((x, y, size, block, style, framesUnitl, framesSince) -> new Rectangle()) {
+        return createGridGroup((x, y, size, block, style, framesUnitl, framesSince) -> new Rectangle());
+    }
+    
+    /**
+     * Creates a new renderer.
+     * 
+     * @param blockCreator block creator
+     * @return renderer
+     */
+    private GridRenderer createGridGroup(BlockCreator blockCreator) {
+        return new GridRenderer(blockCreator) {
             /** 
              * Mock implementation which just executes the runnable on the current thread.
              * 
@@ -134,6 +185,17 @@ public class GridRendererTest {
         };
     }
     
+    /**
+     * Returns the nodes in one of the renderer's groups.
+     * 
+     * @param renderer renderer
+     * @param index index of the group: 0 for the grid, 1 for the ghost, 2 for the active block
+     * @return nodes
+     */
+    private List<Node> getNodes(GridRenderer renderer, int index) {
+        return ((Group) renderer.getChildren().get(index)).getChildren();
+    }
+    
     /**
      * Creates a nontrivial game state, containing a block in the grid, an active block and a ghost.
      * 
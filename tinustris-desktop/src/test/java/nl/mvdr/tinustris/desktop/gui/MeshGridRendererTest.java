@@ -0,0 +1,207 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import javafx.scene.shape.TriangleMesh;
+import nl.mvdr.tinustris.core.model.Block;
+import nl.mvdr.tinustris.core.model.OnePlayerGameState;
+import nl.mvdr.tinustris.core.model.Orientation;
+import nl.mvdr.tinustris.core.model.Point;
+import nl.mvdr.tinustris.core.model.Tetromino;
+import nl.mvdr.tinustris.desktop.gui.MeshGridRenderer.RowUpdate;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link MeshGridRenderer}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class MeshGridRendererTest {
+    /** Tests {@link MeshGridRenderer#render(OnePlayerGameState)} for the first frame. */
+    @Test
+    public void testRenderFirstFrame() {
+        List<List<RowUpdate>> updates = new ArrayList<>();
+        MeshGridRenderer renderer = createRenderer(updates);
+        
+        renderer.render(createGameState(false));
+        
+        Assert.assertEquals(1, updates.size());
+        Assert.assertEquals(20, updates.get(0).size());
+        for (int y = 0; y != 20; y++) {
+            RowUpdate update = updates.get(0).get(y);
+            Assert.assertEquals(y, update.getY());
+            Assert.assertEquals(10 * 8 * 3, update.getPoints().length);
+            Assert.assertEquals(10 * 2, update.getTexCoords().length);
+        }
+    }
+    
+    /** Checks the cube for a single block in the grid, and the slot for an empty cell. */
+    @Test
+    public void testRenderCube() {
+        List<List<RowUpdate>> updates = new ArrayList<>();
+        MeshGridRenderer renderer = createRenderer(updates);
+        
+        renderer.render(createGameState(false));
+        
+        // block S at (2, 0)
+        RowUpdate update = updates.get(0).get(0);
+        for (int corner = 0; corner != 8; corner++) {
+            int index = 2 * 24 + corner * 3;
+            Assert.assertEquals(corner % 2 == 0 ? 61 : 89, update.getPoints()[index], 0);
+            Assert.assertEquals((corner & 2) == 0 ? 571 : 599, update.getPoints()[index + 1], 0);
+            Assert.assertEquals(corner < 4 ? -14 : 14, update.getPoints()[index + 2], 0);
+        }
+        Assert.assertEquals((Block.S.ordinal() + .5f) / Block.values().length, update.getTexCoords()[4], 0);
+        Assert.assertEquals((BlockStyle.GRID.ordinal() + .5f) / BlockStyle.values().length,
+                update.getTexCoords()[5], 0);
+        // empty cell at (0, 0)
+        for (int i = 0; i != 24; i++) {
+            Assert.assertEquals(0, update.getPoints()[i], 0);
+        }
+    }
+    
+    /** Checks the faces and smoothing groups of the mesh. */
+    @Test
+    public void testUpdateMesh() {
+        MeshGridRenderer renderer = new MeshGridRenderer() {
+            /** 
+             * Mock implementation which simply executes the runnable on the current thread.
+             * 
+             * @param runnable runnable
+             */
+            @Override
+            protected void runOnJavaFXThread(Runnable runnable) {
+                runnable.run();
+            }
+        };
+        
+        renderer.render(createGameState(false));
+        
+        TriangleMesh mesh = renderer.getMesh();
+        Assert.assertEquals(200 * 8 * 3, mesh.getPoints().size());
+        Assert.assertEquals(200 * 2, mesh.getTexCoords().size());
+        Assert.assertEquals(200 * 12 * 6, mesh.getFaces().size());
+        Assert.assertEquals(200 * 12, mesh.getFaceSmoothingGroups().size());
+        for (int triangle = 0; triangle != 200 * 12; triangle++) {
+            // one group per side of the cube, shared by the side's two triangles
+            Assert.assertEquals(1 << triangle % 12 / 2, mesh.getFaceSmoothingGroups().get(triangle));
+        }
+        // the front side faces the camera, wound like a Box's: (x, y) corners (0, 0), (0, 1), (1, 1) and
+        // (0, 0), (1, 1), (1, 0)
+        int[] expectedCorners = { 0, 2, 3, 0, 3, 1 };
+        for (int i = 0; i != expectedCorners.length; i++) {
+            Assert.assertEquals(expectedCorners[i], mesh.getFaces().get(2 * i));
+        }
+    }
+    
+    /** Tests {@link MeshGridRenderer#render(OnePlayerGameState)} with the same game state twice. */
+    @Test
+    public void testRenderSameStateTwice() {
+        List<List<RowUpdate>> updates = new ArrayList<>();
+        MeshGridRenderer renderer = createRenderer(updates);
+        OnePlayerGameState state = createGameState(false);
+        
+        renderer.render(state);
+        renderer.render(state);
+        
+        Assert.assertEquals(1, updates.size());
+    }
+    
+    /** Checks that only the rows which have changed are updated when the active block moves down. */
+    @Test
+    public void testRenderMovedBlock() {
+        List<List<RowUpdate>> updates = new ArrayList<>();
+        MeshGridRenderer renderer = createRenderer(updates);
+        OnePlayerGameState state = createGameState(false);
+        renderer.render(state);
+        
+        renderer.render(state.withCurrentBlockLocation(Optional.of(new Point(5, 9))));
+        
+        Assert.assertEquals(2, updates.size());
+        // the O block occupied rows 11 and 12, and now occupies rows 10 and 11
+        Assert.assertEquals(2, updates.get(1).size());
+        Assert.assertEquals(10, updates.get(1).get(0).getY());
+        Assert.assertEquals(12, updates.get(1).get(1).getY());
+    }
+    
+    /** Checks that disappearing lines are updated every frame, with squashed cubes. */
+    @Test
+    public void testRenderDisappearingLine() {
+        List<List<RowUpdate>> updates = new ArrayList<>();
+        MeshGridRenderer renderer = createRenderer(updates);
+        OnePlayerGameState state = createGameState(true).withNumFramesUntilLinesDisappear(10);
+        renderer.render(state);
+        
+        renderer.render(state.withNumFramesUntilLinesDisappear(5).withNumFramesSinceLastLock(5));
+        
+        Assert.assertEquals(2, updates.size());
+        Assert.assertEquals(1, updates.get(1).size());
+        RowUpdate update = updates.get(1).get(0);
+        Assert.assertEquals(0, update.getY());
+        // half of the cube's height of 28, centered vertically
+        Assert.assertEquals(578, update.getPoints()[1], 0);
+        Assert.assertEquals(592, update.getPoints()[2 * 3 + 1], 0);
+    }
+    
+    /**
+     * Creates a renderer which records the row updates instead of actually updating the mesh.
+     * 
+     * @param updates list to which the row updates of each frame are added
+     * @return renderer
+     */
+    private MeshGridRenderer createRenderer(List<List<RowUpdate>> updates) {
+        return new MeshGridRenderer() {
+            /** 
+             * Mock implementation which simply executes the runnable on the current thread.
+             * 
+             * @param runnable runnable
+             */
+            @Override
+            protected void runOnJavaFXThread(Runnable runnable) {
+                runnable.run();
+            }
+            
+            /** {@inheritDoc} */
+            @Override
+            void updateMesh(List<RowUpdate> rowUpdates, int width, int height) {
+                updates.add(rowUpdates);
+            }
+        };
+    }
+    
+    /**
+     * Creates a game state, with an S block at (2, 0) and an O block at (5, 10), occupying rows 11 and 12.
+     * 
+     * @param fullLine whether the bottom line of the grid should be full
+     * @return game state
+     */
+    private OnePlayerGameState createGameState(boolean fullLine) {
+        List<Optional<Block>> grid = new ArrayList<>(220);
+        if (fullLine) {
+            grid.addAll(Collections.nCopies(10, Optional.of(Block.S)));
+        } else {
+            grid.addAll(Collections.nCopies(10, Optional.empty()));
+            grid.set(2, Optional.of(Block.S));
+        }
+        grid.addAll(Collections.nCopies(210, Optional.empty()));
+        return new OnePlayerGameState(grid, 10, Tetromino.O, new Point(5, 10), Orientation.getDefault(), Tetromino.I);
+    }
+}
@@ -13,6 +13,7 @@
  */
 package nl.mvdr.tinustris.desktop.gui;
 
+import javafx.scene.Node;
 import javafx.scene.shape.Rectangle;
 import nl.mvdr.tinustris.core.model.Block;
 import nl.mvdr.tinustris.desktop.gui.BlockStyle;
@@ -39,4 +40,23 @@ public class RectangleBlockCreatorTest {
         
         Assert.assertNotNull(rectangle);
     }
+    
+    /**
+     * Test method for
+     * {@link RectangleBlockCreator#updateBlock(Node, double, double, double, Block, BlockStyle, int, int)}.
+     */
+    @Test
+    public void testUpdate() {
+        RectangleBlockCreator creator = new RectangleBlockCreator();
+        Rectangle rectangle = creator.createBlock(1, 2, 3, Block.L, BlockStyle.ACTIVE, 3, 2);
+        rectangle.setVisible(false);
+        
+        Node result = creator.updateBlock(rectangle, 4, 5, 3, Block.T, BlockStyle.GHOST, 3, 2);
+        
+        Assert.assertSame(rectangle, result);
+        Assert.assertEquals(4, rectangle.getX(), 0);
+        Assert.assertEquals(5, rectangle.getY(), 0);
+        Assert.assertTrue(rectangle.isVisible());
+        Assert.assertEquals(.1, rectangle.getOpacity(), 0);
+    }
 }
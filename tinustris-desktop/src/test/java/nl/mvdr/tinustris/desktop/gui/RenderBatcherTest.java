@@ -0,0 +1,166 @@
+/*
+ * Copyright 2013-2015 Martijn van de Rijdt 
+ * 
+ * This file is part of Tinustris.
+ * 
+ * Tinustris is free software: you can redistribute it and/or modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the License, or (at your option) any later version.
+ * 
+ * Tinustris is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License along with Tinustris. If not, see <http://www.gnu.org/licenses/>.
+ */
+package nl.mvdr.tinustris.desktop.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nl.mvdr.game.gui.GameRenderer;
+import nl.mvdr.tinustris.core.model.DummyGameState;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test class for {@link RenderBatcher}.
+ * 
+ * @author Martijn van de Rijdt
+ */
+public class RenderBatcherTest {
+    /** Checks that the updates from all renderers in a frame are posted as a single runnable. */
+    @Test
+    public void testRenderSingleRunnable() {
+        List<Runnable> posted = new ArrayList<>();
+        List<String> executed = new ArrayList<>();
+        GameRenderer<DummyGameState> first = state -> RenderBatcher.runOnJavaFXThread("first",
+                () -> executed.add("first"));
+        GameRenderer<DummyGameState> second = state -> RenderBatcher.runOnJavaFXThread("second",
+                () -> executed.add("second"));
+        RenderBatcher<DummyGameState> batcher = createBatcher(state -> {
+            first.render(state);
+            second.render(state);
+        }, posted);
+        
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        
+        Assert.assertEquals(1, posted.size());
+        Assert.assertTrue(executed.isEmpty());
+        posted.get(0).run();
+        Assert.assertEquals(Arrays.asList("first", "second"), executed);
+    }
+    
+    /** Checks that nothing is posted for a frame without updates. */
+    @Test
+    public void testRenderNoUpdates() {
+        List<Runnable> posted = new ArrayList<>();
+        RenderBatcher<DummyGameState> batcher = createBatcher(state -> {
+            // do nothing
+        }, posted);
+        
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        
+        Assert.assertTrue(posted.isEmpty());
+    }
+    
+    /**
+     * Checks that no new runnable is posted while the previous one is still waiting, and that the latest update from
+     * subsequent frames is executed by the waiting runnable.
+     */
+    @Test
+    public void testRenderFallingBehind() {
+        List<Runnable> posted = new ArrayList<>();
+        List<Integer> executed = new ArrayList<>();
+        Object key = new Object();
+        int[] frame = {0};
+        RenderBatcher<DummyGameState> batcher = createBatcher(state -> {
+            int value = frame[0]++;
+            RenderBatcher.runOnJavaFXThread(key, () -> executed.add(Integer.valueOf(value)));
+        }, posted);
+        
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        
+        Assert.assertEquals(1, posted.size());
+        posted.get(0).run();
+        Assert.assertEquals(Arrays.asList(2), executed);
+        
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        
+        Assert.assertEquals(2, posted.size());
+        posted.get(1).run();
+        Assert.assertEquals(Arrays.asList(2, 3), executed);
+    }
+    
+    /**
+     * Checks that stale updates are dropped when the JavaFX thread falls behind, while updates for other keys keep
+     * their place in the batch.
+     */
+    @Test
+    public void testRenderStaleUpdates() {
+        List<Runnable> posted = new ArrayList<>();
+        List<String> executed = new ArrayList<>();
+        Object key = new Object();
+        int[] frame = {0};
+        RenderBatcher<DummyGameState> batcher = createBatcher(state -> {
+            String value = "frame " + frame[0]++;
+            if ("frame 0".equals(value)) {
+                RenderBatcher.runOnJavaFXThread("other", () -> executed.add("other"));
+            }
+            RenderBatcher.runOnJavaFXThread(key, () -> executed.add(value));
+        }, posted);
+        
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        batcher.render(DummyGameState.GAME_NOT_OVER);
+        
+        Assert.assertEquals(1, posted.size());
+        posted.get(0).run();
+        Assert.assertEquals(Arrays.asList("other", "frame 1"), executed);
+    }
+    
+    /**
+     * Checks that the batch does not grow while the JavaFX thread is not executing it: it never contains more than
+     * one update per key.
+     */
+    @Test
+    public void testRenderBounded() {
+        List<Runnable> posted = new ArrayList<>();
+        List<String> executed = new ArrayList<>();
+        int[] frame = {0};
+        RenderBatcher<DummyGameState> batcher = createBatcher(state -> {
+            int value = frame[0]++;
+            RenderBatcher.runOnJavaFXThread("first", () -> executed.add("first " + value));
+            RenderBatcher.runOnJavaFXThread("second", () -> executed.add("second " + value));
+        }, posted);
+        
+        for (int i = 0; i != 100; i++) {
+            batcher.render(DummyGameState.GAME_NOT_OVER);
+            
+            Assert.assertEquals(1, posted.size());
+            Assert.assertEquals(2, batcher.getNumWaitingUpdates());
+        }
+        posted.get(0).run();
+        
+        Assert.assertEquals(0, batcher.getNumWaitingUpdates());
+        Assert.assertEquals(Arrays.asList("first 99", "second 99"), executed);
+    }
+    
+    /**
+     * Creates a batcher which records the runnables it posts instead of actually posting them.
+     * 
+     * @param renderer renderer
+     * @param posted list to which posted runnables are added
+     * @return batcher
+     */
+    private RenderBatcher<DummyGameState> createBatcher(GameRenderer<DummyGameState> renderer, List<Runnable> posted) {
+        return new RenderBatcher<DummyGameState>(renderer) {
+            /** {@inheritDoc} */
+            @Override
+            void runLater(Runnable runnable) {
+                posted.add(runnable);
+            }
+        };
+    }
+}